@@ -0,0 +1,30 @@
+package bg.autohouse.benchmarks;
+
+import bg.autohouse.Autohouse;
+import java.io.IOException;
+import java.util.Properties;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+/** Starts the application on the in-memory H2 database of the tests, without SQL and request logging. */
+final class BenchmarkContext {
+
+  private BenchmarkContext() {}
+
+  static ConfigurableApplicationContext start() throws IOException {
+    // the devtools restarter would relaunch the benchmark thread
+    System.setProperty("spring.devtools.restart.enabled", "false");
+    Properties properties = PropertiesLoaderUtils.loadAllProperties("test.properties");
+    return new SpringApplicationBuilder(Autohouse.class)
+        .profiles("test")
+        .properties(properties)
+        .run(
+            "--server.port=0",
+            "--spring.jpa.show-sql=false",
+            "--spring.jpa.properties.hibernate.format_sql=false",
+            "--logging.level.root=WARN",
+            "--logging.level.bg.autohouse=WARN",
+            "--logging.level.org.springframework=WARN");
+  }
+}
@@ -0,0 +1,140 @@
+package bg.autohouse.benchmarks;
+
+import static java.awt.Color.WHITE;
+
+import bg.autohouse.data.models.media.ImageVariant;
+import bg.autohouse.util.ImageResizer;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import org.imgscalr.Scalr;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the image pipeline with the previous one, which redrew every image without its alpha
+ * channel, created a JPEG writer per image and scaled with imgscalr ULTRA_QUALITY. The sources are
+ * an upload that already fits and a camera sized photo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageResizerBenchmark {
+
+  private static final int MAX_IMAGE_SIZE = 1024;
+
+  @Param({"800x600", "4000x3000"})
+  public String source;
+
+  private final ImageResizer imageResizer = new ImageResizer();
+  private byte[] jpeg;
+
+  @Setup
+  public void setUp() throws IOException {
+    String[] size = source.split("x");
+    jpeg = legacyToJpg(photo(Integer.parseInt(size[0]), Integer.parseInt(size[1])));
+  }
+
+  @Benchmark
+  public byte[] downscaleToSize() throws IOException {
+    return imageResizer.toJpgDownscaleToSize(new ByteArrayInputStream(jpeg));
+  }
+
+  @Benchmark
+  public byte[] legacyDownscaleToSize() throws IOException {
+    BufferedImage image = ImageIO.read(new ByteArrayInputStream(jpeg));
+    if (image.getWidth() <= MAX_IMAGE_SIZE && image.getHeight() <= MAX_IMAGE_SIZE) {
+      return legacyToJpg(image);
+    }
+    Scalr.Mode mode =
+        image.getWidth() < image.getHeight() ? Scalr.Mode.FIT_TO_HEIGHT : Scalr.Mode.FIT_TO_WIDTH;
+    return legacyToJpg(
+        Scalr.resize(image, Scalr.Method.ULTRA_QUALITY, mode, MAX_IMAGE_SIZE, MAX_IMAGE_SIZE));
+  }
+
+  @Benchmark
+  public Map<ImageVariant, byte[]> createVariants() throws IOException {
+    return imageResizer.createVariants(new ByteArrayInputStream(jpeg));
+  }
+
+  @Benchmark
+  public Map<ImageVariant, byte[]> legacyCreateVariants() throws IOException {
+    BufferedImage image = ImageIO.read(new ByteArrayInputStream(jpeg));
+    Map<ImageVariant, byte[]> variants = new EnumMap<>(ImageVariant.class);
+    for (ImageVariant variant : ImageVariant.values()) {
+      if (image.getWidth() > variant.width() || image.getHeight() > variant.height()) {
+        double scale =
+            Math.min(
+                (double) variant.width() / image.getWidth(),
+                (double) variant.height() / image.getHeight());
+        image =
+            Scalr.resize(
+                image,
+                Scalr.Method.ULTRA_QUALITY,
+                Scalr.Mode.FIT_EXACT,
+                Math.max(1, (int) Math.round(image.getWidth() * scale)),
+                Math.max(1, (int) Math.round(image.getHeight() * scale)));
+      }
+      variants.put(variant, legacyToJpg(image));
+    }
+    return variants;
+  }
+
+  private static byte[] legacyToJpg(BufferedImage originalImage) throws IOException {
+    int w = originalImage.getWidth();
+    int h = originalImage.getHeight();
+    BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+    image.createGraphics().drawImage(originalImage, 0, 0, w, h, WHITE, null);
+
+    ImageWriter jpgWriter = ImageIO.getImageWritersByFormatName("jpg").next();
+    ImageWriteParam jpgWriteParam = jpgWriter.getDefaultWriteParam();
+    jpgWriteParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+    jpgWriteParam.setCompressionQuality(0.9f);
+    try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        MemoryCacheImageOutputStream mcios = new MemoryCacheImageOutputStream(bos)) {
+      jpgWriter.setOutput(mcios);
+      jpgWriter.write(null, new IIOImage(image, null, null), jpgWriteParam);
+      jpgWriter.dispose();
+      mcios.flush();
+      return bos.toByteArray();
+    }
+  }
+
+  /** Smooth gradients with some noise, closer to a photo than a flat image. */
+  private static BufferedImage photo(int width, int height) {
+    Random random = new Random(42);
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int noise = random.nextInt(24);
+        int r = Math.min(255, x * 200 / width + noise);
+        int g = Math.min(255, y * 200 / height + noise);
+        int b = Math.min(255, (x + y) * 100 / (width + height) + noise);
+        image.setRGB(x, y, (r << 16) | (g << 8) | b);
+      }
+    }
+    return image;
+  }
+}
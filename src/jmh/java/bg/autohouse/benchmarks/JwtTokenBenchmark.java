@@ -0,0 +1,83 @@
+package bg.autohouse.benchmarks;
+
+import bg.autohouse.security.jwt.JwtAuthenticationFilter;
+import bg.autohouse.security.jwt.JwtTokenCreateRequest;
+import bg.autohouse.security.jwt.JwtTokenService;
+import bg.autohouse.security.jwt.JwtTokenType;
+import io.jsonwebtoken.Claims;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Authenticates a request carrying an API client token. The token is parsed once and the principal
+ * is built from its claims, {@code parseClaims} measures the parsing alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenBenchmark {
+
+  private ConfigurableApplicationContext context;
+  private JwtTokenService tokenService;
+  private JwtAuthenticationFilter filter;
+  private String token;
+  private MockHttpServletRequest request;
+
+  @Setup
+  public void setUp() throws IOException {
+    context = BenchmarkContext.start();
+    tokenService = context.getBean(JwtTokenService.class);
+    token =
+        tokenService.createJwt(
+            new JwtTokenCreateRequest(
+                JwtTokenType.API_CLIENT,
+                UUID.randomUUID().toString(),
+                "user@mail.com",
+                "USER,ADMIN"));
+    filter = context.getBean(JwtAuthenticationFilter.class);
+    request = new MockHttpServletRequest("GET", "/api/accounts/user-account");
+    request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Optional<Claims> parseClaims() {
+    return tokenService.parseClaims(token);
+  }
+
+  @Benchmark
+  public Authentication authenticate() throws Exception {
+    Authentication[] authentication = new Authentication[1];
+    filter.doFilter(
+        request,
+        new MockHttpServletResponse(),
+        (req, res) -> authentication[0] = SecurityContextHolder.getContext().getAuthentication());
+    return authentication[0];
+  }
+}
@@ -0,0 +1,103 @@
+package bg.autohouse.benchmarks;
+
+import bg.autohouse.data.models.User;
+import bg.autohouse.data.models.account.Account;
+import bg.autohouse.data.models.enums.AccountType;
+import bg.autohouse.data.models.enums.BodyStyle;
+import bg.autohouse.data.models.enums.Color;
+import bg.autohouse.data.models.enums.Drive;
+import bg.autohouse.data.models.enums.FuelType;
+import bg.autohouse.data.models.enums.State;
+import bg.autohouse.data.models.enums.Transmission;
+import bg.autohouse.data.models.geo.Location;
+import bg.autohouse.data.models.offer.Offer;
+import bg.autohouse.data.models.offer.Vehicle;
+import bg.autohouse.service.models.offer.OfferServiceModel;
+import bg.autohouse.util.ModelMapperWrapper;
+import java.io.IOException;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/** Maps an offer with its vehicle, account and location the way every search result is mapped. */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OfferMappingBenchmark {
+
+  private ConfigurableApplicationContext context;
+  private ModelMapperWrapper modelMapper;
+  private Offer offer;
+
+  @Setup
+  public void setUp() throws IOException {
+    context = BenchmarkContext.start();
+    modelMapper = context.getBean(ModelMapperWrapper.class);
+    offer = offer();
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public OfferServiceModel map() {
+    return modelMapper.map(offer, OfferServiceModel.class);
+  }
+
+  private static Offer offer() {
+    User user = new User();
+    user.setId(UUID.randomUUID());
+    user.setUsername("dealer@mail.com");
+    Account account = new Account();
+    account.setId(UUID.randomUUID());
+    account.setUser(user);
+    account.setAccountType(AccountType.DEALER);
+    account.setDisplayName("Dealer");
+    Location location = new Location();
+    location.setId(1L);
+    location.setCity("Sofia");
+    location.setPostalCode(1000);
+    Offer offer = new Offer();
+    offer.setId(UUID.randomUUID());
+    offer.setCreatedAt(new Date());
+    offer.setAccount(account);
+    offer.setLocation(location);
+    offer.setPrice(24_500);
+    offer.setDescription("Well kept, full service history.");
+    Vehicle vehicle = new Vehicle();
+    vehicle.setId(UUID.randomUUID());
+    vehicle.setOffer(offer);
+    vehicle.setMakerName("BMW");
+    vehicle.setMakerId(1L);
+    vehicle.setModelName("X5");
+    vehicle.setModelId(10L);
+    vehicle.setTrim("xDrive30d");
+    vehicle.setYear(2016);
+    vehicle.setMileage(120_000);
+    vehicle.setDoors(5);
+    vehicle.setState(State.USED);
+    vehicle.setBodyStyle(BodyStyle.CROSSOVER);
+    vehicle.setTransmission(Transmission.AUTOMATIC);
+    vehicle.setDrive(Drive.FOUR_WHEEL_DRIVE);
+    vehicle.setColor(Color.BLACK);
+    vehicle.setFuelType(FuelType.DIESEL);
+    offer.setVehicle(vehicle);
+    return offer;
+  }
+}
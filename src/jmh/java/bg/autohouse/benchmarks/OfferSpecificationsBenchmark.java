@@ -0,0 +1,93 @@
+package bg.autohouse.benchmarks;
+
+import bg.autohouse.data.models.enums.AccountType;
+import bg.autohouse.data.models.enums.BodyStyle;
+import bg.autohouse.data.models.enums.Color;
+import bg.autohouse.data.models.enums.Drive;
+import bg.autohouse.data.models.enums.Feature;
+import bg.autohouse.data.models.enums.FuelType;
+import bg.autohouse.data.models.enums.State;
+import bg.autohouse.data.models.enums.Transmission;
+import bg.autohouse.data.models.offer.Offer;
+import bg.autohouse.data.specifications.OfferSpecifications;
+import bg.autohouse.service.models.FilterCriteria;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/** Builds the search predicate on the Hibernate criteria builder of the H2 context. */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OfferSpecificationsBenchmark {
+
+  @Param({"empty", "full"})
+  public String filter;
+
+  private ConfigurableApplicationContext context;
+  private EntityManager entityManager;
+  private FilterCriteria criteria;
+
+  @Setup
+  public void setUp() throws IOException {
+    context = BenchmarkContext.start();
+    entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+    criteria = "full".equals(filter) ? fullFilter() : FilterCriteria.builder().build();
+  }
+
+  @TearDown
+  public void tearDown() {
+    entityManager.close();
+    context.close();
+  }
+
+  @Benchmark
+  public Predicate getOffersByFilter() {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Offer> query = cb.createQuery(Offer.class);
+    Root<Offer> root = query.from(Offer.class);
+    return OfferSpecifications.getOffersByFilter(criteria).toPredicate(root, query, cb);
+  }
+
+  private static FilterCriteria fullFilter() {
+    return FilterCriteria.builder()
+        .makerName("BMW")
+        .modelName("X5")
+        .trim("xDrive30d")
+        .fuelType(FuelType.DIESEL)
+        .transmission(Transmission.AUTOMATIC)
+        .bodyStyle(BodyStyle.CROSSOVER)
+        .color(Color.BLACK)
+        .drive(Drive.FOUR_WHEEL_DRIVE)
+        .priceFrom(10_000)
+        .priceTo(60_000)
+        .mileageTo(150_000)
+        .yearFrom(2015)
+        .features(Set.of(Feature.ABS, Feature.DRIVER_SIDE_AIRBAG, Feature.PASSENGER_SIDE_AIRBAG))
+        .seller(Set.of(AccountType.DEALER))
+        .state(Set.of(State.USED, State.CPO))
+        .hasAccident(false)
+        .build();
+  }
+}
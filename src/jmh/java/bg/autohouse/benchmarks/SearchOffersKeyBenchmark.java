@@ -0,0 +1,68 @@
+package bg.autohouse.benchmarks;
+
+import bg.autohouse.data.models.enums.Feature;
+import bg.autohouse.data.models.enums.FuelType;
+import bg.autohouse.service.models.FilterCriteria;
+import bg.autohouse.service.services.OfferService;
+import bg.autohouse.util.SearchOffersKeyGenerator;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/** Generates the search cache key, which runs before every cached search lookup. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchOffersKeyBenchmark {
+
+  private ConfigurableApplicationContext context;
+  private SearchOffersKeyGenerator keyGenerator;
+  private Method searchOffers;
+  private FilterCriteria filter;
+  private Pageable pageable;
+
+  @Setup
+  public void setUp() throws IOException, NoSuchMethodException {
+    context = BenchmarkContext.start();
+    keyGenerator = context.getBean(SearchOffersKeyGenerator.class);
+    searchOffers =
+        OfferService.class.getMethod("searchOffers", FilterCriteria.class, Pageable.class);
+    filter =
+        FilterCriteria.builder()
+            .makerName("BMW")
+            .modelName("X5")
+            .fuelType(FuelType.DIESEL)
+            .features(Set.of(Feature.ABS))
+            .build();
+    pageable = PageRequest.of(0, 20, Sort.by("price"));
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Object generate() {
+    return keyGenerator.generate(null, searchOffers, filter, pageable);
+  }
+}
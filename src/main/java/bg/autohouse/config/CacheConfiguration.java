@@ -0,0 +1,73 @@
+package bg.autohouse.config;
+
+import static bg.autohouse.service.services.impl.OfferServiceImpl.*;
+
+import bg.autohouse.service.cache.LatestOffersLoader;
+import bg.autohouse.util.CacheWeigher;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Bounded caches. Every cache is declared up front so actuator binds the hit, miss and eviction
+ * metrics of each one at startup.
+ */
+@Configuration
+public class CacheConfiguration {
+
+  @Value("${app.cache.expire-after-write:10m}")
+  private Duration expireAfterWrite;
+
+  @Value("${app.cache.filtered-active-offers.maximum-weight:67108864}")
+  private long filteredActiveOffersMaximumWeight;
+
+  @Value("${app.cache.user-offers.maximum-weight:16777216}")
+  private long userOffersMaximumWeight;
+
+  @Value("${app.cache.offers-by-ids.maximum-weight:16777216}")
+  private long offersByIdsMaximumWeight;
+
+  @Value("${app.cache.offer-details.maximum-weight:16777216}")
+  private long offerDetailsMaximumWeight;
+
+  @Value("${app.cache.latest-offers.refresh-after-write:1m}")
+  private Duration latestOffersRefreshAfterWrite;
+
+  @Bean
+  public CacheManager cacheManager(LatestOffersLoader latestOffersLoader) {
+    SimpleCacheManager cacheManager = new SimpleCacheManager();
+    cacheManager.setCaches(
+        List.of(
+            weighted(FILTERED_ACTIVE_OFFERS, filteredActiveOffersMaximumWeight),
+            weighted(USER_OFFERS_CACHE, userOffersMaximumWeight),
+            weighted(OFFERS_BY_IDS_CACHE, offersByIdsMaximumWeight),
+            weighted(OFFER_DETAILS_CACHE, offerDetailsMaximumWeight),
+            new CaffeineCache(
+                LATEST_OFFERS_CACHE,
+                Caffeine.newBuilder()
+                    .maximumSize(1)
+                    .refreshAfterWrite(latestOffersRefreshAfterWrite)
+                    .recordStats()
+                    .build(latestOffersLoader),
+                false)));
+    return cacheManager;
+  }
+
+  private CaffeineCache weighted(String name, long maximumWeight) {
+    return new CaffeineCache(
+        name,
+        Caffeine.newBuilder()
+            .maximumWeight(maximumWeight)
+            .weigher(new CacheWeigher())
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build(),
+        false);
+  }
+}
@@ -2,23 +2,33 @@ package bg.autohouse.config;
 
 import bg.autohouse.data.models.User;
 import bg.autohouse.data.models.enums.Role;
+import bg.autohouse.data.models.offer.Vehicle;
 import bg.autohouse.data.repositories.UserRepository;
+import bg.autohouse.data.repositories.VehicleRepository;
+import bg.autohouse.util.FeatureMask;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 import javax.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+@Slf4j
 @Component
 @Transactional
 @RequiredArgsConstructor(onConstructor_ = {@Autowired})
 public class DatabaseSeeder {
   public static final String ROOT_USERNAME = "vas@mail.com";
   public static final String USERNAME = "simple_user@mail.com";
+  private static final int BACKFILL_PAGE_SIZE = 500;
   private final UserRepository userRepository;
+  private final VehicleRepository vehicleRepository;
   private final PasswordEncoder encoder;
 
   @PostConstruct
@@ -48,4 +58,27 @@ public class DatabaseSeeder {
       userRepository.save(user);
     }
   }
+
+  // vehicles stored before the masks or with an older bit layout, recomputed page by page
+  @PostConstruct
+  public void backfillFeatureMasks() {
+    int updated = 0;
+    List<UUID> ids;
+    do {
+      ids =
+          vehicleRepository.findIdsWithFeaturesMaskBefore(
+              FeatureMask.VERSION, PageRequest.of(0, BACKFILL_PAGE_SIZE));
+      if (ids.isEmpty()) break;
+      for (Vehicle vehicle : vehicleRepository.findAllWithFeaturesByIdIn(ids)) {
+        vehicle.updateFeaturesMask();
+        updated +=
+            vehicleRepository.updateFeaturesMask(
+                vehicle.getId(),
+                vehicle.getFeaturesMaskLow(),
+                vehicle.getFeaturesMaskHigh(),
+                vehicle.getFeaturesMaskVersion());
+      }
+    } while (ids.size() == BACKFILL_PAGE_SIZE);
+    if (updated > 0) log.info("Backfilled feature masks of {} vehicles", updated);
+  }
 }
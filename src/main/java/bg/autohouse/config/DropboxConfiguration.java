@@ -1,10 +1,17 @@
 package bg.autohouse.config;
 
+import bg.autohouse.service.media.DiskContentCache;
+import bg.autohouse.service.services.StorageService;
+import bg.autohouse.service.services.impl.CachingStorageService;
+import bg.autohouse.service.services.impl.DropboxService;
 import com.dropbox.core.DbxRequestConfig;
 import com.dropbox.core.v2.DbxClientV2;
+import java.io.IOException;
+import java.nio.file.Paths;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 
 @Configuration
 class DropboxConfiguration {
@@ -12,9 +19,26 @@ class DropboxConfiguration {
   @Value("${app.dropbox.access.token}")
   private String accessToken;
 
+  @Value("${app.file.storage.dropbox.folder.base}")
+  private String storageBaseFolder;
+
+  // a stable folder, so the files cached by a previous run are picked up again
+  @Value("${app.file.storage.dropbox.cache.folder:${java.io.tmpdir}/autohouse-dropbox-cache}")
+  private String cacheFolder;
+
+  @Value("${app.file.storage.dropbox.cache.max-size:1GB}")
+  private DataSize cacheMaxSize;
+
   @Bean
   public DbxClientV2 dropboxClient() {
     DbxRequestConfig config = DbxRequestConfig.newBuilder("dropbox/autohouse").build();
     return new DbxClientV2(config, accessToken);
   }
+
+  @Bean
+  public StorageService dropboxStorageService(DbxClientV2 dropboxClient) throws IOException {
+    return new CachingStorageService(
+        new DropboxService(dropboxClient, storageBaseFolder),
+        new DiskContentCache(Paths.get(cacheFolder), cacheMaxSize.toBytes()));
+  }
 }
@@ -1,9 +1,16 @@
 package bg.autohouse.config;
 
 import org.hibernate.dialect.MySQL8Dialect;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
 
 public class MySQL8UnicodeDialect extends MySQL8Dialect {
 
+  public MySQL8UnicodeDialect() {
+    super();
+    registerFunction("bitand", new SQLFunctionTemplate(StandardBasicTypes.LONG, "(?1 & ?2)"));
+  }
+
   @Override
   public String getTableTypeString() {
     return " ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci";
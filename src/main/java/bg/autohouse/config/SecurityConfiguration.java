@@ -1,6 +1,7 @@
 package bg.autohouse.config;
 
 import bg.autohouse.config.properties.SecurityConfigurationProperties;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
@@ -18,8 +19,9 @@ public class SecurityConfiguration {
   }
 
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public PasswordEncoder passwordEncoder(
+      @Value("${app.security.bcrypt.strength:10}") int strength) {
+    return new BCryptPasswordEncoder(strength);
   }
 
   @Bean
@@ -19,6 +19,8 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class WebConfiguration implements WebMvcConfigurer {
 
   public static final String APP_V1_MEDIA_TYPE_JSON = "application/bg.autohouse.api-v1+json";
+  public static final String MEDIA_TYPE_NDJSON = "application/x-ndjson";
+  public static final String MEDIA_TYPE_CSV = "text/csv";
 
   public static final String URL_INDEX = "/";
   public static final String URL_API_BASE = "/api";
@@ -50,6 +52,7 @@ public class WebConfiguration implements WebMvcConfigurer {
 
   public static final String URL_IMAGES = "/images";
   public static final String URL_MEDIA = "/media";
+  public static final String URL_UPLOADS = "/uploads";
 
   private static final long MAX_AGE_SECS = 3600;
 
@@ -15,6 +15,10 @@ public class EntityConstants {
   public static final String ENGINES = PREFIX + "engines";
   public static final String FILTERS = PREFIX + "filters";
   public static final String MEDIA_FILE = PREFIX + "media_files";
+  public static final String UPLOAD_SESSIONS = PREFIX + "upload_sessions";
+  public static final String MEDIA_TOMBSTONES = PREFIX + "media_tombstones";
+  public static final String MEDIA_DEAD_LETTERS = PREFIX + "media_dead_letters";
+  public static final String MEDIA_UPLOADS = PREFIX + "media_uploads";
   public static final String FILE_CONTENT = PREFIX + "files_content";
   public static final String LOCATIONS = PREFIX + "locations";
   public static final String PROVINCES = PREFIX + "provinces";
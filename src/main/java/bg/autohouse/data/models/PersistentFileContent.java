@@ -14,6 +14,10 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+/**
+ * Maps the content table of the database storage for the schema only, the content itself is
+ * streamed with plain JDBC by the {@code DatabaseFileStorageService}.
+ */
 @AllArgsConstructor(staticName = "of")
 @NoArgsConstructor
 @Getter
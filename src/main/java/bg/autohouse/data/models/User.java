@@ -56,6 +56,10 @@ public class User extends BaseUuidEntity implements UserDetails {
   @Column(name = "has_account")
   private boolean hasAccount = false;
 
+  // epoch second up to which the issued tokens are rejected, set when roles are taken away
+  @Column(name = "tokens_revoked_until")
+  private Long tokensRevokedUntil;
+
   @ElementCollection(fetch = FetchType.LAZY, targetClass = Role.class)
   @JoinTable(
       name = EntityConstants.PREFIX + "user_role",
@@ -145,4 +149,9 @@ public class User extends BaseUuidEntity implements UserDetails {
   public void toggleActive() {
     enabled = !enabled;
   }
+
+  public long revokeTokens() {
+    tokensRevokedUntil = System.currentTimeMillis() / 1000;
+    return tokensRevokedUntil;
+  }
 }
@@ -8,96 +8,98 @@ import lombok.Getter;
 @AllArgsConstructor
 @CheckboxCriteria
 public enum Feature implements Textable {
-  ABS("ABS"),
-  DRIVER_SIDE_AIRBAG("Driver-side airbag"),
-  PASSENGER_SIDE_AIRBAG("Passenger-side airbag"),
-  SUNROOF("Sunroof"),
-  RADIO("Radio"),
-  POWER_WINDOWS("Power windows"),
-  ALLOY_WHEELS("Alloy wheels"),
-  CENTRAL_DOOR_LOCK("Central door lock"),
-  ALARM_SYSTEM("Alarm system"),
-  NAVIGATION_SYSTEM("Navigation system"),
-  IMMOBILIZER("Immobilizer"),
-  SIDE_AIRBAG("Side airbag"),
-  SEAT_HEATING("Seat heating"),
-  HANDICAPPED_ENABLED("Handicapped enabled"),
-  CRUISE_CONTROL("Cruise control"),
-  XENON_HEADLIGHTS("Xenon headlights"),
-  ON_BOARD_COMPUTER("On-board computer"),
-  ELECTRONIC_STABILITY_CONTROL("Electronic stability control"),
-  FOG_LIGHTS("Fog lights"),
-  TRAILER_HITCH("Trailer hitch"),
-  AIR_CONDITIONING("Air conditioning"),
-  ROOF_RACK("Roof rack"),
-  POWER_STEERING("Power steering"),
-  AUTOMATIC_CLIMATE_CONTROL("Automatic climate control"),
-  TRACTION_CONTROL("Traction control"),
-  ELECTRICALLY_ADJUSTABLE_SEATS("Electrically adjustable seats"),
-  MP3("MP3"),
-  PANORAMA_ROOF("Panorama roof"),
-  AUXILIARY_HEATING("Auxiliary heating"),
-  SPORT_PACKAGE("Sport package"),
-  START_STOP_SYSTEM("Start-stop system"),
-  MULTI_FUNCTION_STEERING_WHEEL("Multi-function steering wheel"),
-  DAYTIME_RUNNING_LIGHTS("Daytime running lights"),
-  SPORT_SUSPENSION("Sport suspension"),
-  SPORT_SEATS("Sport seats"),
-  ADAPTIVE_HEADLIGHTS("Adaptive headlights"),
-  SKI_BAG("Ski bag"),
-  ADAPTIVE_CRUISE_CONTROL("Adaptive Cruise Control"),
-  ARMREST("Armrest"),
-  ELECTRICALLY_HEATED_WINDSHIELD("Electrically heated windshield"),
-  HEATED_STEERING_WHEEL("Heated steering wheel"),
-  HILL_HOLDER("Hill Holder"),
-  DIGITAL_RADIO("Digital radio"),
-  ELECTRIC_TAILGATE("Electric tailgate"),
-  LED_HEADLIGHTS("LED Headlights"),
-  LED_DAYTIME_RUNNING_LIGHTS("LED Daytime Running Lights"),
-  LEATHER_STEERING_WHEEL("Leather steering wheel"),
-  LUMBAR_SUPPORT("Lumbar support"),
-  AIR_SUSPENSION("Air suspension"),
-  MASSAGE_SEATS("Massage seats"),
-  DRIVER_DROWSINESS_DETECTION("Driver drowsiness detection"),
-  NIGHT_VIEW_ASSIST("Night view assist"),
-  EMERGENCY_BRAKE_ASSISTANT("Emergency brake assistant"),
-  EMERGENCY_SYSTEM("Emergency system"),
-  TIRE_PRESSURE_MONITORING_SYSTEM("Tire pressure monitoring system"),
-  SHIFT_PADDLES("Shift paddles"),
-  SLIDING_DOOR("Sliding door"),
-  KEYLESS_CENTRAL_DOOR_LOCK("Keyless central door lock"),
-  SEAT_VENTILATION("Seat ventilation"),
-  SOUND_SYSTEM("Sound system"),
-  VOICE_CONTROL("Voice Control"),
-  LANE_DEPARTURE_WARNING_SYSTEM("Lane departure warning system"),
-  BLIND_SPOT_MONITOR("Blind spot monitor"),
-  TOUCH_SCREEN("Touch screen"),
-  TELEVISION("Television"),
-  USB("USB"),
-  TRAFFIC_SIGN_RECOGNITION("Traffic sign recognition"),
-  ELECTRICAL_SIDE_MIRRORS("Electrical side mirrors"),
-  BLUETOOTH("Bluetooth"),
-  HEADS_UP_DISPLAY("Heads-up display"),
-  HANDS_FREE_EQUIPMENT("Hands-free equipment"),
-  ISOFIX("Isofix"),
-  LIGHT_SENSOR("Light sensor"),
-  RAIN_SENSOR("Rain sensor"),
-  PARKING_ASSIST_SYSTEM_SENSORS_FRONT("Parking assist system sensors front"),
-  PARKING_ASSIST_SYSTEM_SENSORS_REAR("Parking assist system sensors rear"),
-  PARKING_ASSIST_SYSTEM_CAMERA("Parking assist system camera"),
-  PARKING_ASSIST_SYSTEM_SELF_STEERING("Parking assist system self-steering"),
-  CD_PLAYER("CD player"),
-  GUARANTEE("Guarantee"),
-  WITH_FULL_SERVICE_HISTORY("With full service history"),
-  PARTICULATE_FILTER("Particulate filter"),
-  NON_SMOKING_VEHICLE("Non-smoking vehicle"),
-  METALLIC("Metallic"),
-  CLOTH("Cloth"),
-  FULL_LEATHER("Full leather"),
-  PART_LEATHER("Part leather"),
-  VELOUR("Velour");
+  ABS("ABS", 0),
+  DRIVER_SIDE_AIRBAG("Driver-side airbag", 1),
+  PASSENGER_SIDE_AIRBAG("Passenger-side airbag", 2),
+  SUNROOF("Sunroof", 3),
+  RADIO("Radio", 4),
+  POWER_WINDOWS("Power windows", 5),
+  ALLOY_WHEELS("Alloy wheels", 6),
+  CENTRAL_DOOR_LOCK("Central door lock", 7),
+  ALARM_SYSTEM("Alarm system", 8),
+  NAVIGATION_SYSTEM("Navigation system", 9),
+  IMMOBILIZER("Immobilizer", 10),
+  SIDE_AIRBAG("Side airbag", 11),
+  SEAT_HEATING("Seat heating", 12),
+  HANDICAPPED_ENABLED("Handicapped enabled", 13),
+  CRUISE_CONTROL("Cruise control", 14),
+  XENON_HEADLIGHTS("Xenon headlights", 15),
+  ON_BOARD_COMPUTER("On-board computer", 16),
+  ELECTRONIC_STABILITY_CONTROL("Electronic stability control", 17),
+  FOG_LIGHTS("Fog lights", 18),
+  TRAILER_HITCH("Trailer hitch", 19),
+  AIR_CONDITIONING("Air conditioning", 20),
+  ROOF_RACK("Roof rack", 21),
+  POWER_STEERING("Power steering", 22),
+  AUTOMATIC_CLIMATE_CONTROL("Automatic climate control", 23),
+  TRACTION_CONTROL("Traction control", 24),
+  ELECTRICALLY_ADJUSTABLE_SEATS("Electrically adjustable seats", 25),
+  MP3("MP3", 26),
+  PANORAMA_ROOF("Panorama roof", 27),
+  AUXILIARY_HEATING("Auxiliary heating", 28),
+  SPORT_PACKAGE("Sport package", 29),
+  START_STOP_SYSTEM("Start-stop system", 30),
+  MULTI_FUNCTION_STEERING_WHEEL("Multi-function steering wheel", 31),
+  DAYTIME_RUNNING_LIGHTS("Daytime running lights", 32),
+  SPORT_SUSPENSION("Sport suspension", 33),
+  SPORT_SEATS("Sport seats", 34),
+  ADAPTIVE_HEADLIGHTS("Adaptive headlights", 35),
+  SKI_BAG("Ski bag", 36),
+  ADAPTIVE_CRUISE_CONTROL("Adaptive Cruise Control", 37),
+  ARMREST("Armrest", 38),
+  ELECTRICALLY_HEATED_WINDSHIELD("Electrically heated windshield", 39),
+  HEATED_STEERING_WHEEL("Heated steering wheel", 40),
+  HILL_HOLDER("Hill Holder", 41),
+  DIGITAL_RADIO("Digital radio", 42),
+  ELECTRIC_TAILGATE("Electric tailgate", 43),
+  LED_HEADLIGHTS("LED Headlights", 44),
+  LED_DAYTIME_RUNNING_LIGHTS("LED Daytime Running Lights", 45),
+  LEATHER_STEERING_WHEEL("Leather steering wheel", 46),
+  LUMBAR_SUPPORT("Lumbar support", 47),
+  AIR_SUSPENSION("Air suspension", 48),
+  MASSAGE_SEATS("Massage seats", 49),
+  DRIVER_DROWSINESS_DETECTION("Driver drowsiness detection", 50),
+  NIGHT_VIEW_ASSIST("Night view assist", 51),
+  EMERGENCY_BRAKE_ASSISTANT("Emergency brake assistant", 52),
+  EMERGENCY_SYSTEM("Emergency system", 53),
+  TIRE_PRESSURE_MONITORING_SYSTEM("Tire pressure monitoring system", 54),
+  SHIFT_PADDLES("Shift paddles", 55),
+  SLIDING_DOOR("Sliding door", 56),
+  KEYLESS_CENTRAL_DOOR_LOCK("Keyless central door lock", 57),
+  SEAT_VENTILATION("Seat ventilation", 58),
+  SOUND_SYSTEM("Sound system", 59),
+  VOICE_CONTROL("Voice Control", 60),
+  LANE_DEPARTURE_WARNING_SYSTEM("Lane departure warning system", 61),
+  BLIND_SPOT_MONITOR("Blind spot monitor", 62),
+  TOUCH_SCREEN("Touch screen", 63),
+  TELEVISION("Television", 64),
+  USB("USB", 65),
+  TRAFFIC_SIGN_RECOGNITION("Traffic sign recognition", 66),
+  ELECTRICAL_SIDE_MIRRORS("Electrical side mirrors", 67),
+  BLUETOOTH("Bluetooth", 68),
+  HEADS_UP_DISPLAY("Heads-up display", 69),
+  HANDS_FREE_EQUIPMENT("Hands-free equipment", 70),
+  ISOFIX("Isofix", 71),
+  LIGHT_SENSOR("Light sensor", 72),
+  RAIN_SENSOR("Rain sensor", 73),
+  PARKING_ASSIST_SYSTEM_SENSORS_FRONT("Parking assist system sensors front", 74),
+  PARKING_ASSIST_SYSTEM_SENSORS_REAR("Parking assist system sensors rear", 75),
+  PARKING_ASSIST_SYSTEM_CAMERA("Parking assist system camera", 76),
+  PARKING_ASSIST_SYSTEM_SELF_STEERING("Parking assist system self-steering", 77),
+  CD_PLAYER("CD player", 78),
+  GUARANTEE("Guarantee", 79),
+  WITH_FULL_SERVICE_HISTORY("With full service history", 80),
+  PARTICULATE_FILTER("Particulate filter", 81),
+  NON_SMOKING_VEHICLE("Non-smoking vehicle", 82),
+  METALLIC("Metallic", 83),
+  CLOTH("Cloth", 84),
+  FULL_LEATHER("Full leather", 85),
+  PART_LEATHER("Part leather", 86),
+  VELOUR("Velour", 87);
 
   private final String text;
+  // position in the stored feature masks, never reused or renumbered, new features take the next
+  private final int bit;
 
   @Override
   public String toString() {
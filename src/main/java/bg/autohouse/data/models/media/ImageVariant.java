@@ -0,0 +1,48 @@
+package bg.autohouse.data.models.media;
+
+/**
+ * Sizes an offer image is stored in. All variants are produced once, at upload time, and the
+ * smaller ones are kept under the key of the full image with a suffix before the extension.
+ */
+public enum ImageVariant {
+  FULL(MediaFunction.OFFER_IMAGE, null, 1024, 1024),
+  MEDIUM(MediaFunction.OFFER_MEDIUM_IMAGE, "medium", 800, 600),
+  THUMBNAIL(MediaFunction.OFFER_THUMBNAIL_IMAGE, "thumb", 320, 240);
+
+  private final MediaFunction function;
+  private final String suffix;
+  private final int width;
+  private final int height;
+
+  ImageVariant(MediaFunction function, String suffix, int width, int height) {
+    this.function = function;
+    this.suffix = suffix;
+    this.width = width;
+    this.height = height;
+  }
+
+  public MediaFunction function() {
+    return function;
+  }
+
+  public int width() {
+    return width;
+  }
+
+  public int height() {
+    return height;
+  }
+
+  public String dimensions() {
+    return width + "x" + height;
+  }
+
+  public String fileKey(String fullImageKey) {
+    if (suffix == null) return fullImageKey;
+    int slash = fullImageKey.lastIndexOf('/');
+    int dot = fullImageKey.lastIndexOf('.');
+    return dot > slash
+        ? fullImageKey.substring(0, dot) + "_" + suffix + ".jpg"
+        : fullImageKey + "_" + suffix + ".jpg";
+  }
+}
@@ -0,0 +1,56 @@
+package bg.autohouse.data.models.media;
+
+import bg.autohouse.data.models.BaseUuidEntity;
+import bg.autohouse.data.models.EntityConstants;
+import java.net.URL;
+import java.util.UUID;
+import javax.persistence.*;
+import javax.persistence.Entity;
+import lombok.*;
+
+/** A stored object the media reaper gave up on, kept for manual cleanup. */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = EntityConstants.MEDIA_DEAD_LETTERS)
+public class MediaDeadLetter extends BaseUuidEntity {
+
+  private static final long serialVersionUID = 1L;
+
+  @Column(name = "media_file_id", nullable = false, columnDefinition = "BINARY(16)")
+  private UUID mediaFileId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "storage_type", nullable = false)
+  private StorageType storageType;
+
+  @Column(name = "bucket", nullable = false)
+  private String bucket;
+
+  @Column(name = "file_key", nullable = false)
+  private String fileKey;
+
+  @Column(name = "resource_url")
+  private URL resourceUrl;
+
+  @Column(name = "attempts", nullable = false)
+  private int attempts;
+
+  @Column(name = "last_error", length = 1000)
+  private String lastError;
+
+  public static MediaDeadLetter of(MediaTombstone tombstone) {
+    return MediaDeadLetter.builder()
+        .mediaFileId(tombstone.getMediaFileId())
+        .storageType(tombstone.getStorageType())
+        .bucket(tombstone.getBucket())
+        .fileKey(tombstone.getFileKey())
+        .resourceUrl(tombstone.getResourceUrl())
+        .attempts(tombstone.getAttempts())
+        .lastError(tombstone.getLastError())
+        .build();
+  }
+}
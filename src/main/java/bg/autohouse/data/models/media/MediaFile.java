@@ -60,4 +60,13 @@ public class MediaFile extends BaseUuidEntity {
 
   @Column(name = "reference_id", columnDefinition = "BINARY(16)")
   private UUID referenceId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "status")
+  private MediaStatus status;
+
+  // records written before the status was introduced have none and are always stored
+  public boolean isStored() {
+    return status == null || status == MediaStatus.STORED;
+  }
 }
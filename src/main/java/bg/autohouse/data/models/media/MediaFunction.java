@@ -4,7 +4,8 @@ import bg.autohouse.service.services.MediaFileService;
 
 public enum MediaFunction {
   OFFER_IMAGE(StorageType.LOCAL_FOLDER),
-  OFFER_THUMBNAIL_IMAGE(StorageType.DROPBOX_BUCKET),
+  OFFER_MEDIUM_IMAGE(StorageType.LOCAL_FOLDER),
+  OFFER_THUMBNAIL_IMAGE(StorageType.LOCAL_FOLDER),
   USER_PROFILE_IMAGE(StorageType.LOCAL_DATABASE),
   GENERAL_UNKNOWN(StorageType.LOCAL_FOLDER);
 
@@ -28,8 +29,14 @@ public enum MediaFunction {
   }
 
   public String resolveBucketName() {
-    return this == MediaFunction.OFFER_IMAGE || this == MediaFunction.OFFER_THUMBNAIL_IMAGE
-        ? MediaFileService.DEFAULT_OFFER_IMAGE_BUCKET
-        : MediaFileService.DEFAULT_MEDIA_BUCKET;
+    switch (this) {
+      case OFFER_IMAGE:
+        return MediaFileService.DEFAULT_OFFER_IMAGE_BUCKET;
+      case OFFER_MEDIUM_IMAGE:
+      case OFFER_THUMBNAIL_IMAGE:
+        return MediaFileService.DEFAULT_OFFER_IMAGE_VARIANTS_BUCKET;
+      default:
+        return MediaFileService.DEFAULT_MEDIA_BUCKET;
+    }
   }
 }
@@ -0,0 +1,7 @@
+package bg.autohouse.data.models.media;
+
+public enum MediaStatus {
+  PENDING,
+  STORED,
+  FAILED
+}
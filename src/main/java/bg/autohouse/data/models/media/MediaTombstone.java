@@ -0,0 +1,87 @@
+package bg.autohouse.data.models.media;
+
+import bg.autohouse.data.models.BaseUuidEntity;
+import bg.autohouse.data.models.EntityConstants;
+import java.net.URL;
+import java.util.Date;
+import java.util.UUID;
+import javax.persistence.*;
+import javax.persistence.Entity;
+import lombok.*;
+
+/**
+ * A deleted media file whose stored object still has to be removed. Written in the transaction
+ * that deletes the record and removed by the media reaper once the storage confirms the removal.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(
+    name = EntityConstants.MEDIA_TOMBSTONES,
+    indexes = {
+      @Index(
+          name = "idx_" + EntityConstants.MEDIA_TOMBSTONES + "_next_attempt_at",
+          columnList = "next_attempt_at")
+    })
+public class MediaTombstone extends BaseUuidEntity {
+
+  private static final long serialVersionUID = 1L;
+
+  @Column(name = "media_file_id", nullable = false, columnDefinition = "BINARY(16)")
+  private UUID mediaFileId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "storage_type", nullable = false)
+  private StorageType storageType;
+
+  @Column(name = "bucket", nullable = false)
+  private String bucket;
+
+  @Column(name = "file_key", nullable = false)
+  private String fileKey;
+
+  @Column(name = "content_hash")
+  private String contentHash;
+
+  @Column(name = "resource_url")
+  private URL resourceUrl;
+
+  @Column(name = "attempts", nullable = false)
+  private int attempts;
+
+  @Temporal(TemporalType.TIMESTAMP)
+  @Column(name = "next_attempt_at", nullable = false)
+  private Date nextAttemptAt;
+
+  @Column(name = "last_error", length = 1000)
+  private String lastError;
+
+  public static MediaTombstone of(MediaFile mediaFile) {
+    return MediaTombstone.builder()
+        .mediaFileId(mediaFile.getId())
+        .storageType(mediaFile.getStorageType())
+        .bucket(mediaFile.getBucket())
+        .fileKey(mediaFile.getFileKey())
+        .contentHash(mediaFile.getContentHash())
+        .resourceUrl(mediaFile.getResourceUrl())
+        .nextAttemptAt(new Date())
+        .build();
+  }
+
+  /** Detached record with what the storages need to locate the object. */
+  public MediaFile toMediaFile() {
+    MediaFile mediaFile =
+        MediaFile.builder()
+            .storageType(storageType)
+            .bucket(bucket)
+            .fileKey(fileKey)
+            .contentHash(contentHash)
+            .resourceUrl(resourceUrl)
+            .build();
+    mediaFile.setId(mediaFileId);
+    return mediaFile;
+  }
+}
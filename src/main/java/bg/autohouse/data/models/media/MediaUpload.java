@@ -0,0 +1,65 @@
+package bg.autohouse.data.models.media;
+
+import bg.autohouse.data.models.BaseUuidEntity;
+import bg.autohouse.data.models.EntityConstants;
+import java.util.Date;
+import java.util.UUID;
+import javax.persistence.*;
+import javax.persistence.Entity;
+import lombok.*;
+
+/**
+ * Outbox entry of a media file whose content still has to be written to its storage. Committed
+ * together with the pending record and removed once the upload dispatcher has stored the content.
+ * The content itself is staged on disk, the entry only keeps the name of the staged file.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(
+    name = EntityConstants.MEDIA_UPLOADS,
+    indexes = {
+      @Index(
+          name = "idx_" + EntityConstants.MEDIA_UPLOADS + "_next_attempt_at",
+          columnList = "next_attempt_at"),
+      @Index(
+          name = "idx_" + EntityConstants.MEDIA_UPLOADS + "_media_file_id",
+          columnList = "media_file_id")
+    })
+public class MediaUpload extends BaseUuidEntity {
+
+  private static final long serialVersionUID = 1L;
+
+  @Column(name = "media_file_id", nullable = false, columnDefinition = "BINARY(16)")
+  private UUID mediaFileId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "media_function", nullable = false)
+  private MediaFunction function;
+
+  @Column(name = "staged_content", nullable = false)
+  private String stagedContent;
+
+  @Column(name = "attempts", nullable = false)
+  private int attempts;
+
+  // also the end of the claim of the dispatcher that is writing the content
+  @Temporal(TemporalType.TIMESTAMP)
+  @Column(name = "next_attempt_at", nullable = false)
+  private Date nextAttemptAt;
+
+  @Column(name = "last_error", length = 1000)
+  private String lastError;
+
+  public static MediaUpload of(MediaFile mediaFile, MediaFunction function, String stagedContent) {
+    return MediaUpload.builder()
+        .mediaFileId(mediaFile.getId())
+        .function(function)
+        .stagedContent(stagedContent)
+        .nextAttemptAt(new Date())
+        .build();
+  }
+}
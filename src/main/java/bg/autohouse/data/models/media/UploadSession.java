@@ -0,0 +1,50 @@
+package bg.autohouse.data.models.media;
+
+import bg.autohouse.data.models.BaseUuidEntity;
+import bg.autohouse.data.models.EntityConstants;
+import java.util.UUID;
+import javax.persistence.*;
+import javax.persistence.Entity;
+import lombok.*;
+
+/**
+ * A file uploaded in chunks. The bytes are written to a staging file named after the session id
+ * and {@link #receivedBytes} is the length of the prefix received so far, where an interrupted
+ * upload resumes.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(
+    name = EntityConstants.UPLOAD_SESSIONS,
+    indexes = {
+      @Index(
+          name = "idx_" + EntityConstants.UPLOAD_SESSIONS + "_owner_id",
+          columnList = "owner_id")
+    })
+public class UploadSession extends BaseUuidEntity {
+
+  private static final long serialVersionUID = 1L;
+
+  @Column(name = "owner_id", nullable = false, columnDefinition = "BINARY(16)")
+  private UUID ownerId;
+
+  @Column(name = "original_file_name")
+  private String originalFilename;
+
+  @Column(name = "mime_type", nullable = false)
+  private String contentType;
+
+  @Column(name = "size", nullable = false)
+  private long size;
+
+  @Column(name = "received_bytes", nullable = false)
+  private long receivedBytes;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "status", nullable = false)
+  private UploadStatus status;
+}
@@ -0,0 +1,7 @@
+package bg.autohouse.data.models.media;
+
+public enum UploadStatus {
+  OPEN,
+  COMPLETED,
+  CONSUMED
+}
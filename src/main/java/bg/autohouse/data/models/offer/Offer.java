@@ -41,6 +41,10 @@ public class Offer extends BaseUuidEntity {
   private String primaryPhotoKey =
       "https://www.dropbox.com/s/qp0hojikkgkc52s/no-photo-large.png?raw=1";
 
+  // the photo chosen by the owner, it becomes the primary photo once all its variants are stored
+  @Column(name = "requested_photo_key")
+  private String requestedPhotoKey;
+
   @Column(name = "price", nullable = false)
   private Integer price = 0;
 
@@ -67,10 +71,6 @@ public class Offer extends BaseUuidEntity {
 
   @Embedded private ContactDetails contactDetails;
 
-  public void incrementHitCount() {
-    hitCount += 1;
-  }
-
   public void incrementSavedCount() {
     savedCount += 1;
   }
@@ -3,6 +3,7 @@ package bg.autohouse.data.models.offer;
 import bg.autohouse.data.models.BaseUuidEntity;
 import bg.autohouse.data.models.EntityConstants;
 import bg.autohouse.data.models.enums.*;
+import bg.autohouse.util.FeatureMask;
 import java.util.ArrayList;
 import java.util.List;
 import javax.persistence.*;
@@ -99,6 +100,22 @@ public class Vehicle extends BaseUuidEntity {
   @Enumerated(value = EnumType.STRING)
   private List<Feature> features = new ArrayList<>();
 
+  @Column(name = "features_mask_low", nullable = false)
+  private long featuresMaskLow = 0L;
+
+  @Column(name = "features_mask_high", nullable = false)
+  private long featuresMaskHigh = 0L;
+
+  // layout the masks were computed with, older ones are recomputed at startup
+  @Column(name = "features_mask_version", nullable = false)
+  private int featuresMaskVersion = 0;
+
   @Column(name = "has_accident")
   private boolean hasAccident = false;
+
+  public void updateFeaturesMask() {
+    featuresMaskLow = FeatureMask.low(features);
+    featuresMaskHigh = FeatureMask.high(features);
+    featuresMaskVersion = FeatureMask.VERSION;
+  }
 }
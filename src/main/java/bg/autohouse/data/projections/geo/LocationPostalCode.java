@@ -0,0 +1,7 @@
+package bg.autohouse.data.projections.geo;
+
+public interface LocationPostalCode {
+  Long getId();
+
+  Integer getPostalCode();
+}
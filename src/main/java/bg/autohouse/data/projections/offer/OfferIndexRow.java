@@ -0,0 +1,53 @@
+package bg.autohouse.data.projections.offer;
+
+import bg.autohouse.data.models.enums.AccountType;
+import bg.autohouse.data.models.enums.BodyStyle;
+import bg.autohouse.data.models.enums.Color;
+import bg.autohouse.data.models.enums.Drive;
+import bg.autohouse.data.models.enums.FuelType;
+import bg.autohouse.data.models.enums.State;
+import bg.autohouse.data.models.enums.Transmission;
+import java.util.Date;
+import java.util.UUID;
+
+public interface OfferIndexRow {
+  UUID getId();
+
+  boolean isActive();
+
+  boolean isUserEnabled();
+
+  Integer getPrice();
+
+  Date getCreatedAt();
+
+  String getMakerName();
+
+  String getModelName();
+
+  Integer getYear();
+
+  Integer getMileage();
+
+  Integer getDoors();
+
+  FuelType getFuelType();
+
+  Transmission getTransmission();
+
+  BodyStyle getBodyStyle();
+
+  Color getColor();
+
+  Drive getDrive();
+
+  State getState();
+
+  AccountType getAccountType();
+
+  boolean isHasAccident();
+
+  long getFeaturesMaskLow();
+
+  long getFeaturesMaskHigh();
+}
@@ -0,0 +1,19 @@
+package bg.autohouse.data.projections.offer;
+
+import java.util.UUID;
+
+public interface OfferPhotos {
+  UUID getId();
+
+  UUID getOwnerId();
+
+  String getPrimaryPhotoKey();
+
+  String getRequestedPhotoKey();
+
+  String getMakerName();
+
+  String getModelName();
+
+  Integer getPrice();
+}
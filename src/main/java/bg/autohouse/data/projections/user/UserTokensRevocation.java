@@ -0,0 +1,9 @@
+package bg.autohouse.data.projections.user;
+
+import java.util.UUID;
+
+public interface UserTokensRevocation {
+  UUID getId();
+
+  Long getTokensRevokedUntil();
+}
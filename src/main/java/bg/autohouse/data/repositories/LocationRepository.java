@@ -2,6 +2,7 @@ package bg.autohouse.data.repositories;
 
 import bg.autohouse.data.models.geo.Location;
 import bg.autohouse.data.projections.geo.LocationId;
+import bg.autohouse.data.projections.geo.LocationPostalCode;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
@@ -16,4 +17,8 @@ public interface LocationRepository extends JpaRepository<Location, Long> {
 
   @Query("SELECT lo from Location lo WHERE lo.postalCode > 0")
   List<Location> findAllLocations();
+
+  @Query(
+      "SELECT lo.id AS id, lo.postalCode AS postalCode FROM Location lo WHERE lo.postalCode > 0")
+  List<LocationPostalCode> findAllPostalCodes();
 }
@@ -1,11 +1,9 @@
 package bg.autohouse.data.repositories;
 
-import bg.autohouse.data.models.PersistentFileContent;
+import bg.autohouse.data.models.media.MediaDeadLetter;
+import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.UUID;
-
 @Repository
-public interface PersistentFileContentRepository
-    extends JpaRepository<PersistentFileContent, UUID> {}
+public interface MediaDeadLetterRepository extends JpaRepository<MediaDeadLetter, UUID> {}
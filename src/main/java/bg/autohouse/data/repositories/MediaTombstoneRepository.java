@@ -0,0 +1,16 @@
+package bg.autohouse.data.repositories;
+
+import bg.autohouse.data.models.media.MediaTombstone;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MediaTombstoneRepository extends JpaRepository<MediaTombstone, UUID> {
+
+  List<MediaTombstone> findAllByNextAttemptAtLessThanEqualOrderByNextAttemptAt(
+      Date now, Pageable pageable);
+}
@@ -0,0 +1,45 @@
+package bg.autohouse.data.repositories;
+
+import bg.autohouse.data.models.media.MediaUpload;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface MediaUploadRepository extends JpaRepository<MediaUpload, UUID> {
+
+  // ids only, each upload is claimed before it is loaded
+  @Query(
+      "SELECT u.id FROM MediaUpload u WHERE u.nextAttemptAt <= :now ORDER BY u.nextAttemptAt")
+  List<UUID> findDueIds(Date now, Pageable pageable);
+
+  // only one dispatcher wins the update, the claim runs out if it dies while writing
+  @Modifying(clearAutomatically = true)
+  @Transactional
+  @Query(
+      "UPDATE MediaUpload u SET u.nextAttemptAt = :claimedUntil "
+          + "WHERE u.id = :id AND u.nextAttemptAt <= :now")
+  int claim(UUID id, Date now, Date claimedUntil);
+
+  @Query("SELECT u.stagedContent FROM MediaUpload u WHERE u.mediaFileId IN :mediaFileIds")
+  List<String> findStagedContentByMediaFileIdIn(Collection<UUID> mediaFileIds);
+
+  @Modifying(clearAutomatically = true)
+  @Transactional
+  @Query(
+      "UPDATE MediaUpload u "
+          + "SET u.attempts = :attempts, u.nextAttemptAt = :nextAttemptAt, u.lastError = :error "
+          + "WHERE u.id = :id")
+  int reschedule(UUID id, int attempts, Date nextAttemptAt, String error);
+
+  @Transactional
+  @Modifying(clearAutomatically = true, flushAutomatically = true)
+  void deleteAllByMediaFileIdIn(Collection<UUID> mediaFileIds);
+}
@@ -1,11 +1,14 @@
 package bg.autohouse.data.repositories;
 
 import bg.autohouse.data.models.media.MediaFile;
+import bg.autohouse.data.models.media.MediaStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.net.URL;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -22,4 +25,21 @@ public interface MedialFileRepository extends JpaRepository<MediaFile, UUID> {
   @Transactional
   @Modifying(clearAutomatically = true, flushAutomatically = true)
   void deleteAllByReferenceId(UUID referenceId);
+
+  // an update instead of a merge, so a record deleted or failed while its content was written
+  // stays that way
+  @Modifying(clearAutomatically = true)
+  @Transactional
+  @Query(
+      "UPDATE MediaFile m SET m.status = :status, m.contentHash = :contentHash, "
+          + "m.size = :size, m.resourceUrl = :resourceUrl, m.updatedAt = CURRENT_TIMESTAMP "
+          + "WHERE m.id = :id "
+          + "AND m.status = bg.autohouse.data.models.media.MediaStatus.PENDING")
+  int updateStored(
+      UUID id, MediaStatus status, String contentHash, long size, URL resourceUrl);
+
+  @Modifying(clearAutomatically = true)
+  @Transactional
+  @Query("UPDATE MediaFile m SET m.status = :status WHERE m.id = :id")
+  int updateStatus(UUID id, MediaStatus status);
 }
@@ -1,17 +1,18 @@
 package bg.autohouse.data.repositories;
 
 import bg.autohouse.data.models.offer.Offer;
-import bg.autohouse.data.projections.offer.Statistics;
+import bg.autohouse.data.projections.offer.OfferIndexRow;
+import bg.autohouse.data.projections.offer.OfferPhotos;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -19,7 +20,8 @@ import java.util.UUID;
 
 @Repository
 public interface OfferRepository
-    extends JpaRepository<Offer, UUID>, JpaSpecificationExecutor<Offer> {
+    extends JpaRepository<Offer, UUID>, JpaSpecificationExecutor<Offer>,
+        OfferRepositoryCustom {
 
   @Query(
       value =
@@ -44,22 +46,6 @@ public interface OfferRepository
               + "WHERE o.isActive = 1")
   Page<Offer> findPageWithActiveOffers(Pageable pageable);
 
-  @Query(
-      value =
-          "SELECT "
-              + "MAX(o.price) as maxPrice, "
-              + "MIN(o.price) as minPrice, "
-              + "MAX(v.year) as maxYear, "
-              + "MIN(v.year) as minYear, "
-              + "MAX(v.mileage) as maxMileage, "
-              + "MIN(v.mileage) as minMileage, "
-              + "COUNT(*) as totalOffers "
-              + "FROM auto_offers as o "
-              + "LEFT JOIN auto_vehicles as v on o.id = v.offer_id "
-              + "WHERE o.is_active = 1",
-      nativeQuery = true)
-  Statistics getStatistics();
-
   @Query(
       value =
           "SELECT DISTINCT o "
@@ -101,35 +87,73 @@ public interface OfferRepository
               + "WHERE o.id = :id AND usr.id = :creatorId")
   Optional<Offer> findOneByIdAndCreatorId(UUID id, UUID creatorId);
 
-  @Query(
-      value =
-          "SELECT DISTINCT * "
-              + "FROM "
-              + "auto_offers AS ao "
-              + "INNER JOIN "
-              + "auto_vehicles AS av ON ao.id = av.offer_id "
-              + "INNER JOIN "
-              + "auto_vehicles_features AS avf ON av.id = avf.vehicle_id "
-              + "INNER JOIN "
-              + "auto_locations AS al ON ao.location_id = al.id "
-              + "INNER JOIN "
-              + "auto_filter_features AS aff ON avf.feature = aff.feature "
-              + "WHERE "
-              + "aff.filter_id = :filterId "
-              + "GROUP BY av.id "
-              + "HAVING COUNT(DISTINCT avf.feature) >= (SELECT DISTINCT COUNT(*) "
-              + "FROM "
-              + "auto_filter_features AS aff2 "
-              + "WHERE "
-              + "aff2.filter_id = :filterId) ",
-      nativeQuery = true)
-  List<Offer> searchOffersIdsWithFeatures(@Param("filterId") UUID filterId);
+  String INDEX_ROW_SELECT =
+      "SELECT "
+          + "o.id AS id, "
+          + "o.isActive AS active, "
+          + "usr.enabled AS userEnabled, "
+          + "o.price AS price, "
+          + "o.createdAt AS createdAt, "
+          + "v.makerName AS makerName, "
+          + "v.modelName AS modelName, "
+          + "v.year AS year, "
+          + "v.mileage AS mileage, "
+          + "v.doors AS doors, "
+          + "v.fuelType AS fuelType, "
+          + "v.transmission AS transmission, "
+          + "v.bodyStyle AS bodyStyle, "
+          + "v.color AS color, "
+          + "v.drive AS drive, "
+          + "v.state AS state, "
+          + "acc.accountType AS accountType, "
+          + "v.hasAccident AS hasAccident, "
+          + "v.featuresMaskLow AS featuresMaskLow, "
+          + "v.featuresMaskHigh AS featuresMaskHigh "
+          + "FROM Offer o "
+          + "JOIN o.vehicle v "
+          + "JOIN o.account acc "
+          + "JOIN acc.user usr ";
+
+  @Query(INDEX_ROW_SELECT + "WHERE o.isActive = true AND usr.enabled = true")
+  List<OfferIndexRow> findAllActiveIndexRows();
+
+  @Query(INDEX_ROW_SELECT + "WHERE o.id IN :ids")
+  List<OfferIndexRow> findIndexRowsByIdIn(Collection<UUID> ids);
+
+  @Query(INDEX_ROW_SELECT + "WHERE usr.id IN :ownerIds")
+  List<OfferIndexRow> findIndexRowsByOwnerIdIn(Collection<UUID> ownerIds);
 
   @Modifying(clearAutomatically = true)
   @Transactional
   @Query("UPDATE Offer o SET o.isActive = 0 WHERE o.updatedAt <= :before")
   int setInactiveOffersBefore(Date before);
 
+  @Modifying(clearAutomatically = true)
+  @Transactional
+  @Query("UPDATE Offer o SET o.primaryPhotoKey = :primaryPhotoKey WHERE o.id = :id")
+  int updatePrimaryPhotoKey(UUID id, String primaryPhotoKey);
+
+  @Modifying(clearAutomatically = true)
+  @Transactional
+  @Query("UPDATE Offer o SET o.requestedPhotoKey = :requestedPhotoKey WHERE o.id = :id")
+  int updateRequestedPhotoKey(UUID id, String requestedPhotoKey);
+
+  @Query(
+      "SELECT "
+          + "o.id AS id, "
+          + "usr.id AS ownerId, "
+          + "o.primaryPhotoKey AS primaryPhotoKey, "
+          + "o.requestedPhotoKey AS requestedPhotoKey, "
+          + "v.makerName AS makerName, "
+          + "v.modelName AS modelName, "
+          + "o.price AS price "
+          + "FROM Offer o "
+          + "JOIN o.vehicle v "
+          + "JOIN o.account acc "
+          + "JOIN acc.user usr "
+          + "WHERE o.id = :id")
+  Optional<OfferPhotos> findPhotosById(UUID id);
+
   long countByAccountId(UUID accountId);
 
   @Transactional
@@ -0,0 +1,22 @@
+package bg.autohouse.data.repositories;
+
+import bg.autohouse.data.models.offer.Offer;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface OfferRepositoryCustom {
+
+  /**
+   * Loads a page of offers in two phases. First only the ordered and paged offer ids are selected
+   * together with a lean count, then the offers for those ids are fetched with their to-one
+   * associations and returned in the order of the first phase.
+   */
+  Page<Offer> findPage(Specification<Offer> specification, Pageable pageable);
+
+  Page<UUID> findOfferIds(Specification<Offer> specification, Pageable pageable);
+
+  List<Offer> findAllByIdsOrdered(List<UUID> ids);
+}
@@ -0,0 +1,32 @@
+package bg.autohouse.data.repositories;
+
+import bg.autohouse.data.models.media.UploadSession;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+
+  Optional<UploadSession> findByIdAndOwnerId(UUID id, UUID ownerId);
+
+  List<UploadSession> findAllByIdInAndOwnerId(Collection<UUID> ids, UUID ownerId);
+
+  List<UploadSession> findAllByUpdatedAtBefore(Date before);
+
+  // only ever grows, so a late or repeated chunk cannot shrink what was received
+  @Modifying(clearAutomatically = true)
+  @Transactional
+  @Query(
+      "UPDATE UploadSession s "
+          + "SET s.receivedBytes = :receivedBytes, s.updatedAt = CURRENT_TIMESTAMP "
+          + "WHERE s.id = :id AND s.receivedBytes < :receivedBytes")
+  int updateReceivedBytes(UUID id, long receivedBytes);
+}
@@ -2,6 +2,7 @@ package bg.autohouse.data.repositories;
 
 import bg.autohouse.data.models.BaseUuidEntity;
 import bg.autohouse.data.models.User;
+import bg.autohouse.data.projections.user.UserTokensRevocation;
 import bg.autohouse.data.projections.user.UserUsername;
 import bg.autohouse.util.Collect;
 import org.springframework.data.domain.Page;
@@ -11,10 +12,12 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import javax.persistence.QueryHint;
 import java.util.stream.Stream;
 
 @Repository
@@ -23,6 +26,14 @@ public interface UserRepository extends JpaRepository<User, UUID>, JpaSpecificat
   @Query("SELECT DISTINCT u from User u LEFT JOIN FETCH u.roles r WHERE u.id = :id")
   Optional<User> findByIdWithRoles(UUID id);
 
+  @Query("SELECT u.id FROM User u WHERE u.enabled = false")
+  List<UUID> findDisabledUserIds();
+
+  @Query(
+      "SELECT u.id AS id, u.tokensRevokedUntil AS tokensRevokedUntil "
+          + "FROM User u WHERE u.tokensRevokedUntil >= :since")
+  List<UserTokensRevocation> findTokensRevokedSince(Long since);
+
   @Query(value = "SELECT u FROM User u", countQuery = "SELECT COUNT(*) FROM User u")
   Page<User> findUsersPage(Pageable pageable);
 
@@ -39,12 +50,31 @@ public interface UserRepository extends JpaRepository<User, UUID>, JpaSpecificat
     }
   }
 
+  // read only, the owners are only referenced by the new accounts and never dirty checked
+  @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.READ_ONLY, value = "true"))
+  @Query("SELECT u FROM User u WHERE u.hasAccount = false AND u.id IN :ids")
+  List<User> findAllWithoutAccountByIdIn(Collection<UUID> ids);
+
   @Modifying
   @Transactional
   int updateHasAccount(Collection<UUID> ids);
 
   Optional<User> findByUsernameIgnoreCase(String username);
 
+  // everything the login response is built from, roles for the token and the favorite ids
+  @Query(
+      "SELECT DISTINCT u from User u LEFT JOIN FETCH u.roles r LEFT JOIN FETCH u.favorites f "
+          + "WHERE LOWER(u.username) = LOWER(:username)")
+  Optional<User> findForLoginByUsername(String username);
+
+  // only replaces the hash that was verified, a password changed in the meantime is kept
+  @Modifying
+  @Transactional
+  @Query(
+      "UPDATE User u SET u.password = :upgradedHash "
+          + "WHERE u.id = :id AND u.password = :verifiedHash")
+  int upgradePassword(UUID id, String verifiedHash, String upgradedHash);
+
   boolean existsByUsernameIgnoreCase(String username);
 
   @Query(
@@ -1,8 +1,11 @@
 package bg.autohouse.data.repositories;
 
 import bg.autohouse.data.models.offer.Vehicle;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 import javax.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -15,4 +18,19 @@ public interface VehicleRepository extends JpaRepository<Vehicle, UUID> {
   @Modifying(clearAutomatically = true, flushAutomatically = true)
   @Query("DELETE FROM Vehicle v WHERE v.id = :id")
   void deleteAllById(UUID id);
+
+  @Query("SELECT v.id FROM Vehicle v WHERE v.featuresMaskVersion < :version")
+  List<UUID> findIdsWithFeaturesMaskBefore(int version, Pageable pageable);
+
+  @Query("SELECT DISTINCT v FROM Vehicle v LEFT JOIN FETCH v.features WHERE v.id IN :ids")
+  List<Vehicle> findAllWithFeaturesByIdIn(Collection<UUID> ids);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query(
+      "UPDATE Vehicle v "
+          + "SET v.featuresMaskLow = :low, v.featuresMaskHigh = :high, "
+          + "v.featuresMaskVersion = :version "
+          + "WHERE v.id = :id")
+  int updateFeaturesMask(UUID id, long low, long high, int version);
 }
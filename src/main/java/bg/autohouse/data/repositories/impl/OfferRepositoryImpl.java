@@ -0,0 +1,104 @@
+package bg.autohouse.data.repositories.impl;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+import bg.autohouse.data.models.offer.Offer;
+import bg.autohouse.data.models.offer.Offer_;
+import bg.autohouse.data.repositories.OfferRepositoryCustom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public class OfferRepositoryImpl implements OfferRepositoryCustom {
+
+  @PersistenceContext private EntityManager entityManager;
+
+  @Override
+  @Transactional(readOnly = true)
+  public Page<Offer> findPage(Specification<Offer> specification, Pageable pageable) {
+    Page<UUID> ids = findOfferIds(specification, pageable);
+    if (ids.isEmpty()) {
+      return new PageImpl<>(Collections.emptyList(), pageable, ids.getTotalElements());
+    }
+    return new PageImpl<>(
+        findAllByIdsOrdered(ids.getContent()), ids.getPageable(), ids.getTotalElements());
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Page<UUID> findOfferIds(Specification<Offer> specification, Pageable pageable) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<UUID> query = cb.createQuery(UUID.class);
+    Root<Offer> root = query.from(Offer.class);
+    Predicate predicate = specification.toPredicate(root, query, cb);
+    if (predicate != null) query.where(predicate);
+    query.select(root.get(Offer_.id));
+    if (pageable.getSort().isSorted()) {
+      query.orderBy(toOrders(pageable.getSort(), root, cb));
+    }
+    TypedQuery<UUID> typedQuery = entityManager.createQuery(query);
+    if (pageable.isPaged()) {
+      typedQuery.setFirstResult((int) pageable.getOffset());
+      typedQuery.setMaxResults(pageable.getPageSize());
+    }
+    return PageableExecutionUtils.getPage(
+        typedQuery.getResultList(), pageable, () -> count(specification));
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<Offer> findAllByIdsOrdered(List<UUID> ids) {
+    if (ids.isEmpty()) return Collections.emptyList();
+    List<Offer> offers =
+        entityManager
+            .createQuery(
+                "SELECT o "
+                    + "FROM Offer o "
+                    + "LEFT JOIN FETCH o.vehicle v "
+                    + "LEFT JOIN FETCH o.location lo "
+                    + "LEFT JOIN FETCH o.account acc "
+                    + "LEFT JOIN FETCH acc.user usr "
+                    + "LEFT JOIN FETCH acc.address adr "
+                    + "LEFT JOIN FETCH adr.location loc "
+                    + "WHERE o.id IN :ids",
+                Offer.class)
+            .setParameter("ids", ids)
+            .getResultList();
+    Map<UUID, Offer> offersById = new HashMap<>(offers.size());
+    offers.forEach(offer -> offersById.put(offer.getId(), offer));
+    List<Offer> ordered = new ArrayList<>(ids.size());
+    for (UUID id : ids) {
+      Offer offer = offersById.get(id);
+      if (offer != null) ordered.add(offer);
+    }
+    return ordered;
+  }
+
+  private long count(Specification<Offer> specification) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Long> query = cb.createQuery(Long.class);
+    Root<Offer> root = query.from(Offer.class);
+    Predicate predicate = specification.toPredicate(root, query, cb);
+    if (predicate != null) query.where(predicate);
+    query.select(cb.count(root));
+    return entityManager.createQuery(query).getSingleResult();
+  }
+}
@@ -1,15 +1,16 @@
 package bg.autohouse.data.specifications;
 
-import bg.autohouse.data.models.Filter;
 import bg.autohouse.data.models.User_;
 import bg.autohouse.data.models.account.Account_;
 import bg.autohouse.data.models.enums.*;
 import bg.autohouse.data.models.geo.Address_;
 import bg.autohouse.data.models.offer.Offer;
 import bg.autohouse.data.models.offer.Offer_;
+import bg.autohouse.data.models.offer.Vehicle;
 import bg.autohouse.data.models.offer.Vehicle_;
+import bg.autohouse.service.models.FilterCriteria;
 import bg.autohouse.util.Assert;
-import bg.autohouse.util.F;
+import bg.autohouse.util.FeatureMask;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -50,32 +51,21 @@ public class OfferSpecifications {
     };
   }
 
-  public static Specification<Offer> uuidIn(List<UUID> offersIds) {
-    return (root, query, cb) -> {
-      return cb.isTrue(root.get(Offer_.id).in(offersIds));
-    };
-  }
-
   public static Specification<Offer> favoriteWithIds(List<UUID> offersIds) {
     return (root, query, cb) -> {
-      performJoins(root, query);
-      query.distinct(true);
       return cb.isTrue(root.get(Offer_.id).in(offersIds));
     };
   }
 
   public static Specification<Offer> withAccountId(UUID accountId) {
     return (root, query, cb) -> {
-      performJoins(root, query);
-      query.distinct(true);
       return cb.equal(root.get(Offer_.account).get(Account_.id), accountId);
     };
   }
 
-  public static Specification<Offer> getOffersByFilter(Filter filter) {
+  public static Specification<Offer> getOffersByFilter(FilterCriteria filter) {
     return (root, query, cb) -> {
       List<Predicate> restrictions = new ArrayList<>();
-      performJoins(root, query);
 
       if (Assert.has(filter.getMakerName())) {
         restrictions.add(
@@ -115,14 +105,26 @@ public class OfferSpecifications {
         restrictions.add(cb.equal(root.get(Offer_.vehicle).get(Vehicle_.drive), filter.getDrive()));
       }
 
-      if (!F.isNullOrEmpty(filter.getSeller())) {
-        List<AccountType> sellers = F.filterToList(filter.getSeller(), Assert::has);
-        restrictions.add(cb.isTrue(root.get(Offer_.account).get(Account_.accountType).in(sellers)));
+      if (Assert.has(filter.getSeller())) {
+        restrictions.add(
+            cb.isTrue(root.get(Offer_.account).get(Account_.accountType).in(filter.getSeller())));
+      }
+
+      if (Assert.has(filter.getState())) {
+        restrictions.add(
+            cb.isTrue(root.get(Offer_.vehicle).get(Vehicle_.state).in(filter.getState())));
       }
 
-      if (!F.isNullOrEmpty(filter.getState())) {
-        List<State> states = F.filterToList(filter.getState(), Assert::has);
-        restrictions.add(cb.isTrue(root.get(Offer_.vehicle).get(Vehicle_.state).in(states)));
+      if (Assert.has(filter.getFeatures())) {
+        Path<Vehicle> vehicle = root.get(Offer_.vehicle);
+        long requiredLow = FeatureMask.low(filter.getFeatures());
+        long requiredHigh = FeatureMask.high(filter.getFeatures());
+        if (requiredLow != 0L) {
+          restrictions.add(hasAllBits(cb, vehicle.get(Vehicle_.featuresMaskLow), requiredLow));
+        }
+        if (requiredHigh != 0L) {
+          restrictions.add(hasAllBits(cb, vehicle.get(Vehicle_.featuresMaskHigh), requiredHigh));
+        }
       }
 
       if (Assert.has(filter.getHasAccident())) {
@@ -131,26 +133,25 @@ public class OfferSpecifications {
       }
 
       restrictions.add(
-          cb.between(
-              root.get(Offer_.price), filter.getPrice().getFrom(), filter.getPrice().getTo()));
+          cb.between(root.get(Offer_.price), filter.getPriceFrom(), filter.getPriceTo()));
 
       restrictions.add(
           cb.between(
               root.get(Offer_.vehicle).get(Vehicle_.mileage),
-              filter.getMileage().getFrom(),
-              filter.getMileage().getTo()));
+              filter.getMileageFrom(),
+              filter.getMileageTo()));
 
       restrictions.add(
           cb.between(
               root.get(Offer_.vehicle).get(Vehicle_.doors),
-              filter.getDoors().getFrom(),
-              filter.getDoors().getTo()));
+              filter.getDoorsFrom(),
+              filter.getDoorsTo()));
 
       restrictions.add(
           cb.between(
               root.get(Offer_.vehicle).get(Vehicle_.year),
-              filter.getYear().getFrom(),
-              filter.getYear().getTo()));
+              filter.getYearFrom(),
+              filter.getYearTo()));
 
       log.info(
           "Have generated {} predicates, look like: {}" + System.lineSeparator(),
@@ -159,12 +160,15 @@ public class OfferSpecifications {
               .map(Predicate::toString)
               .collect(Collectors.joining(System.lineSeparator())));
 
-      query.distinct(true);
-
       return cb.and(restrictions.toArray(new Predicate[0]));
     };
   }
 
+  // bitand is rendered natively by H2 and registered as the & operator in MySQL8UnicodeDialect
+  private static Predicate hasAllBits(CriteriaBuilder cb, Expression<Long> mask, long required) {
+    return cb.equal(cb.function("bitand", Long.class, mask, cb.literal(required)), required);
+  }
+
   private static boolean currentQueryIsCountRecords(CriteriaQuery<?> criteriaQuery) {
     return criteriaQuery.getResultType() == Long.class
         || criteriaQuery.getResultType() == long.class;
@@ -173,7 +177,6 @@ public class OfferSpecifications {
   private static void performJoins(Root<Offer> root, CriteriaQuery<?> query) {
     if (currentQueryIsCountRecords(query)) {
       root.join(Offer_.vehicle, JoinType.INNER);
-      root.join(Offer_.vehicle, JoinType.INNER).join(Vehicle_.features, JoinType.INNER);
       root.join(Offer_.location, JoinType.INNER);
       root.join(Offer_.account, JoinType.INNER).join(Account_.user, JoinType.INNER);
       root.join(Offer_.account, JoinType.INNER)
@@ -182,7 +185,6 @@ public class OfferSpecifications {
 
     } else {
       root.fetch(Offer_.vehicle, JoinType.INNER);
-      root.fetch(Offer_.vehicle, JoinType.INNER).fetch(Vehicle_.features, JoinType.INNER);
       root.fetch(Offer_.location, JoinType.INNER);
       root.fetch(Offer_.account, JoinType.INNER);
       root.fetch(Offer_.account, JoinType.INNER).fetch(Account_.user, JoinType.INNER);
@@ -0,0 +1,19 @@
+package bg.autohouse.errors;
+
+import bg.autohouse.service.imports.CatalogImportReport;
+import bg.autohouse.web.enums.RestMessage;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.BAD_REQUEST)
+public class InvalidCatalogImportException extends RuntimeException {
+  private static final long serialVersionUID = 4391873025118471094L;
+
+  @Getter private final transient CatalogImportReport report;
+
+  public InvalidCatalogImportException(CatalogImportReport report) {
+    super(RestMessage.INVALID_CATALOG_IMPORT.name());
+    this.report = report;
+  }
+}
@@ -0,0 +1,14 @@
+package bg.autohouse.errors;
+
+import bg.autohouse.web.enums.RestMessage;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class PasswordHashingBusyException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  public PasswordHashingBusyException() {
+    super(RestMessage.SERVICE_BUSY.name());
+  }
+}
@@ -0,0 +1,14 @@
+package bg.autohouse.errors;
+
+import bg.autohouse.web.enums.RestMessage;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.NOT_FOUND)
+public class UploadNotFoundException extends RuntimeException {
+  private static final long serialVersionUID = 3486218153316580224L;
+
+  public UploadNotFoundException() {
+    super(RestMessage.UPLOAD_NOT_FOUND.name());
+  }
+}
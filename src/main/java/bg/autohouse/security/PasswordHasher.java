@@ -0,0 +1,171 @@
+package bg.autohouse.security;
+
+import bg.autohouse.errors.PasswordHashingBusyException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs BCrypt on a bounded pool of its own, so a burst of logins cannot keep every request thread
+ * busy hashing. Requests wait a limited time for a free slot and fail with {@link
+ * PasswordHashingBusyException} when there is none.
+ *
+ * <p>Bulk operations hash on a separate pool with the same cost and block until one of its slots
+ * frees up, so an import never takes the slots of the logins. The bulk pool gets the cores left
+ * over by the login pool unless {@code app.security.hashing.bulk-threads} is set.
+ */
+@Component
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class PasswordHasher {
+
+  @Value("${app.security.hashing.threads:2}")
+  private int threads;
+
+  @Value("${app.security.hashing.queue-capacity:64}")
+  private int queueCapacity;
+
+  @Value("${app.security.hashing.acquire-timeout:2s}")
+  private Duration acquireTimeout;
+
+  // 0 sizes the pool to the cores not taken by the login pool
+  @Value("${app.security.hashing.bulk-threads:0}")
+  private int bulkThreads;
+
+  private final PasswordEncoder encoder;
+
+  private ThreadPoolExecutor executor;
+  private ThreadPoolExecutor bulkExecutor;
+  // bound running plus queued tasks, the queues themselves are left unbounded because a slot is
+  // released before the worker takes the next task
+  private Semaphore slots;
+  private Semaphore bulkSlots;
+
+  @PostConstruct
+  public void start() {
+    slots = new Semaphore(threads + queueCapacity);
+    if (bulkThreads <= 0) {
+      bulkThreads = Math.max(1, Runtime.getRuntime().availableProcessors() - threads);
+    }
+    bulkSlots = new Semaphore(bulkThreads * 2);
+    executor = newExecutor(threads, "password-hasher-");
+    bulkExecutor = newExecutor(bulkThreads, "password-hasher-bulk-");
+  }
+
+  @PreDestroy
+  public void stop() {
+    // queued hashes are short and each has a caller waiting for it, let them finish
+    executor.shutdown();
+    bulkExecutor.shutdown();
+  }
+
+  public boolean matches(String rawPassword, String encodedPassword) {
+    return await(submit(() -> encoder.matches(rawPassword, encodedPassword)));
+  }
+
+  public String encode(String rawPassword) {
+    return await(submit(() -> encoder.encode(rawPassword)));
+  }
+
+  /** Whether the hash was stored with a lower cost than the configured one. */
+  public boolean needsUpgrade(String encodedPassword) {
+    return encoder.upgradeEncoding(encodedPassword);
+  }
+
+  /**
+   * Encodes generated passwords on the bulk pool, in order, waiting for free slots instead of
+   * failing.
+   */
+  public List<String> encodeAllGenerated(List<String> rawPasswords) {
+    List<Future<String>> tasks = new ArrayList<>(rawPasswords.size());
+    for (String rawPassword : rawPasswords) {
+      tasks.add(submitBulk(() -> encoder.encode(rawPassword)));
+    }
+    List<String> encoded = new ArrayList<>(tasks.size());
+    for (Future<String> task : tasks) {
+      encoded.add(await(task));
+    }
+    return encoded;
+  }
+
+  private <T> Future<T> submit(Callable<T> task) {
+    try {
+      if (!slots.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+        throw new PasswordHashingBusyException();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+    }
+    return submit(executor, slots, task);
+  }
+
+  private <T> Future<T> submitBulk(Callable<T> task) {
+    try {
+      bulkSlots.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+    }
+    return submit(bulkExecutor, bulkSlots, task);
+  }
+
+  private static <T> Future<T> submit(
+      ThreadPoolExecutor executor, Semaphore slots, Callable<T> task) {
+    try {
+      return executor.submit(
+          () -> {
+            try {
+              return task.call();
+            } finally {
+              slots.release();
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      slots.release();
+      throw e;
+    }
+  }
+
+  private static ThreadPoolExecutor newExecutor(int threads, String namePrefix) {
+    AtomicInteger count = new AtomicInteger();
+    return new ThreadPoolExecutor(
+        threads,
+        threads,
+        0L,
+        TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(),
+        runnable -> {
+          Thread thread = new Thread(runnable, namePrefix + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  private static <T> T await(Future<T> task) {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package bg.autohouse.security.authentication;
+
+import bg.autohouse.data.models.enums.Role;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+import lombok.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * The principal of a request authenticated with a JWT, built from the token claims alone. The
+ * account state is not read from the database, disabled users are rejected through {@link
+ * bg.autohouse.security.jwt.UserRevocations}.
+ */
+@Value
+public class AuthenticatedUser implements UserDetails {
+  private static final long serialVersionUID = 1L;
+
+  private final UUID id;
+  private final String username;
+  private final Set<Role> roles;
+
+  public AuthenticatedUser(UUID id, String username, Collection<Role> roles) {
+    this.id = id;
+    this.username = username;
+    this.roles =
+        Collections.unmodifiableSet(
+            roles.isEmpty() ? EnumSet.noneOf(Role.class) : EnumSet.copyOf(roles));
+  }
+
+  @Override
+  public Collection<? extends GrantedAuthority> getAuthorities() {
+    return roles;
+  }
+
+  @Override
+  public String getPassword() {
+    return null;
+  }
+
+  @Override
+  public boolean isAccountNonExpired() {
+    return true;
+  }
+
+  @Override
+  public boolean isAccountNonLocked() {
+    return true;
+  }
+
+  @Override
+  public boolean isCredentialsNonExpired() {
+    return true;
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return true;
+  }
+}
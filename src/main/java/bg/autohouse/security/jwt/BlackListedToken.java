@@ -0,0 +1,9 @@
+package bg.autohouse.security.jwt;
+
+import java.util.Date;
+
+public interface BlackListedToken {
+  String getTokenUid();
+
+  Date getExpirationTime();
+}
@@ -1,10 +1,15 @@
 package bg.autohouse.security.jwt;
 
-import bg.autohouse.errors.NoSuchUserException;
-import bg.autohouse.service.services.UserService;
+import bg.autohouse.data.models.enums.Role;
+import bg.autohouse.security.authentication.AuthenticatedUser;
+import bg.autohouse.util.Assert;
+import bg.autohouse.util.EnumUtils;
 import bg.autohouse.util.UIDUtil;
 import bg.autohouse.web.enums.RestMessage;
+import io.jsonwebtoken.Claims;
 import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
 import java.util.UUID;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -12,21 +17,22 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.AccountExpiredException;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.CredentialsExpiredException;
 import org.springframework.security.authentication.DisabledException;
-import org.springframework.security.authentication.LockedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+/**
+ * Authenticates requests from the bearer token alone. The token is parsed once, the principal is
+ * built from its claims, and black listed tokens and disabled users are rejected from memory
+ * through {@link JwtTokenBlackList} and {@link UserRevocations}.
+ */
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
-  private UserService userService;
   private JwtTokenService jwtService;
+  private UserRevocations userRevocations;
 
   @Autowired
   public void setJwtService(JwtTokenService jwtService) {
@@ -34,8 +40,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
   }
 
   @Autowired
-  public void setUserService(UserService userService) {
-    this.userService = userService;
+  public void setUserRevocations(UserRevocations userRevocations) {
+    this.userRevocations = userRevocations;
   }
 
   @Override
@@ -52,33 +58,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     log.debug("auth headers: {}, token: {}", request.getHeaderNames(), token);
     if (authHeader.hasBearerToken()) {
       try {
-        if (!jwtService.isJwtTokenValid(token) || jwtService.isBlackListed(token)) {
+        Claims claims =
+            jwtService
+                .parseClaims(token)
+                .orElseThrow(() -> new BadCredentialsException(RestMessage.INVALID_TOKEN.name()));
+        if (jwtService.isBlackListed(claims)) {
           throw new BadCredentialsException(RestMessage.INVALID_TOKEN.name());
         }
-        UUID userId = UIDUtil.convert(jwtService.getUserIdFromJWT(token));
-        final UserDetails userDetails;
-        try {
-          userDetails = userService.loadUserById(userId);
-        } catch (final NoSuchUserException notFound) {
-          throw new BadCredentialsException(RestMessage.BAD_CREDENTIALS.name());
-        }
-        if (!userDetails.isAccountNonLocked()) {
-          throw new LockedException(RestMessage.USER_ACCOUNT_LOCKED.name());
-        }
-        if (!userDetails.isEnabled()) {
+        AuthenticatedUser user = toPrincipal(claims);
+        if (userRevocations.isRevoked(user.getId(), claims.getIssuedAt())) {
           throw new DisabledException(RestMessage.USER_ACCOUNT_DISABLED.name());
         }
-        if (!userDetails.isAccountNonExpired()) {
-          throw new AccountExpiredException(RestMessage.USER_ACCOUNT_EXPIRED.name());
-        }
-        if (!userDetails.isCredentialsNonExpired()) {
-          throw new CredentialsExpiredException(RestMessage.USER_CREDENTIALS_EXPIRED.name());
-        }
-        log.info("Successful JWT authentication for username={}", userDetails.getUsername());
-        log.debug("User ID: {}", userId);
+        log.info("Successful JWT authentication for username={}", user.getUsername());
+        log.debug("User ID: {}", user.getId());
         UsernamePasswordAuthenticationToken authentication =
-            new UsernamePasswordAuthenticationToken(
-                userDetails, null, userDetails.getAuthorities());
+            new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
         authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
         SecurityContextHolder.getContext().setAuthentication(authentication);
         log.debug("Finished pushing authentication object");
@@ -96,4 +90,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
       filterChain.doFilter(request, response);
     }
   }
+
+  private static AuthenticatedUser toPrincipal(Claims claims) {
+    UUID userId = UIDUtil.convert((String) claims.get(JwtTokenService.USER_UID_KEY));
+    String username = (String) claims.get(JwtTokenService.USER_USERNAME_KEY);
+    if (userId == null || !Assert.has(username)) {
+      throw new BadCredentialsException(RestMessage.INVALID_TOKEN.name());
+    }
+    Set<Role> roles = EnumSet.noneOf(Role.class);
+    String joinedRoles = (String) claims.get(JwtTokenService.ROLE_KEY);
+    if (Assert.has(joinedRoles)) {
+      for (String role : joinedRoles.split(",")) {
+        EnumUtils.fromString(role, Role.class).ifPresent(roles::add);
+      }
+    }
+    return new AuthenticatedUser(userId, username, roles);
+  }
 }
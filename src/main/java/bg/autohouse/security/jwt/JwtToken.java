@@ -8,7 +8,6 @@ import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.Index;
-import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 import lombok.*;
 
@@ -18,13 +17,14 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = EntityConstants.TOKENS)
-@NamedQuery(
-    name = JwtToken.DELETE_TOKEN,
-    query = "DELETE FROM JwtToken t where t.expirationTime <= :now")
+@Table(
+    name = EntityConstants.TOKENS,
+    indexes =
+        @Index(
+            name = "idx_" + EntityConstants.TOKENS + "_expiration_time",
+            columnList = "expiration_time"))
 public class JwtToken extends BaseLongEntity {
 
-  public static final String DELETE_TOKEN = "JwtToken.deleteAllExpiredSince";
   private static final long serialVersionUID = -3553731653107716142L;
 
   @Column(name = "value", nullable = false, updatable = false, columnDefinition = "TEXT")
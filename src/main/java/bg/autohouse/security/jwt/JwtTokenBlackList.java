@@ -0,0 +1,108 @@
+package bg.autohouse.security.jwt;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Black listed tokens kept in memory by token uid until the token expires. A Bloom filter answers
+ * the common case of a token that was never black listed without touching the map. The table is
+ * only a durable log, it is replayed on startup and its expired rows are deleted in batches.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class JwtTokenBlackList {
+
+  private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+  @Value("${app.security.blacklist.expected-tokens:10000}")
+  private int expectedTokens;
+
+  @Value("${app.security.blacklist.purge-batch-size:500}")
+  private int purgeBatchSize;
+
+  private final JwtTokenRepository jwtTokenRepository;
+
+  // token uid -> expiration time in millis
+  private final Map<String, Long> tokens = new ConcurrentHashMap<>();
+  private volatile BloomFilter<CharSequence> filter;
+  private int filterCapacity;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void replay() {
+    List<BlackListedToken> live = jwtTokenRepository.findAllByExpirationTimeAfter(new Date());
+    for (BlackListedToken token : live) {
+      tokens.put(token.getTokenUid(), token.getExpirationTime().getTime());
+    }
+    rebuildFilter();
+    log.info("Replayed {} black listed tokens", live.size());
+  }
+
+  public boolean contains(String tokenUid) {
+    BloomFilter<CharSequence> current = filter;
+    if (current != null && !current.mightContain(tokenUid)) return false;
+    Long expiresAt = tokens.get(tokenUid);
+    return expiresAt != null && expiresAt > System.currentTimeMillis();
+  }
+
+  @Transactional
+  public void add(JwtToken token) {
+    jwtTokenRepository.save(token);
+    put(token.getTokenUid(), token.getExpirationTime().getTime());
+  }
+
+  /** Drops the expired tokens from memory and deletes their rows, one batch per transaction. */
+  @Scheduled(
+      initialDelayString = "${app.security.blacklist.purge-interval-ms:3600000}",
+      fixedDelayString = "${app.security.blacklist.purge-interval-ms:3600000}")
+  public int purgeExpired() {
+    long now = System.currentTimeMillis();
+    if (tokens.values().removeIf(expiresAt -> expiresAt <= now)) {
+      rebuildFilter();
+    }
+    int deleted = 0;
+    List<Long> batch;
+    do {
+      batch = jwtTokenRepository.findExpiredIds(new Date(now), PageRequest.of(0, purgeBatchSize));
+      if (!batch.isEmpty()) deleted += jwtTokenRepository.deleteAllByIdIn(batch);
+    } while (batch.size() == purgeBatchSize);
+    if (deleted > 0) log.info("Purged {} expired black listed tokens", deleted);
+    return deleted;
+  }
+
+  // writers are rare, the lock keeps a token added during a rebuild from missing the new filter
+  private synchronized void put(String tokenUid, long expiresAt) {
+    tokens.put(tokenUid, expiresAt);
+    if (filter == null || tokens.size() > filterCapacity) {
+      rebuildFilter();
+    } else {
+      filter.put(tokenUid);
+    }
+  }
+
+  private synchronized void rebuildFilter() {
+    filterCapacity = Math.max(expectedTokens, tokens.size() * 2);
+    BloomFilter<CharSequence> rebuilt =
+        BloomFilter.create(
+            Funnels.stringFunnel(StandardCharsets.UTF_8),
+            filterCapacity,
+            FALSE_POSITIVE_PROBABILITY);
+    tokens.keySet().forEach(rebuilt::put);
+    filter = rebuilt;
+  }
+}
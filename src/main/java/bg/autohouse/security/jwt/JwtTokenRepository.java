@@ -1,18 +1,28 @@
 package bg.autohouse.security.jwt;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface JwtTokenRepository
-    extends JpaRepository<JwtToken, Long>, JpaSpecificationExecutor<JwtToken> {
+public interface JwtTokenRepository extends JpaRepository<JwtToken, Long> {
+
+  List<BlackListedToken> findAllByExpirationTimeAfter(Date now);
+
+  @Query("SELECT t.id FROM JwtToken t WHERE t.expirationTime <= :now")
+  List<Long> findExpiredIds(Date now, Pageable pageable);
 
   @Modifying
-  void deleteAllExpiredSince(Date now);
+  @Transactional
+  @Query("DELETE FROM JwtToken t WHERE t.id IN :ids")
+  int deleteAllByIdIn(Collection<Long> ids);
 
   Optional<JwtToken> findByValue(String value);
 
@@ -1,7 +1,9 @@
 package bg.autohouse.security.jwt;
 
+import io.jsonwebtoken.Claims;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 public interface JwtTokenService {
   String USER_UID_KEY = "USER_UID ";
@@ -10,6 +12,9 @@ public interface JwtTokenService {
   String JWT_TYPE_KEY = "JWT_TYPE";
   String JWT_UID = "JWT_UID";
 
+  /** Verifies the token and returns its claims, empty when it is invalid or expired. */
+  Optional<Claims> parseClaims(String token);
+
   String getUserIdFromJWT(String token);
 
   String getJwtUidFromJWT(String token);
@@ -34,5 +39,7 @@ public interface JwtTokenService {
 
   boolean isBlackListed(String token);
 
+  boolean isBlackListed(Claims claims);
+
   void blackListJwt(String token);
 }
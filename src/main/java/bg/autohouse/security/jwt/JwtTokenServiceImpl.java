@@ -1,11 +1,10 @@
 package bg.autohouse.security.jwt;
 
-import static bg.autohouse.security.jwt.JwtTokenSpecifications.*;
-
 import bg.autohouse.config.properties.SecurityConfigurationProperties;
 import bg.autohouse.util.Assert;
 import bg.autohouse.util.EnumUtils;
 import bg.autohouse.util.TimeUtils;
+import bg.autohouse.util.UIDUtil;
 import bg.autohouse.web.enums.RestMessage;
 import io.jsonwebtoken.*;
 import java.time.Duration;
@@ -13,6 +12,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Function;
 import javax.annotation.PostConstruct;
@@ -29,7 +29,8 @@ public class JwtTokenServiceImpl implements JwtTokenService {
   private static final String INVALID_TOKEN_MESSAGE = RestMessage.INVALID_TOKEN.name();
 
   private final SecurityConfigurationProperties securityProperties;
-  private final JwtTokenRepository tokenBlackList;
+  private final JwtTokenBlackList tokenBlackList;
+  private final UserRevocations userRevocations;
   private String keyIdentifier;
 
   @PostConstruct
@@ -95,22 +96,26 @@ public class JwtTokenServiceImpl implements JwtTokenService {
   }
 
   @Override
-  public boolean isJwtTokenValid(String token) {
+  public Optional<Claims> parseClaims(String token) {
     try {
-      Jwts.parser().setSigningKey(securityProperties.getJwtSecret()).parse(token);
-      return true;
+      return Optional.of(extractClaims(token));
     } catch (ExpiredJwtException e) {
       log.error("Token validation failed. The token is expired. Exception: {}", e.getMessage());
-      return false;
+      return Optional.empty();
     } catch (SignatureException e) {
       log.error("Token validation failed, wrong signature. Exception: {}", e.getMessage());
-      return false;
+      return Optional.empty();
     } catch (Exception e) {
       log.error("Unexpected token validation error. {}", e.getMessage());
-      return false;
+      return Optional.empty();
     }
   }
 
+  @Override
+  public boolean isJwtTokenValid(String token) {
+    return parseClaims(token).isPresent();
+  }
+
   @Override
   public boolean isJwtTokenExpired(String token) {
     try {
@@ -165,7 +170,10 @@ public class JwtTokenServiceImpl implements JwtTokenService {
       userId = getUserIdFromJWT(oldToken);
       username = getUsernameFromJWT(oldToken);
       roles = (String) getClaimFromToken(oldToken, claims -> claims.get(ROLE_KEY));
-      isTokenStillValid = !isBlackListed(oldToken);
+      isTokenStillValid =
+          !isBlackListed(oldToken)
+              && !userRevocations.isRevoked(
+                  UIDUtil.convert(userId), getClaimFromToken(oldToken, Claims::getIssuedAt));
     } catch (ExpiredJwtException e) {
       log.error("Token validation failed. The token is expired.", e);
       expirationTime = e.getClaims().getExpiration();
@@ -180,13 +188,17 @@ public class JwtTokenServiceImpl implements JwtTokenService {
   }
 
   @Override
-  @Transactional(readOnly = true)
   public boolean isBlackListed(String token) {
-    String tokenUid = getJwtUidFromJWT(token);
+    Claims claims = getClaimFromToken(token, Function.identity());
+    Assert.notNull(claims, INVALID_TOKEN_MESSAGE);
+    return isBlackListed(claims);
+  }
+
+  @Override
+  public boolean isBlackListed(Claims claims) {
+    String tokenUid = (String) claims.get(JWT_UID);
     Assert.notNull(tokenUid, INVALID_TOKEN_MESSAGE);
-    String username = getUsernameFromJWT(token);
-    Assert.notNull(username, INVALID_TOKEN_MESSAGE);
-    return tokenBlackList.findOne(forUser(username).and(withTokenUid(tokenUid))).isPresent();
+    return tokenBlackList.contains(tokenUid);
   }
 
   @Override
@@ -213,6 +225,6 @@ public class JwtTokenServiceImpl implements JwtTokenService {
             .userId(userId)
             .expirationTime(expirationTime)
             .build();
-    tokenBlackList.save(invalidToken);
+    tokenBlackList.add(invalidToken);
   }
 }
@@ -0,0 +1,112 @@
+package bg.autohouse.security.jwt;
+
+import bg.autohouse.config.properties.SecurityConfigurationProperties;
+import bg.autohouse.data.projections.user.UserTokensRevocation;
+import bg.autohouse.data.repositories.UserRepository;
+import bg.autohouse.service.events.UserAccessChangedEvent;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Users whose tokens are no longer accepted, kept in memory so the authentication filter decides
+ * without a database round trip. Disabled users are rejected until they are enabled again. A
+ * revocation rejects the tokens of a user issued up to that second and is dropped once all of them
+ * have expired. Both are stored on the user and applied here once the change is committed. They are
+ * also reloaded periodically, so the changes committed on other nodes reach this one.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class UserRevocations {
+
+  private final SecurityConfigurationProperties securityProperties;
+  private final UserRepository userRepository;
+
+  private final Set<UUID> disabled = ConcurrentHashMap.newKeySet();
+  // user id -> epoch second up to which the tokens of the user are rejected
+  private final Map<UUID, Long> revokedUntil = new ConcurrentHashMap<>();
+
+  // guarded by this: the users whose access changed on this node since the running reload started,
+  // the reload may have read them before the change and must not undo it
+  private Set<UUID> changedDuringReload = new HashSet<>();
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(
+      initialDelayString = "${app.security.revocation-reload-interval-ms:30000}",
+      fixedDelayString = "${app.security.revocation-reload-interval-ms:30000}")
+  public void loadRevocations() {
+    synchronized (this) {
+      changedDuringReload = new HashSet<>();
+    }
+    Set<UUID> disabledUserIds = new HashSet<>(userRepository.findDisabledUserIds());
+    List<UserTokensRevocation> revocations =
+        userRepository.findTokensRevokedSince(expiredBefore());
+    synchronized (this) {
+      disabled.removeIf(
+          userId -> !disabledUserIds.contains(userId) && !changedDuringReload.contains(userId));
+      disabledUserIds.removeAll(changedDuringReload);
+      disabled.addAll(disabledUserIds);
+    }
+    for (UserTokensRevocation revocation : revocations) {
+      revoke(revocation.getId(), revocation.getTokensRevokedUntil());
+    }
+    log.debug(
+        "Loaded {} disabled users and {} token revocations", disabled.size(), revocations.size());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUserAccessChanged(UserAccessChangedEvent event) {
+    synchronized (this) {
+      changedDuringReload.add(event.getUserId());
+      if (event.isEnabled()) {
+        disabled.remove(event.getUserId());
+      } else {
+        disabled.add(event.getUserId());
+      }
+    }
+    if (event.getTokensRevokedUntil() != null) {
+      revoke(event.getUserId(), event.getTokensRevokedUntil());
+    }
+  }
+
+  public boolean isRevoked(UUID userId, Date issuedAt) {
+    if (disabled.contains(userId)) return true;
+    Long until = revokedUntil.get(userId);
+    if (until == null) return false;
+    // the issued at claim has a second precision, a token from the same second is rejected too
+    return issuedAt == null || issuedAt.getTime() / 1000 <= until;
+  }
+
+  @Scheduled(
+      initialDelayString = "${app.security.revocation-purge-interval-ms:600000}",
+      fixedDelayString = "${app.security.revocation-purge-interval-ms:600000}")
+  public void purgeExpired() {
+    long expiredBefore = expiredBefore();
+    revokedUntil.values().removeIf(until -> until < expiredBefore);
+  }
+
+  private void revoke(UUID userId, long until) {
+    revokedUntil.merge(userId, until, Math::max);
+  }
+
+  // the epoch second before which every issued token has expired
+  private long expiredBefore() {
+    long lifetime =
+        Math.max(securityProperties.getExpirationTime(), Duration.ofMinutes(5L).toMillis());
+    return (System.currentTimeMillis() - lifetime) / 1000;
+  }
+}
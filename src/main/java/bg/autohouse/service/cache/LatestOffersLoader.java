@@ -0,0 +1,44 @@
+package bg.autohouse.service.cache;
+
+import bg.autohouse.data.repositories.OfferRepository;
+import bg.autohouse.service.models.offer.OfferServiceModel;
+import bg.autohouse.util.ModelMapperWrapper;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Loads the latest offers. Backs the latest offers cache, so the cache can reload the single entry
+ * in the background instead of a request thread recomputing it after an eviction.
+ */
+@Component
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class LatestOffersLoader implements CacheLoader<Object, Object> {
+
+  private static final int LATEST_OFFERS_COUNT = 20;
+
+  private final OfferRepository offerRepository;
+  private final ModelMapperWrapper modelMapper;
+
+  @Override
+  @Transactional(readOnly = true)
+  public Object load(Object key) {
+    return loadLatestOffers();
+  }
+
+  @Transactional(readOnly = true)
+  public List<OfferServiceModel> loadLatestOffers() {
+    Sort sort = Sort.by("createdAt").descending();
+    Pageable pageable = PageRequest.of(0, LATEST_OFFERS_COUNT, sort);
+    return offerRepository.findPageWithActiveOffers(pageable).stream()
+        .map(offer -> modelMapper.map(offer, OfferServiceModel.class))
+        .collect(Collectors.toUnmodifiableList());
+  }
+}
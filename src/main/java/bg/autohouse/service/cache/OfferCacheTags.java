@@ -0,0 +1,145 @@
+package bg.autohouse.service.cache;
+
+import bg.autohouse.data.models.EntityConstants;
+import bg.autohouse.service.events.OfferChangedEvent;
+import bg.autohouse.service.events.OfferSearchScope;
+import bg.autohouse.service.models.FilterCriteria;
+import bg.autohouse.service.services.impl.OfferServiceImpl;
+import bg.autohouse.util.Assert;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Versioned tags for the offer caches. Key generators put the current versions of the tags an entry
+ * depends on into its cache key, so bumping a tag makes every entry that depends on it unreachable
+ * without touching the rest of the cache. Unreachable entries age out through the cache eviction.
+ *
+ * <p>Search entries are tagged by maker scope and log2 price bucket, user offer entries by the
+ * owner and offers by ids entries by each contained offer. Everything also depends on a global
+ * epoch, bumped by bulk changes. Any change also refreshes the latest offers.
+ *
+ * <p>Versions are kept in a bounded cache that outlives the cached entries. All versions come from
+ * one increasing clock, so a tag that was evicted starts again at a version no entry was cached
+ * under.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class OfferCacheTags {
+
+  private static final String ANY = "*";
+
+  @Value("${app.cache.expire-after-write:10m}")
+  private Duration expireAfterWrite;
+
+  @Value("${app.cache.tags.maximum-size:100000}")
+  private long maximumSize;
+
+  private final CacheManager cacheManager;
+
+  private final AtomicLong epoch = new AtomicLong();
+  private final AtomicLong clock = new AtomicLong();
+  // a tag that is missing starts at a fresh version
+  private LoadingCache<String, Long> versions;
+
+  @PostConstruct
+  void init() {
+    // a tag untouched for twice the entry lifetime has no entries left to invalidate
+    versions =
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterAccess(expireAfterWrite.multipliedBy(2))
+            .build(tag -> clock.incrementAndGet());
+  }
+
+  public long epoch() {
+    return epoch.get();
+  }
+
+  public long ownerVersion(UUID ownerId) {
+    return version("owner:" + ownerId);
+  }
+
+  public long offerVersion(UUID offerId) {
+    return version("offer:" + offerId);
+  }
+
+  /** Versions of every maker scope and price bucket the filter covers. */
+  public long[] searchVersions(FilterCriteria filter) {
+    String scope = scope(filter.getMakerName(), filter.getModelName());
+    int from = bucket(filter.getPriceFrom());
+    int to = Math.max(from, bucket(filter.getPriceTo()));
+    long[] result = new long[to - from + 1];
+    for (int bucket = from; bucket <= to; bucket++) {
+      result[bucket - from] = version(scope + "|" + bucket);
+    }
+    return result;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onOfferChanged(OfferChangedEvent event) {
+    refreshLatestOffers();
+    if (event.isBulk()) {
+      epoch.incrementAndGet();
+      return;
+    }
+    if (Assert.has(event.getOwnerId())) bump("owner:" + event.getOwnerId());
+    if (Assert.has(event.getOfferId())) bump("offer:" + event.getOfferId());
+    invalidateScopes(event.getScopes());
+  }
+
+  /** Reloads the latest offers in the background, readers keep the previous list meanwhile. */
+  @SuppressWarnings("unchecked")
+  private void refreshLatestOffers() {
+    Cache cache = cacheManager.getCache(OfferServiceImpl.LATEST_OFFERS_CACHE);
+    if (cache != null && cache.getNativeCache() instanceof LoadingCache) {
+      ((LoadingCache<Object, Object>) cache.getNativeCache()).refresh(SimpleKey.EMPTY);
+    }
+  }
+
+  private void invalidateScopes(Collection<OfferSearchScope> scopes) {
+    for (OfferSearchScope scope : scopes) {
+      int bucket = bucket(scope.getPrice());
+      bump(scope(null, null) + "|" + bucket);
+      bump(scope(scope.getMakerName(), null) + "|" + bucket);
+      bump(scope(scope.getMakerName(), scope.getModelName()) + "|" + bucket);
+    }
+  }
+
+  private long version(String tag) {
+    return versions.get(tag);
+  }
+
+  private void bump(String tag) {
+    long version = clock.incrementAndGet();
+    versions.put(tag, version);
+    log.debug("Cache tag {} moved to version {}", tag, version);
+  }
+
+  private static String scope(String makerName, String modelName) {
+    String maker = Assert.has(makerName) ? makerName.toLowerCase(Locale.ROOT) : ANY;
+    if (ANY.equals(maker)) return ANY;
+    String model = Assert.has(modelName) ? modelName.toLowerCase(Locale.ROOT) : ANY;
+    return maker + "/" + model;
+  }
+
+  static int bucket(int price) {
+    int bounded = Math.max(EntityConstants.MIN_VALUE, Math.min(price, EntityConstants.PRICE_TO));
+    return 32 - Integer.numberOfLeadingZeros(bounded);
+  }
+}
@@ -0,0 +1,100 @@
+package bg.autohouse.service.counters;
+
+import bg.autohouse.data.models.EntityConstants;
+import bg.autohouse.util.UIDUtil;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts offer views in memory and periodically adds the accumulated deltas to the offers in one
+ * batched update, so viewing an offer never locks its row. The counters stay in the map and are
+ * drained in place, a view is either in the flushed delta or stays for the next flush. Offers that
+ * were not viewed for two flushes in a row give up their counters.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class OfferHitCounter {
+
+  private static final String ADD_HITS =
+      "UPDATE " + EntityConstants.OFFERS + " SET hit_count = hit_count + ? WHERE id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  private final Map<UUID, LongAdder> pending = new ConcurrentHashMap<>();
+
+  // guarded by flush: the offers not viewed since the last flush and the counters pruned then,
+  // which are drained once more as a view may have picked one up just before it was removed
+  private Set<UUID> idle = new HashSet<>();
+  private Map<UUID, LongAdder> pruned = new HashMap<>();
+
+  public void increment(UUID offerId) {
+    pending.computeIfAbsent(offerId, id -> new LongAdder()).increment();
+  }
+
+  public long pendingHits(UUID offerId) {
+    LongAdder hits = pending.get(offerId);
+    return hits == null ? 0L : hits.sum();
+  }
+
+  @PreDestroy
+  @Scheduled(fixedDelayString = "${app.offer.hit-count.flush-interval-ms:10000}")
+  public synchronized void flush() {
+    Map<UUID, Long> drained = new HashMap<>();
+    Set<UUID> notViewed = new HashSet<>();
+    pending.forEach(
+        (offerId, counter) -> {
+          long hits = counter.sumThenReset();
+          if (hits > 0) {
+            drained.put(offerId, hits);
+          } else {
+            notViewed.add(offerId);
+          }
+        });
+    pruned.forEach(
+        (offerId, counter) -> {
+          long hits = counter.sumThenReset();
+          if (hits > 0) drained.merge(offerId, hits, Long::sum);
+        });
+    pruneIdle(notViewed);
+    if (drained.isEmpty()) return;
+    List<Object[]> batch = new ArrayList<>(drained.size());
+    drained.forEach(
+        (offerId, hits) -> batch.add(new Object[] {hits, UIDUtil.getBytesFromUUID(offerId)}));
+    try {
+      jdbcTemplate.batchUpdate(ADD_HITS, batch);
+      log.debug("Flushed hit counts of {} offers", batch.size());
+    } catch (DataAccessException e) {
+      log.warn("Could not flush hit counts of {} offers, retrying later", batch.size(), e);
+      drained.forEach(
+          (offerId, hits) -> pending.computeIfAbsent(offerId, id -> new LongAdder()).add(hits));
+    }
+  }
+
+  private void pruneIdle(Set<UUID> notViewed) {
+    Map<UUID, LongAdder> removed = new HashMap<>();
+    for (UUID offerId : notViewed) {
+      if (!idle.contains(offerId)) continue;
+      LongAdder counter = pending.get(offerId);
+      if (counter != null && pending.remove(offerId, counter)) removed.put(offerId, counter);
+    }
+    notViewed.removeAll(removed.keySet());
+    idle = notViewed;
+    pruned = removed;
+  }
+}
@@ -0,0 +1,15 @@
+package bg.autohouse.service.events;
+
+import bg.autohouse.data.models.media.MediaFunction;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** Published when the content of a media record queued in the upload outbox is stored. */
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class MediaStoredEvent {
+  private UUID mediaFileId;
+  private UUID referenceId;
+  private MediaFunction function;
+}
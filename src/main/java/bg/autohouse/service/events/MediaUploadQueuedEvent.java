@@ -0,0 +1,12 @@
+package bg.autohouse.service.events;
+
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** Published when media content is queued in the upload outbox, dispatched once committed. */
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class MediaUploadQueuedEvent {
+  private UUID uploadId;
+}
@@ -0,0 +1,9 @@
+package bg.autohouse.service.events;
+
+public enum OfferChangeType {
+  CREATED,
+  UPDATED,
+  TOGGLED,
+  DELETED,
+  BULK_UPDATED
+}
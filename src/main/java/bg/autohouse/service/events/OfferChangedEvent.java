@@ -0,0 +1,38 @@
+package bg.autohouse.service.events;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published after an offer is written. Carries the owner of the offer and the search scopes the
+ * offer belonged to before and after the write. Bulk updates carry no offer id. With an owner,
+ * such as when a user is disabled, any offer of the owner may have changed; without one, such as
+ * the scheduled deactivation, any offer at all.
+ */
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class OfferChangedEvent {
+  private OfferChangeType type;
+  private UUID offerId;
+  private UUID ownerId;
+  private List<OfferSearchScope> scopes;
+
+  public static OfferChangedEvent of(OfferChangeType type, UUID offerId) {
+    return of(type, offerId, null, Collections.emptyList());
+  }
+
+  public static OfferChangedEvent bulk() {
+    return of(OfferChangeType.BULK_UPDATED, null);
+  }
+
+  public static OfferChangedEvent bulk(UUID ownerId) {
+    return of(OfferChangeType.BULK_UPDATED, null, ownerId, Collections.emptyList());
+  }
+
+  public boolean isBulk() {
+    return type == OfferChangeType.BULK_UPDATED;
+  }
+}
@@ -0,0 +1,21 @@
+package bg.autohouse.service.events;
+
+import bg.autohouse.service.media.StagedImage;
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when an offer is created with images staged for processing. The images are processed
+ * once the offer is committed and discarded if it is rolled back.
+ */
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class OfferImagesUploadedEvent {
+  private UUID offerId;
+  private UUID ownerId;
+  private OfferSearchScope scope;
+  private String mainPhoto;
+  private List<StagedImage> images;
+}
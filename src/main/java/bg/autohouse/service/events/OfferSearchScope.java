@@ -0,0 +1,18 @@
+package bg.autohouse.service.events;
+
+import bg.autohouse.data.models.offer.Offer;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/** The searchable attributes of an offer that decide which cached searches it can appear in. */
+@Value
+@AllArgsConstructor(staticName = "of")
+public class OfferSearchScope {
+  private String makerName;
+  private String modelName;
+  private int price;
+
+  public static OfferSearchScope of(Offer offer) {
+    return of(offer.getVehicle().getMakerName(), offer.getVehicle().getModelName(), offer.getPrice());
+  }
+}
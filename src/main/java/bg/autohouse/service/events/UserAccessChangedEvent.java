@@ -0,0 +1,18 @@
+package bg.autohouse.service.events;
+
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when an admin enables, disables or demotes a user. The tokens of the user are
+ * rejected from the moment the change is committed.
+ */
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class UserAccessChangedEvent {
+  private UUID userId;
+  private boolean enabled;
+  // epoch second up to which the tokens of the user are rejected, null if they are not revoked
+  private Long tokensRevokedUntil;
+}
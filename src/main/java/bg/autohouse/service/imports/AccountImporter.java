@@ -0,0 +1,161 @@
+package bg.autohouse.service.imports;
+
+import bg.autohouse.data.models.BaseUuidEntity;
+import bg.autohouse.data.models.User;
+import bg.autohouse.data.models.account.Account;
+import bg.autohouse.data.models.enums.AccountType;
+import bg.autohouse.data.models.geo.Address;
+import bg.autohouse.data.models.geo.Location;
+import bg.autohouse.data.projections.geo.LocationPostalCode;
+import bg.autohouse.data.repositories.AccountRepository;
+import bg.autohouse.data.repositories.LocationRepository;
+import bg.autohouse.data.repositories.UserRepository;
+import bg.autohouse.service.models.account.AccountCreateServiceModel;
+import bg.autohouse.service.models.account.AccountServiceModel;
+import bg.autohouse.util.Assert;
+import bg.autohouse.util.Collect;
+import bg.autohouse.util.EnumUtils;
+import bg.autohouse.util.F;
+import bg.autohouse.web.enums.RestMessage;
+import com.google.common.collect.Lists;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Creates the accounts of existing users one chunk at a time. Dealer addresses are resolved
+ * through an index of the location ids by postal code built once per run. Each chunk loads its
+ * users with one query, persists the accounts and sets {@code has_account} with one update in a
+ * transaction of its own, then clears the persistence context.
+ *
+ * <p>The whole input is validated before the first chunk is written, so invalid models fail the
+ * run without creating any account. A run that fails while writing keeps the chunks committed
+ * before the failure. Running it again with the same input is safe, users that already have an
+ * account are skipped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class AccountImporter {
+
+  @Value("${app.import.accounts.chunk-size:500}")
+  private int chunkSize;
+
+  private final UserRepository userRepository;
+  private final AccountRepository accountRepository;
+  private final LocationRepository locationRepository;
+  private final PlatformTransactionManager transactionManager;
+  private final MeterRegistry meterRegistry;
+
+  @PersistenceContext private EntityManager entityManager;
+
+  private TransactionTemplate transactionTemplate;
+
+  @PostConstruct
+  public void init() {
+    transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  /**
+   * Creates an account for every model whose user exists under the given username and has none
+   * yet, and returns the number of created accounts.
+   */
+  public int createAccounts(List<AccountCreateServiceModel> models) {
+    PhaseTimings timings = new PhaseTimings(meterRegistry, "autohouse.import.accounts");
+    List<LocationPostalCode> locations = locationRepository.findAllPostalCodes();
+    Map<Integer, Long> locationIds = new HashMap<>(locations.size() * 2);
+    for (LocationPostalCode location : locations) {
+      locationIds.putIfAbsent(location.getPostalCode(), location.getId());
+    }
+    // dealers with an unknown postal code get the first location, as they always have
+    Long fallbackLocationId = locations.isEmpty() ? null : locations.get(0).getId();
+    timings.mark("index-locations");
+    for (AccountCreateServiceModel model : models) {
+      AccountServiceModel account = model.getAccount();
+      Assert.notNull(account, "Account is required");
+      if (accountType(account) == AccountType.DEALER) {
+        Assert.notNull(account.getAddress(), "Dealer address is required");
+        Assert.notNull(fallbackLocationId, "No location for the dealer address");
+      }
+    }
+    timings.mark("validate");
+    int created = 0;
+    for (List<AccountCreateServiceModel> chunk : Lists.partition(models, chunkSize)) {
+      created +=
+          transactionTemplate.execute(
+              status -> createChunk(chunk, locationIds, fallbackLocationId, timings));
+      timings.mark("commit");
+    }
+    log.info(
+        "{}.createAccounts created {} of {} accounts in {} millis {}",
+        getClass().getSimpleName(),
+        created,
+        models.size(),
+        timings.totalMillis(),
+        timings);
+    return created;
+  }
+
+  private int createChunk(
+      List<AccountCreateServiceModel> chunk,
+      Map<Integer, Long> locationIds,
+      Long fallbackLocationId,
+      PhaseTimings timings) {
+    List<UUID> ids = F.mapNonNullsToList(chunk, AccountCreateServiceModel::getId);
+    Map<UUID, User> owners =
+        userRepository.findAllWithoutAccountByIdIn(ids).stream()
+            .collect(Collect.indexingBy(BaseUuidEntity::getId));
+    timings.mark("load-users");
+    List<Account> accounts = new ArrayList<>(chunk.size());
+    List<UUID> ownerIds = new ArrayList<>(chunk.size());
+    for (AccountCreateServiceModel model : chunk) {
+      User owner = owners.get(model.getId());
+      if (owner == null || !owner.getUsername().equals(model.getUsername())) continue;
+      // a user listed twice gets the first account only
+      owners.remove(model.getId());
+      accounts.add(createAccount(model.getAccount(), owner, locationIds, fallbackLocationId));
+      ownerIds.add(owner.getId());
+    }
+    timings.mark("build-accounts");
+    if (accounts.isEmpty()) return 0;
+    accountRepository.saveAll(accounts);
+    userRepository.updateHasAccount(ownerIds);
+    entityManager.flush();
+    entityManager.clear();
+    timings.mark("write");
+    return accounts.size();
+  }
+
+  private Account createAccount(
+      AccountServiceModel model, User owner, Map<Integer, Long> locationIds, Long fallbackId) {
+    if (!AccountType.DEALER.equals(accountType(model))) {
+      return Account.createPrivateAccount(model, owner);
+    }
+    Account account = Account.createDealerAccount(model, owner);
+    Long locationId =
+        locationIds.getOrDefault(model.getAddress().getLocationPostalCode(), fallbackId);
+    // a reference is enough for the foreign key and needs no select
+    Location location = entityManager.getReference(Location.class, locationId);
+    Address.createAddress(location, model.getAddress().getStreet(), account);
+    return account;
+  }
+
+  private static AccountType accountType(AccountServiceModel model) {
+    Assert.notNull(model.getAccountType(), "Invalid AccountType");
+    return EnumUtils.fromString(model.getAccountType(), AccountType.class)
+        .orElseThrow(() -> new IllegalStateException(RestMessage.INVALID_ACCOUNT_TYPE.name()));
+  }
+}
@@ -0,0 +1,30 @@
+package bg.autohouse.service.imports;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+
+/** The outcome of the validation pass of a catalog import, the rows it would write per table. */
+@Getter
+public class CatalogImportReport {
+
+  private static final int MAX_REPORTED_ERRORS = 100;
+
+  private final Map<String, Integer> rows = new LinkedHashMap<>();
+  private final List<String> errors = new ArrayList<>();
+  private int errorCount;
+
+  public boolean isValid() {
+    return errorCount == 0;
+  }
+
+  void count(String table) {
+    rows.merge(table, 1, Integer::sum);
+  }
+
+  void reject(String path, String message) {
+    if (errorCount++ < MAX_REPORTED_ERRORS) errors.add(path + ": " + message);
+  }
+}
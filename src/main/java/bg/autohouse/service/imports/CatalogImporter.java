@@ -0,0 +1,247 @@
+package bg.autohouse.service.imports;
+
+import bg.autohouse.data.models.EntityConstants;
+import bg.autohouse.errors.InvalidCatalogImportException;
+import bg.autohouse.util.Assert;
+import bg.autohouse.validation.maker.MakerName;
+import bg.autohouse.validation.maker.ModelName;
+import bg.autohouse.web.models.request.LocationCreateRequest;
+import bg.autohouse.web.models.request.MakerModelsTrimsCreateRequest;
+import bg.autohouse.web.models.request.ModelTrimsCreateRequest;
+import bg.autohouse.web.models.request.ProvinceLocationsCreateRequest;
+import bg.autohouse.web.models.request.TrimCreateRequest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Imports the vehicle catalog and the provinces with their locations through the {@link
+ * JdbcBatchLoader}. Every import is validated as a whole first, so a chunk that was committed is
+ * never followed by one that fails on bad input. The same pass answers dry runs.
+ */
+@Component
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class CatalogImporter {
+
+  private static final int MAX_TEXT_LENGTH = 255;
+  private static final List<String> MAKER_COLUMNS = List.of("name");
+  private static final List<String> MODEL_COLUMNS = List.of("name", "maker_id");
+  private static final List<String> TRIM_COLUMNS = List.of("model_id", "year", "trim");
+  private static final List<String> PROVINCE_COLUMNS = List.of("name", "ekatte");
+  private static final List<String> LOCATION_COLUMNS =
+      List.of(
+          "province_id",
+          "country",
+          "city_region",
+          "city",
+          "postal_code",
+          "latitude",
+          "longitude",
+          "maps_url");
+
+  private final JdbcBatchLoader loader;
+  private final JdbcTemplate jdbcTemplate;
+
+  public CatalogImportReport checkMakers(List<MakerModelsTrimsCreateRequest> makers) {
+    CatalogImportReport report = new CatalogImportReport();
+    Map<String, String> pathsByName = new HashMap<>();
+    for (int i = 0; i < makers.size(); i++) {
+      MakerModelsTrimsCreateRequest maker = makers.get(i);
+      String path = "makers[" + i + "]";
+      report.count(EntityConstants.MAKERS);
+      if (checkText(report, path + ".name", maker.getName(), MakerName.MAX_LENGTH)
+          && pathsByName.putIfAbsent(key(maker.getName()), path) != null) {
+        report.reject(path + ".name", "duplicate maker " + maker.getName());
+      }
+      Set<String> modelNames = new HashSet<>();
+      List<ModelTrimsCreateRequest> models = nonNull(maker.getModels());
+      for (int j = 0; j < models.size(); j++) {
+        ModelTrimsCreateRequest model = models.get(j);
+        String modelPath = path + ".models[" + j + "]";
+        report.count(EntityConstants.MODELS);
+        if (checkText(report, modelPath + ".name", model.getName(), ModelName.MAX_LENGTH)
+            && !modelNames.add(key(model.getName()))) {
+          report.reject(modelPath + ".name", "duplicate model " + model.getName());
+        }
+        List<TrimCreateRequest> trims = nonNull(model.getTrims());
+        for (int k = 0; k < trims.size(); k++) {
+          TrimCreateRequest trim = trims.get(k);
+          String trimPath = modelPath + ".trims[" + k + "]";
+          report.count(EntityConstants.TRIMS);
+          if (trim.getYear() == null) report.reject(trimPath + ".year", "is required");
+          checkText(report, trimPath + ".trim", trim.getTrim(), MAX_TEXT_LENGTH);
+        }
+      }
+    }
+    // maker names are unique, an existing one would fail its chunk halfway through the import
+    for (String existing : findExistingMakerNames(pathsByName.keySet())) {
+      report.reject(pathsByName.get(key(existing)) + ".name", "maker already exists");
+    }
+    return report;
+  }
+
+  /** Validates and imports the makers with their models and trims, returns the created makers. */
+  public int importMakers(List<MakerModelsTrimsCreateRequest> makers) {
+    CatalogImportReport report = checkMakers(makers);
+    if (!report.isValid()) throw new InvalidCatalogImportException(report);
+    return loader.load("makers", makers, CatalogImporter::rowsOf, this::writeMakers);
+  }
+
+  public CatalogImportReport checkProvinces(List<ProvinceLocationsCreateRequest> provinces) {
+    CatalogImportReport report = new CatalogImportReport();
+    for (int i = 0; i < provinces.size(); i++) {
+      ProvinceLocationsCreateRequest province = provinces.get(i);
+      String path = "provinces[" + i + "]";
+      report.count(EntityConstants.PROVINCES);
+      checkText(report, path + ".name", province.getName(), MAX_TEXT_LENGTH);
+      if (province.getEkatte() == null) report.reject(path + ".ekatte", "is required");
+      List<LocationCreateRequest> locations = nonNull(province.getLocations());
+      for (int j = 0; j < locations.size(); j++) {
+        LocationCreateRequest location = locations.get(j);
+        String locationPath = path + ".locations[" + j + "]";
+        report.count(EntityConstants.LOCATIONS);
+        checkText(report, locationPath + ".country", location.getCountry(), MAX_TEXT_LENGTH);
+        checkText(report, locationPath + ".cityRegion", location.getCityRegion(), MAX_TEXT_LENGTH);
+        checkText(report, locationPath + ".city", location.getCity(), MAX_TEXT_LENGTH);
+        if (location.getPostalCode() == null) {
+          report.reject(locationPath + ".postalCode", "is required");
+        }
+        if (Math.abs(location.getGeoLatitude()) > 90) {
+          report.reject(locationPath + ".geoLatitude", "is out of range");
+        }
+        if (Math.abs(location.getGeoLongitude()) > 180) {
+          report.reject(locationPath + ".geoLongitude", "is out of range");
+        }
+        if (location.getMapsUrl() != null && location.getMapsUrl().length() > MAX_TEXT_LENGTH) {
+          report.reject(locationPath + ".mapsUrl", "is longer than " + MAX_TEXT_LENGTH);
+        }
+      }
+    }
+    return report;
+  }
+
+  /** Validates and imports the provinces with their locations, returns the created locations. */
+  public int importProvinces(List<ProvinceLocationsCreateRequest> provinces) {
+    CatalogImportReport report = checkProvinces(provinces);
+    if (!report.isValid()) throw new InvalidCatalogImportException(report);
+    return loader.load("provinces", provinces, CatalogImporter::rowsOf, this::writeProvinces);
+  }
+
+  private int writeMakers(
+      List<MakerModelsTrimsCreateRequest> makers, JdbcBatchLoader.Chunk chunk) {
+    List<Object[]> makerRows = new ArrayList<>(makers.size());
+    for (MakerModelsTrimsCreateRequest maker : makers) {
+      makerRows.add(new Object[] {maker.getName().trim()});
+    }
+    chunk.mark("build-rows");
+    List<Long> makerIds =
+        chunk.insertReturningIds(EntityConstants.MAKERS, MAKER_COLUMNS, makerRows);
+    List<Object[]> modelRows = new ArrayList<>();
+    for (int i = 0; i < makers.size(); i++) {
+      for (ModelTrimsCreateRequest model : nonNull(makers.get(i).getModels())) {
+        modelRows.add(new Object[] {model.getName().trim(), makerIds.get(i)});
+      }
+    }
+    chunk.mark("build-rows");
+    List<Long> modelIds =
+        chunk.insertReturningIds(EntityConstants.MODELS, MODEL_COLUMNS, modelRows);
+    List<Object[]> trimRows = new ArrayList<>();
+    int modelIndex = 0;
+    for (MakerModelsTrimsCreateRequest maker : makers) {
+      for (ModelTrimsCreateRequest model : nonNull(maker.getModels())) {
+        Long modelId = modelIds.get(modelIndex++);
+        for (TrimCreateRequest trim : nonNull(model.getTrims())) {
+          trimRows.add(new Object[] {modelId, trim.getYear(), trim.getTrim().trim()});
+        }
+      }
+    }
+    chunk.mark("build-rows");
+    chunk.insert(EntityConstants.TRIMS, TRIM_COLUMNS, trimRows);
+    return makerRows.size();
+  }
+
+  private int writeProvinces(
+      List<ProvinceLocationsCreateRequest> provinces, JdbcBatchLoader.Chunk chunk) {
+    List<Object[]> provinceRows = new ArrayList<>(provinces.size());
+    for (ProvinceLocationsCreateRequest province : provinces) {
+      provinceRows.add(new Object[] {province.getName().trim(), province.getEkatte()});
+    }
+    chunk.mark("build-rows");
+    List<Long> provinceIds =
+        chunk.insertReturningIds(EntityConstants.PROVINCES, PROVINCE_COLUMNS, provinceRows);
+    List<Object[]> locationRows = new ArrayList<>();
+    for (int i = 0; i < provinces.size(); i++) {
+      for (LocationCreateRequest location : nonNull(provinces.get(i).getLocations())) {
+        locationRows.add(
+            new Object[] {
+              provinceIds.get(i),
+              location.getCountry().trim(),
+              location.getCityRegion().trim(),
+              location.getCity().trim(),
+              location.getPostalCode(),
+              location.getGeoLatitude(),
+              location.getGeoLongitude(),
+              location.getMapsUrl()
+            });
+      }
+    }
+    chunk.mark("build-rows");
+    chunk.insert(EntityConstants.LOCATIONS, LOCATION_COLUMNS, locationRows);
+    return locationRows.size();
+  }
+
+  private List<String> findExistingMakerNames(Set<String> keys) {
+    if (keys.isEmpty()) return List.of();
+    String placeholders = String.join(",", Collections.nCopies(keys.size(), "?"));
+    return jdbcTemplate.queryForList(
+        "SELECT name FROM "
+            + EntityConstants.MAKERS
+            + " WHERE LOWER(name) IN ("
+            + placeholders
+            + ")",
+        String.class,
+        keys.toArray());
+  }
+
+  private static boolean checkText(
+      CatalogImportReport report, String path, String value, int maxLength) {
+    if (!Assert.has(value)) {
+      report.reject(path, "must not be blank");
+      return false;
+    }
+    if (value.trim().length() > maxLength) {
+      report.reject(path, "is longer than " + maxLength);
+      return false;
+    }
+    return true;
+  }
+
+  private static int rowsOf(MakerModelsTrimsCreateRequest maker) {
+    int rows = 1;
+    for (ModelTrimsCreateRequest model : nonNull(maker.getModels())) {
+      rows += 1 + nonNull(model.getTrims()).size();
+    }
+    return rows;
+  }
+
+  private static int rowsOf(ProvinceLocationsCreateRequest province) {
+    return 1 + nonNull(province.getLocations()).size();
+  }
+
+  private static <T> List<T> nonNull(List<T> items) {
+    return items == null ? List.of() : items;
+  }
+
+  private static String key(String name) {
+    return name.trim().toLowerCase(Locale.ROOT);
+  }
+}
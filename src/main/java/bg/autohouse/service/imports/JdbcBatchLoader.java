@@ -0,0 +1,184 @@
+package bg.autohouse.service.imports;
+
+import bg.autohouse.config.AuditConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+import javax.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes large trees of rows straight through JDBC. The items are cut into chunks of about {@code
+ * app.import.catalog.chunk-rows} rows and every chunk is written by a {@link ChunkWriter} in a
+ * transaction of its own.
+ *
+ * <p>The ids come from the identity columns of the tables. Parent rows are inserted with
+ * multi-row statements that return their generated keys, which the child rows are then built
+ * with, so concurrent inserts into the same tables never collide.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class JdbcBatchLoader {
+
+  // the limit of placeholders in a MySQL prepared statement
+  private static final int MAX_PARAMETERS = 65_535;
+  private static final List<String> AUDIT_COLUMNS =
+      List.of("created_at", "updated_at", "created_by", "modified_by");
+
+  @Value("${app.import.catalog.chunk-rows:5000}")
+  private int chunkRows;
+
+  @Value("${app.import.catalog.rows-per-statement:500}")
+  private int rowsPerStatement;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final PlatformTransactionManager transactionManager;
+  private final AuditorAware<String> auditorAware;
+  private final MeterRegistry meterRegistry;
+
+  private TransactionTemplate transactionTemplate;
+
+  @FunctionalInterface
+  public interface ChunkWriter<T> {
+    /** Writes the items through the chunk and returns the number the caller counts. */
+    int write(List<T> items, Chunk chunk);
+  }
+
+  @PostConstruct
+  public void init() {
+    transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  /**
+   * Writes the items chunk by chunk and returns the sum of what the writer returned. The chunks
+   * are cut between items, {@code rowsOf} tells how many rows an item writes.
+   */
+  public <T> int load(
+      String name, List<T> items, ToIntFunction<T> rowsOf, ChunkWriter<T> writer) {
+    PhaseTimings timings =
+        new PhaseTimings(meterRegistry, "autohouse.import.catalog", "load", name);
+    int written = 0;
+    int chunks = 0;
+    int from = 0;
+    while (from < items.size()) {
+      int to = from;
+      int rows = 0;
+      while (to < items.size() && rows < chunkRows) {
+        rows += rowsOf.applyAsInt(items.get(to++));
+      }
+      written += writeChunk(items.subList(from, to), writer, timings);
+      chunks++;
+      from = to;
+    }
+    log.info(
+        "{}.load {} wrote {} in {} chunks, {} millis {}",
+        getClass().getSimpleName(),
+        name,
+        written,
+        chunks,
+        timings.totalMillis(),
+        timings);
+    return written;
+  }
+
+  private <T> int writeChunk(List<T> items, ChunkWriter<T> writer, PhaseTimings timings) {
+    Integer written =
+        transactionTemplate.execute(status -> writer.write(items, new Chunk(timings)));
+    timings.mark("commit");
+    return written == null ? 0 : written;
+  }
+
+  /** The writes of one chunk, all made in the transaction of the chunk. */
+  public class Chunk {
+    private final PhaseTimings timings;
+    private final Timestamp now = new Timestamp(System.currentTimeMillis());
+    private final String auditor =
+        auditorAware.getCurrentAuditor().orElse(AuditConfiguration.SYSTEM_ACCOUNT);
+
+    private Chunk(PhaseTimings timings) {
+      this.timings = timings;
+    }
+
+    /**
+     * Inserts the rows with multi-row statements, each row holds the values of the columns in
+     * order. The audit columns are filled in.
+     */
+    public void insert(String table, List<String> columns, List<Object[]> rows) {
+      insert(table, columns, rows, null);
+      timings.mark("insert " + table);
+    }
+
+    /** Inserts the rows like {@link #insert} and returns the generated ids in the row order. */
+    public List<Long> insertReturningIds(String table, List<String> columns, List<Object[]> rows) {
+      List<Long> ids = new ArrayList<>(rows.size());
+      insert(table, columns, rows, ids);
+      if (ids.size() != rows.size()) {
+        throw new IllegalStateException(
+            "Inserted " + rows.size() + " rows into " + table + " but got " + ids.size() + " ids");
+      }
+      timings.mark("insert " + table);
+      return ids;
+    }
+
+    /** Charges the time since the last mark to the phase, for work done outside the chunk. */
+    public void mark(String phase) {
+      timings.mark(phase);
+    }
+
+    private void insert(String table, List<String> columns, List<Object[]> rows, List<Long> ids) {
+      List<String> allColumns = new ArrayList<>(columns);
+      allColumns.addAll(AUDIT_COLUMNS);
+      int width = allColumns.size();
+      int perStatement = Math.max(1, Math.min(rowsPerStatement, MAX_PARAMETERS / width));
+      String prefix =
+          "INSERT INTO " + table + " (" + String.join(", ", allColumns) + ") VALUES ";
+      String tuple = "(" + String.join(", ", Collections.nCopies(width, "?")) + ")";
+      for (int from = 0; from < rows.size(); from += perStatement) {
+        List<Object[]> part = rows.subList(from, Math.min(rows.size(), from + perStatement));
+        Object[] args = new Object[part.size() * width];
+        int i = 0;
+        for (Object[] row : part) {
+          System.arraycopy(row, 0, args, i, row.length);
+          i += row.length;
+          args[i++] = now;
+          args[i++] = now;
+          args[i++] = auditor;
+          args[i++] = auditor;
+        }
+        String sql = prefix + String.join(", ", Collections.nCopies(part.size(), tuple));
+        if (ids == null) {
+          jdbcTemplate.update(sql, args);
+          continue;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(
+            connection -> {
+              PreparedStatement statement = connection.prepareStatement(sql, new String[] {"id"});
+              new ArgumentPreparedStatementSetter(args).setValues(statement);
+              return statement;
+            },
+            keyHolder);
+        for (Map<String, Object> keys : keyHolder.getKeyList()) {
+          ids.add(((Number) keys.values().iterator().next()).longValue());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package bg.autohouse.service.imports;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds up the time a bulk operation spends in each of its phases, for its summary log line. Each
+ * {@link #mark(String)} charges the time since the previous mark to the given phase and records it
+ * to a timer of the operation, tagged with the phase.
+ */
+public class PhaseTimings {
+
+  private final MeterRegistry meterRegistry;
+  private final String metric;
+  private final Tags tags;
+  private final Map<String, Long> nanos = new LinkedHashMap<>();
+  private long lastMark = System.nanoTime();
+
+  public PhaseTimings(MeterRegistry meterRegistry, String metric, String... tags) {
+    this.meterRegistry = meterRegistry;
+    this.metric = metric;
+    this.tags = Tags.of(tags);
+  }
+
+  public void mark(String phase) {
+    long now = System.nanoTime();
+    long elapsed = now - lastMark;
+    nanos.merge(phase, elapsed, Long::sum);
+    meterRegistry.timer(metric, tags.and("phase", phase)).record(elapsed, TimeUnit.NANOSECONDS);
+    lastMark = now;
+  }
+
+  public long millis(String phase) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos.getOrDefault(phase, 0L));
+  }
+
+  public long totalMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(nanos.values().stream().mapToLong(Long::longValue).sum());
+  }
+
+  @Override
+  public String toString() {
+    StringJoiner joiner = new StringJoiner(", ", "{", "}");
+    nanos.keySet().forEach(phase -> joiner.add(phase + "=" + millis(phase) + "ms"));
+    return joiner.toString();
+  }
+}
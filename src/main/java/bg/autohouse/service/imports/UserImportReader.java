@@ -0,0 +1,166 @@
+package bg.autohouse.service.imports;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import javax.validation.constraints.Email;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
+import lombok.Value;
+
+/**
+ * Reads the rows of a user import one at a time, so an import holds at most one chunk of rows
+ * however large its input is.
+ */
+public abstract class UserImportReader implements Closeable {
+
+  private static final Set<String> USERNAME_FIELDS = Set.of("username", "email");
+
+  /** Returns the next row or {@code null} once the input is exhausted. */
+  public abstract Row next() throws IOException;
+
+  /** The line the reader stopped at, used to report malformed input. */
+  public abstract long currentLine();
+
+  @Override
+  public void close() throws IOException {}
+
+  /**
+   * Newline delimited JSON, one {@code {"username": "..."}} object or bare string per line.
+   * Unknown fields are skipped.
+   */
+  public static UserImportReader ndjson(InputStream in, JsonFactory jsonFactory)
+      throws IOException {
+    return new NdJsonReader(jsonFactory.createParser(in));
+  }
+
+  /** CSV with the username in the first column and an optional header line. */
+  public static UserImportReader csv(InputStream in) {
+    return new CsvReader(
+        new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+  }
+
+  public static UserImportReader of(List<String> usernames) {
+    return new ListReader(usernames.iterator());
+  }
+
+  @Value(staticConstructor = "of")
+  public static class Row {
+    long line;
+
+    @NotBlank
+    @Email
+    @Size(max = 255)
+    String username;
+  }
+
+  private static final class NdJsonReader extends UserImportReader {
+    private final JsonParser parser;
+
+    private NdJsonReader(JsonParser parser) {
+      this.parser = parser;
+    }
+
+    @Override
+    public Row next() throws IOException {
+      JsonToken token = parser.nextToken();
+      if (token == null) return null;
+      long line = parser.getTokenLocation().getLineNr();
+      if (token == JsonToken.VALUE_STRING) return Row.of(line, parser.getText());
+      String username = null;
+      if (token == JsonToken.START_OBJECT) {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String field = parser.getCurrentName();
+          if (parser.nextToken() == JsonToken.VALUE_STRING && USERNAME_FIELDS.contains(field)) {
+            username = parser.getText();
+          } else {
+            parser.skipChildren();
+          }
+        }
+      } else {
+        parser.skipChildren();
+      }
+      return Row.of(line, username);
+    }
+
+    @Override
+    public long currentLine() {
+      return parser.getCurrentLocation().getLineNr();
+    }
+
+    @Override
+    public void close() throws IOException {
+      parser.close();
+    }
+  }
+
+  private static final class CsvReader extends UserImportReader {
+    private final BufferedReader reader;
+    private long line;
+
+    private CsvReader(BufferedReader reader) {
+      this.reader = reader;
+    }
+
+    @Override
+    public Row next() throws IOException {
+      String text;
+      while ((text = reader.readLine()) != null) {
+        line++;
+        String username = firstColumn(text);
+        if (username.isEmpty()) continue;
+        if (line == 1 && USERNAME_FIELDS.contains(username.toLowerCase(Locale.ROOT))) continue;
+        return Row.of(line, username);
+      }
+      return null;
+    }
+
+    @Override
+    public long currentLine() {
+      return line;
+    }
+
+    @Override
+    public void close() throws IOException {
+      reader.close();
+    }
+
+    private static String firstColumn(String text) {
+      int comma = text.indexOf(',');
+      String column = (comma < 0 ? text : text.substring(0, comma)).trim();
+      if (column.length() > 1 && column.startsWith("\"") && column.endsWith("\"")) {
+        column = column.substring(1, column.length() - 1).trim();
+      }
+      return column;
+    }
+  }
+
+  private static final class ListReader extends UserImportReader {
+    private final Iterator<String> usernames;
+    private long line;
+
+    private ListReader(Iterator<String> usernames) {
+      this.usernames = usernames;
+    }
+
+    @Override
+    public Row next() {
+      return usernames.hasNext() ? Row.of(++line, usernames.next()) : null;
+    }
+
+    @Override
+    public long currentLine() {
+      return line;
+    }
+  }
+}
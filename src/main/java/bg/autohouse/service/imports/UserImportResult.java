@@ -0,0 +1,39 @@
+package bg.autohouse.service.imports;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.UUID;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserImportResult {
+
+  public enum Status {
+    CREATED,
+    EXISTS,
+    DUPLICATE,
+    INVALID,
+    FAILED
+  }
+
+  long line;
+  String username;
+  Status status;
+  UUID id;
+  String message;
+
+  static UserImportResult created(long line, String username, UUID id) {
+    return new UserImportResult(line, username, Status.CREATED, id, null);
+  }
+
+  static UserImportResult rejected(long line, String username, Status status) {
+    return new UserImportResult(line, username, status, null, null);
+  }
+
+  static UserImportResult failed(long line, String message) {
+    return new UserImportResult(line, null, Status.FAILED, null, message);
+  }
+}
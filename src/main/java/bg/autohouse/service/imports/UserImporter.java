@@ -0,0 +1,195 @@
+package bg.autohouse.service.imports;
+
+import bg.autohouse.config.AuditConfiguration;
+import bg.autohouse.data.models.EntityConstants;
+import bg.autohouse.data.models.enums.Role;
+import bg.autohouse.security.PasswordHasher;
+import bg.autohouse.service.imports.UserImportReader.Row;
+import bg.autohouse.service.imports.UserImportResult.Status;
+import bg.autohouse.util.StringGenericUtils;
+import bg.autohouse.util.UIDUtil;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import javax.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Registers users from a {@link UserImportReader} one chunk at a time. Each chunk is checked
+ * against the existing users with one query, hashed and written with JDBC batches in a
+ * transaction of its own, so the rows never enter a persistence context and the memory an import
+ * needs does not grow with its size. Callers get the results of every chunk once it is committed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class UserImporter {
+
+  private static final String FIND_EXISTING =
+      "SELECT username FROM " + EntityConstants.USERS + " WHERE username IN (%s)";
+  private static final String INSERT_USER =
+      "INSERT INTO "
+          + EntityConstants.USERS
+          + " (id, username, password, enabled, has_account, created_at, updated_at, created_by,"
+          + " modified_by) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+  private static final String INSERT_ROLE =
+      "INSERT INTO " + EntityConstants.PREFIX + "user_role (user_id, role) VALUES (?, ?)";
+  private static final int GENERATED_PASSWORD_LENGTH = 8;
+
+  @Value("${app.import.users.chunk-size:1000}")
+  private int chunkSize;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final PlatformTransactionManager transactionManager;
+  private final PasswordHasher passwordHasher;
+  private final AuditorAware<String> auditorAware;
+  private final Validator validator;
+
+  private TransactionTemplate transactionTemplate;
+
+  @PostConstruct
+  public void init() {
+    transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  /**
+   * Imports every row of the reader and returns the number of created users. Rows read before
+   * malformed input are still imported, the malformed line is reported as {@link Status#FAILED}
+   * and ends the import.
+   */
+  public int importUsers(UserImportReader reader, Consumer<List<UserImportResult>> onChunk) {
+    long startNanos = System.nanoTime();
+    Map<Status, Integer> totals = new EnumMap<>(Status.class);
+    List<Row> chunk = new ArrayList<>(chunkSize);
+    UserImportResult failure = null;
+    try {
+      Row row;
+      while ((row = reader.next()) != null) {
+        chunk.add(row);
+        if (chunk.size() == chunkSize) {
+          publish(importChunk(chunk), onChunk, totals);
+          chunk.clear();
+        }
+      }
+    } catch (IOException e) {
+      failure = UserImportResult.failed(reader.currentLine(), e.getMessage());
+    }
+    if (!chunk.isEmpty()) publish(importChunk(chunk), onChunk, totals);
+    if (failure != null) publish(List.of(failure), onChunk, totals);
+    log.info(
+        "{}.importUsers {} took {} millis",
+        getClass().getSimpleName(),
+        totals,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    return totals.getOrDefault(Status.CREATED, 0);
+  }
+
+  private static void publish(
+      List<UserImportResult> results,
+      Consumer<List<UserImportResult>> onChunk,
+      Map<Status, Integer> totals) {
+    results.forEach(result -> totals.merge(result.getStatus(), 1, Integer::sum));
+    onChunk.accept(results);
+  }
+
+  private List<UserImportResult> importChunk(List<Row> rows) {
+    try {
+      return tryImportChunk(rows);
+    } catch (DuplicateKeyException e) {
+      // somebody registered between the check and the insert, the repeated check sees them
+      log.warn("Chunk of {} users collided with a new registration, retrying", rows.size());
+      return tryImportChunk(rows);
+    }
+  }
+
+  private List<UserImportResult> tryImportChunk(List<Row> rows) {
+    UserImportResult[] results = new UserImportResult[rows.size()];
+    String[] usernames = new String[rows.size()];
+    Map<String, Integer> candidates = new LinkedHashMap<>();
+    for (int i = 0; i < rows.size(); i++) {
+      Row row = rows.get(i);
+      String username = row.getUsername() == null ? null : row.getUsername().trim();
+      usernames[i] = username;
+      if (!validator.validateValue(Row.class, "username", username).isEmpty()) {
+        results[i] = UserImportResult.rejected(row.getLine(), username, Status.INVALID);
+      } else if (candidates.putIfAbsent(key(username), i) != null) {
+        results[i] = UserImportResult.rejected(row.getLine(), username, Status.DUPLICATE);
+      }
+    }
+    Set<String> existing = findExisting(candidates.values(), usernames);
+    List<Integer> accepted = new ArrayList<>(candidates.size());
+    candidates.forEach(
+        (key, i) -> {
+          if (existing.contains(key)) {
+            results[i] =
+                UserImportResult.rejected(rows.get(i).getLine(), usernames[i], Status.EXISTS);
+          } else {
+            accepted.add(i);
+          }
+        });
+    if (!accepted.isEmpty()) {
+      List<String> passwords = new ArrayList<>(accepted.size());
+      for (int i = 0; i < accepted.size(); i++) {
+        passwords.add(StringGenericUtils.nextPassword(GENERATED_PASSWORD_LENGTH));
+      }
+      List<String> encoded = passwordHasher.encodeAllGenerated(passwords);
+      Timestamp now = new Timestamp(System.currentTimeMillis());
+      String auditor = auditorAware.getCurrentAuditor().orElse(AuditConfiguration.SYSTEM_ACCOUNT);
+      List<Object[]> users = new ArrayList<>(accepted.size());
+      List<Object[]> roles = new ArrayList<>(accepted.size());
+      for (int j = 0; j < accepted.size(); j++) {
+        int i = accepted.get(j);
+        UUID id = UIDUtil.generateUID();
+        byte[] idBytes = UIDUtil.getBytesFromUUID(id);
+        users.add(
+            new Object[] {
+              idBytes, usernames[i], encoded.get(j), true, false, now, now, auditor, auditor
+            });
+        roles.add(new Object[] {idBytes, Role.USER.name()});
+        results[i] = UserImportResult.created(rows.get(i).getLine(), usernames[i], id);
+      }
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            jdbcTemplate.batchUpdate(INSERT_USER, users);
+            jdbcTemplate.batchUpdate(INSERT_ROLE, roles);
+          });
+    }
+    return Arrays.asList(results);
+  }
+
+  // the usernames are matched with the column collation, the keys of the matches are returned
+  private Set<String> findExisting(Collection<Integer> indexes, String[] usernames) {
+    if (indexes.isEmpty()) return Set.of();
+    Object[] args = indexes.stream().map(i -> usernames[i]).toArray();
+    String placeholders = String.join(",", Collections.nCopies(args.length, "?"));
+    String sql = String.format(FIND_EXISTING, placeholders);
+    return new HashSet<>(jdbcTemplate.query(sql, (rs, rowNum) -> key(rs.getString(1)), args));
+  }
+
+  private static String key(String username) {
+    return username.toLowerCase(Locale.ROOT);
+  }
+}
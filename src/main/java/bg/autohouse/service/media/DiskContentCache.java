@@ -0,0 +1,143 @@
+package bg.autohouse.service.media;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Content addressed cache of files in a local folder, bounded by their total size. Concurrent
+ * misses for the same key share a single load, the other callers wait for its file. Evicted files
+ * are deleted, streams already open on them keep reading. Files left by a previous run are picked
+ * up again, oldest first.
+ */
+@Slf4j
+public class DiskContentCache {
+
+  @FunctionalInterface
+  public interface ContentLoader {
+    void writeTo(OutputStream out) throws IOException;
+  }
+
+  private final Path folder;
+  private final AsyncCache<String, Path> files;
+
+  public DiskContentCache(Path folder, long maxBytes) throws IOException {
+    this.folder = Files.createDirectories(folder);
+    this.files =
+        Caffeine.newBuilder()
+            .maximumWeight(maxBytes)
+            .weigher((String name, Path file) -> weight(file))
+            .removalListener(this::onRemoval)
+            .executor(Runnable::run)
+            .buildAsync();
+    restore();
+  }
+
+  public Optional<Path> getIfPresent(String key) {
+    CompletableFuture<Path> file = files.getIfPresent(fileName(key));
+    if (file == null || !file.isDone() || file.isCompletedExceptionally()) return Optional.empty();
+    return Optional.of(file.join()).filter(Files::exists);
+  }
+
+  /** Returns the cached file, loading it when missing. */
+  public Path get(String key, ContentLoader loader) throws IOException {
+    String name = fileName(key);
+    CompletableFuture<Path> created = new CompletableFuture<>();
+    CompletableFuture<Path> file = files.get(name, (k, executor) -> created);
+    if (file == created) {
+      try {
+        created.complete(load(name, loader));
+      } catch (IOException | RuntimeException e) {
+        created.completeExceptionally(e);
+      }
+    }
+    try {
+      return file.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+      if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+      throw e;
+    }
+  }
+
+  public void evict(String key) {
+    files.synchronous().invalidate(fileName(key));
+  }
+
+  public long size() {
+    files.synchronous().cleanUp();
+    return files.synchronous().estimatedSize();
+  }
+
+  private Path load(String name, ContentLoader loader) throws IOException {
+    Path temp = Files.createTempFile(folder, name, ".part");
+    try {
+      try (OutputStream out = Files.newOutputStream(temp)) {
+        loader.writeTo(out);
+      }
+      return Files.move(temp, folder.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private void restore() throws IOException {
+    try (Stream<Path> stream = Files.list(folder)) {
+      for (Path file :
+          stream
+              .filter(Files::isRegularFile)
+              .sorted(Comparator.comparing(DiskContentCache::lastModified))
+              .collect(Collectors.toList())) {
+        if (file.getFileName().toString().endsWith(".part")) {
+          Files.deleteIfExists(file);
+        } else {
+          files.put(file.getFileName().toString(), CompletableFuture.completedFuture(file));
+        }
+      }
+    }
+    log.info("Disk cache in {} restored with {} files", folder, size());
+  }
+
+  private void onRemoval(String name, Path file, RemovalCause cause) {
+    if (file == null || cause == RemovalCause.REPLACED) return;
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      log.warn("Could not delete cached file {}", file, e);
+    }
+  }
+
+  private static int weight(Path file) {
+    try {
+      return (int) Math.min(Integer.MAX_VALUE, Files.size(file));
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  private static long lastModified(Path file) {
+    try {
+      return Files.getLastModifiedTime(file).toMillis();
+    } catch (IOException e) {
+      return 0L;
+    }
+  }
+
+  private static String fileName(String key) {
+    return Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString();
+  }
+}
@@ -0,0 +1,134 @@
+package bg.autohouse.service.media;
+
+import bg.autohouse.data.models.media.MediaDeadLetter;
+import bg.autohouse.data.models.media.MediaFile;
+import bg.autohouse.data.models.media.MediaTombstone;
+import bg.autohouse.data.models.media.StorageType;
+import bg.autohouse.data.repositories.MediaDeadLetterRepository;
+import bg.autohouse.data.repositories.MediaTombstoneRepository;
+import bg.autohouse.service.services.StorageService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Removes the stored objects of deleted media files in the background. Due tombstones are taken in
+ * batches and handed to their storage in a single call per storage type. Failed removals are
+ * retried with exponential backoff and moved to the dead letter table once the attempts run out.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class MediaReaper {
+
+  private static final int MAX_BACKOFF_SHIFT = 10;
+  private static final int MAX_ERROR_LENGTH = 1000;
+
+  @Value("${app.media.reaper.batch-size:100}")
+  private int batchSize;
+
+  @Value("${app.media.reaper.max-attempts:5}")
+  private int maxAttempts;
+
+  @Value("${app.media.reaper.retry-backoff:1m}")
+  private Duration retryBackoff;
+
+  private final MediaTombstoneRepository mediaTombstoneRepository;
+  private final MediaDeadLetterRepository mediaDeadLetterRepository;
+  private final List<StorageService> storage;
+
+  /** Processes the due tombstones until none is left and returns how many objects were removed. */
+  @Scheduled(
+      initialDelayString = "${app.media.reaper.interval-ms:30000}",
+      fixedDelayString = "${app.media.reaper.interval-ms:30000}")
+  public int reap() {
+    int removed = 0;
+    List<MediaTombstone> batch;
+    do {
+      batch =
+          mediaTombstoneRepository.findAllByNextAttemptAtLessThanEqualOrderByNextAttemptAt(
+              new Date(), PageRequest.of(0, batchSize));
+      Map<StorageType, List<MediaTombstone>> byStorage =
+          batch.stream().collect(Collectors.groupingBy(MediaTombstone::getStorageType));
+      for (Map.Entry<StorageType, List<MediaTombstone>> entry : byStorage.entrySet()) {
+        removed += reap(entry.getKey(), entry.getValue());
+      }
+    } while (batch.size() == batchSize);
+    if (removed > 0) log.info("Media reaper removed {} stored objects", removed);
+    return removed;
+  }
+
+  private int reap(StorageType storageType, List<MediaTombstone> tombstones) {
+    List<MediaFile> records =
+        tombstones.stream().map(MediaTombstone::toMediaFile).collect(Collectors.toList());
+    Map<MediaFile, String> failures = removeAll(storageType, records);
+    List<MediaTombstone> removed = new ArrayList<>();
+    List<MediaTombstone> retried = new ArrayList<>();
+    List<MediaTombstone> dead = new ArrayList<>();
+    for (int i = 0; i < records.size(); i++) {
+      MediaTombstone tombstone = tombstones.get(i);
+      String error = failures.get(records.get(i));
+      if (error == null) {
+        removed.add(tombstone);
+        continue;
+      }
+      tombstone.setAttempts(tombstone.getAttempts() + 1);
+      tombstone.setLastError(truncate(error));
+      if (tombstone.getAttempts() >= maxAttempts) {
+        log.warn(
+            "Giving up removing {}/{}: {}", tombstone.getBucket(), tombstone.getFileKey(), error);
+        dead.add(tombstone);
+      } else {
+        tombstone.setNextAttemptAt(nextAttempt(tombstone.getAttempts()));
+        retried.add(tombstone);
+      }
+    }
+    if (!dead.isEmpty()) {
+      mediaDeadLetterRepository.saveAll(
+          dead.stream().map(MediaDeadLetter::of).collect(Collectors.toList()));
+      removed.addAll(dead);
+    }
+    if (!retried.isEmpty()) mediaTombstoneRepository.saveAll(retried);
+    if (!removed.isEmpty()) mediaTombstoneRepository.deleteInBatch(removed);
+    return removed.size() - dead.size();
+  }
+
+  private Map<MediaFile, String> removeAll(StorageType storageType, List<MediaFile> records) {
+    Optional<StorageService> target =
+        storage.stream()
+            .filter(s -> s.getType() == storageType && s.isConfigured())
+            .findAny();
+    String error = "Storage is not configured: " + storageType;
+    try {
+      if (target.isPresent()) return target.get().removeAllFromStorage(records);
+    } catch (RuntimeException e) {
+      error = String.valueOf(e.getMessage());
+    }
+    Map<MediaFile, String> failures = new IdentityHashMap<>();
+    for (MediaFile record : records) {
+      failures.put(record, error);
+    }
+    return failures;
+  }
+
+  private Date nextAttempt(int attempts) {
+    long delay = retryBackoff.toMillis() << Math.min(attempts - 1, MAX_BACKOFF_SHIFT);
+    return new Date(System.currentTimeMillis() + delay);
+  }
+
+  private static String truncate(String error) {
+    return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+  }
+}
@@ -0,0 +1,217 @@
+package bg.autohouse.service.media;
+
+import bg.autohouse.data.models.media.MediaFile;
+import bg.autohouse.data.models.media.MediaStatus;
+import bg.autohouse.data.models.media.MediaTombstone;
+import bg.autohouse.data.models.media.MediaUpload;
+import bg.autohouse.data.repositories.MediaTombstoneRepository;
+import bg.autohouse.data.repositories.MediaUploadRepository;
+import bg.autohouse.data.repositories.MedialFileRepository;
+import bg.autohouse.service.events.MediaStoredEvent;
+import bg.autohouse.service.events.MediaUploadQueuedEvent;
+import bg.autohouse.service.services.StorageService;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Writes the content queued in the media upload outbox to the storages, so no database transaction
+ * waits for a storage. Uploads are dispatched on a bounded pool right after they are committed and
+ * swept up periodically, which covers restarts, a full queue and retries. Failed uploads are
+ * retried with exponential backoff and their records are marked failed once the attempts run out.
+ * An upload is claimed in the database before it is written, so each is dispatched by one instance.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class MediaUploadDispatcher {
+
+  private static final int MAX_BACKOFF_SHIFT = 10;
+  private static final int MAX_ERROR_LENGTH = 1000;
+  private static final int SWEEP_BATCH_SIZE = 50;
+
+  @Value("${app.media.upload.dispatch-threads:2}")
+  private int threads;
+
+  @Value("${app.media.upload.queue-capacity:100}")
+  private int queueCapacity;
+
+  @Value("${app.media.upload.max-attempts:5}")
+  private int maxAttempts;
+
+  @Value("${app.media.upload.retry-backoff:30s}")
+  private Duration retryBackoff;
+
+  @Value("${app.media.upload.claim-timeout:10m}")
+  private Duration claimTimeout;
+
+  private final MediaUploadRepository mediaUploadRepository;
+  private final MedialFileRepository medialFileRepository;
+  private final MediaTombstoneRepository mediaTombstoneRepository;
+  private final MediaUploadStaging mediaUploadStaging;
+  private final ApplicationEventPublisher eventPublisher;
+  private final List<StorageService> storage;
+
+  private ThreadPoolExecutor executor;
+
+  @PostConstruct
+  public void start() {
+    AtomicInteger count = new AtomicInteger();
+    executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+              Thread thread = new Thread(runnable, "media-upload-" + count.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    executor.shutdown();
+    if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+      // the outbox keeps the dropped uploads, the next start sweeps them up
+      log.warn(
+          "Media upload dispatch did not finish in time, {} left", executor.shutdownNow().size());
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUploadQueued(MediaUploadQueuedEvent event) {
+    try {
+      executor.execute(() -> dispatch(event.getUploadId()));
+    } catch (RejectedExecutionException e) {
+      log.debug("Upload queue full, {} is left to the sweep", event.getUploadId());
+    }
+  }
+
+  /** Dispatches the due uploads on the calling thread and returns how many were stored. */
+  @Scheduled(
+      initialDelayString = "${app.media.upload.sweep-interval-ms:60000}",
+      fixedDelayString = "${app.media.upload.sweep-interval-ms:60000}")
+  public int dispatchDue() {
+    int stored = 0;
+    int batchStored;
+    List<UUID> due;
+    do {
+      batchStored = 0;
+      due = mediaUploadRepository.findDueIds(new Date(), PageRequest.of(0, SWEEP_BATCH_SIZE));
+      for (UUID uploadId : due) {
+        if (dispatch(uploadId)) batchStored++;
+      }
+      stored += batchStored;
+      // a batch without progress is left to the next sweep
+    } while (due.size() == SWEEP_BATCH_SIZE && batchStored > 0);
+    return stored;
+  }
+
+  boolean dispatch(UUID uploadId) {
+    try {
+      Date now = new Date();
+      Date claimedUntil = new Date(now.getTime() + claimTimeout.toMillis());
+      if (mediaUploadRepository.claim(uploadId, now, claimedUntil) == 0) {
+        // written by another dispatcher, or already gone
+        return false;
+      }
+      return mediaUploadRepository.findById(uploadId).map(this::upload).orElse(false);
+    } catch (RuntimeException e) {
+      log.error("Dispatching upload {} failed", uploadId, e);
+      return false;
+    }
+  }
+
+  private boolean upload(MediaUpload upload) {
+    Optional<MediaFile> record = medialFileRepository.findById(upload.getMediaFileId());
+    if (record.isEmpty()) {
+      // deleted before its content was written
+      drop(upload);
+      return false;
+    }
+    MediaFile mediaFile = record.get();
+    if (mediaFile.getStatus() != MediaStatus.PENDING) {
+      // failed before its content was written, nothing to store
+      drop(upload);
+      return false;
+    }
+    try (InputStream content = mediaUploadStaging.open(upload.getStagedContent())) {
+      findStorage(mediaFile).storeFile(upload.getFunction(), mediaFile, content);
+    } catch (IOException | RuntimeException e) {
+      retryOrFail(upload, e);
+      return false;
+    }
+    int updated =
+        medialFileRepository.updateStored(
+            mediaFile.getId(),
+            MediaStatus.STORED,
+            mediaFile.getContentHash(),
+            mediaFile.getSize(),
+            mediaFile.getResourceUrl());
+    if (updated == 0) {
+      // deleted or failed while its content was written, the reaper removes the object again
+      mediaTombstoneRepository.save(MediaTombstone.of(mediaFile));
+    } else {
+      eventPublisher.publishEvent(
+          MediaStoredEvent.of(mediaFile.getId(), mediaFile.getReferenceId(), upload.getFunction()));
+    }
+    drop(upload);
+    return updated > 0;
+  }
+
+  private void drop(MediaUpload upload) {
+    mediaUploadRepository.deleteById(upload.getId());
+    mediaUploadStaging.discard(upload.getStagedContent());
+  }
+
+  private StorageService findStorage(MediaFile mediaFile) {
+    return storage.stream()
+        .filter(s -> s.getType() == mediaFile.getStorageType() && s.isConfigured())
+        .findAny()
+        .orElseThrow(
+            () ->
+                new IllegalStateException(
+                    "Storage is not configured: " + mediaFile.getStorageType()));
+  }
+
+  private void retryOrFail(MediaUpload upload, Exception e) {
+    int attempts = upload.getAttempts() + 1;
+    if (attempts >= maxAttempts) {
+      log.error("Giving up storing media file {}", upload.getMediaFileId(), e);
+      medialFileRepository.updateStatus(upload.getMediaFileId(), MediaStatus.FAILED);
+      drop(upload);
+      return;
+    }
+    log.warn("Storing media file {} failed: {}", upload.getMediaFileId(), e.getMessage());
+    long delay = retryBackoff.toMillis() << Math.min(attempts - 1, MAX_BACKOFF_SHIFT);
+    String error = String.valueOf(e.getMessage());
+    mediaUploadRepository.reschedule(
+        upload.getId(),
+        attempts,
+        new Date(System.currentTimeMillis() + delay),
+        error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH));
+  }
+}
@@ -0,0 +1,94 @@
+package bg.autohouse.service.media;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.List;
+import javax.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps the content of the media upload outbox on disk, the outbox rows only reference it by file
+ * name. The folder has to survive restarts, and be shared when several instances dispatch uploads.
+ */
+@Slf4j
+@Component
+public class MediaUploadStaging {
+
+  @Value("${app.media.upload.staging-folder:${java.io.tmpdir}/autohouse-media-uploads}")
+  private String stagingFolder;
+
+  private Path stagingPath;
+
+  @PostConstruct
+  void init() throws IOException {
+    stagingPath = Files.createDirectories(Paths.get(stagingFolder)).toAbsolutePath().normalize();
+  }
+
+  /** Writes the content to a new file, removed again when the current transaction rolls back. */
+  public String stage(byte[] content) {
+    Path file;
+    try {
+      file = Files.createTempFile(stagingPath, "media-", ".upload");
+      Files.write(file, content);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    String name = file.getFileName().toString();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              if (status != STATUS_COMMITTED) discard(name);
+            }
+          });
+    }
+    return name;
+  }
+
+  public InputStream open(String name) throws IOException {
+    return Files.newInputStream(resolve(name));
+  }
+
+  public void discard(String name) {
+    try {
+      Files.deleteIfExists(resolve(name));
+    } catch (IOException e) {
+      log.warn("Could not delete staged media content {}", name, e);
+    }
+  }
+
+  /** Removes the staged files once the current transaction commits, right away without one. */
+  public void discardAfterCommit(Collection<String> names) {
+    if (names.isEmpty()) return;
+    List<String> discarded = List.copyOf(names);
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      discarded.forEach(this::discard);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            discarded.forEach(MediaUploadStaging.this::discard);
+          }
+        });
+  }
+
+  private Path resolve(String name) {
+    Path file = stagingPath.resolve(name).normalize();
+    if (!stagingPath.equals(file.getParent())) {
+      throw new IllegalArgumentException("Invalid staged media content: " + name);
+    }
+    return file;
+  }
+}
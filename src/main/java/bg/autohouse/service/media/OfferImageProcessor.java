@@ -0,0 +1,316 @@
+package bg.autohouse.service.media;
+
+import bg.autohouse.data.models.media.ImageVariant;
+import bg.autohouse.service.events.OfferImagesUploadedEvent;
+import bg.autohouse.service.events.OfferSearchScope;
+import bg.autohouse.service.services.MediaFileService;
+import bg.autohouse.util.ImageResizer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Decodes, scales and stores the images of new offers on a bounded pool, after the offer and its
+ * pending media records are committed, so no request thread or database connection waits for it.
+ * When every image of an offer is done the photo requested as primary is recorded, falling back to
+ * the first processed image when it failed, and {@link OfferPrimaryPhotoSelector} shows it once its
+ * variants are stored. Offers arriving while the pool is busy are deferred to a folder on disk and
+ * resumed once it has room, so neither the request threads nor a restart lose them.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class OfferImageProcessor {
+
+  private static final String MANIFEST = "manifest.properties";
+
+  @Value("${app.offer.images.processing-threads:2}")
+  private int threads;
+
+  @Value("${app.offer.images.queue-capacity:200}")
+  private int queueCapacity;
+
+  @Value("${app.offer.images.deferred-folder:${java.io.tmpdir}/autohouse-deferred-images}")
+  private String deferredFolder;
+
+  private final ImageResizer imageResizer;
+  private final MediaFileService mediaFileService;
+  private final OfferPrimaryPhotoSelector offerPrimaryPhotoSelector;
+
+  private ThreadPoolExecutor executor;
+  // bound the images queued or in processing, an offer is admitted with all of its images
+  private Semaphore slots;
+  private Path deferredPath;
+  private final Set<Path> resuming = ConcurrentHashMap.newKeySet();
+
+  @PostConstruct
+  public void start() throws IOException {
+    deferredPath = Files.createDirectories(Paths.get(deferredFolder));
+    slots = new Semaphore(threads + queueCapacity);
+    AtomicInteger count = new AtomicInteger();
+    executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+              Thread thread = new Thread(runnable, "offer-image-" + count.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    executor.shutdown();
+    if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+      log.warn(
+          "Offer image processing did not finish in time, {} tasks dropped",
+          executor.shutdownNow().size());
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onImagesUploaded(OfferImagesUploadedEvent event) {
+    process(event);
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+  public void onUploadRolledBack(OfferImagesUploadedEvent event) {
+    event.getImages().stream().filter(image -> !image.isUpload()).forEach(StagedImage::discard);
+  }
+
+  /**
+   * Processes the images of the offer on the pool, or defers them to the deferred folder when the
+   * pool is busy. Deferred offers are resumed by {@link #resumeDeferred()}.
+   */
+  public CompletableFuture<Void> process(OfferImagesUploadedEvent event) {
+    int permits = permits(event);
+    if (slots.tryAcquire(permits)) {
+      try {
+        return submit(event, permits);
+      } catch (RejectedExecutionException e) {
+        log.debug("Offer image processing is shut down");
+      }
+    }
+    defer(event);
+    return CompletableFuture.completedFuture(null);
+  }
+
+  /** Resumes the deferred offers for which the pool has room again. */
+  @Scheduled(
+      initialDelayString = "${app.offer.images.resume-interval-ms:30000}",
+      fixedDelayString = "${app.offer.images.resume-interval-ms:30000}")
+  public void resumeDeferred() {
+    try (DirectoryStream<Path> deferred = Files.newDirectoryStream(deferredPath)) {
+      for (Path dir : deferred) {
+        // a manifest is moved in last, a folder without one is still being written
+        if (!Files.exists(dir.resolve(MANIFEST)) || resuming.contains(dir)) continue;
+        OfferImagesUploadedEvent event = readDeferred(dir);
+        int permits = permits(event);
+        if (!slots.tryAcquire(permits)) return;
+        resuming.add(dir);
+        try {
+          submit(event, permits)
+              .whenComplete(
+                  (done, e) -> {
+                    FileSystemUtils.deleteRecursively(dir.toFile());
+                    resuming.remove(dir);
+                  });
+        } catch (RejectedExecutionException e) {
+          resuming.remove(dir);
+          return;
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      log.error("Resuming deferred offer images failed", e);
+    }
+  }
+
+  private int permits(OfferImagesUploadedEvent event) {
+    // an offer with more images than slots takes all of them, its surplus waits in the queue
+    return Math.max(1, Math.min(event.getImages().size(), threads + queueCapacity));
+  }
+
+  private CompletableFuture<Void> submit(OfferImagesUploadedEvent event, int permits) {
+    List<CompletableFuture<StagedImage>> tasks;
+    try {
+      tasks =
+          event.getImages().stream()
+              .map(
+                  image ->
+                      CompletableFuture.supplyAsync(
+                          () -> store(event.getOfferId(), image), executor))
+              .collect(Collectors.toList());
+    } catch (RejectedExecutionException e) {
+      slots.release(permits);
+      throw e;
+    }
+    return CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0]))
+        .whenComplete((done, e) -> slots.release(permits))
+        .thenRun(
+            () ->
+                complete(
+                    event,
+                    tasks.stream()
+                        .map(CompletableFuture::join)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList())));
+  }
+
+  // moves the staged images and a manifest of the offer to the deferred folder
+  private void defer(OfferImagesUploadedEvent event) {
+    Path dir = deferredPath.resolve(event.getOfferId().toString());
+    Properties manifest = new Properties();
+    try {
+      Files.createDirectories(dir);
+      put(manifest, "owner", event.getOwnerId());
+      put(manifest, "maker", event.getScope().getMakerName());
+      put(manifest, "model", event.getScope().getModelName());
+      put(manifest, "price", event.getScope().getPrice());
+      put(manifest, "main-photo", event.getMainPhoto());
+      int index = 0;
+      for (StagedImage image : event.getImages()) {
+        if (!Files.exists(image.getFile())) continue;
+        String prefix = "image." + index + ".";
+        Files.move(
+            image.getFile(), dir.resolve(index + ".image"), StandardCopyOption.REPLACE_EXISTING);
+        put(manifest, prefix + "key", image.getFileKey());
+        put(manifest, prefix + "content-type", image.getContentType());
+        put(manifest, prefix + "name", image.getOriginalFilename());
+        put(manifest, prefix + "upload", image.getUploadId());
+        index++;
+      }
+      put(manifest, "images", index);
+      Path written = Files.createTempFile(dir, "manifest-", ".tmp");
+      try (Writer out = Files.newBufferedWriter(written, StandardCharsets.UTF_8)) {
+        manifest.store(out, null);
+      }
+      Files.move(written, dir.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE);
+      log.info("Offer image processing is busy, images of {} are deferred", event.getOfferId());
+    } catch (IOException e) {
+      log.error("Deferring the images of offer {} failed", event.getOfferId(), e);
+      event.getImages().forEach(this::fail);
+      event.getImages().forEach(StagedImage::discard);
+      FileSystemUtils.deleteRecursively(dir.toFile());
+    }
+  }
+
+  private OfferImagesUploadedEvent readDeferred(Path dir) throws IOException {
+    Properties manifest = new Properties();
+    try (Reader in = Files.newBufferedReader(dir.resolve(MANIFEST), StandardCharsets.UTF_8)) {
+      manifest.load(in);
+    }
+    List<StagedImage> images = new ArrayList<>();
+    int count = Integer.parseInt(manifest.getProperty("images"));
+    for (int index = 0; index < count; index++) {
+      String prefix = "image." + index + ".";
+      String uploadId = manifest.getProperty(prefix + "upload");
+      Path file = dir.resolve(index + ".image");
+      // gone when it was processed before a restart interrupted the offer
+      if (!Files.exists(file)) continue;
+      images.add(
+          new StagedImage(
+              file,
+              manifest.getProperty(prefix + "key"),
+              manifest.getProperty(prefix + "content-type"),
+              manifest.getProperty(prefix + "name"),
+              uploadId == null ? null : UUID.fromString(uploadId)));
+    }
+    return OfferImagesUploadedEvent.of(
+        UUID.fromString(dir.getFileName().toString()),
+        UUID.fromString(manifest.getProperty("owner")),
+        OfferSearchScope.of(
+            manifest.getProperty("maker"),
+            manifest.getProperty("model"),
+            Integer.parseInt(manifest.getProperty("price"))),
+        manifest.getProperty("main-photo"),
+        images);
+  }
+
+  private static void put(Properties manifest, String key, Object value) {
+    if (value != null) manifest.setProperty(key, value.toString());
+  }
+
+  // returns the image when all of its variants are stored or queued, null otherwise
+  private StagedImage store(UUID offerId, StagedImage image) {
+    try (InputStream in = Files.newInputStream(image.getFile())) {
+      Map<ImageVariant, byte[]> variants = imageResizer.createVariants(in);
+      for (Map.Entry<ImageVariant, byte[]> variant : variants.entrySet()) {
+        ImageVariant size = variant.getKey();
+        // a pending record is queued in the upload outbox, which stores it or marks it failed
+        mediaFileService.storeFile(
+            variant.getValue(),
+            size.fileKey(image.getFileKey()),
+            size.function(),
+            size == ImageVariant.FULL ? image.getContentType() : MediaType.IMAGE_JPEG_VALUE,
+            image.getOriginalFilename(),
+            offerId);
+      }
+      return image;
+    } catch (Exception e) {
+      log.error("Processing image {} failed", image.getFileKey(), e);
+      fail(image);
+      return null;
+    } finally {
+      image.discard();
+    }
+  }
+
+  // variants stored before the failure are of no use without the others
+  private void fail(StagedImage image) {
+    for (ImageVariant size : ImageVariant.values()) {
+      mediaFileService.markFailed(size.function(), size.fileKey(image.getFileKey()));
+    }
+  }
+
+  private void complete(OfferImagesUploadedEvent event, List<StagedImage> processed) {
+    if (processed.isEmpty()) {
+      log.warn("No image of offer {} could be processed", event.getOfferId());
+      return;
+    }
+    StagedImage requested =
+        processed.stream()
+            .filter(image -> image.matches(event.getMainPhoto()))
+            .findFirst()
+            .orElse(processed.get(0));
+    offerPrimaryPhotoSelector.request(event.getOfferId(), requested.getFileKey());
+  }
+}
@@ -0,0 +1,98 @@
+package bg.autohouse.service.media;
+
+import bg.autohouse.data.models.media.ImageVariant;
+import bg.autohouse.data.models.media.MediaFile;
+import bg.autohouse.data.models.media.MediaFunction;
+import bg.autohouse.data.models.media.MediaStatus;
+import bg.autohouse.data.projections.offer.OfferPhotos;
+import bg.autohouse.data.repositories.MedialFileRepository;
+import bg.autohouse.data.repositories.OfferRepository;
+import bg.autohouse.service.events.MediaStoredEvent;
+import bg.autohouse.service.events.OfferChangeType;
+import bg.autohouse.service.events.OfferChangedEvent;
+import bg.autohouse.service.events.OfferSearchScope;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Points the primary photo of an offer at an image whose variants are all stored, so a listing
+ * never shows an image still queued in the upload outbox or one that failed. The photo requested
+ * by the owner is preferred, the first stored image stands in until it is stored or when it fails.
+ * The choice is made again whenever an offer image is stored.
+ */
+@Component
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class OfferPrimaryPhotoSelector {
+
+  private final OfferRepository offerRepository;
+  private final MedialFileRepository medialFileRepository;
+  private final ApplicationEventPublisher eventPublisher;
+
+  @EventListener
+  @Transactional
+  public void onMediaStored(MediaStoredEvent event) {
+    if (Arrays.stream(ImageVariant.values()).anyMatch(v -> v.function() == event.getFunction())) {
+      select(event.getReferenceId());
+    }
+  }
+
+  /** Records the photo the owner chose and selects the primary photo of the offer. */
+  @Transactional
+  public void request(UUID offerId, String requestedPhotoKey) {
+    offerRepository.updateRequestedPhotoKey(offerId, requestedPhotoKey);
+    select(offerId);
+  }
+
+  @Transactional
+  public void select(UUID offerId) {
+    Optional<OfferPhotos> found = offerRepository.findPhotosById(offerId);
+    if (found.isEmpty()) return;
+    OfferPhotos offer = found.get();
+    Map<String, MediaFile> records = new HashMap<>();
+    List<String> candidates = new ArrayList<>();
+    String fullImages = MediaFunction.OFFER_IMAGE.resolveBucketName();
+    medialFileRepository.findAllByReferenceId(offerId).stream()
+        .sorted(Comparator.comparing(MediaFile::getFileKey))
+        .forEach(
+            record -> {
+              records.putIfAbsent(record.getFileKey(), record);
+              if (fullImages.equals(record.getBucket())) candidates.add(record.getFileKey());
+            });
+    if (candidates.remove(offer.getRequestedPhotoKey())) {
+      candidates.add(0, offer.getRequestedPhotoKey());
+    }
+    Optional<String> primary =
+        candidates.stream().filter(fileKey -> isStored(fileKey, records)).findFirst();
+    if (primary.isEmpty() || primary.get().equals(offer.getPrimaryPhotoKey())) return;
+    offerRepository.updatePrimaryPhotoKey(offerId, primary.get());
+    eventPublisher.publishEvent(
+        OfferChangedEvent.of(
+            OfferChangeType.UPDATED,
+            offerId,
+            offer.getOwnerId(),
+            List.of(
+                OfferSearchScope.of(
+                    offer.getMakerName(), offer.getModelName(), offer.getPrice()))));
+  }
+
+  // the full image is one of the variants, a variant without a record was not produced
+  private static boolean isStored(String fileKey, Map<String, MediaFile> records) {
+    return Arrays.stream(ImageVariant.values())
+        .map(variant -> records.get(variant.fileKey(fileKey)))
+        .filter(Objects::nonNull)
+        .allMatch(record -> record.getStatus() == MediaStatus.STORED);
+  }
+}
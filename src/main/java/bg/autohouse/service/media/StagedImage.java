@@ -0,0 +1,55 @@
+package bg.autohouse.service.media;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * An uploaded image in a temporary file, waiting to be processed under its file key. Images of a
+ * chunked upload keep the upload id, their file outlives a rolled back offer so it can be retried.
+ */
+@Slf4j
+@Value
+public class StagedImage {
+  Path file;
+  String fileKey;
+  String contentType;
+  String originalFilename;
+  UUID uploadId;
+
+  public static StagedImage stage(MultipartFile upload, String fileKey) throws IOException {
+    Path file = Files.createTempFile("offer-image-", ".upload");
+    try (InputStream in = upload.getInputStream()) {
+      Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      Files.deleteIfExists(file);
+      throw e;
+    }
+    return new StagedImage(
+        file, fileKey, upload.getContentType(), upload.getOriginalFilename(), null);
+  }
+
+  public boolean isUpload() {
+    return uploadId != null;
+  }
+
+  /** The main photo of an offer is given by its original file name or its upload id. */
+  public boolean matches(String mainPhoto) {
+    if (mainPhoto == null) return false;
+    return mainPhoto.equals(originalFilename) || isUpload() && mainPhoto.equals(uploadId.toString());
+  }
+
+  public void discard() {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      log.warn("Could not delete staged image {}", file, e);
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package bg.autohouse.service.models;
+
+import static bg.autohouse.data.models.EntityConstants.*;
+
+import bg.autohouse.data.models.enums.AccountType;
+import bg.autohouse.data.models.enums.BodyStyle;
+import bg.autohouse.data.models.enums.Color;
+import bg.autohouse.data.models.enums.Drive;
+import bg.autohouse.data.models.enums.Feature;
+import bg.autohouse.data.models.enums.FuelType;
+import bg.autohouse.data.models.enums.State;
+import bg.autohouse.data.models.enums.Transmission;
+import java.util.Collections;
+import java.util.Set;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Immutable search criteria, built by the web layer from the search request. Used both to build
+ * the offer specification and as the cache key of the search, so nothing is persisted per search.
+ */
+@Value
+@Builder
+public class FilterCriteria {
+  private final String makerName;
+  private final String modelName;
+  private final String trim;
+  private final FuelType fuelType;
+  private final Transmission transmission;
+  private final BodyStyle bodyStyle;
+  private final Color color;
+  private final Drive drive;
+  @Builder.Default private final int priceFrom = MIN_VALUE;
+  @Builder.Default private final int priceTo = PRICE_TO;
+  @Builder.Default private final int mileageFrom = MIN_VALUE;
+  @Builder.Default private final int mileageTo = MILEAGE_TO;
+  @Builder.Default private final int doorsFrom = MIN_VALUE;
+  @Builder.Default private final int doorsTo = DOORS_TO;
+  @Builder.Default private final int yearFrom = YEAR_FROM;
+  @Builder.Default private final int yearTo = YEAR_TO;
+  @Builder.Default private final Set<Feature> features = Collections.emptySet();
+  @Builder.Default private final Set<AccountType> seller = Collections.emptySet();
+  @Builder.Default private final Set<State> state = Collections.emptySet();
+  private final Boolean hasAccident;
+}
@@ -0,0 +1,19 @@
+package bg.autohouse.service.models.media;
+
+import bg.autohouse.data.models.media.UploadStatus;
+import java.util.UUID;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadSessionServiceModel {
+  private UUID id;
+  private String originalFilename;
+  private String contentType;
+  private long size;
+  private long receivedBytes;
+  private UploadStatus status;
+}
@@ -0,0 +1,16 @@
+package bg.autohouse.service.models.offer;
+
+import lombok.*;
+
+/** Counts and value distributions of a group of active offers, used to size range sliders. */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OfferRangeStatisticsServiceModel {
+  private long totalOffers;
+  private RangeHistogramServiceModel price;
+  private RangeHistogramServiceModel year;
+  private RangeHistogramServiceModel mileage;
+}
@@ -0,0 +1,18 @@
+package bg.autohouse.service.models.offer;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OfferStatisticsServiceModel {
+  private Long totalOffers;
+  private Long maxPrice;
+  private Long minPrice;
+  private Long maxYear;
+  private Long minYear;
+  private Long maxMileage;
+  private Long minMileage;
+}
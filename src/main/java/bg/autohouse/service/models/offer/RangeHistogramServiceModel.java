@@ -0,0 +1,20 @@
+package bg.autohouse.service.models.offer;
+
+import java.util.List;
+import lombok.*;
+
+/**
+ * Equal width histogram of the values between {@code min} and {@code max}. Bucket {@code i} counts
+ * the values in {@code [min + i * bucketWidth, min + (i + 1) * bucketWidth)}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RangeHistogramServiceModel {
+  private Integer min;
+  private Integer max;
+  private int bucketWidth;
+  private List<Long> counts;
+}
@@ -1,6 +1,7 @@
 package bg.autohouse.service.scheduling;
 
 import bg.autohouse.data.repositories.OfferRepository;
+import bg.autohouse.service.events.OfferChangedEvent;
 import bg.autohouse.util.TimeUtils;
 import java.util.Calendar;
 import java.util.Date;
@@ -8,6 +9,7 @@ import java.util.GregorianCalendar;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -17,6 +19,7 @@ import org.springframework.stereotype.Component;
 public class ScheduledOfferDeactivation {
 
   private final OfferRepository offerRepository;
+  private final ApplicationEventPublisher eventPublisher;
 
   @Scheduled(cron = "0 0 2 * * *") // runs at 2am UTC every day
   public void deactivateOffers() {
@@ -27,5 +30,6 @@ public class ScheduledOfferDeactivation {
     Date today30 = cal.getTime();
     int setInactive = offerRepository.setInactiveOffersBefore(today30);
     log.info("Total of {} offers deactivated", setInactive);
+    if (setInactive > 0) eventPublisher.publishEvent(OfferChangedEvent.bulk());
   }
 }
@@ -0,0 +1,344 @@
+package bg.autohouse.service.search;
+
+import bg.autohouse.data.models.enums.AccountType;
+import bg.autohouse.data.models.enums.BodyStyle;
+import bg.autohouse.data.models.enums.Color;
+import bg.autohouse.data.models.enums.Drive;
+import bg.autohouse.data.models.enums.FuelType;
+import bg.autohouse.data.models.enums.State;
+import bg.autohouse.data.models.enums.Transmission;
+import bg.autohouse.data.projections.offer.OfferIndexRow;
+import bg.autohouse.service.models.FilterCriteria;
+import bg.autohouse.util.Assert;
+import bg.autohouse.util.FeatureMask;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Column oriented storage of the searchable attributes of active offers. Every offer occupies a
+ * slot, numeric attributes live in primitive arrays indexed by slot and categorical attributes
+ * additionally keep a bitset of slots per value. Not thread safe, {@link OfferSearchIndex} guards
+ * the access.
+ */
+final class OfferColumns {
+
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int NO_VALUE = Integer.MIN_VALUE;
+
+  private final Map<UUID, Integer> slots = new HashMap<>();
+  private final Deque<Integer> freeSlots = new ArrayDeque<>();
+  private final BitSet live = new BitSet();
+  private final BitSet hasAccident = new BitSet();
+
+  private int capacity;
+  private int highWaterMark;
+  private UUID[] ids;
+  private int[] price;
+  private int[] year;
+  private int[] mileage;
+  private int[] doors;
+  private long[] createdAt;
+  private long[] featuresLow;
+  private long[] featuresHigh;
+
+  private final KeyColumn maker = new KeyColumn();
+  private final KeyColumn model = new KeyColumn();
+  private final EnumColumn<FuelType> fuelType = new EnumColumn<>(FuelType.class);
+  private final EnumColumn<Transmission> transmission = new EnumColumn<>(Transmission.class);
+  private final EnumColumn<BodyStyle> bodyStyle = new EnumColumn<>(BodyStyle.class);
+  private final EnumColumn<Color> color = new EnumColumn<>(Color.class);
+  private final EnumColumn<Drive> drive = new EnumColumn<>(Drive.class);
+  private final EnumColumn<State> state = new EnumColumn<>(State.class);
+  private final EnumColumn<AccountType> accountType = new EnumColumn<>(AccountType.class);
+
+  OfferColumns(int expectedSize) {
+    allocate(Math.max(INITIAL_CAPACITY, expectedSize));
+  }
+
+  int size() {
+    return slots.size();
+  }
+
+  void upsert(OfferIndexRow row) {
+    Integer slot = slots.get(row.getId());
+    if (slot == null) {
+      slot = freeSlots.isEmpty() ? nextSlot() : freeSlots.pop();
+      slots.put(row.getId(), slot);
+    }
+    ids[slot] = row.getId();
+    price[slot] = valueOf(row.getPrice());
+    year[slot] = valueOf(row.getYear());
+    mileage[slot] = valueOf(row.getMileage());
+    doors[slot] = valueOf(row.getDoors());
+    createdAt[slot] = row.getCreatedAt() == null ? 0L : row.getCreatedAt().getTime();
+    featuresLow[slot] = row.getFeaturesMaskLow();
+    featuresHigh[slot] = row.getFeaturesMaskHigh();
+    maker.set(slot, row.getMakerName());
+    model.set(slot, row.getModelName());
+    fuelType.set(slot, row.getFuelType());
+    transmission.set(slot, row.getTransmission());
+    bodyStyle.set(slot, row.getBodyStyle());
+    color.set(slot, row.getColor());
+    drive.set(slot, row.getDrive());
+    state.set(slot, row.getState());
+    accountType.set(slot, row.getAccountType());
+    hasAccident.set(slot, row.isHasAccident());
+    live.set(slot);
+  }
+
+  void remove(UUID id) {
+    Integer slot = slots.remove(id);
+    if (slot == null) return;
+    live.clear(slot);
+    hasAccident.clear(slot);
+    maker.clear(slot);
+    model.clear(slot);
+    fuelType.clear(slot);
+    transmission.clear(slot);
+    bodyStyle.clear(slot);
+    color.clear(slot);
+    drive.clear(slot);
+    state.clear(slot);
+    accountType.clear(slot);
+    ids[slot] = null;
+    freeSlots.push(slot);
+  }
+
+  /** Returns {@code null} when the requested sort cannot be served from the columns. */
+  Page<UUID> search(FilterCriteria filter, Pageable pageable) {
+    SlotComparator comparator = comparatorFor(pageable.getSort());
+    if (comparator == null) return null;
+
+    BitSet candidates = (BitSet) live.clone();
+    if (Assert.has(filter.getMakerName())) candidates.and(maker.matching(filter.getMakerName()));
+    if (Assert.has(filter.getModelName())) candidates.and(model.matching(filter.getModelName()));
+    if (filter.getFuelType() != null) candidates.and(fuelType.matching(filter.getFuelType()));
+    if (filter.getTransmission() != null) {
+      candidates.and(transmission.matching(filter.getTransmission()));
+    }
+    if (filter.getBodyStyle() != null) candidates.and(bodyStyle.matching(filter.getBodyStyle()));
+    if (filter.getColor() != null) candidates.and(color.matching(filter.getColor()));
+    if (filter.getDrive() != null) candidates.and(drive.matching(filter.getDrive()));
+    if (Assert.has(filter.getSeller())) candidates.and(accountType.matching(filter.getSeller()));
+    if (Assert.has(filter.getState())) candidates.and(state.matching(filter.getState()));
+    if (filter.getHasAccident() != null) {
+      if (filter.getHasAccident()) candidates.and(hasAccident);
+      else candidates.andNot(hasAccident);
+    }
+
+    long requiredLow = FeatureMask.low(filter.getFeatures());
+    long requiredHigh = FeatureMask.high(filter.getFeatures());
+    int[] matches = new int[candidates.cardinality()];
+    int count = 0;
+    for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+      if (between(price[slot], filter.getPriceFrom(), filter.getPriceTo())
+          && between(mileage[slot], filter.getMileageFrom(), filter.getMileageTo())
+          && between(doors[slot], filter.getDoorsFrom(), filter.getDoorsTo())
+          && between(year[slot], filter.getYearFrom(), filter.getYearTo())
+          && FeatureMask.containsAll(
+              featuresLow[slot], featuresHigh[slot], requiredLow, requiredHigh)) {
+        matches[count++] = slot;
+      }
+    }
+    return new PageImpl<>(pageOf(matches, count, comparator, pageable), pageable, count);
+  }
+
+  private List<UUID> pageOf(int[] matches, int count, SlotComparator comparator, Pageable page) {
+    if (count == 0) return Collections.emptyList();
+    long offset = page.isPaged() ? page.getOffset() : 0;
+    if (offset >= count) return Collections.emptyList();
+    int limit = page.isPaged() ? (int) Math.min(count, offset + page.getPageSize()) : count;
+    // keep only the best "limit" slots, the heap head is the worst of them
+    PriorityQueue<Integer> best =
+        new PriorityQueue<>(limit, (a, b) -> comparator.compare(b, a));
+    for (int i = 0; i < count; i++) {
+      best.offer(matches[i]);
+      if (best.size() > limit) best.poll();
+    }
+    Integer[] ordered = best.toArray(new Integer[0]);
+    Arrays.sort(ordered, comparator::compare);
+    List<UUID> content = new ArrayList<>(limit - (int) offset);
+    for (int i = (int) offset; i < ordered.length; i++) {
+      content.add(ids[ordered[i]]);
+    }
+    return content;
+  }
+
+  private SlotComparator comparatorFor(Sort sort) {
+    SlotComparator comparator = (a, b) -> 0;
+    for (Sort.Order order : sort) {
+      SlotComparator next;
+      switch (order.getProperty()) {
+        case "createdAt":
+          next = (a, b) -> Long.compare(createdAt[a], createdAt[b]);
+          break;
+        case "price":
+          next = (a, b) -> Integer.compare(price[a], price[b]);
+          break;
+        case "vehicleMileage":
+        case "vehicle.mileage":
+          next = (a, b) -> Integer.compare(mileage[a], mileage[b]);
+          break;
+        case "vehicleYear":
+        case "vehicle.year":
+          next = (a, b) -> Integer.compare(year[a], year[b]);
+          break;
+        default:
+          return null;
+      }
+      comparator = comparator.then(order.isDescending() ? next.reversed() : next);
+    }
+    return comparator.then(Integer::compare);
+  }
+
+  private static boolean between(int value, int from, int to) {
+    return value != NO_VALUE && value >= from && value <= to;
+  }
+
+  private static int valueOf(Integer value) {
+    return value == null ? NO_VALUE : value;
+  }
+
+  private int nextSlot() {
+    if (highWaterMark == capacity) allocate(capacity * 2);
+    return highWaterMark++;
+  }
+
+  private void allocate(int newCapacity) {
+    ids = ids == null ? new UUID[newCapacity] : Arrays.copyOf(ids, newCapacity);
+    price = grow(price, newCapacity);
+    year = grow(year, newCapacity);
+    mileage = grow(mileage, newCapacity);
+    doors = grow(doors, newCapacity);
+    createdAt = grow(createdAt, newCapacity);
+    featuresLow = grow(featuresLow, newCapacity);
+    featuresHigh = grow(featuresHigh, newCapacity);
+    maker.grow(newCapacity);
+    model.grow(newCapacity);
+    fuelType.grow(newCapacity);
+    transmission.grow(newCapacity);
+    bodyStyle.grow(newCapacity);
+    color.grow(newCapacity);
+    drive.grow(newCapacity);
+    state.grow(newCapacity);
+    accountType.grow(newCapacity);
+    capacity = newCapacity;
+  }
+
+  private static int[] grow(int[] array, int newCapacity) {
+    return array == null ? new int[newCapacity] : Arrays.copyOf(array, newCapacity);
+  }
+
+  private static long[] grow(long[] array, int newCapacity) {
+    return array == null ? new long[newCapacity] : Arrays.copyOf(array, newCapacity);
+  }
+
+  @FunctionalInterface
+  private interface SlotComparator {
+    int compare(int a, int b);
+
+    default SlotComparator reversed() {
+      return (a, b) -> compare(b, a);
+    }
+
+    default SlotComparator then(SlotComparator other) {
+      return (a, b) -> {
+        int result = compare(a, b);
+        return result != 0 ? result : other.compare(a, b);
+      };
+    }
+  }
+
+  /** Enum ordinal per slot plus a bitset of slots for every constant. */
+  private static final class EnumColumn<E extends Enum<E>> {
+    private final BitSet[] slotsByOrdinal;
+    private byte[] ordinals;
+
+    EnumColumn(Class<E> type) {
+      slotsByOrdinal = new BitSet[type.getEnumConstants().length];
+      for (int i = 0; i < slotsByOrdinal.length; i++) {
+        slotsByOrdinal[i] = new BitSet();
+      }
+    }
+
+    void grow(int newCapacity) {
+      int from = ordinals == null ? 0 : ordinals.length;
+      ordinals = ordinals == null ? new byte[newCapacity] : Arrays.copyOf(ordinals, newCapacity);
+      Arrays.fill(ordinals, from, newCapacity, (byte) -1);
+    }
+
+    void set(int slot, E value) {
+      clear(slot);
+      if (value == null) return;
+      ordinals[slot] = (byte) value.ordinal();
+      slotsByOrdinal[value.ordinal()].set(slot);
+    }
+
+    void clear(int slot) {
+      byte ordinal = ordinals[slot];
+      if (ordinal >= 0) slotsByOrdinal[ordinal].clear(slot);
+      ordinals[slot] = -1;
+    }
+
+    BitSet matching(E value) {
+      return slotsByOrdinal[value.ordinal()];
+    }
+
+    BitSet matching(Collection<E> values) {
+      BitSet result = new BitSet();
+      for (E value : values) result.or(slotsByOrdinal[value.ordinal()]);
+      return result;
+    }
+  }
+
+  /**
+   * Case insensitive string value per slot plus a bitset of slots for every distinct value, the
+   * same way the database collation compares maker and model names.
+   */
+  private static final class KeyColumn {
+    private static final BitSet NONE = new BitSet();
+
+    private final Map<String, BitSet> slotsByKey = new HashMap<>();
+    private String[] keys;
+
+    void grow(int newCapacity) {
+      keys = keys == null ? new String[newCapacity] : Arrays.copyOf(keys, newCapacity);
+    }
+
+    void set(int slot, String value) {
+      clear(slot);
+      if (value == null) return;
+      String key = value.toLowerCase(Locale.ROOT);
+      keys[slot] = key;
+      slotsByKey.computeIfAbsent(key, k -> new BitSet()).set(slot);
+    }
+
+    void clear(int slot) {
+      String key = keys[slot];
+      if (key == null) return;
+      BitSet slots = slotsByKey.get(key);
+      slots.clear(slot);
+      if (slots.isEmpty()) slotsByKey.remove(key);
+      keys[slot] = null;
+    }
+
+    BitSet matching(String value) {
+      return slotsByKey.getOrDefault(value.toLowerCase(Locale.ROOT), NONE);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package bg.autohouse.service.search;
+
+import bg.autohouse.data.repositories.OfferRepository;
+import bg.autohouse.service.events.OfferChangedEvent;
+import bg.autohouse.service.models.FilterCriteria;
+import bg.autohouse.service.snapshots.ActiveOfferSnapshot;
+import bg.autohouse.util.Assert;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Optional in-process index of the active offers. It is built at startup, kept up to date through
+ * {@link OfferChangedEvent}s and fully rebuilt periodically as a safety net. When enabled it answers
+ * offer searches with the ordered ids of the requested page, so only that page is loaded from the
+ * database.
+ */
+@Component
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class OfferSearchIndex {
+
+  @Value("${app.search.index.enabled:false}")
+  private boolean enabled;
+
+  private final OfferRepository offerRepository;
+  private final PlatformTransactionManager transactionManager;
+
+  private ExecutorService updateExecutor;
+  private ActiveOfferSnapshot<OfferColumns> snapshot;
+
+  @PostConstruct
+  public void init() {
+    updateExecutor = ActiveOfferSnapshot.updateExecutor("offer-search-index");
+    init(updateExecutor);
+  }
+
+  void init(Executor executor) {
+    snapshot =
+        new ActiveOfferSnapshot<>(
+            "Offer search index",
+            offerRepository,
+            transactionManager,
+            executor,
+            OfferColumns::new,
+            OfferColumns::upsert,
+            OfferColumns::remove);
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (updateExecutor != null) updateExecutor.shutdownNow();
+  }
+
+  public boolean isReady() {
+    return enabled && snapshot.isReady();
+  }
+
+  /**
+   * Returns the ids of the requested page or an empty optional when the index is not ready or the
+   * query cannot be answered from it. The caller then falls back to the database.
+   */
+  public Optional<Page<UUID>> search(FilterCriteria filter, Pageable pageable) {
+    if (!isReady() || Assert.has(filter.getTrim())) return Optional.empty();
+    return Optional.ofNullable(snapshot.read(columns -> columns.search(filter, pageable)));
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void build() {
+    if (enabled) rebuild();
+  }
+
+  @Scheduled(
+      initialDelayString = "${app.search.index.rebuild-interval-ms:3600000}",
+      fixedDelayString = "${app.search.index.rebuild-interval-ms:3600000}")
+  public void scheduledRebuild() {
+    if (isReady()) rebuild();
+  }
+
+  public void rebuild() {
+    snapshot.rebuild();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onOfferChanged(OfferChangedEvent event) {
+    if (isReady()) snapshot.onOfferChanged(event);
+  }
+}
@@ -1,6 +1,7 @@
 package bg.autohouse.service.services;
 
-import bg.autohouse.data.models.User;
+import bg.autohouse.service.imports.UserImportReader;
+import bg.autohouse.service.imports.UserImportResult;
 import bg.autohouse.service.models.UserServiceModel;
 import bg.autohouse.service.models.account.AccountCreateServiceModel;
 import bg.autohouse.service.models.user.ChangeRoleServiceModel;
@@ -11,16 +12,20 @@ import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface AdminService {
   String getRevision();
 
   UserAdminDetailsServiceModel loadUserDetails(UUID userId, UUID adminId);
 
-  UserRowServiceModel changeRole(ChangeRoleServiceModel request, User user);
+  UserRowServiceModel changeRole(ChangeRoleServiceModel request, UUID adminId);
 
   List<UserServiceModel> bulkRegisterUsers(UUID adminId, List<String> usernames);
 
+  int importUsers(
+      UUID adminId, UserImportReader reader, Consumer<List<UserImportResult>> onChunk);
+
   Page<UserRowServiceModel> loadUsersPage(Pageable pageable);
 
   int bulkCreateAccounts(UUID id, List<AccountCreateServiceModel> mapAll);
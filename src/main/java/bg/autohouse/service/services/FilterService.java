@@ -7,8 +7,6 @@ import java.util.List;
 import java.util.UUID;
 
 public interface FilterService {
-  UUID createFilter(FilterRequest filterRequest);
-
   void saveSearch(FilterRequest filterRequest, UUID id);
 
   List<FilterServiceModel> listSavedSearches(UUID userId);
@@ -1,6 +1,7 @@
 package bg.autohouse.service.services;
 
 import bg.autohouse.data.projections.geo.LocationId;
+import bg.autohouse.service.imports.CatalogImportReport;
 import bg.autohouse.web.models.request.ProvinceLocationsCreateRequest;
 
 import java.util.List;
@@ -9,4 +10,6 @@ public interface LocationService {
   List<LocationId> loadAllLocations();
 
   int createProvincesBulk(List<ProvinceLocationsCreateRequest> provincesRequest);
+
+  CatalogImportReport checkProvincesBulk(List<ProvinceLocationsCreateRequest> provincesRequest);
 }
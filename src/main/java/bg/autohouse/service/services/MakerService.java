@@ -1,5 +1,6 @@
 package bg.autohouse.service.services;
 
+import bg.autohouse.service.imports.CatalogImportReport;
 import bg.autohouse.service.models.MakerModelServiceModel;
 import bg.autohouse.service.models.MakerServiceModel;
 import bg.autohouse.service.models.ModelServiceModel;
@@ -22,4 +23,6 @@ public interface MakerService {
   ModelTrimsServicesModel getModel(String makerName, String modelName);
 
   int createMakerModelsTrimsBulk(List<MakerModelsTrimsCreateRequest> makersRequest);
+
+  CatalogImportReport checkMakerModelsTrimsBulk(List<MakerModelsTrimsCreateRequest> makersRequest);
 }
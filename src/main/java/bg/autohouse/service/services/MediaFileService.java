@@ -2,15 +2,18 @@ package bg.autohouse.service.services;
 
 import bg.autohouse.data.models.media.MediaFile;
 import bg.autohouse.data.models.media.MediaFunction;
+import org.springframework.core.io.Resource;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface MediaFileService {
   String DEFAULT_MEDIA_BUCKET = "autohouse-media-files-general";
   String DEFAULT_OFFER_IMAGE_BUCKET = "autohouse-offer-images";
+  String DEFAULT_OFFER_IMAGE_VARIANTS_BUCKET = "autohouse-offer-image-variants";
 
   MediaFile load(UUID id);
 
@@ -18,8 +21,14 @@ public interface MediaFileService {
 
   MediaFile load(MediaFunction function, String imageKey);
 
+  Optional<MediaFile> find(MediaFunction function, String imageKey);
+
   boolean doesFileExist(MediaFunction function, String imageKey);
 
+  /**
+   * Saves the record together with an outbox entry holding the content. The record stays pending
+   * until the upload dispatcher has written the content to the storage after the commit.
+   */
   MediaFile storeFile(
       byte[] file,
       String fileKey,
@@ -28,10 +37,22 @@ public interface MediaFileService {
       String originalFilename,
       UUID referenceId);
 
+  /** Registers a file that is still being processed, it is completed by {@link #storeFile}. */
+  MediaFile createPending(
+      String fileKey,
+      MediaFunction function,
+      String contentType,
+      String originalFilename,
+      UUID referenceId);
+
+  void markFailed(MediaFunction function, String fileKey);
+
   byte[] getBytes(final UUID uuid) throws IOException;
 
   byte[] getBytes(final MediaFile mediaFile) throws IOException;
 
+  Resource loadAsResource(final MediaFile mediaFile);
+
   void downloadTo(final UUID uuid, final Path targetPath) throws IOException;
 
   void remove(final UUID uuid);
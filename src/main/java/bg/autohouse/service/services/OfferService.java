@@ -1,5 +1,6 @@
 package bg.autohouse.service.services;
 
+import bg.autohouse.service.models.FilterCriteria;
 import bg.autohouse.service.models.offer.OfferDetailsServiceModel;
 import bg.autohouse.service.models.offer.OfferEditServiceModel;
 import bg.autohouse.service.models.offer.OfferServiceModel;
@@ -16,13 +17,15 @@ public interface OfferService {
 
   OfferDetailsServiceModel loadOfferByIdPublicView(UUID id);
 
+  void recordOfferView(UUID id);
+
   OfferDetailsServiceModel loadOfferByIdPrivateView(UUID id, UUID creatorId);
 
   OfferEditServiceModel loadOfferForEdit(UUID creatorId, UUID offerId);
 
   List<String> fetchOfferImages(UUID offerId);
 
-  Page<OfferServiceModel> searchOffers(UUID filterId, Pageable pageable);
+  Page<OfferServiceModel> searchOffers(FilterCriteria filter, Pageable pageable);
 
   OfferServiceModel createOffer(OfferCreateRequest request, UUID creatorId) throws IOException;
 
@@ -0,0 +1,15 @@
+package bg.autohouse.service.services;
+
+import bg.autohouse.service.models.offer.OfferRangeStatisticsServiceModel;
+import bg.autohouse.service.models.offer.OfferStatisticsServiceModel;
+
+public interface OfferStatisticsService {
+
+  OfferStatisticsServiceModel getStatistics();
+
+  OfferRangeStatisticsServiceModel getMakerStatistics(String makerName);
+
+  OfferRangeStatisticsServiceModel getBodyStyleStatistics(String bodyStyle);
+
+  void reconcile();
+}
@@ -7,6 +7,11 @@ import bg.autohouse.data.models.media.StorageType;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.core.io.Resource;
 
 public interface StorageService {
   StorageType getType();
@@ -18,5 +23,34 @@ public interface StorageService {
 
   void retrieveFile(MediaFile record, OutputStream outputStream) throws IOException;
 
+  /** Opens a new stream over the stored content, the caller has to close it. */
+  InputStream openStream(MediaFile record) throws IOException;
+
+  /**
+   * Returns the stored content as a file resource when the storage keeps it in the local file
+   * system. Its channel is a {@link java.nio.channels.FileChannel}, so the content can be sent with
+   * {@code transferTo} or sendfile instead of being copied through the heap.
+   */
+  default Optional<Resource> loadAsFileResource(MediaFile record) {
+    return Optional.empty();
+  }
+
   void removeFromStorage(MediaFile record);
+
+  /**
+   * Removes the stored objects of the records in as few calls as the storage allows. Returns the
+   * reason of every failed removal keyed by the given record instance, objects that are already
+   * gone count as removed.
+   */
+  default Map<MediaFile, String> removeAllFromStorage(List<MediaFile> records) {
+    Map<MediaFile, String> failures = new IdentityHashMap<>();
+    for (MediaFile record : records) {
+      try {
+        removeFromStorage(record);
+      } catch (RuntimeException e) {
+        failures.put(record, String.valueOf(e.getMessage()));
+      }
+    }
+    return failures;
+  }
 }
@@ -0,0 +1,32 @@
+package bg.autohouse.service.services;
+
+import bg.autohouse.service.models.media.UploadSessionServiceModel;
+import bg.autohouse.web.models.request.offer.ImageUploadCreateRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+public interface UploadSessionService {
+
+  UploadSessionServiceModel open(ImageUploadCreateRequest request, UUID ownerId);
+
+  UploadSessionServiceModel load(UUID uploadId, UUID ownerId);
+
+  /**
+   * Writes the chunk at the given offset. The offset may not be past the bytes received so far, so
+   * an interrupted upload resumes from {@link UploadSessionServiceModel#getReceivedBytes()}.
+   */
+  UploadSessionServiceModel writeChunk(UUID uploadId, UUID ownerId, long offset, InputStream data)
+      throws IOException;
+
+  UploadSessionServiceModel complete(UUID uploadId, UUID ownerId) throws IOException;
+
+  /** Hands completed uploads over to an offer, in the given order. */
+  List<UploadSessionServiceModel> consume(List<UUID> uploadIds, UUID ownerId);
+
+  Path stagingFile(UUID uploadId);
+
+  void purgeExpired();
+}
@@ -1,22 +1,19 @@
 package bg.autohouse.service.services.impl;
 
-import static bg.autohouse.data.specifications.UserSpecifications.*;
-import static bg.autohouse.service.services.impl.OfferServiceImpl.*;
-import static org.springframework.data.jpa.domain.Specification.*;
-
 import bg.autohouse.data.models.User;
 import bg.autohouse.data.models.account.Account;
-import bg.autohouse.data.models.enums.AccountType;
 import bg.autohouse.data.models.enums.Role;
-import bg.autohouse.data.models.geo.Address;
-import bg.autohouse.data.models.geo.Location;
-import bg.autohouse.data.projections.user.UserUsername;
 import bg.autohouse.data.repositories.AccountRepository;
-import bg.autohouse.data.repositories.LocationRepository;
 import bg.autohouse.data.repositories.UserRepository;
 import bg.autohouse.errors.AccountNotFoundException;
 import bg.autohouse.errors.NoSuchUserException;
 import bg.autohouse.errors.RoleChangeException;
+import bg.autohouse.service.events.OfferChangedEvent;
+import bg.autohouse.service.events.UserAccessChangedEvent;
+import bg.autohouse.service.imports.AccountImporter;
+import bg.autohouse.service.imports.UserImportReader;
+import bg.autohouse.service.imports.UserImportResult;
+import bg.autohouse.service.imports.UserImporter;
 import bg.autohouse.service.models.UserServiceModel;
 import bg.autohouse.service.models.account.AccountCreateServiceModel;
 import bg.autohouse.service.models.account.AccountServiceModel;
@@ -27,24 +24,18 @@ import bg.autohouse.service.services.AdminService;
 import bg.autohouse.service.services.UserService;
 import bg.autohouse.util.Assert;
 import bg.autohouse.util.EnumUtils;
-import bg.autohouse.util.F;
 import bg.autohouse.util.ModelMapperWrapper;
-import bg.autohouse.util.StringGenericUtils;
-import bg.autohouse.web.enums.RestMessage;
 
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 @Slf4j
@@ -52,16 +43,15 @@ import org.springframework.transaction.annotation.Transactional;
 @RequiredArgsConstructor(onConstructor_ = {@Autowired})
 public class AdminServiceImpl implements AdminService {
 
-  @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
-  private int batchSize;
-
   private static final long JVM_STARTUP_TIMESTAMP = System.currentTimeMillis();
 
   private final UserRepository userRepository;
   private final UserService userService;
-  private final LocationRepository locationRepository;
   private final ModelMapperWrapper modelMapper;
   private final AccountRepository accountRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final UserImporter userImporter;
+  private final AccountImporter accountImporter;
 
   @Override
   public String getRevision() {
@@ -95,7 +85,7 @@ public class AdminServiceImpl implements AdminService {
 
   @Override
   @Transactional
-  public UserRowServiceModel changeRole(ChangeRoleServiceModel request, User user) {
+  public UserRowServiceModel changeRole(ChangeRoleServiceModel request, UUID adminId) {
     if (!Assert.has(request.getNewRole()) || !Assert.has(request.getCurrentRole())) {
       throw new RoleChangeException();
     }
@@ -106,71 +96,56 @@ public class AdminServiceImpl implements AdminService {
     if (request.getNewRole().equals(Role.ROOT) || request.getCurrentRole().equals(Role.ROOT)) {
       throw new RoleChangeException();
     }
-    validateAdminRole(user.getId());
+    validateAdminRole(adminId);
     User affectedUser =
         userRepository.findByIdWithRoles(request.getUserId()).orElseThrow(NoSuchUserException::new);
-    affectedUser.setRoles(userService.getInheritedRolesFromRole(request.getNewRole()));
+    Set<Role> newRoles = userService.getInheritedRolesFromRole(request.getNewRole());
+    // the roles travel in the token, tokens carrying a role that was taken away are rejected
+    if (!newRoles.containsAll(affectedUser.getRoles())) {
+      long revokedUntil = affectedUser.revokeTokens();
+      eventPublisher.publishEvent(
+          UserAccessChangedEvent.of(affectedUser.getId(), affectedUser.isEnabled(), revokedUntil));
+    }
+    affectedUser.setRoles(newRoles);
     return new UserRowServiceModel(userRepository.save(affectedUser));
   }
 
   @Override
   @Transactional
-  @Caching(
-      evict = {
-        @CacheEvict(value = LATEST_OFFERS_CACHE, allEntries = true),
-        @CacheEvict(value = FILTERED_ACTIVE_OFFERS, allEntries = true),
-        @CacheEvict(value = USER_OFFERS_CACHE, allEntries = true),
-        @CacheEvict(value = OFFERS_BY_IDS_CACHE, allEntries = true),
-      })
   public boolean toggleActive(UUID userId, UUID adminId) {
     validateAdminRole(adminId);
     User targetUser =
         userRepository.findByIdWithRoles(userId).orElseThrow(NoSuchUserException::new);
     targetUser.toggleActive();
+    eventPublisher.publishEvent(UserAccessChangedEvent.of(userId, targetUser.isEnabled(), null));
+    eventPublisher.publishEvent(OfferChangedEvent.bulk(userId));
     return targetUser.isEnabled();
   }
 
-  // TODO not encoding password its deteriorate performance of application for batch
   @Override
-  @Transactional
   public List<UserServiceModel> bulkRegisterUsers(UUID adminId, List<String> usernames) {
-    Assert.notNull(adminId, "Admin id is required");
     Assert.notNull(usernames, "Invalid usernames collection");
+    List<UserServiceModel> registered = new ArrayList<>();
+    importUsers(
+        adminId,
+        UserImportReader.of(usernames),
+        results -> {
+          for (UserImportResult result : results) {
+            if (UserImportResult.Status.CREATED.equals(result.getStatus())) {
+              registered.add(new UserServiceModel(result.getId(), result.getUsername()));
+            }
+          }
+        });
+    return registered;
+  }
+
+  @Override
+  public int importUsers(
+      UUID adminId, UserImportReader reader, Consumer<List<UserImportResult>> onChunk) {
+    Assert.notNull(adminId, "Admin id is required");
+    Assert.notNull(reader, "Invalid import reader");
     validateAdminRole(adminId);
-    Set<String> existingUsers =
-        F.mapNonNullsToSet(
-            userRepository.getAllUsers(usernameIn(usernames)), UserUsername::getUsername);
-    List<User> users = new ArrayList<>();
-    List<User> registered = new ArrayList<>();
-    long startNanos = System.nanoTime();
-    for (int i = 0; i < usernames.size(); i++) {
-      String email = usernames.get(i);
-      if (existingUsers.contains(email)) continue;
-      String password = StringGenericUtils.nextPassword(8);
-      User user = User.createNormalUser(email, password);
-      users.add(user);
-      if (i % batchSize == 0 && i > 0) {
-        log.info("Saving {} entities ...", users.size());
-        long startSaveAll = System.nanoTime();
-        registered.addAll(userRepository.saveAll(users));
-        log.info(
-            "{}.bulkRegisterUsers saving batch of {} took {} millis",
-            getClass().getSimpleName(),
-            users.size(),
-            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startSaveAll));
-        users.clear();
-      }
-    }
-    if (users.size() > 0) {
-      log.info("Saving the remaining {} entities ...", users.size());
-      registered.addAll(userRepository.saveAll(users));
-      users.clear();
-    }
-    log.info(
-        "{}.bulkRegisterUsers took {} millis",
-        getClass().getSimpleName(),
-        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
-    return modelMapper.mapAll(registered, UserServiceModel.class);
+    return userImporter.importUsers(reader, onChunk);
   }
 
   @Override
@@ -178,66 +153,7 @@ public class AdminServiceImpl implements AdminService {
     Assert.notNull(adminId, "Admin id is required");
     Assert.notNull(models, "Invalid accounts collection");
     validateAdminRole(adminId);
-    List<UserServiceModel> users = bulkCreateAccountsInternally(models);
-    return updateHasAccount(F.mapNonNullsToList(users, UserServiceModel::getId));
-  }
-
-  @Transactional
-  List<UserServiceModel> bulkCreateAccountsInternally(List<AccountCreateServiceModel> models) {
-    List<UUID> ids = F.mapNonNullsToList(models, AccountCreateServiceModel::getId);
-    List<String> usernames = F.mapNonNullsToList(models, AccountCreateServiceModel::getUsername);
-    Map<UUID, User> usersById =
-        userRepository.getAllMap(
-            Objects.requireNonNull(where(hasNoAccount()).and(idIn(ids)))
-                .and(usernameIn(usernames)));
-    List<Location> locations = locationRepository.findAllLocations();
-    List<Account> accounts = new ArrayList<>();
-    for (int i = 0; i < models.size(); i++) {
-      AccountCreateServiceModel model = models.get(i);
-      UUID userId = model.getId();
-      if (!usersById.containsKey(userId)) continue;
-      User owner = usersById.getOrDefault(userId, null);
-      if (owner == null) continue;
-      String username = model.getUsername();
-      if (!owner.getUsername().equals(username)) continue;
-      AccountServiceModel accountModel = model.getAccount();
-      Assert.notNull(accountModel.getAccountType(), "Invalid AccountType");
-      AccountType accountType =
-          EnumUtils.fromString(accountModel.getAccountType(), AccountType.class)
-              .orElseThrow(
-                  () -> new IllegalStateException(RestMessage.INVALID_ACCOUNT_TYPE.name()));
-      Account account;
-      if (AccountType.DEALER.equals(accountType)) {
-        account = Account.createDealerAccount(accountModel, owner);
-        String street = accountModel.getAddress().getStreet();
-        Location location =
-            locations.stream()
-                .filter(
-                    l ->
-                        l.getPostalCode().equals(accountModel.getAddress().getLocationPostalCode()))
-                .findFirst()
-                .orElse(locations.get(0));
-        Address.createAddress(location, street, account);
-      } else {
-        account = Account.createPrivateAccount(accountModel, owner);
-      }
-      accounts.add(account);
-      if (i % batchSize == 0 && i > 0) {
-        accountRepository.saveAll(accounts);
-        accounts.clear();
-      }
-    }
-    if (accounts.size() > 0) {
-      accountRepository.saveAll(accounts);
-      accounts.clear();
-    }
-    return modelMapper.mapAll(
-        F.filterToStream(usersById.values(), User::isHasAccount), UserServiceModel.class);
-  }
-
-  @Transactional(propagation = Propagation.REQUIRES_NEW)
-  int updateHasAccount(List<UUID> ids) {
-    return userRepository.updateHasAccount(ids);
+    return accountImporter.createAccounts(models);
   }
 
   private void validateAdminRole(UUID id) {
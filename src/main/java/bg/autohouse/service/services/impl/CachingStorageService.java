@@ -0,0 +1,104 @@
+package bg.autohouse.service.services.impl;
+
+import bg.autohouse.data.models.media.MediaFile;
+import bg.autohouse.data.models.media.MediaFunction;
+import bg.autohouse.data.models.media.StorageType;
+import bg.autohouse.service.media.DiskContentCache;
+import bg.autohouse.service.services.StorageService;
+import bg.autohouse.util.Assert;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * Read-through local disk cache in front of a remote storage. Files are keyed by their content
+ * hash, so the storage is only hit on a cold miss. Records without a content hash go straight to
+ * the storage.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class CachingStorageService implements StorageService {
+
+  private final StorageService storage;
+  private final DiskContentCache cache;
+
+  @Override
+  public StorageType getType() {
+    return storage.getType();
+  }
+
+  @Override
+  public boolean isConfigured() {
+    return storage.isConfigured();
+  }
+
+  @Override
+  public void storeFile(MediaFunction mediaFunction, MediaFile mediaFile, InputStream inputStream)
+      throws IOException {
+    storage.storeFile(mediaFunction, mediaFile, inputStream);
+  }
+
+  @Override
+  public void retrieveFile(MediaFile record, OutputStream outputStream) throws IOException {
+    if (!Assert.has(record.getContentHash())) {
+      storage.retrieveFile(record, outputStream);
+      return;
+    }
+    try (InputStream in = openStream(record)) {
+      in.transferTo(outputStream);
+    }
+  }
+
+  @Override
+  public InputStream openStream(MediaFile record) throws IOException {
+    if (!Assert.has(record.getContentHash())) return storage.openStream(record);
+    Path file = cache.get(record.getContentHash(), out -> download(record, out));
+    try {
+      return Files.newInputStream(file);
+    } catch (NoSuchFileException e) {
+      // evicted right after the load, not worth a second download through the cache
+      log.debug("Cached file {} evicted before it was read", file);
+      return storage.openStream(record);
+    }
+  }
+
+  /** Only files already in the cache, a miss is loaded when the resource is read. */
+  @Override
+  public Optional<Resource> loadAsFileResource(MediaFile record) {
+    if (!Assert.has(record.getContentHash())) return Optional.empty();
+    return cache.getIfPresent(record.getContentHash()).map(FileSystemResource::new);
+  }
+
+  @Override
+  public void removeFromStorage(MediaFile record) {
+    storage.removeFromStorage(record);
+    if (Assert.has(record.getContentHash())) cache.evict(record.getContentHash());
+  }
+
+  @Override
+  public Map<MediaFile, String> removeAllFromStorage(List<MediaFile> records) {
+    Map<MediaFile, String> failures = storage.removeAllFromStorage(records);
+    records.stream()
+        .map(MediaFile::getContentHash)
+        .filter(Assert::has)
+        .forEach(cache::evict);
+    return failures;
+  }
+
+  private void download(MediaFile record, OutputStream out) throws IOException {
+    log.debug("Cache miss for {}, downloading {}", record.getContentHash(), record.getFileKey());
+    try (InputStream in = storage.openStream(record)) {
+      in.transferTo(out);
+    }
+  }
+}
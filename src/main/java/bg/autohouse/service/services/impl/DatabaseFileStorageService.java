@@ -1,26 +1,55 @@
 package bg.autohouse.service.services.impl;
 
-import bg.autohouse.data.models.PersistentFileContent;
+import bg.autohouse.data.models.EntityConstants;
 import bg.autohouse.data.models.media.MediaFile;
 import bg.autohouse.data.models.media.MediaFunction;
 import bg.autohouse.data.models.media.StorageType;
-import bg.autohouse.data.repositories.PersistentFileContentRepository;
 import bg.autohouse.service.services.StorageService;
-import com.google.common.io.ByteStreams;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Keeps the content in the {@link EntityConstants#FILE_CONTENT} table and moves it with plain JDBC,
+ * so it never passes through the persistence context. Writes bind the input as a binary stream and
+ * reads fetch the content in chunks of {@link #CHUNK_SIZE} bytes. Blob streams are not used, MySQL
+ * Connector/J buffers the whole row behind them.
+ */
 @Service
 @RequiredArgsConstructor(onConstructor_ = {@Autowired})
 public class DatabaseFileStorageService implements StorageService {
 
-  private final PersistentFileContentRepository fileRepository;
+  static final int CHUNK_SIZE = 64 * 1024;
+
+  // an empty row claims the primary key, a concurrent store of the same file waits for it
+  private static final String INSERT_EMPTY =
+      "INSERT INTO "
+          + EntityConstants.FILE_CONTENT
+          + " (media_file_id, file_content, created_at, updated_at) VALUES (?, ?, ?, ?)";
+  private static final String UPDATE =
+      "UPDATE "
+          + EntityConstants.FILE_CONTENT
+          + " SET file_content = ?, updated_at = ? WHERE media_file_id = ?";
+  private static final String SELECT_CHUNK =
+      "SELECT SUBSTRING(file_content, ?, ?), updated_at, LENGTH(file_content) FROM "
+          + EntityConstants.FILE_CONTENT
+          + " WHERE media_file_id = ?";
+  private static final String DELETE =
+      "DELETE FROM " + EntityConstants.FILE_CONTENT + " WHERE media_file_id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
 
   @Override
   public StorageType getType() {
@@ -32,28 +61,133 @@ public class DatabaseFileStorageService implements StorageService {
     return true;
   }
 
+  /** The record has to be flushed already, the content row references it. */
   @Override
   @Transactional
   public void storeFile(MediaFunction mediaFunction, MediaFile mediaFile, InputStream inputStream)
       throws IOException {
-    byte[] content = ByteStreams.toByteArray(inputStream);
-    PersistentFileContent fileContent = PersistentFileContent.of(mediaFile, content);
-    fileRepository.save(fileContent);
+    byte[] id = toBytes(mediaFile.getId());
+    Timestamp now = new Timestamp(System.currentTimeMillis());
+    try {
+      jdbcTemplate.update(INSERT_EMPTY, id, new byte[0], now, now);
+    } catch (DuplicateKeyException e) {
+      // stored before, its content is replaced
+    }
+    jdbcTemplate.update(
+        UPDATE,
+        ps -> {
+          ps.setBinaryStream(1, inputStream);
+          ps.setTimestamp(2, now);
+          ps.setBytes(3, id);
+        });
   }
 
   @Override
-  @Transactional(readOnly = true)
   public void retrieveFile(MediaFile record, OutputStream outputStream) throws IOException {
-    PersistentFileContent fileContent = fileRepository.getOne(record.getId());
-    try (InputStream inputStream = new ByteArrayInputStream(fileContent.getContent())) {
-      ByteStreams.copy(inputStream, outputStream);
+    try (InputStream inputStream = openStream(record)) {
+      byte[] buffer = new byte[CHUNK_SIZE];
+      int read;
+      while ((read = inputStream.read(buffer)) != -1) {
+        outputStream.write(buffer, 0, read);
+      }
     }
   }
 
+  @Override
+  public InputStream openStream(MediaFile record) throws IOException {
+    ChunkedContentStream stream = new ChunkedContentStream(record.getId());
+    stream.fill();
+    return stream;
+  }
+
   @Override
   @Transactional
   public void removeFromStorage(MediaFile record) {
-    PersistentFileContent fileContent = fileRepository.getOne(record.getId());
-    fileRepository.delete(fileContent);
+    jdbcTemplate.update(DELETE, (Object) toBytes(record.getId()));
+  }
+
+  private static byte[] toBytes(UUID id) {
+    return ByteBuffer.allocate(16)
+        .putLong(id.getMostSignificantBits())
+        .putLong(id.getLeastSignificantBits())
+        .array();
+  }
+
+  /**
+   * Reads the content one chunk per query, so no connection is held between reads and the driver
+   * never buffers more than a chunk. Each query joins the caller's transaction when there is one.
+   * Every chunk also reads the time and length of the last store, a store in between fails the
+   * read instead of mixing two versions of the content.
+   */
+  private class ChunkedContentStream extends InputStream {
+
+    private final UUID mediaFileId;
+    private final byte[] id;
+    private byte[] chunk = new byte[0];
+    private int position;
+    private long offset = 1;
+    private boolean exhausted;
+    private Timestamp updatedAt;
+    private long length = -1;
+
+    ChunkedContentStream(UUID mediaFileId) {
+      this.mediaFileId = mediaFileId;
+      this.id = toBytes(mediaFileId);
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (position == chunk.length && !fill()) return -1;
+      return chunk[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) return 0;
+      if (position == chunk.length && !fill()) return -1;
+      int count = Math.min(len, chunk.length - position);
+      System.arraycopy(chunk, position, b, off, count);
+      position += count;
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return chunk.length - position;
+    }
+
+    /** Loads the next chunk, returns false once the content is exhausted. */
+    boolean fill() throws IOException {
+      if (exhausted) return false;
+      List<Chunk> rows =
+          jdbcTemplate.query(
+              SELECT_CHUNK,
+              (rs, rowNum) -> new Chunk(rs.getBytes(1), rs.getTimestamp(2), rs.getLong(3)),
+              offset,
+              CHUNK_SIZE,
+              id);
+      if (rows.isEmpty()) {
+        throw new NoSuchFileException("No stored content for media file " + mediaFileId);
+      }
+      Chunk row = rows.get(0);
+      if (length < 0) {
+        updatedAt = row.updatedAt;
+        length = row.length;
+      } else if (row.length != length || !Objects.equals(row.updatedAt, updatedAt)) {
+        throw new IOException("Content of media file " + mediaFileId + " changed while read");
+      }
+      chunk = row.content == null ? new byte[0] : row.content;
+      position = 0;
+      offset += chunk.length;
+      exhausted = chunk.length == 0 || offset > length;
+      return chunk.length > 0;
+    }
+  }
+
+  @RequiredArgsConstructor
+  private static class Chunk {
+    private final byte[] content;
+    private final Timestamp updatedAt;
+    private final long length;
   }
 }
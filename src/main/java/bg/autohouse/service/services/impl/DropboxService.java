@@ -8,28 +8,36 @@ import com.dropbox.core.DbxDownloader;
 import com.dropbox.core.DbxException;
 import com.dropbox.core.util.IOUtil.ProgressListener;
 import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.DeleteArg;
+import com.dropbox.core.v2.files.DeleteBatchJobStatus;
+import com.dropbox.core.v2.files.DeleteBatchLaunch;
+import com.dropbox.core.v2.files.DeleteBatchResultEntry;
+import com.dropbox.core.v2.files.DeleteError;
 import com.dropbox.core.v2.files.FileMetadata;
 import com.dropbox.core.v2.files.UploadBuilder;
 import com.dropbox.core.v2.files.WriteMode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Service;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
+/** Registered by {@link bg.autohouse.config.DropboxConfiguration} behind a local disk cache. */
 @Slf4j
-@Service
-@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+@RequiredArgsConstructor
 public class DropboxService implements StorageService {
 
-  @Value("${app.file.storage.dropbox.folder.base}")
-  private String storageBaseFolder;
+  private static final int BATCH_CHECK_ATTEMPTS = 20;
+  private static final long BATCH_CHECK_INTERVAL_MS = 500;
 
   private final DbxClientV2 client;
+  private final String storageBaseFolder;
 
   @Override
   public StorageType getType() {
@@ -48,19 +56,16 @@ public class DropboxService implements StorageService {
     log.info(
         "storing a media file in bucket {}, with key {}", record.getBucket(), record.getFileKey());
     try (inputStream) {
-      ProgressListener progressListener = l -> printProgress(l, record.getSize());
+      ProgressListener progressListener = l -> logProgress(l, record.getSize());
       UploadBuilder upload =
               client.files().uploadBuilder(dropboxPath).withMode(WriteMode.OVERWRITE);
       FileMetadata metadata = upload.uploadAndFinish(inputStream, progressListener);
-      System.out.println(metadata.toStringMultiline());
       record.setContentHash(metadata.getContentHash());
       record.setSize(metadata.getSize());
-      log.info("upload meta data =====> {}", metadata.toString());
+      log.debug("upload meta data =====> {}", metadata);
     } catch (DbxException ex) {
-      log.error("Error uploading to Dropbox: " + ex.getMessage());
-    } catch (IOException ex) {
-      log.error(
-              "Error reading from file \"" + record.getOriginalFilename() + "\": " + ex.getMessage());
+      // surfaces to the upload dispatcher, which retries the upload
+      throw new IOException("Error uploading to Dropbox: " + dropboxPath, ex);
     }
   }
 
@@ -69,15 +74,31 @@ public class DropboxService implements StorageService {
     String dropboxPath = getUploadPath(record);
     log.debug("Going to download file" + dropboxPath);
     try {
-      ProgressListener progressListener = l -> printProgress(l, record.getSize());
+      ProgressListener progressListener = l -> logProgress(l, record.getSize());
       DbxDownloader<FileMetadata> downloader = client.files().download(dropboxPath);
       FileMetadata download = downloader.download(outputStream, progressListener);
-      log.info("Metadata: " + download.toString());
+      log.debug("Metadata: {}", download);
     } catch (DbxException | IOException ex) {
       log.error("Error downloading form Dropbox: " + ex.getMessage());
     }
   }
 
+  @Override
+  public InputStream openStream(MediaFile record) throws IOException {
+    String dropboxPath = getUploadPath(record);
+    try {
+      DbxDownloader<FileMetadata> downloader = client.files().download(dropboxPath);
+      return new FilterInputStream(downloader.getInputStream()) {
+        @Override
+        public void close() {
+          downloader.close();
+        }
+      };
+    } catch (DbxException ex) {
+      throw new IOException("Error downloading from Dropbox: " + dropboxPath, ex);
+    }
+  }
+
   @Override
   public void removeFromStorage(MediaFile record) {
     String filePath = getUploadPath(record);
@@ -88,12 +109,59 @@ public class DropboxService implements StorageService {
     }
   }
 
+  // a single delete_batch job instead of one delete call per file
+  @Override
+  public Map<MediaFile, String> removeAllFromStorage(List<MediaFile> records) {
+    Map<MediaFile, String> failures = new IdentityHashMap<>();
+    if (records.isEmpty()) return failures;
+    List<DeleteArg> paths =
+        records.stream()
+            .map(record -> new DeleteArg(getUploadPath(record)))
+            .collect(Collectors.toList());
+    try {
+      List<DeleteBatchResultEntry> entries = awaitDeleteBatch(client.files().deleteBatch(paths));
+      for (int i = 0; i < records.size(); i++) {
+        DeleteBatchResultEntry entry = entries.get(i);
+        if (entry.isFailure() && !isNotFound(entry.getFailureValue())) {
+          failures.put(records.get(i), entry.getFailureValue().toString());
+        }
+      }
+    } catch (DbxException | IllegalStateException e) {
+      log.warn("Dropbox batch deletion of {} files failed: {}", records.size(), e.getMessage());
+      records.forEach(record -> failures.put(record, String.valueOf(e.getMessage())));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      records.forEach(record -> failures.put(record, "Interrupted"));
+    }
+    return failures;
+  }
+
+  private List<DeleteBatchResultEntry> awaitDeleteBatch(DeleteBatchLaunch launch)
+      throws DbxException, InterruptedException {
+    if (launch.isComplete()) return launch.getCompleteValue().getEntries();
+    if (!launch.isAsyncJobId()) throw new IllegalStateException("Unexpected response " + launch);
+    for (int attempt = 0; attempt < BATCH_CHECK_ATTEMPTS; attempt++) {
+      DeleteBatchJobStatus status = client.files().deleteBatchCheck(launch.getAsyncJobIdValue());
+      if (status.isComplete()) return status.getCompleteValue().getEntries();
+      if (status.isFailed()) throw new IllegalStateException(status.getFailedValue().toString());
+      Thread.sleep(BATCH_CHECK_INTERVAL_MS);
+    }
+    throw new IllegalStateException("Delete batch " + launch.getAsyncJobIdValue() + " timed out");
+  }
+
+  private static boolean isNotFound(DeleteError error) {
+    return error.isPathLookup() && error.getPathLookupValue().isNotFound();
+  }
+
   private String getUploadPath(MediaFile record) {
     return "/" + storageBaseFolder + "/" + record.getBucket() + "/" + record.getFileKey();
   }
 
-  private static void printProgress(long uploaded, long size) {
-    System.out.printf(
-        "Uploaded %12d / %12d bytes (%5.2f%%)\n", uploaded, size, 100 * (uploaded / (double) size));
+  private static void logProgress(long transferred, long size) {
+    if (log.isTraceEnabled()) {
+      log.trace(
+          "Transferred {} / {} bytes ({}%)",
+          transferred, size, String.format("%5.2f", 100 * (transferred / (double) size)));
+    }
   }
 }
@@ -25,15 +25,6 @@ public class FilterServiceImpl implements FilterService {
   private final FilterRepository filterRepository;
   private final ModelMapperWrapper modelMapper;
 
-  @Override
-  @Transactional
-  public UUID createFilter(FilterRequest filterRequest) {
-    Objects.requireNonNull(filterRequest);
-    Filter filter = modelMapper.map(filterRequest, Filter.class);
-    filterRepository.save(filter);
-    return filter.getId();
-  }
-
   @Override
   @Transactional
   public void saveSearch(FilterRequest filterRequest, UUID id) {
@@ -15,9 +15,15 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import javax.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
 @Slf4j
@@ -72,6 +78,16 @@ public class LocalFolderStorageService implements StorageService {
     Files.copy(getFileStoragePath(record), outputStream);
   }
 
+  @Override
+  public InputStream openStream(MediaFile record) throws IOException {
+    return Files.newInputStream(getFileStoragePath(record));
+  }
+
+  @Override
+  public Optional<Resource> loadAsFileResource(MediaFile record) {
+    return Optional.of(new FileSystemResource(getFileStoragePath(record)));
+  }
+
   @Override
   public void removeFromStorage(MediaFile record) {
     final Path storageFile = getFileStoragePath(record);
@@ -83,6 +99,21 @@ public class LocalFolderStorageService implements StorageService {
     }
   }
 
+  // a local delete is a quick unlink, running them on the calling thread keeps blocking calls off
+  // the common pool
+  @Override
+  public Map<MediaFile, String> removeAllFromStorage(List<MediaFile> records) {
+    Map<MediaFile, String> failures = new IdentityHashMap<>();
+    for (MediaFile record : records) {
+      try {
+        Files.deleteIfExists(getFileStoragePath(record));
+      } catch (IOException | RuntimeException e) {
+        failures.put(record, String.valueOf(e.getMessage()));
+      }
+    }
+    return failures;
+  }
+
   private static void checkDirectoryExistsAndWritable(final Path directory) throws IOException {
     final File file = directory.toFile();
     if (!file.exists()) {
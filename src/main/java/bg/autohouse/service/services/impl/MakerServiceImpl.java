@@ -2,12 +2,13 @@ package bg.autohouse.service.services.impl;
 
 import bg.autohouse.data.models.Maker;
 import bg.autohouse.data.models.Model;
-import bg.autohouse.data.models.Trim;
 import bg.autohouse.data.repositories.MakerRepository;
 import bg.autohouse.data.repositories.ModelRepository;
 import bg.autohouse.errors.MakerNotFoundException;
 import bg.autohouse.errors.NotFoundException;
 import bg.autohouse.errors.ResourceAlreadyExistsException;
+import bg.autohouse.service.imports.CatalogImportReport;
+import bg.autohouse.service.imports.CatalogImporter;
 import bg.autohouse.service.models.MakerModelServiceModel;
 import bg.autohouse.service.models.MakerServiceModel;
 import bg.autohouse.service.models.ModelServiceModel;
@@ -19,27 +20,19 @@ import bg.autohouse.web.enums.RestMessage;
 import bg.autohouse.web.models.request.MakerModelsTrimsCreateRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
-import java.util.ArrayList;
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor(onConstructor_ = {@Autowired})
 public class MakerServiceImpl implements MakerService {
 
-  @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
-  private int batchSize;
-
-  @PersistenceContext private EntityManager em;
-
   private final MakerRepository makerRepository;
   private final ModelRepository modelRepository;
   private final ModelMapperWrapper modelMapper;
+  private final CatalogImporter catalogImporter;
 
   @Override
   @Transactional(readOnly = true)
@@ -104,34 +97,14 @@ public class MakerServiceImpl implements MakerService {
   }
 
   @Override
-  @Transactional
   public int createMakerModelsTrimsBulk(List<MakerModelsTrimsCreateRequest> makersRequest) {
-    for (MakerModelsTrimsCreateRequest makerRequest : makersRequest) {
-      Maker maker = modelMapper.map(makerRequest, Maker.class);
-      List<Model> models = maker.getModels();
-      maker.setModels(new ArrayList<>());
-      em.persist(maker);
-      Long makerId = maker.getId();
-      for (Model model : models) {
-        List<Trim> trims = model.getTrims();
-        model.setTrims(new ArrayList<>());
-        model.setMaker(maker);
-        maker.getModels().add(model);
-        em.persist(model);
-        Long modelId = model.getId();
-        for (int j = 0; j < trims.size(); j++) {
-          Trim trim = trims.get(j);
-          trim.setModel(model);
-          model.getTrims().add(trim);
-          if (j % batchSize == 0) {
-            em.flush();
-            em.clear();
-            maker = em.getReference(Maker.class, makerId);
-            model = em.getReference(Model.class, modelId);
-          }
-        }
-      }
-    }
+    catalogImporter.importMakers(makersRequest);
     return (int) makerRepository.count();
   }
+
+  @Override
+  public CatalogImportReport checkMakerModelsTrimsBulk(
+      List<MakerModelsTrimsCreateRequest> makersRequest) {
+    return catalogImporter.checkMakers(makersRequest);
+  }
 }
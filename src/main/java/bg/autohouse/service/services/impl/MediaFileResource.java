@@ -0,0 +1,49 @@
+package bg.autohouse.service.services.impl;
+
+import bg.autohouse.data.models.media.MediaFile;
+import bg.autohouse.service.services.StorageService;
+import java.io.IOException;
+import java.io.InputStream;
+import org.springframework.core.io.AbstractResource;
+
+/**
+ * Stored media file exposed as a {@link org.springframework.core.io.Resource}. Every call to
+ * {@link #getInputStream()} opens a new stream from the storage and the length comes from the
+ * record, so the content can be streamed and served in byte ranges without buffering it.
+ */
+final class MediaFileResource extends AbstractResource {
+
+  private final MediaFile mediaFile;
+  private final StorageService storage;
+
+  MediaFileResource(MediaFile mediaFile, StorageService storage) {
+    this.mediaFile = mediaFile;
+    this.storage = storage;
+  }
+
+  @Override
+  public InputStream getInputStream() throws IOException {
+    return storage.openStream(mediaFile);
+  }
+
+  @Override
+  public boolean exists() {
+    return true;
+  }
+
+  @Override
+  public long contentLength() {
+    return mediaFile.getSize();
+  }
+
+  @Override
+  public String getFilename() {
+    String fileKey = mediaFile.getFileKey();
+    return fileKey.substring(fileKey.lastIndexOf('/') + 1);
+  }
+
+  @Override
+  public String getDescription() {
+    return "Media file [" + mediaFile.getBucket() + "/" + mediaFile.getFileKey() + "]";
+  }
+}
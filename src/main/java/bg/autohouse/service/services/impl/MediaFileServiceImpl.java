@@ -2,16 +2,26 @@ package bg.autohouse.service.services.impl;
 
 import bg.autohouse.data.models.media.MediaFile;
 import bg.autohouse.data.models.media.MediaFunction;
+import bg.autohouse.data.models.media.MediaStatus;
+import bg.autohouse.data.models.media.MediaTombstone;
+import bg.autohouse.data.models.media.MediaUpload;
 import bg.autohouse.data.models.media.StorageType;
+import bg.autohouse.data.repositories.MediaTombstoneRepository;
+import bg.autohouse.data.repositories.MediaUploadRepository;
 import bg.autohouse.data.repositories.MedialFileRepository;
 import bg.autohouse.errors.MediaNotFoundException;
+import bg.autohouse.service.events.MediaUploadQueuedEvent;
+import bg.autohouse.service.media.MediaUploadStaging;
 import bg.autohouse.service.services.MediaFileService;
 import bg.autohouse.service.services.StorageService;
 import bg.autohouse.util.Assert;
 import com.google.common.collect.Ordering;
+import com.google.common.hash.Hashing;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,13 +31,18 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor(onConstructor_ = {@Autowired})
 public class MediaFileServiceImpl implements MediaFileService {
   private final MedialFileRepository medialFileRepository;
+  private final MediaTombstoneRepository mediaTombstoneRepository;
+  private final MediaUploadRepository mediaUploadRepository;
+  private final MediaUploadStaging mediaUploadStaging;
   private final List<StorageService> storage;
+  private final ApplicationEventPublisher eventPublisher;
 
   private static Supplier<IllegalStateException> notConfigured(final StorageType storageType) {
     return () -> new IllegalStateException("Storage is not configured: " + storageType);
@@ -80,6 +95,12 @@ public class MediaFileServiceImpl implements MediaFileService {
         .orElseThrow(MediaNotFoundException::new);
   }
 
+  @Override
+  @Transactional(readOnly = true)
+  public Optional<MediaFile> find(MediaFunction function, String imageKey) {
+    return medialFileRepository.findByBucketAndFileKey(function.resolveBucketName(), imageKey);
+  }
+
   @Override
   @Transactional(readOnly = true)
   public boolean doesFileExist(MediaFunction function, String imageKey) {
@@ -87,7 +108,7 @@ public class MediaFileServiceImpl implements MediaFileService {
   }
 
   @Override
-  @Transactional(rollbackFor = IOException.class)
+  @Transactional
   public MediaFile storeFile(
       byte[] file,
       String fileKey,
@@ -95,8 +116,8 @@ public class MediaFileServiceImpl implements MediaFileService {
       String contentType,
       String originalFilename,
       UUID referenceId) {
-    final StorageService storage = getStorageOrFallback(function.storageType());
     Assert.notNull(function, "Unspecified media function.");
+    final StorageService storage = getStorageOrFallback(function.storageType());
     String bucket = function.resolveBucketName();
     log.info(
         "storing a file, with function {}, bucket {}, file key {}, content type: {},  original name: {}",
@@ -110,23 +131,65 @@ public class MediaFileServiceImpl implements MediaFileService {
       record =
           MediaFile.builder()
               .bucket(bucket)
-              .storageType(function.storageType())
               .contentType(contentType)
-              .size(file.length)
               .fileKey(fileKey)
               .originalFilename(originalFilename)
               .referenceId(referenceId)
               .build();
     }
-    try (final InputStream fis = new ByteArrayInputStream(file)) {
-      record = medialFileRepository.save(record);
-      storage.storeFile(function, record, fis);
-      log.info("media record stored and has mime type");
+    record.setStorageType(storage.getType());
+    record.setSize(file.length);
+    // strong validator for http caching, storages may replace it with their own content hash
+    record.setContentHash(Hashing.sha256().hashBytes(file).toString());
+    if (storage.getType() == StorageType.LOCAL_DATABASE) {
+      // the content is a row as well, written in this transaction together with the record
+      record.setStatus(MediaStatus.STORED);
+      // the content is written with plain JDBC and references the record row
+      record = medialFileRepository.saveAndFlush(record);
+      try (final InputStream fis = new ByteArrayInputStream(file)) {
+        storage.storeFile(function, record, fis);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
       return record;
-    } catch (IOException e) {
-      log.error("Error storing media file, returning null", e);
-      return null;
     }
+    // the content goes through the upload outbox, the record is stored once it is written
+    record.setStatus(MediaStatus.PENDING);
+    record = medialFileRepository.save(record);
+    String stagedContent = mediaUploadStaging.stage(file);
+    MediaUpload upload =
+        mediaUploadRepository.save(MediaUpload.of(record, function, stagedContent));
+    eventPublisher.publishEvent(MediaUploadQueuedEvent.of(upload.getId()));
+    return record;
+  }
+
+  @Override
+  @Transactional
+  public MediaFile createPending(
+      String fileKey,
+      MediaFunction function,
+      String contentType,
+      String originalFilename,
+      UUID referenceId) {
+    Assert.notNull(function, "Unspecified media function.");
+    return medialFileRepository.save(
+        MediaFile.builder()
+            .bucket(function.resolveBucketName())
+            .storageType(function.storageType())
+            .contentType(contentType)
+            .fileKey(fileKey)
+            .originalFilename(originalFilename)
+            .referenceId(referenceId)
+            .status(MediaStatus.PENDING)
+            .build());
+  }
+
+  @Override
+  @Transactional
+  public void markFailed(MediaFunction function, String fileKey) {
+    medialFileRepository
+        .findByBucketAndFileKey(function.resolveBucketName(), fileKey)
+        .ifPresent(record -> record.setStatus(MediaStatus.FAILED));
   }
 
   @Override
@@ -146,6 +209,14 @@ public class MediaFileServiceImpl implements MediaFileService {
     }
   }
 
+  @Override
+  public Resource loadAsResource(final MediaFile mediaFile) {
+    final StorageService storage = getStorage(mediaFile.getStorageType());
+    return storage
+        .loadAsFileResource(mediaFile)
+        .orElseGet(() -> new MediaFileResource(mediaFile, storage));
+  }
+
   @Override
   @Transactional(readOnly = true, rollbackFor = IOException.class)
   public void downloadTo(final UUID uuid, final Path targetPath) throws IOException {
@@ -161,7 +232,7 @@ public class MediaFileServiceImpl implements MediaFileService {
   @Transactional
   public void remove(final UUID uuid) {
     final MediaFile mediaFile = medialFileRepository.getOne(uuid);
-    getStorage(mediaFile.getStorageType()).removeFromStorage(mediaFile);
+    bury(List.of(mediaFile));
     medialFileRepository.delete(mediaFile);
   }
 
@@ -169,8 +240,27 @@ public class MediaFileServiceImpl implements MediaFileService {
   @Transactional
   public void removeAllForReference(final UUID referenceId) {
     List<MediaFile> mediaFiles = medialFileRepository.findAllByReferenceId(referenceId);
-    mediaFiles.forEach(
-        mediaFile -> getStorage(mediaFile.getStorageType()).removeFromStorage(mediaFile));
+    bury(mediaFiles);
     medialFileRepository.deleteAllByReferenceId(referenceId);
   }
+
+  // Stored objects are removed by the media reaper after the deletion commits. Database content
+  // references the record, so it is deleted right away in the same transaction.
+  private void bury(final List<MediaFile> mediaFiles) {
+    if (mediaFiles.isEmpty()) return;
+    // content that was never written needs no upload anymore
+    List<UUID> ids = mediaFiles.stream().map(MediaFile::getId).collect(Collectors.toList());
+    mediaUploadStaging.discardAfterCommit(
+        mediaUploadRepository.findStagedContentByMediaFileIdIn(ids));
+    mediaUploadRepository.deleteAllByMediaFileIdIn(ids);
+    List<MediaTombstone> tombstones =
+        mediaFiles.stream()
+            .filter(mediaFile -> mediaFile.getStorageType() != StorageType.LOCAL_DATABASE)
+            .map(MediaTombstone::of)
+            .collect(Collectors.toList());
+    mediaTombstoneRepository.saveAll(tombstones);
+    mediaFiles.stream()
+        .filter(mediaFile -> mediaFile.getStorageType() == StorageType.LOCAL_DATABASE)
+        .forEach(mediaFile -> getStorage(StorageType.LOCAL_DATABASE).removeFromStorage(mediaFile));
+  }
 }
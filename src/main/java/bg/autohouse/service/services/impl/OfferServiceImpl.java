@@ -5,16 +5,15 @@ import static org.springframework.data.jpa.domain.Specification.where;
 
 import bg.autohouse.data.models.BaseUuidEntity;
 import bg.autohouse.data.models.EntityConstants;
-import bg.autohouse.data.models.Filter;
 import bg.autohouse.data.models.Model;
 import bg.autohouse.data.models.account.Account;
 import bg.autohouse.data.models.geo.Location;
 import bg.autohouse.data.models.media.MediaFile;
 import bg.autohouse.data.models.media.MediaFunction;
+import bg.autohouse.data.models.media.MediaStatus;
 import bg.autohouse.data.models.offer.Offer;
 import bg.autohouse.data.models.offer.Vehicle;
 import bg.autohouse.data.repositories.AccountRepository;
-import bg.autohouse.data.repositories.FilterRepository;
 import bg.autohouse.data.repositories.LocationRepository;
 import bg.autohouse.data.repositories.ModelRepository;
 import bg.autohouse.data.repositories.OfferRepository;
@@ -23,15 +22,24 @@ import bg.autohouse.errors.AccountNotFoundException;
 import bg.autohouse.errors.InvalidOfferException;
 import bg.autohouse.errors.LocationNotFoundException;
 import bg.autohouse.errors.ModelNotFoundException;
-import bg.autohouse.errors.NotFoundException;
 import bg.autohouse.errors.OfferNotFoundException;
+import bg.autohouse.service.cache.LatestOffersLoader;
+import bg.autohouse.service.counters.OfferHitCounter;
+import bg.autohouse.service.events.OfferChangeType;
+import bg.autohouse.service.events.OfferChangedEvent;
+import bg.autohouse.service.events.OfferImagesUploadedEvent;
+import bg.autohouse.service.events.OfferSearchScope;
+import bg.autohouse.service.media.StagedImage;
+import bg.autohouse.service.models.FilterCriteria;
+import bg.autohouse.service.models.media.UploadSessionServiceModel;
 import bg.autohouse.service.models.offer.OfferDetailsServiceModel;
 import bg.autohouse.service.models.offer.OfferEditServiceModel;
 import bg.autohouse.service.models.offer.OfferServiceModel;
 import bg.autohouse.service.services.MediaFileService;
+import bg.autohouse.service.search.OfferSearchIndex;
 import bg.autohouse.service.services.OfferService;
+import bg.autohouse.service.services.UploadSessionService;
 import bg.autohouse.util.Assert;
-import bg.autohouse.util.ImageResizer;
 import bg.autohouse.util.ModelMapperWrapper;
 import bg.autohouse.web.enums.RestMessage;
 import bg.autohouse.web.models.request.offer.OfferCreateRequest;
@@ -40,17 +48,16 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -64,65 +71,61 @@ public class OfferServiceImpl implements OfferService {
   public static final String FILTERED_ACTIVE_OFFERS = "filteredActiveOffers";
   public static final String USER_OFFERS_CACHE = "userOffersCache";
   public static final String OFFERS_BY_IDS_CACHE = "offersByIdsCache";
+  public static final String OFFER_DETAILS_CACHE = "offerDetailsCache";
 
   private final OfferRepository offerRepository;
-  private final FilterRepository filterRepository;
   private final VehicleRepository vehicleRepository;
   private final ModelRepository modelRepository;
   private final ModelMapperWrapper modelMapper;
   private final LocationRepository locationRepository;
   private final AccountRepository accountRepository;
   private final MediaFileService mediaFileService;
-  private final ImageResizer imageResizer;
+  private final UploadSessionService uploadSessionService;
+  private final OfferSearchIndex offerSearchIndex;
+  private final ApplicationEventPublisher eventPublisher;
+  private final LatestOffersLoader latestOffersLoader;
+  private final OfferHitCounter offerHitCounter;
 
   @Override
   @Transactional(readOnly = true)
   @Cacheable(value = LATEST_OFFERS_CACHE)
   public List<OfferServiceModel> getLatestOffers() {
-    Sort sort = Sort.by("createdAt").descending();
-    Pageable pageable = PageRequest.of(0, 20, sort);
-    return offerRepository.findPageWithActiveOffers(pageable).stream()
-        .map(offer -> modelMapper.map(offer, OfferServiceModel.class))
-        .collect(Collectors.toUnmodifiableList());
+    return latestOffersLoader.loadLatestOffers();
   }
 
   @Override
   @Transactional(readOnly = true)
   @Cacheable(value = FILTERED_ACTIVE_OFFERS, keyGenerator = "searchOffersKeyGenerator")
-  public Page<OfferServiceModel> searchOffers(UUID filterId, Pageable pageable) {
-    Objects.requireNonNull(filterId);
-    Filter filter = filterRepository.findFilterById(filterId).orElseThrow(NotFoundException::new);
+  public Page<OfferServiceModel> searchOffers(FilterCriteria filter, Pageable pageable) {
+    Objects.requireNonNull(filter);
+    Optional<Page<UUID>> indexed = offerSearchIndex.search(filter, pageable);
+    if (indexed.isPresent()) {
+      Page<UUID> ids = indexed.get();
+      List<Offer> offers = offerRepository.findAllByIdsOrdered(ids.getContent());
+      return new PageImpl<>(offers, pageable, ids.getTotalElements())
+          .map(offer -> modelMapper.map(offer, OfferServiceModel.class));
+    }
     Specification<Offer> specification =
         Objects.requireNonNull(where(getOffersByFilter(filter)).and(activeUser()))
             .and(activeOffers());
-    if (!filter.getFeatures().isEmpty()) {
-      List<UUID> offersIds = offerIdsForFilterFeatures(filterId);
-      if (offersIds.isEmpty()) {
-        return Page.empty();
-      }
-      specification = Objects.requireNonNull(specification).and(uuidIn(offersIds));
-    }
     return offerRepository
-        .findAll(specification, pageable)
+        .findPage(specification, pageable)
         .map(offer -> modelMapper.map(offer, OfferServiceModel.class));
   }
 
-  @Transactional(readOnly = true)
-  public List<UUID> offerIdsForFilterFeatures(UUID filterId) {
-    return offerRepository.searchOffersIdsWithFeatures(filterId).stream()
-        .map(BaseUuidEntity::getId)
-        .collect(Collectors.toList());
-  }
-
   @Override
-  @Transactional
+  @Transactional(readOnly = true)
+  @Cacheable(value = OFFER_DETAILS_CACHE, keyGenerator = "offerDetailsKeyGenerator")
   public OfferDetailsServiceModel loadOfferByIdPublicView(UUID id) {
     Offer offer = offerRepository.findOfferById(id).orElseThrow(OfferNotFoundException::new);
-    offer.incrementHitCount();
-    offerRepository.save(offer);
     return modelMapper.map(offer, OfferDetailsServiceModel.class);
   }
 
+  @Override
+  public void recordOfferView(UUID id) {
+    offerHitCounter.increment(id);
+  }
+
   @Override
   @Transactional(readOnly = true)
   public OfferDetailsServiceModel loadOfferByIdPrivateView(UUID id, UUID creatorId) {
@@ -145,17 +148,16 @@ public class OfferServiceImpl implements OfferService {
 
   @Override
   @Transactional
-  @Caching(
-      evict = {
-        @CacheEvict(value = LATEST_OFFERS_CACHE, allEntries = true),
-        @CacheEvict(value = FILTERED_ACTIVE_OFFERS, allEntries = true),
-        @CacheEvict(value = USER_OFFERS_CACHE, allEntries = true),
-        @CacheEvict(value = OFFERS_BY_IDS_CACHE, allEntries = true),
-      })
   public boolean toggleActive(UUID creatorId, UUID offerId) {
     Specification<Offer> specification = oneWithIdAndOwnerId(offerId, creatorId);
     Offer offer = offerRepository.findOne(specification).orElseThrow(OfferNotFoundException::new);
     offer.toggleActive();
+    eventPublisher.publishEvent(
+        OfferChangedEvent.of(
+            OfferChangeType.TOGGLED,
+            offer.getId(),
+            creatorId,
+            List.of(OfferSearchScope.of(offer))));
     return offer.isActive();
   }
 
@@ -165,19 +167,14 @@ public class OfferServiceImpl implements OfferService {
     boolean isOffer = offerRepository.existsById(offerId);
     if (!isOffer) throw new OfferNotFoundException();
     return mediaFileService.loadForReference(offerId).stream()
+        .filter(file -> MediaFileService.DEFAULT_OFFER_IMAGE_BUCKET.equals(file.getBucket()))
+        .filter(file -> file.getStatus() != MediaStatus.FAILED)
         .map(MediaFile::getFileKey)
         .collect(Collectors.toList());
   }
 
   @Override
   @Transactional(rollbackFor = IOException.class)
-  @Caching(
-      evict = {
-        @CacheEvict(value = LATEST_OFFERS_CACHE, allEntries = true),
-        @CacheEvict(value = FILTERED_ACTIVE_OFFERS, allEntries = true),
-        @CacheEvict(value = USER_OFFERS_CACHE, allEntries = true),
-        @CacheEvict(value = OFFERS_BY_IDS_CACHE, allEntries = true),
-      })
   public OfferServiceModel createOffer(OfferCreateRequest request, UUID creatorId)
       throws IOException {
     Assert.notNull(creatorId, "User id is required");
@@ -200,6 +197,7 @@ public class OfferServiceImpl implements OfferService {
             .orElseThrow(ModelNotFoundException::new);
     vehicle.setMakerId(model.getMaker().getId());
     vehicle.setModelId(model.getId());
+    vehicle.updateFeaturesMask();
     Offer offer = modelMapper.map(request, Offer.class);
     offer.setLocation(location);
     offer.setAccount(account);
@@ -209,33 +207,61 @@ public class OfferServiceImpl implements OfferService {
     assertNoNullValuesVehicle(vehicle);
     assertNotNullOfferValues(offer);
     validateNumericValues(offer);
-    if (request.getImages().isEmpty())
+    if (request.getImages().isEmpty() && request.getUploadIds().isEmpty())
       throw new InvalidOfferException(RestMessage.HAS_NO_IMAGES.name());
-    for (MultipartFile file : request.getImages()) {
-      byte[] byteArray = imageResizer.toJpgDownscaleToSize(file.getInputStream());
-      String fileName =
-          generateFileName(
-              Objects.requireNonNull(file.getContentType()),
-              Integer.toString(vehicle.getYear()),
-              vehicle.getMakerName(),
-              vehicle.getModelName(),
-              "pic",
-              Long.toString(System.currentTimeMillis()));
-      String fileKey = generateFileKey(Objects.requireNonNull(offer.getId()), fileName);
-      if (Objects.equals(file.getOriginalFilename(), request.getMainPhoto())) {
-        offer.setPrimaryPhotoKey(fileKey);
+    List<StagedImage> images = new ArrayList<>();
+    try {
+      for (MultipartFile file : request.getImages()) {
+        String fileKey =
+            registerPendingImage(
+                offer, file.getContentType(), file.getOriginalFilename(), images.size());
+        images.add(StagedImage.stage(file, fileKey));
+      }
+      for (UploadSessionServiceModel upload :
+          uploadSessionService.consume(request.getUploadIds(), creatorId)) {
+        String fileKey =
+            registerPendingImage(
+                offer, upload.getContentType(), upload.getOriginalFilename(), images.size());
+        images.add(
+            new StagedImage(
+                uploadSessionService.stagingFile(upload.getId()),
+                fileKey,
+                upload.getContentType(),
+                upload.getOriginalFilename(),
+                upload.getId()));
       }
-      mediaFileService.storeFile(
-          byteArray,
-          fileKey,
-          MediaFunction.OFFER_IMAGE,
-          file.getContentType(),
-          file.getOriginalFilename(),
-          offer.getId());
+    } catch (IOException | RuntimeException e) {
+      images.stream().filter(image -> !image.isUpload()).forEach(StagedImage::discard);
+      throw e;
     }
+    OfferSearchScope scope = OfferSearchScope.of(offer);
+    // the images are processed and the primary photo is set once the offer is committed
+    eventPublisher.publishEvent(
+        OfferImagesUploadedEvent.of(
+            offer.getId(), creatorId, scope, request.getMainPhoto(), images));
+    eventPublisher.publishEvent(
+        OfferChangedEvent.of(OfferChangeType.CREATED, offer.getId(), creatorId, List.of(scope)));
     return modelMapper.map(offer, OfferServiceModel.class);
   }
 
+  private String registerPendingImage(
+      Offer offer, String contentType, String originalFilename, int index) {
+    Vehicle vehicle = offer.getVehicle();
+    String fileName =
+        generateFileName(
+            Objects.requireNonNull(contentType),
+            Integer.toString(vehicle.getYear()),
+            vehicle.getMakerName(),
+            vehicle.getModelName(),
+            "pic",
+            Long.toString(System.currentTimeMillis()),
+            Integer.toString(index));
+    String fileKey = generateFileKey(Objects.requireNonNull(offer.getId()), fileName);
+    mediaFileService.createPending(
+        fileKey, MediaFunction.OFFER_IMAGE, contentType, originalFilename, offer.getId());
+    return fileKey;
+  }
+
   private String generateFileName(String contentType, String... params) {
     String ext =
         contentType.replace("image/", "").equals("jpeg")
@@ -258,13 +284,6 @@ public class OfferServiceImpl implements OfferService {
 
   @Override
   @Transactional
-  @Caching(
-      evict = {
-        @CacheEvict(value = LATEST_OFFERS_CACHE, allEntries = true),
-        @CacheEvict(value = FILTERED_ACTIVE_OFFERS, allEntries = true),
-        @CacheEvict(value = USER_OFFERS_CACHE, allEntries = true),
-        @CacheEvict(value = OFFERS_BY_IDS_CACHE, allEntries = true),
-      })
   public OfferServiceModel updateOffer(OfferCreateRequest request, UUID offerId, UUID creatorId) {
     Assert.notNull(creatorId, "User id is required");
     Assert.notNull(offerId, "Offer id is required");
@@ -281,6 +300,7 @@ public class OfferServiceImpl implements OfferService {
         offerRepository
             .findOneByIdAndCreatorId(offerId, creatorId)
             .orElseThrow(OfferNotFoundException::new);
+    OfferSearchScope scopeBefore = OfferSearchScope.of(offer);
     if (Assert.has(request.getAddressLocationPostalCode())
         && !request.getAddressLocationPostalCode().equals(offer.getLocation().getPostalCode())) {
       Location location =
@@ -304,6 +324,7 @@ public class OfferServiceImpl implements OfferService {
     offer.getVehicle().setColor(updatedVehicle.getColor());
     offer.getVehicle().setFuelType(updatedVehicle.getFuelType());
     offer.getVehicle().setFeatures(updatedVehicle.getFeatures());
+    offer.getVehicle().updateFeaturesMask();
     offer.getVehicle().setHasAccident(updatedVehicle.isHasAccident());
     offer.setPrice(updatedOffer.getPrice());
     offer.setDescription(updatedOffer.getDescription());
@@ -312,7 +333,14 @@ public class OfferServiceImpl implements OfferService {
     assertNoNullValuesVehicle(offer.getVehicle());
     assertNotNullOfferValues(offer);
     validateNumericValues(offer);
-    return modelMapper.map(offerRepository.save(offer), OfferServiceModel.class);
+    offer = offerRepository.save(offer);
+    eventPublisher.publishEvent(
+        OfferChangedEvent.of(
+            OfferChangeType.UPDATED,
+            offer.getId(),
+            creatorId,
+            List.of(scopeBefore, OfferSearchScope.of(offer))));
+    return modelMapper.map(offer, OfferServiceModel.class);
   }
 
   private void assertNotNullOfferValues(Offer offer) {
@@ -359,20 +387,20 @@ public class OfferServiceImpl implements OfferService {
 
   @Override
   @Transactional(readOnly = true)
-  @Cacheable(value = OFFERS_BY_IDS_CACHE, keyGenerator = "pageableKeyGenerator")
+  @Cacheable(value = OFFERS_BY_IDS_CACHE, keyGenerator = "offersByIdsKeyGenerator")
   public Page<OfferServiceModel> searchOffersByIds(List<UUID> offerIds, Pageable pageable) {
     if (offerIds.isEmpty()) return Page.empty();
     Specification<Offer> specification =
         Objects.requireNonNull(where(favoriteWithIds(offerIds)).and(activeUser()))
             .and(activeOffers());
     return offerRepository
-        .findAll(specification, pageable)
+        .findPage(specification, pageable)
         .map(offer -> modelMapper.map(offer, OfferServiceModel.class));
   }
 
   @Override
   @Transactional(readOnly = true)
-  @Cacheable(value = USER_OFFERS_CACHE, keyGenerator = "pageableKeyGenerator")
+  @Cacheable(value = USER_OFFERS_CACHE, keyGenerator = "userOffersKeyGenerator")
   public Page<OfferServiceModel> findUserOffers(UUID userId, Pageable pageable) {
     UUID accountId =
         accountRepository
@@ -381,19 +409,12 @@ public class OfferServiceImpl implements OfferService {
             .orElseThrow(AccountNotFoundException::new);
     Specification<Offer> specification = where(withAccountId(accountId));
     return offerRepository
-        .findAll(specification, pageable)
+        .findPage(specification, pageable)
         .map(offer -> modelMapper.map(offer, OfferServiceModel.class));
   }
 
   @Override
   @Transactional
-  @Caching(
-      evict = {
-        @CacheEvict(value = LATEST_OFFERS_CACHE, allEntries = true),
-        @CacheEvict(value = FILTERED_ACTIVE_OFFERS, allEntries = true),
-        @CacheEvict(value = USER_OFFERS_CACHE, allEntries = true),
-        @CacheEvict(value = OFFERS_BY_IDS_CACHE, allEntries = true),
-      })
   public void deleteOffer(UUID userId, UUID offerId) {
     Assert.notNull(userId, "User id is required");
     Assert.notNull(offerId, "Offer id is required");
@@ -401,11 +422,14 @@ public class OfferServiceImpl implements OfferService {
         offerRepository
             .findOneByIdAndCreatorId(offerId, userId)
             .orElseThrow(OfferNotFoundException::new);
+    OfferSearchScope scope = OfferSearchScope.of(offer);
     mediaFileService.removeAllForReference(offerId);
     if (Assert.has(offer.getVehicle())) {
       offer.getVehicle().setFeatures(new ArrayList<>());
       vehicleRepository.deleteAllById(offer.getVehicle().getId());
     }
     offerRepository.deleteAllById(offer.getId());
+    eventPublisher.publishEvent(
+        OfferChangedEvent.of(OfferChangeType.DELETED, offer.getId(), userId, List.of(scope)));
   }
 }
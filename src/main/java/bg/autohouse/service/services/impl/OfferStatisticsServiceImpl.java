@@ -0,0 +1,92 @@
+package bg.autohouse.service.services.impl;
+
+import bg.autohouse.data.models.enums.BodyStyle;
+import bg.autohouse.data.repositories.OfferRepository;
+import bg.autohouse.service.events.OfferChangedEvent;
+import bg.autohouse.service.models.offer.OfferRangeStatisticsServiceModel;
+import bg.autohouse.service.models.offer.OfferStatisticsServiceModel;
+import bg.autohouse.service.services.OfferStatisticsService;
+import bg.autohouse.service.snapshots.ActiveOfferSnapshot;
+import bg.autohouse.service.statistics.OfferStatisticsAccumulator;
+import bg.autohouse.util.EnumUtils;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Service
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class OfferStatisticsServiceImpl implements OfferStatisticsService {
+
+  @Value("${app.offer.statistics.histogram-buckets:20}")
+  private int histogramBuckets;
+
+  private final OfferRepository offerRepository;
+  private final PlatformTransactionManager transactionManager;
+
+  private ExecutorService updateExecutor;
+  private ActiveOfferSnapshot<OfferStatisticsAccumulator> snapshot;
+
+  @PostConstruct
+  public void init() {
+    updateExecutor = ActiveOfferSnapshot.updateExecutor("offer-statistics");
+    snapshot =
+        new ActiveOfferSnapshot<>(
+            "Offer statistics",
+            offerRepository,
+            transactionManager,
+            updateExecutor,
+            size -> new OfferStatisticsAccumulator(),
+            OfferStatisticsAccumulator::upsert,
+            OfferStatisticsAccumulator::remove);
+  }
+
+  @PreDestroy
+  public void stop() {
+    updateExecutor.shutdownNow();
+  }
+
+  @Override
+  public OfferStatisticsServiceModel getStatistics() {
+    return read(OfferStatisticsAccumulator::summary);
+  }
+
+  @Override
+  public OfferRangeStatisticsServiceModel getMakerStatistics(String makerName) {
+    return read(s -> s.forMaker(makerName, histogramBuckets));
+  }
+
+  @Override
+  public OfferRangeStatisticsServiceModel getBodyStyleStatistics(String bodyStyle) {
+    BodyStyle style = EnumUtils.fromString(bodyStyle, BodyStyle.class).orElse(null);
+    return read(s -> s.forBodyStyle(style, histogramBuckets));
+  }
+
+  @Override
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(
+      initialDelayString = "${app.offer.statistics.reconcile-interval-ms:900000}",
+      fixedDelayString = "${app.offer.statistics.reconcile-interval-ms:900000}")
+  public void reconcile() {
+    snapshot.rebuild();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onOfferChanged(OfferChangedEvent event) {
+    snapshot.onOfferChanged(event);
+  }
+
+  private <T> T read(Function<OfferStatisticsAccumulator, T> query) {
+    snapshot.ensureReady();
+    return snapshot.read(query);
+  }
+}
@@ -8,6 +8,7 @@ import bg.autohouse.data.repositories.UserLogRepository;
 import bg.autohouse.data.repositories.UserRepository;
 import bg.autohouse.data.repositories.VerificationTokenCodeRepository;
 import bg.autohouse.errors.ExceptionsMessages;
+import bg.autohouse.security.PasswordHasher;
 import bg.autohouse.service.services.PasswordService;
 import bg.autohouse.util.Assert;
 import bg.autohouse.util.StringGenericUtils;
@@ -20,7 +21,6 @@ import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -32,13 +32,13 @@ public class PasswordServiceImpl implements PasswordService {
   private final VerificationTokenCodeRepository verificationTokenCodeRepository;
   private final UserLogRepository userLogRepository;
   private final UserRepository userRepository;
-  private final PasswordEncoder encoder;
+  private final PasswordHasher passwordHasher;
 
   @Override
   @Transactional(readOnly = true)
   public boolean validateCredentials(String username, String password) {
     User user = userRepository.findByUsernameIgnoreCase(username).orElse(null);
-    if (user == null || !encoder.matches(password, user.getPassword())) {
+    if (user == null || !passwordHasher.matches(password, user.getPassword())) {
       return false;
     }
     return true;
@@ -105,8 +105,8 @@ public class PasswordServiceImpl implements PasswordService {
     Objects.requireNonNull(newPassword);
     User user = userRepository.findByIdWithRoles(userId).orElse(null);
     if (!Assert.has(user)) return false;
-    if (!encoder.matches(oldPassword, user.getPassword())) return false;
-    String encodedPassword = encoder.encode(newPassword);
+    if (!passwordHasher.matches(oldPassword, user.getPassword())) return false;
+    String encodedPassword = passwordHasher.encode(newPassword);
     user.setPassword(encodedPassword);
     userRepository.save(user);
     userLogRepository.save(new UserLog(user.getId(), UserLogType.USER_CHANGED_PASSWORD, null));
@@ -121,7 +121,7 @@ public class PasswordServiceImpl implements PasswordService {
     }
     User user = userRepository.findByUsernameIgnoreCase(username).orElse(null);
     if (user == null) return false;
-    user.setPassword(encoder.encode(password));
+    user.setPassword(passwordHasher.encode(password));
     userRepository.save(user);
     expireVerificationCode(user.getId());
     return true;
@@ -0,0 +1,197 @@
+package bg.autohouse.service.services.impl;
+
+import bg.autohouse.data.models.media.UploadSession;
+import bg.autohouse.data.models.media.UploadStatus;
+import bg.autohouse.data.repositories.UploadSessionRepository;
+import bg.autohouse.errors.UploadNotFoundException;
+import bg.autohouse.service.models.media.UploadSessionServiceModel;
+import bg.autohouse.service.services.UploadSessionService;
+import bg.autohouse.util.Assert;
+import bg.autohouse.util.ModelMapperWrapper;
+import bg.autohouse.web.enums.RestMessage;
+import bg.autohouse.web.models.request.offer.ImageUploadCreateRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class UploadSessionServiceImpl implements UploadSessionService {
+
+  @Value("${app.upload.staging-folder:${java.io.tmpdir}/autohouse-uploads}")
+  private String stagingFolder;
+
+  @Value("${app.upload.max-size:5MB}")
+  private DataSize maxSize;
+
+  @Value("${app.upload.expire-after:24h}")
+  private Duration expireAfter;
+
+  private final UploadSessionRepository uploadSessionRepository;
+  private final ModelMapperWrapper modelMapper;
+
+  private Path stagingPath;
+
+  @PostConstruct
+  void init() throws IOException {
+    stagingPath = Files.createDirectories(Paths.get(stagingFolder));
+  }
+
+  @Override
+  @Transactional
+  public UploadSessionServiceModel open(ImageUploadCreateRequest request, UUID ownerId) {
+    Assert.notNull(ownerId, "User id is required");
+    Assert.notNull(request, "Upload model is required");
+    if (request.getSize() > maxSize.toBytes()) {
+      throw new IllegalArgumentException(RestMessage.UPLOAD_TOO_LARGE.name());
+    }
+    UploadSession session =
+        UploadSession.builder()
+            .ownerId(ownerId)
+            .originalFilename(request.getFileName())
+            .contentType(request.getContentType())
+            .size(request.getSize())
+            .status(UploadStatus.OPEN)
+            .build();
+    return modelMapper.map(uploadSessionRepository.save(session), UploadSessionServiceModel.class);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public UploadSessionServiceModel load(UUID uploadId, UUID ownerId) {
+    return modelMapper.map(find(uploadId, ownerId), UploadSessionServiceModel.class);
+  }
+
+  // Not transactional, no database connection is held while the chunk is read from the network.
+  @Override
+  public UploadSessionServiceModel writeChunk(
+      UUID uploadId, UUID ownerId, long offset, InputStream data) throws IOException {
+    UploadSession session = find(uploadId, ownerId);
+    if (session.getStatus() != UploadStatus.OPEN) {
+      throw new IllegalArgumentException(RestMessage.UPLOAD_ALREADY_COMPLETED.name());
+    }
+    if (offset < 0 || offset > session.getReceivedBytes()) {
+      throw new IllegalArgumentException(RestMessage.INVALID_UPLOAD_OFFSET.name());
+    }
+    long remaining = session.getSize() - offset;
+    long written;
+    try (FileChannel channel =
+            FileChannel.open(
+                stagingFile(uploadId), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        ReadableByteChannel source = Channels.newChannel(data)) {
+      // one byte more than allowed tells an oversized chunk from an exact one
+      written = channel.transferFrom(source, offset, remaining + 1);
+      if (written > remaining) {
+        channel.truncate(session.getSize());
+        throw new IllegalArgumentException(RestMessage.UPLOAD_TOO_LARGE.name());
+      }
+    }
+    uploadSessionRepository.updateReceivedBytes(uploadId, offset + written);
+    session.setReceivedBytes(Math.max(session.getReceivedBytes(), offset + written));
+    return modelMapper.map(session, UploadSessionServiceModel.class);
+  }
+
+  @Override
+  @Transactional
+  public UploadSessionServiceModel complete(UUID uploadId, UUID ownerId) throws IOException {
+    UploadSession session = find(uploadId, ownerId);
+    if (session.getStatus() == UploadStatus.COMPLETED) {
+      return modelMapper.map(session, UploadSessionServiceModel.class);
+    }
+    if (session.getStatus() != UploadStatus.OPEN) {
+      throw new IllegalArgumentException(RestMessage.UPLOAD_ALREADY_COMPLETED.name());
+    }
+    if (session.getReceivedBytes() != session.getSize()) {
+      throw new IllegalArgumentException(RestMessage.UPLOAD_INCOMPLETE.name());
+    }
+    if (!isReadableImage(stagingFile(uploadId))) {
+      throw new IllegalArgumentException(RestMessage.UNSUPPORTED_IMAGE.name());
+    }
+    session.setStatus(UploadStatus.COMPLETED);
+    return modelMapper.map(session, UploadSessionServiceModel.class);
+  }
+
+  @Override
+  @Transactional
+  public List<UploadSessionServiceModel> consume(List<UUID> uploadIds, UUID ownerId) {
+    if (Assert.isEmpty(uploadIds)) return List.of();
+    List<UploadSession> sessions =
+        uploadSessionRepository.findAllByIdInAndOwnerId(uploadIds, ownerId);
+    if (sessions.size() != uploadIds.stream().distinct().count()) {
+      throw new UploadNotFoundException();
+    }
+    for (UploadSession session : sessions) {
+      if (session.getStatus() != UploadStatus.COMPLETED) {
+        throw new IllegalArgumentException(RestMessage.UPLOAD_NOT_COMPLETED.name());
+      }
+      session.setStatus(UploadStatus.CONSUMED);
+    }
+    return sessions.stream()
+        .sorted(Comparator.comparingInt(session -> uploadIds.indexOf(session.getId())))
+        .map(session -> modelMapper.map(session, UploadSessionServiceModel.class))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public Path stagingFile(UUID uploadId) {
+    return stagingPath.resolve(uploadId.toString());
+  }
+
+  @Override
+  @Transactional
+  @Scheduled(
+      initialDelayString = "${app.upload.purge-interval-ms:3600000}",
+      fixedDelayString = "${app.upload.purge-interval-ms:3600000}")
+  public void purgeExpired() {
+    Date before = new Date(System.currentTimeMillis() - expireAfter.toMillis());
+    List<UploadSession> expired = uploadSessionRepository.findAllByUpdatedAtBefore(before);
+    if (expired.isEmpty()) return;
+    for (UploadSession session : expired) {
+      // consumed files belong to the image processing, which deletes them when it is done
+      if (session.getStatus() == UploadStatus.CONSUMED) continue;
+      try {
+        Files.deleteIfExists(stagingFile(session.getId()));
+      } catch (IOException e) {
+        log.warn("Could not delete staged upload {}", session.getId(), e);
+      }
+    }
+    uploadSessionRepository.deleteAll(expired);
+    log.info("Purged {} expired upload sessions", expired.size());
+  }
+
+  private UploadSession find(UUID uploadId, UUID ownerId) {
+    return uploadSessionRepository
+        .findByIdAndOwnerId(uploadId, ownerId)
+        .orElseThrow(UploadNotFoundException::new);
+  }
+
+  private static boolean isReadableImage(Path file) throws IOException {
+    try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+      return in != null && ImageIO.getImageReaders(in).hasNext();
+    }
+  }
+}
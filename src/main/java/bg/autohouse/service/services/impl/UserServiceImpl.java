@@ -11,6 +11,7 @@ import bg.autohouse.data.repositories.OfferRepository;
 import bg.autohouse.data.repositories.UserRepository;
 import bg.autohouse.data.repositories.UserRequestRepository;
 import bg.autohouse.errors.*;
+import bg.autohouse.security.PasswordHasher;
 import bg.autohouse.security.jwt.JwtTokenCreateRequest;
 import bg.autohouse.security.jwt.JwtTokenService;
 import bg.autohouse.security.jwt.JwtTokenType;
@@ -28,7 +29,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -48,7 +48,7 @@ public class UserServiceImpl implements UserService {
   private final PasswordService passwordService;
   private final ModelMapperWrapper modelMapper;
   private final JwtTokenService jwtService;
-  private final PasswordEncoder encoder;
+  private final PasswordHasher passwordHasher;
   private final AsyncUserLogger asyncUserService;
   private final ApplicationEventPublisher eventPublisher;
 
@@ -78,16 +78,23 @@ public class UserServiceImpl implements UserService {
     return userRepository.existsByUsernameIgnoreCase(username);
   }
 
+  // BCrypt runs between the queries, no connection is held while it waits for or runs a hash
   @Override
-  @Transactional(readOnly = true)
   public AuthorizedUserServiceModel tryLogin(String username, String password) {
     User user =
         userRepository
-            .findByUsernameIgnoreCase(username)
+            .findForLoginByUsername(username)
             .orElseThrow(UsernamePasswordLoginFailedException::new);
     if (!user.isEnabled()) throw new UserDisabledException();
-    boolean isValidCredentials = passwordService.validateCredentials(username, password);
-    if (!isValidCredentials) throw new UsernamePasswordLoginFailedException();
+    String verifiedHash = user.getPassword();
+    if (!passwordHasher.matches(password, verifiedHash)) {
+      throw new UsernamePasswordLoginFailedException();
+    }
+    if (passwordHasher.needsUpgrade(verifiedHash)) {
+      // the cost was raised since the hash was stored, the plain password is only at hand now
+      userRepository.upgradePassword(
+          user.getId(), verifiedHash, passwordHasher.encode(password));
+    }
     JwtTokenCreateRequest tokenRequest = new JwtTokenCreateRequest(JwtTokenType.API_CLIENT, user);
     String token = jwtService.createJwt(tokenRequest);
     log.info("Generated a jwt token, on server is: {}", token);
@@ -107,7 +114,7 @@ public class UserServiceImpl implements UserService {
     if (request == null) {
       request = modelMapper.map(model, UserCreateRequest.class);
       log.info("Hashing password...");
-      request.setPassword(encoder.encode(model.getPassword()));
+      request.setPassword(passwordHasher.encode(model.getPassword()));
       userRequestRepository.save(request);
     }
     VerificationTokenCode token = passwordService.generateShortLivedOTP(model.getUsername());
@@ -0,0 +1,228 @@
+package bg.autohouse.service.snapshots;
+
+import bg.autohouse.data.projections.offer.OfferIndexRow;
+import bg.autohouse.data.repositories.OfferRepository;
+import bg.autohouse.service.events.OfferChangedEvent;
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * An in-memory copy of the active offers, such as the search index or the offer statistics. It is
+ * built from the offer index rows and kept up to date from {@link OfferChangedEvent}s on an update
+ * thread of its own, so the thread that committed the change never waits for it. The changes that
+ * arrive while an update runs are coalesced: the changed offers and owners are reloaded with one
+ * query each and only a bulk change without an owner rebuilds the copy.
+ */
+@Slf4j
+public class ActiveOfferSnapshot<T> {
+
+  private static final int MAX_IDS_PER_QUERY = 500;
+
+  private final String name;
+  private final OfferRepository offerRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final Executor executor;
+  private final IntFunction<T> factory;
+  private final BiConsumer<T, OfferIndexRow> upsert;
+  private final BiConsumer<T, UUID> remove;
+
+  // readers share the read lock, swapping or changing the copy takes the write lock
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  // serializes rebuilds with incremental updates so no change is applied to a discarded copy
+  private final Lock updateLock = new ReentrantLock();
+  private volatile T copy;
+
+  // the changes waiting for the update thread, guarded by this
+  private Set<UUID> pendingOffers = new HashSet<>();
+  private Set<UUID> pendingOwners = new HashSet<>();
+  private boolean pendingRebuild;
+  private boolean updateScheduled;
+
+  public ActiveOfferSnapshot(
+      String name,
+      OfferRepository offerRepository,
+      PlatformTransactionManager transactionManager,
+      Executor executor,
+      IntFunction<T> factory,
+      BiConsumer<T, OfferIndexRow> upsert,
+      BiConsumer<T, UUID> remove) {
+    this.name = name;
+    this.offerRepository = offerRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+    this.executor = executor;
+    this.factory = factory;
+    this.upsert = upsert;
+    this.remove = remove;
+  }
+
+  /** A single daemon thread for the updates of a snapshot. */
+  public static ExecutorService updateExecutor(String threadName) {
+    return Executors.newSingleThreadExecutor(
+        runnable -> {
+          Thread thread = new Thread(runnable, threadName);
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  public boolean isReady() {
+    return copy != null;
+  }
+
+  /** Answers the query from the current copy, or returns null when there is none yet. */
+  public <R> R read(Function<T, R> query) {
+    lock.readLock().lock();
+    try {
+      T current = copy;
+      return current == null ? null : query.apply(current);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Builds the copy from all active offers on the calling thread and swaps it in. */
+  public void rebuild() {
+    long start = System.currentTimeMillis();
+    int size;
+    updateLock.lock();
+    try {
+      List<OfferIndexRow> rows =
+          transactionTemplate.execute(status -> offerRepository.findAllActiveIndexRows());
+      size = rows.size();
+      T rebuilt = factory.apply(size);
+      rows.forEach(row -> upsert.accept(rebuilt, row));
+      lock.writeLock().lock();
+      try {
+        copy = rebuilt;
+      } finally {
+        lock.writeLock().unlock();
+      }
+    } finally {
+      updateLock.unlock();
+    }
+    log.info("{} built with {} offers in {} ms", name, size, System.currentTimeMillis() - start);
+  }
+
+  /**
+   * Builds the copy unless there is one. Callers that arrive while it is built wait for that build
+   * instead of starting another one.
+   */
+  public void ensureReady() {
+    if (isReady()) return;
+    updateLock.lock();
+    try {
+      if (!isReady()) rebuild();
+    } finally {
+      updateLock.unlock();
+    }
+  }
+
+  /** Records the change and leaves it to the update thread. */
+  public void onOfferChanged(OfferChangedEvent event) {
+    if (!isReady()) return;
+    synchronized (this) {
+      if (!event.isBulk()) {
+        pendingOffers.add(event.getOfferId());
+      } else if (event.getOwnerId() != null) {
+        pendingOwners.add(event.getOwnerId());
+      } else {
+        pendingRebuild = true;
+      }
+      if (updateScheduled) return;
+      updateScheduled = true;
+    }
+    try {
+      executor.execute(this::applyPending);
+    } catch (RejectedExecutionException e) {
+      synchronized (this) {
+        updateScheduled = false;
+      }
+      log.warn("{} update rejected, the changes wait for the next one", name);
+    }
+  }
+
+  private void applyPending() {
+    while (true) {
+      Set<UUID> offerIds;
+      Set<UUID> ownerIds;
+      boolean rebuild;
+      synchronized (this) {
+        if (!pendingRebuild && pendingOffers.isEmpty() && pendingOwners.isEmpty()) {
+          updateScheduled = false;
+          return;
+        }
+        offerIds = pendingOffers;
+        ownerIds = pendingOwners;
+        rebuild = pendingRebuild;
+        pendingOffers = new HashSet<>();
+        pendingOwners = new HashSet<>();
+        pendingRebuild = false;
+      }
+      try {
+        if (rebuild) {
+          rebuild();
+        } else {
+          reload(offerIds, ownerIds);
+        }
+      } catch (RuntimeException e) {
+        // the periodic rebuild picks the changes up
+        log.error("{} could not apply the changes of {} offers", name, offerIds.size(), e);
+      }
+    }
+  }
+
+  private void reload(Set<UUID> offerIds, Set<UUID> ownerIds) {
+    updateLock.lock();
+    try {
+      List<OfferIndexRow> rows = transactionTemplate.execute(status -> load(offerIds, ownerIds));
+      // the offers that were not found have been deleted
+      Set<UUID> deleted = new HashSet<>(offerIds);
+      lock.writeLock().lock();
+      try {
+        for (OfferIndexRow row : rows) {
+          deleted.remove(row.getId());
+          if (row.isActive() && row.isUserEnabled()) {
+            upsert.accept(copy, row);
+          } else {
+            remove.accept(copy, row.getId());
+          }
+        }
+        deleted.forEach(offerId -> remove.accept(copy, offerId));
+      } finally {
+        lock.writeLock().unlock();
+      }
+    } finally {
+      updateLock.unlock();
+    }
+  }
+
+  private List<OfferIndexRow> load(Set<UUID> offerIds, Set<UUID> ownerIds) {
+    List<OfferIndexRow> rows = new ArrayList<>();
+    for (List<UUID> ids : Lists.partition(new ArrayList<>(offerIds), MAX_IDS_PER_QUERY)) {
+      rows.addAll(offerRepository.findIndexRowsByIdIn(ids));
+    }
+    for (List<UUID> ids : Lists.partition(new ArrayList<>(ownerIds), MAX_IDS_PER_QUERY)) {
+      rows.addAll(offerRepository.findIndexRowsByOwnerIdIn(ids));
+    }
+    return rows;
+  }
+}
@@ -0,0 +1,183 @@
+package bg.autohouse.service.statistics;
+
+import bg.autohouse.data.models.enums.BodyStyle;
+import bg.autohouse.data.projections.offer.OfferIndexRow;
+import bg.autohouse.service.models.offer.OfferRangeStatisticsServiceModel;
+import bg.autohouse.service.models.offer.OfferStatisticsServiceModel;
+import bg.autohouse.service.models.offer.RangeHistogramServiceModel;
+import bg.autohouse.util.Assert;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import lombok.Value;
+
+/**
+ * Price, year and mileage distributions of the active offers, overall, per maker and per body
+ * style. Values are kept as sorted multisets, so removing or changing an offer is as cheap as adding
+ * one. Not thread safe.
+ */
+public final class OfferStatisticsAccumulator {
+
+  private final Map<UUID, Entry> offers = new HashMap<>();
+  private final RangeGroup all = new RangeGroup();
+  private final Map<String, RangeGroup> byMaker = new HashMap<>();
+  private final Map<BodyStyle, RangeGroup> byBodyStyle = new EnumMap<>(BodyStyle.class);
+
+  public int size() {
+    return offers.size();
+  }
+
+  public void upsert(OfferIndexRow row) {
+    remove(row.getId());
+    Entry entry =
+        new Entry(
+            makerKey(row.getMakerName()),
+            row.getBodyStyle(),
+            row.getPrice(),
+            row.getYear(),
+            row.getMileage());
+    offers.put(row.getId(), entry);
+    all.add(entry);
+    if (entry.getMaker() != null) {
+      byMaker.computeIfAbsent(entry.getMaker(), m -> new RangeGroup()).add(entry);
+    }
+    if (entry.getBodyStyle() != null) {
+      byBodyStyle.computeIfAbsent(entry.getBodyStyle(), b -> new RangeGroup()).add(entry);
+    }
+  }
+
+  public void remove(UUID offerId) {
+    Entry entry = offers.remove(offerId);
+    if (entry == null) return;
+    all.remove(entry);
+    removeFrom(byMaker, entry.getMaker(), entry);
+    removeFrom(byBodyStyle, entry.getBodyStyle(), entry);
+  }
+
+  public OfferStatisticsServiceModel summary() {
+    return OfferStatisticsServiceModel.builder()
+        .totalOffers(all.count)
+        .maxPrice(toLong(all.price.max()))
+        .minPrice(toLong(all.price.min()))
+        .maxYear(toLong(all.year.max()))
+        .minYear(toLong(all.year.min()))
+        .maxMileage(toLong(all.mileage.max()))
+        .minMileage(toLong(all.mileage.min()))
+        .build();
+  }
+
+  public OfferRangeStatisticsServiceModel forMaker(String makerName, int buckets) {
+    return toModel(byMaker.get(makerKey(makerName)), buckets);
+  }
+
+  public OfferRangeStatisticsServiceModel forBodyStyle(BodyStyle bodyStyle, int buckets) {
+    return toModel(byBodyStyle.get(bodyStyle), buckets);
+  }
+
+  private static <K> void removeFrom(Map<K, RangeGroup> groups, K key, Entry entry) {
+    if (key == null) return;
+    RangeGroup group = groups.get(key);
+    if (group == null) return;
+    group.remove(entry);
+    if (group.count == 0) groups.remove(key);
+  }
+
+  private static OfferRangeStatisticsServiceModel toModel(RangeGroup group, int buckets) {
+    RangeGroup source = group == null ? new RangeGroup() : group;
+    return OfferRangeStatisticsServiceModel.builder()
+        .totalOffers(source.count)
+        .price(source.price.histogram(buckets))
+        .year(source.year.histogram(buckets))
+        .mileage(source.mileage.histogram(buckets))
+        .build();
+  }
+
+  private static String makerKey(String makerName) {
+    return Assert.has(makerName) ? makerName.toLowerCase(Locale.ROOT) : null;
+  }
+
+  private static Long toLong(Integer value) {
+    return value == null ? null : value.longValue();
+  }
+
+  @Value
+  private static class Entry {
+    String maker;
+    BodyStyle bodyStyle;
+    Integer price;
+    Integer year;
+    Integer mileage;
+  }
+
+  private static final class RangeGroup {
+    private long count;
+    private final ValueCounts price = new ValueCounts();
+    private final ValueCounts year = new ValueCounts();
+    private final ValueCounts mileage = new ValueCounts();
+
+    void add(Entry entry) {
+      count++;
+      price.add(entry.getPrice());
+      year.add(entry.getYear());
+      mileage.add(entry.getMileage());
+    }
+
+    void remove(Entry entry) {
+      count--;
+      price.remove(entry.getPrice());
+      year.remove(entry.getYear());
+      mileage.remove(entry.getMileage());
+    }
+  }
+
+  /** Sorted multiset of values, nulls are ignored like in SQL aggregates. */
+  private static final class ValueCounts {
+    private final NavigableMap<Integer, Long> counts = new TreeMap<>();
+
+    void add(Integer value) {
+      if (value != null) counts.merge(value, 1L, Long::sum);
+    }
+
+    void remove(Integer value) {
+      if (value != null) counts.computeIfPresent(value, (v, c) -> c == 1 ? null : c - 1);
+    }
+
+    Integer min() {
+      return counts.isEmpty() ? null : counts.firstKey();
+    }
+
+    Integer max() {
+      return counts.isEmpty() ? null : counts.lastKey();
+    }
+
+    RangeHistogramServiceModel histogram(int buckets) {
+      if (counts.isEmpty()) {
+        return RangeHistogramServiceModel.builder().counts(Collections.emptyList()).build();
+      }
+      int min = counts.firstKey();
+      int max = counts.lastKey();
+      long span = (long) max - min + 1;
+      int width = (int) Math.max(1, (span + buckets - 1) / buckets);
+      int size = (int) ((span + width - 1) / width);
+      long[] histogram = new long[size];
+      counts.forEach((value, count) -> histogram[(int) (((long) value - min) / width)] += count);
+      List<Long> result = new ArrayList<>(size);
+      for (long count : histogram) {
+        result.add(count);
+      }
+      return RangeHistogramServiceModel.builder()
+          .min(min)
+          .max(max)
+          .bucketWidth(width)
+          .counts(result)
+          .build();
+    }
+  }
+}
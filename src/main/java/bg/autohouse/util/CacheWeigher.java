@@ -0,0 +1,64 @@
+package bg.autohouse.util;
+
+import bg.autohouse.service.models.offer.OfferDetailsServiceModel;
+import bg.autohouse.service.models.offer.OfferServiceModel;
+import com.github.benmanes.caffeine.cache.Weigher;
+import java.util.Collection;
+import org.springframework.data.domain.Page;
+
+/**
+ * Estimates the retained size in bytes of cached values, so caches can be bounded by memory
+ * instead of by entry count. The estimate only has to be proportional, not exact.
+ */
+public class CacheWeigher implements Weigher<Object, Object> {
+
+  private static final int OBJECT_OVERHEAD = 16;
+  private static final int REFERENCE_SIZE = 8;
+  private static final int KEY_WEIGHT = 256;
+  private static final int DEFAULT_WEIGHT = 1024;
+  private static final int OFFER_FIELDS = 25;
+
+  @Override
+  public int weigh(Object key, Object value) {
+    long weight = KEY_WEIGHT + estimate(value);
+    return (int) Math.min(Integer.MAX_VALUE, weight);
+  }
+
+  public static long estimate(Object value) {
+    if (value == null) return 0;
+    if (value instanceof Page) {
+      return OBJECT_OVERHEAD * 4 + estimate(((Page<?>) value).getContent());
+    }
+    if (value instanceof Collection) {
+      Collection<?> collection = (Collection<?>) value;
+      long weight = OBJECT_OVERHEAD + (long) REFERENCE_SIZE * collection.size();
+      for (Object element : collection) {
+        weight += estimate(element);
+      }
+      return weight;
+    }
+    if (value instanceof OfferServiceModel) return estimate((OfferServiceModel) value);
+    if (value instanceof OfferDetailsServiceModel) {
+      return DEFAULT_WEIGHT + estimate(((OfferDetailsServiceModel) value).getDescription());
+    }
+    if (value instanceof String) return OBJECT_OVERHEAD * 2 + ((String) value).length();
+    return DEFAULT_WEIGHT;
+  }
+
+  private static long estimate(OfferServiceModel offer) {
+    return OBJECT_OVERHEAD
+        + REFERENCE_SIZE * OFFER_FIELDS
+        + estimate(offer.getId())
+        + estimate(offer.getAccountId())
+        + estimate(offer.getAccountUserId())
+        + estimate(offer.getLocationCity())
+        + estimate(offer.getLocationId())
+        + estimate(offer.getCreatedAt())
+        + estimate(offer.getPrimaryPhotoKey())
+        + estimate(offer.getVehicleMakerName())
+        + estimate(offer.getVehicleModelName())
+        + estimate(offer.getVehicleTrim())
+        // boxed numbers, the enum names are shared constants
+        + OBJECT_OVERHEAD * 8L;
+  }
+}
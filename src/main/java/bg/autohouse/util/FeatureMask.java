@@ -0,0 +1,73 @@
+package bg.autohouse.util;
+
+import bg.autohouse.data.models.enums.Feature;
+import java.util.Collection;
+import java.util.EnumSet;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Encodes a set of {@link Feature} constants as two long masks. The bit of a feature is its
+ * explicit {@link Feature#getBit() bit}, so reordering the constants does not change stored masks.
+ * Bits below 63 go into the low mask and the rest into the high mask. The sign bit is never used so
+ * that the masks compare the same way on every database.
+ *
+ * <p>{@link #VERSION} is stored with the masks, raising it recomputes the masks of every vehicle
+ * on the next start.
+ */
+@UtilityClass
+public class FeatureMask {
+
+  public static final int BITS_PER_MASK = Long.SIZE - 1;
+  public static final int VERSION = 1;
+
+  private static final Feature[] FEATURES = Feature.values();
+
+  static {
+    long[] used = new long[2];
+    for (Feature feature : FEATURES) {
+      if (feature.getBit() < 0 || feature.getBit() >= 2 * BITS_PER_MASK) {
+        throw new IllegalStateException("Feature bit does not fit in two long masks: " + feature);
+      }
+      int mask = feature.getBit() / BITS_PER_MASK;
+      if ((used[mask] & bit(feature)) != 0) {
+        throw new IllegalStateException("Feature bit is taken twice: " + feature);
+      }
+      used[mask] |= bit(feature);
+    }
+  }
+
+  public static long low(Collection<Feature> features) {
+    long mask = 0L;
+    if (features == null) return mask;
+    for (Feature feature : features) {
+      if (feature != null && feature.getBit() < BITS_PER_MASK) mask |= bit(feature);
+    }
+    return mask;
+  }
+
+  public static long high(Collection<Feature> features) {
+    long mask = 0L;
+    if (features == null) return mask;
+    for (Feature feature : features) {
+      if (feature != null && feature.getBit() >= BITS_PER_MASK) mask |= bit(feature);
+    }
+    return mask;
+  }
+
+  public static EnumSet<Feature> decode(long low, long high) {
+    EnumSet<Feature> features = EnumSet.noneOf(Feature.class);
+    for (Feature feature : FEATURES) {
+      long mask = feature.getBit() < BITS_PER_MASK ? low : high;
+      if ((mask & bit(feature)) != 0) features.add(feature);
+    }
+    return features;
+  }
+
+  public static boolean containsAll(long low, long high, long requiredLow, long requiredHigh) {
+    return (low & requiredLow) == requiredLow && (high & requiredHigh) == requiredHigh;
+  }
+
+  private static long bit(Feature feature) {
+    return 1L << (feature.getBit() % BITS_PER_MASK);
+  }
+}
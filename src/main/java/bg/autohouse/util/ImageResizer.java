@@ -2,17 +2,27 @@ package bg.autohouse.util;
 
 import static java.awt.Color.WHITE;
 
+import bg.autohouse.data.models.media.ImageVariant;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
 import javax.imageio.ImageWriteParam;
 import javax.imageio.ImageWriter;
-import javax.imageio.stream.MemoryCacheImageOutputStream;
-import org.imgscalr.Scalr;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStreamImpl;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -20,10 +30,25 @@ public class ImageResizer {
 
   private static final int MAX_IMAGE_SIZE = 1024;
 
-  private static final Scalr.Method QUALITY_SETTING = Scalr.Method.ULTRA_QUALITY;
+  private static final float JPEG_QUALITY = 0.9f;
 
+  // a JPEG above this rate is worth encoding again even when it is small enough
+  private static final int PASS_THROUGH_MAX_BITS_PER_PIXEL = 4;
+
+  // subsampled decoding keeps at least this many source pixels per target pixel
+  private static final int SUBSAMPLING_HEADROOM = 2;
+
+  private static final BlockingQueue<ImageWriter> WRITERS =
+      new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+  /**
+   * Fits the image within {@value #MAX_IMAGE_SIZE} pixels and encodes it as JPEG. Plain JPEGs that
+   * fit already are returned as they are.
+   */
   public byte[] toJpgDownscaleToSize(InputStream imageData) throws IOException {
-    final BufferedImage image = ImageIO.read(imageData);
+    final byte[] data = imageData.readAllBytes();
+    if (isPassThroughJpeg(data, MAX_IMAGE_SIZE, MAX_IMAGE_SIZE)) return data;
+    final BufferedImage image = decode(data, MAX_IMAGE_SIZE, MAX_IMAGE_SIZE);
     // do not resize image up
     if (image.getWidth() <= MAX_IMAGE_SIZE && image.getHeight() <= MAX_IMAGE_SIZE) {
       return toJPG(image);
@@ -31,25 +56,93 @@ public class ImageResizer {
     return toJPG(resize(image, MAX_IMAGE_SIZE, MAX_IMAGE_SIZE, true));
   }
 
+  /**
+   * Decodes the image once and encodes every {@link ImageVariant}, each one scaled down from the
+   * previous, larger one. Images are never scaled up.
+   */
+  public Map<ImageVariant, byte[]> createVariants(InputStream imageData) throws IOException {
+    final byte[] data = imageData.readAllBytes();
+    final ImageVariant largest = ImageVariant.values()[0];
+    BufferedImage image = decode(data, largest.width(), largest.height());
+    Map<ImageVariant, byte[]> variants = new EnumMap<>(ImageVariant.class);
+    for (ImageVariant variant : ImageVariant.values()) {
+      if (variant == largest && isPassThroughJpeg(data, variant.width(), variant.height())) {
+        variants.put(variant, data);
+        continue;
+      }
+      image = fitWithin(image, variant.width(), variant.height());
+      variants.put(variant, toJPG(image));
+    }
+    return variants;
+  }
+
   public byte[] createThumbnail(InputStream inputStream, int width, int height) throws IOException {
-    BufferedImage img = ImageIO.read(inputStream);
+    BufferedImage img = decode(inputStream.readAllBytes(), width, height);
     return toJPG(resizeProportional(img, width, height));
   }
 
   public byte[] createThumbnail(byte[] photoData, int width, int height) throws IOException {
-    try (InputStream is = new ByteArrayInputStream(photoData)) {
-      BufferedImage img = ImageIO.read(is);
-      return toJPG(resizeProportional(img, width, height));
-    }
+    BufferedImage img = decode(photoData, width, height);
+    return toJPG(resizeProportional(img, width, height));
   }
 
   public byte[] resize(
       final byte[] photoData, final int width, final int height, final boolean keepProportions)
       throws IOException {
-    try (ByteArrayInputStream imageStream = new ByteArrayInputStream(photoData)) {
-      final BufferedImage inputImage = ImageIO.read(imageStream);
-      return toJPG(resize(inputImage, width, height, keepProportions));
+    final BufferedImage inputImage = decode(photoData, width, height);
+    return toJPG(resize(inputImage, width, height, keepProportions));
+  }
+
+  /**
+   * Decodes the image, skipping source pixels while it stays at least {@value
+   * #SUBSAMPLING_HEADROOM} times the target size, so large photos are never fully decoded.
+   */
+  static BufferedImage decode(byte[] data, int width, int height) throws IOException {
+    try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+      Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+      if (!readers.hasNext()) throw new IOException("Unsupported image format");
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(in, true, true);
+        int ratio =
+            Math.min(reader.getWidth(0) / width, reader.getHeight(0) / height)
+                / SUBSAMPLING_HEADROOM;
+        ImageReadParam param = reader.getDefaultReadParam();
+        if (ratio > 1) param.setSourceSubsampling(ratio, ratio, 0, 0);
+        return reader.read(0, param);
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  /**
+   * Checks for a baseline or progressive JPEG that fits, carries no Exif, XMP or IPTC data and is
+   * not encoded at a wasteful rate. Only the segment headers are read, nothing is decoded.
+   */
+  static boolean isPassThroughJpeg(byte[] data, int maxWidth, int maxHeight) {
+    if (data.length < 4 || (data[0] & 0xff) != 0xff || (data[1] & 0xff) != 0xd8) return false;
+    int position = 2;
+    int width = 0;
+    int height = 0;
+    while (position + 4 <= data.length) {
+      if ((data[position] & 0xff) != 0xff) return false;
+      int marker = data[position + 1] & 0xff;
+      if (marker == 0xda) break;
+      int length = ((data[position + 2] & 0xff) << 8) | (data[position + 3] & 0xff);
+      // APP1 holds Exif and XMP, APP13 holds IPTC, neither is served as uploaded
+      if (marker == 0xe1 || marker == 0xed) return false;
+      if (marker >= 0xc0 && marker <= 0xcf && marker != 0xc4 && marker != 0xc8) {
+        if (marker > 0xc2 || position + 10 > data.length) return false;
+        int components = data[position + 9] & 0xff;
+        if (components != 1 && components != 3) return false;
+        height = ((data[position + 5] & 0xff) << 8) | (data[position + 6] & 0xff);
+        width = ((data[position + 7] & 0xff) << 8) | (data[position + 8] & 0xff);
+      }
+      position += 2 + length;
     }
+    if (width == 0 || height == 0 || width > maxWidth || height > maxHeight) return false;
+    return (long) data.length * 8 <= (long) width * height * PASS_THROUGH_MAX_BITS_PER_PIXEL;
   }
 
   private static BufferedImage resize(
@@ -64,54 +157,169 @@ public class ImageResizer {
     final boolean fitToHeight =
         ((double) image.getWidth()) / ((double) image.getHeight())
             < ((double) width) / ((double) height);
-    final Scalr.Mode mode = fitToHeight ? Scalr.Mode.FIT_TO_HEIGHT : Scalr.Mode.FIT_TO_WIDTH;
-    return Scalr.resize(
-        image, QUALITY_SETTING, mode, Math.min(width, height), Math.min(width, height));
+    final int size = Math.min(width, height);
+    return scale(
+        image, fitToHeight ? (double) size / image.getHeight() : (double) size / image.getWidth());
+  }
+
+  private static BufferedImage fitWithin(BufferedImage image, int width, int height) {
+    if (image.getWidth() <= width && image.getHeight() <= height) return image;
+    return scale(
+        image, Math.min((double) width / image.getWidth(), (double) height / image.getHeight()));
   }
 
   private static BufferedImage resizeAndCropCenter(
       final BufferedImage image, final int width, final int height) {
-    final boolean verticalCrop =
-        ((double) image.getWidth()) / ((double) image.getHeight())
-            < ((double) width) / ((double) height);
+    final double scale =
+        Math.max((double) width / image.getWidth(), (double) height / image.getHeight());
+    return scale(image, scale, width, height);
+  }
 
-    final Scalr.Mode mode = verticalCrop ? Scalr.Mode.FIT_TO_WIDTH : Scalr.Mode.FIT_TO_HEIGHT;
-    final BufferedImage resized = Scalr.resize(image, QUALITY_SETTING, mode, width, height);
+  private static int scaledSize(int size, double scale) {
+    return Math.max(1, (int) Math.round(size * scale));
+  }
 
-    final int dx = verticalCrop ? 0 : (resized.getWidth() - width) / 2;
-    final int dy = !verticalCrop ? 0 : (resized.getHeight() - height) / 2;
+  private static BufferedImage scale(BufferedImage image, double scale) {
+    int width = scaledSize(image.getWidth(), scale);
+    int height = scaledSize(image.getHeight(), scale);
+    return scale(image, scale, width, height);
+  }
+
+  /**
+   * Scales the image by halving it while the result stays at least twice the target and draws the
+   * last step centered on a canvas of the given size, which crops whatever overflows it. Every step
+   * is bilinear, the repeated halving gives the smoothing a single large step would miss.
+   */
+  private static BufferedImage scale(BufferedImage image, double scale, int width, int height) {
+    final int targetWidth = scaledSize(image.getWidth(), scale);
+    final int targetHeight = scaledSize(image.getHeight(), scale);
+    BufferedImage current = image;
+    while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+      int halfWidth = current.getWidth() / 2;
+      int halfHeight = current.getHeight() / 2;
+      current = draw(current, halfWidth, halfHeight, 0, 0, halfWidth, halfHeight);
+    }
+    return draw(
+        current,
+        width,
+        height,
+        (width - targetWidth) / 2,
+        (height - targetHeight) / 2,
+        targetWidth,
+        targetHeight);
+  }
 
-    return Scalr.crop(resized, dx, dy, width, height);
+  private static BufferedImage draw(
+      BufferedImage image, int width, int height, int x, int y, int drawWidth, int drawHeight) {
+    BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    Graphics2D graphics = scaled.createGraphics();
+    try {
+      graphics.setRenderingHint(
+          RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      graphics.drawImage(image, x, y, drawWidth, drawHeight, WHITE, null);
+    } finally {
+      graphics.dispose();
+    }
+    return scaled;
   }
 
   public static byte[] toJPG(BufferedImage originalImage) throws IOException {
     BufferedImage image = removeAlpha(originalImage);
-
-    ImageWriter jpgWriter = ImageIO.getImageWritersByFormatName("jpg").next();
+    ImageWriter jpgWriter = WRITERS.poll();
+    if (jpgWriter == null) jpgWriter = ImageIO.getImageWritersByFormatName("jpg").next();
 
     ImageWriteParam jpgWriteParam = jpgWriter.getDefaultWriteParam();
     jpgWriteParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
-    jpgWriteParam.setCompressionQuality(0.9f);
+    jpgWriteParam.setCompressionQuality(JPEG_QUALITY);
 
-    try (final ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        final MemoryCacheImageOutputStream mcios = new MemoryCacheImageOutputStream(bos)) {
+    boolean reusable = false;
+    try (final ByteArrayImageOutputStream out = new ByteArrayImageOutputStream()) {
+      jpgWriter.setOutput(out);
+      jpgWriter.write(null, new IIOImage(image, null, null), jpgWriteParam);
+      reusable = true;
+      return out.toByteArray();
+    } finally {
+      jpgWriter.reset();
+      // a writer that failed half way is not trusted with another image
+      if (!reusable || !WRITERS.offer(jpgWriter)) jpgWriter.dispose();
+    }
+  }
 
-      jpgWriter.setOutput(mcios);
+  private static BufferedImage removeAlpha(BufferedImage originalImage) {
+    switch (originalImage.getType()) {
+      case BufferedImage.TYPE_INT_RGB:
+      case BufferedImage.TYPE_INT_BGR:
+      case BufferedImage.TYPE_3BYTE_BGR:
+      case BufferedImage.TYPE_BYTE_GRAY:
+        // already opaque and understood by the writer
+        return originalImage;
+      default:
+        int w = originalImage.getWidth();
+        int h = originalImage.getHeight();
+        BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.drawImage(originalImage, 0, 0, w, h, WHITE, null);
+        graphics.dispose();
+        return image;
+    }
+  }
+
+  /** Image output straight into a growable array, without the copy through a stream cache. */
+  private static final class ByteArrayImageOutputStream extends ImageOutputStreamImpl {
 
-      IIOImage outputImage = new IIOImage(image, null, null);
-      jpgWriter.write(null, outputImage, jpgWriteParam);
-      jpgWriter.dispose();
+    private byte[] buffer = new byte[64 * 1024];
+    private int length;
 
-      bos.flush();
-      return bos.toByteArray();
+    @Override
+    public void write(int b) throws IOException {
+      flushBits();
+      ensureCapacity(streamPos + 1);
+      buffer[(int) streamPos++] = (byte) b;
+      length = Math.max(length, (int) streamPos);
     }
-  }
 
-  private static BufferedImage removeAlpha(BufferedImage originalImage) {
-    int w = originalImage.getWidth();
-    int h = originalImage.getHeight();
-    BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
-    image.createGraphics().drawImage(originalImage, 0, 0, w, h, WHITE, null);
-    return image;
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      flushBits();
+      ensureCapacity(streamPos + len);
+      System.arraycopy(b, off, buffer, (int) streamPos, len);
+      streamPos += len;
+      length = Math.max(length, (int) streamPos);
+    }
+
+    @Override
+    public int read() throws IOException {
+      checkClosed();
+      bitOffset = 0;
+      return streamPos < length ? buffer[(int) streamPos++] & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      checkClosed();
+      bitOffset = 0;
+      if (streamPos >= length) return -1;
+      int count = Math.min(len, length - (int) streamPos);
+      System.arraycopy(buffer, (int) streamPos, b, off, count);
+      streamPos += count;
+      return count;
+    }
+
+    @Override
+    public long length() {
+      return length;
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buffer, length);
+    }
+
+    private void ensureCapacity(long capacity) throws IOException {
+      if (capacity > Integer.MAX_VALUE - 8) throw new IOException("Image too large");
+      if (capacity > buffer.length) {
+        buffer = Arrays.copyOf(buffer, (int) Math.max(capacity, buffer.length * 2L));
+      }
+    }
   }
 }
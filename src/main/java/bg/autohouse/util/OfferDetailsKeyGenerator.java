@@ -0,0 +1,28 @@
+package bg.autohouse.util;
+
+import bg.autohouse.service.cache.OfferCacheTags;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class OfferDetailsKeyGenerator implements KeyGenerator {
+
+  private final OfferCacheTags offerCacheTags;
+
+  @Override
+  public Object generate(Object target, Method method, Object... params) {
+    UUID offerId = Objects.requireNonNull((UUID) params[0]);
+    return new SimpleKey(
+        offerId,
+        offerCacheTags.epoch(),
+        offerCacheTags.offerVersion(offerId));
+  }
+}
@@ -0,0 +1,40 @@
+package bg.autohouse.util;
+
+import bg.autohouse.service.cache.OfferCacheTags;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class OffersByIdsKeyGenerator implements KeyGenerator {
+
+  private final OfferCacheTags offerCacheTags;
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Object generate(Object target, Method method, Object... params) {
+    List<UUID> offerIds = Objects.requireNonNull((List<UUID>) params[0]);
+    Pageable pageable = (Pageable) params[1];
+    long[] versions = new long[offerIds.size()];
+    for (int i = 0; i < versions.length; i++) {
+      versions[i] = offerCacheTags.offerVersion(offerIds.get(i));
+    }
+    return new SimpleKey(
+        offerIds.toString(),
+        pageable.getPageNumber(),
+        pageable.getPageSize(),
+        pageable.getSort().toString(),
+        offerCacheTags.epoch(),
+        Arrays.toString(versions));
+  }
+}
@@ -0,0 +1,33 @@
+package bg.autohouse.util;
+
+import bg.autohouse.service.cache.OfferCacheTags;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class UserOffersKeyGenerator implements KeyGenerator {
+
+  private final OfferCacheTags offerCacheTags;
+
+  @Override
+  public Object generate(Object target, Method method, Object... params) {
+    UUID userId = Objects.requireNonNull((UUID) params[0]);
+    Pageable pageable = (Pageable) params[1];
+    return new SimpleKey(
+        userId,
+        pageable.getPageNumber(),
+        pageable.getPageSize(),
+        pageable.getSort().toString(),
+        offerCacheTags.epoch(),
+        offerCacheTags.ownerVersion(userId));
+  }
+}
@@ -3,8 +3,8 @@ package bg.autohouse.web.controllers;
 import static bg.autohouse.config.WebConfiguration.APP_V1_MEDIA_TYPE_JSON;
 
 import bg.autohouse.config.WebConfiguration;
-import bg.autohouse.data.models.User;
 import bg.autohouse.data.models.enums.AccountType;
+import bg.autohouse.security.authentication.AuthenticatedUser;
 import bg.autohouse.security.authentication.LoggedUser;
 import bg.autohouse.service.models.account.AccountServiceModel;
 import bg.autohouse.service.services.AccountService;
@@ -36,7 +36,7 @@ public class AccountController extends BaseController {
   @GetMapping(
       value = "/user-account",
       produces = {APP_V1_MEDIA_TYPE_JSON})
-  public ResponseEntity<?> fetchUserAccount(@LoggedUser User user) {
+  public ResponseEntity<?> fetchUserAccount(@LoggedUser AuthenticatedUser user) {
     AccountServiceModel model =
         modelMapper.map(accountService.loadAccountForUser(user.getId()), AccountServiceModel.class);
     return RestUtil.okResponse(model);
@@ -47,7 +47,8 @@ public class AccountController extends BaseController {
       produces = {APP_V1_MEDIA_TYPE_JSON},
       consumes = {APP_V1_MEDIA_TYPE_JSON})
   public ResponseEntity<?> createOrUpdatePrivateSellerAccount(
-      @Valid @RequestBody PrivateAccountCreateUpdateRequest request, @LoggedUser User user) {
+      @Valid @RequestBody PrivateAccountCreateUpdateRequest request,
+      @LoggedUser AuthenticatedUser user) {
     AccountServiceModel model = modelMapper.map(request, AccountServiceModel.class);
     return createAccount(model, user.getId(), AccountType.PRIVATE);
   }
@@ -57,7 +58,8 @@ public class AccountController extends BaseController {
       produces = {APP_V1_MEDIA_TYPE_JSON},
       consumes = {APP_V1_MEDIA_TYPE_JSON})
   public ResponseEntity<?> createOrUpdateDealerAccount(
-      @Valid @RequestBody DealerAccountCreateUpdateRequest request, @LoggedUser User user) {
+      @Valid @RequestBody DealerAccountCreateUpdateRequest request,
+      @LoggedUser AuthenticatedUser user) {
     AccountServiceModel model = modelMapper.map(request, AccountServiceModel.class);
     return createAccount(model, user.getId(), AccountType.DEALER);
   }
@@ -1,11 +1,16 @@
 package bg.autohouse.web.controllers;
 
 import static bg.autohouse.config.WebConfiguration.APP_V1_MEDIA_TYPE_JSON;
+import static bg.autohouse.config.WebConfiguration.MEDIA_TYPE_CSV;
+import static bg.autohouse.config.WebConfiguration.MEDIA_TYPE_NDJSON;
 
 import bg.autohouse.config.WebConfiguration;
-import bg.autohouse.data.models.User;
+import bg.autohouse.errors.InvalidCatalogImportException;
 import bg.autohouse.errors.RoleChangeException;
+import bg.autohouse.security.authentication.AuthenticatedUser;
 import bg.autohouse.security.authentication.LoggedUser;
+import bg.autohouse.service.imports.UserImportReader;
+import bg.autohouse.service.imports.UserImportResult;
 import bg.autohouse.service.models.UserServiceModel;
 import bg.autohouse.service.models.account.AccountCreateServiceModel;
 import bg.autohouse.service.models.user.ChangeRoleServiceModel;
@@ -22,8 +27,17 @@ import bg.autohouse.web.models.request.ProvinceLocationsCreateRequest;
 import bg.autohouse.web.models.request.account.AccountWrapper;
 import bg.autohouse.web.models.wrappers.ListWrapper;
 import bg.autohouse.web.util.RestUtil;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.UUID;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -32,6 +46,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -40,6 +55,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @Slf4j
@@ -53,6 +69,7 @@ public class AdminController extends BaseController {
   private final ModelMapperWrapper modelMapper;
   private final LocationService locationService;
   private final MakerService makerService;
+  private final ObjectMapper objectMapper;
 
   @GetMapping(
       value = "/users/list",
@@ -67,7 +84,8 @@ public class AdminController extends BaseController {
   @GetMapping(
       value = "/user/details/{userId}",
       produces = {APP_V1_MEDIA_TYPE_JSON})
-  public ResponseEntity<?> fetchUserDetails(@PathVariable UUID userId, @LoggedUser User admin) {
+  public ResponseEntity<?> fetchUserDetails(
+      @PathVariable UUID userId, @LoggedUser AuthenticatedUser admin) {
     UserAdminDetailsServiceModel model = adminService.loadUserDetails(userId, admin.getId());
     return ResponseEntity.ok(model);
   }
@@ -75,7 +93,8 @@ public class AdminController extends BaseController {
   @GetMapping(
       value = "/user/toggle-active/{userId}",
       produces = {APP_V1_MEDIA_TYPE_JSON})
-  public ResponseEntity<?> toggleActive(@PathVariable UUID userId, @LoggedUser User admin) {
+  public ResponseEntity<?> toggleActive(
+      @PathVariable UUID userId, @LoggedUser AuthenticatedUser admin) {
     return ResponseEntity.ok(adminService.toggleActive(userId, admin.getId()));
   }
 
@@ -84,9 +103,9 @@ public class AdminController extends BaseController {
       produces = {APP_V1_MEDIA_TYPE_JSON},
       consumes = {APP_V1_MEDIA_TYPE_JSON})
   public ResponseEntity<?> updateUserRoles(
-      @Valid @RequestBody ChangeRoleRequest request, @LoggedUser User user) {
+      @Valid @RequestBody ChangeRoleRequest request, @LoggedUser AuthenticatedUser user) {
     ChangeRoleServiceModel serviceModel = modelMapper.map(request, ChangeRoleServiceModel.class);
-    UserRowServiceModel updatedUser = adminService.changeRole(serviceModel, user);
+    UserRowServiceModel updatedUser = adminService.changeRole(serviceModel, user.getId());
     return ResponseEntity.ok(updatedUser);
   }
 
@@ -97,15 +116,63 @@ public class AdminController extends BaseController {
   }
 
   @PostMapping(value = "/users/bulk")
-  public ResponseEntity<?> bulkInsert(@Valid @RequestBody ListWrapper list, @LoggedUser User user) {
+  public ResponseEntity<?> bulkInsert(
+      @Valid @RequestBody ListWrapper list, @LoggedUser AuthenticatedUser user) {
     log.info("Inserting bulk emails");
     List<UserServiceModel> users = adminService.bulkRegisterUsers(user.getId(), list.getValues());
     return ResponseEntity.ok(users);
   }
 
+  /**
+   * Streams a user import of any size, NDJSON or CSV, and writes back one NDJSON result line per
+   * input row as each chunk is committed.
+   */
+  @PostMapping(
+      value = "/users/import",
+      consumes = {MEDIA_TYPE_NDJSON, MEDIA_TYPE_CSV},
+      produces = {MEDIA_TYPE_NDJSON})
+  public void importUsers(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      @LoggedUser AuthenticatedUser user)
+      throws IOException {
+    boolean csv =
+        MediaType.valueOf(MEDIA_TYPE_CSV)
+            .isCompatibleWith(MediaType.parseMediaType(request.getContentType()));
+    response.setContentType(MEDIA_TYPE_NDJSON);
+    try (UserImportReader reader =
+            csv
+                ? UserImportReader.csv(request.getInputStream())
+                : UserImportReader.ndjson(request.getInputStream(), objectMapper.getFactory());
+        JsonGenerator generator =
+            objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+      // one result per line, flushed once per chunk
+      generator.setPrettyPrinter(new MinimalPrettyPrinter(""));
+      ObjectWriter writer =
+          objectMapper
+              .writerFor(UserImportResult.class)
+              .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+      adminService.importUsers(
+          user.getId(), reader, results -> write(writer, generator, results));
+    }
+  }
+
+  private static void write(
+      ObjectWriter writer, JsonGenerator generator, List<UserImportResult> results) {
+    try {
+      for (UserImportResult result : results) {
+        writer.writeValue(generator, result);
+        generator.writeRaw('\n');
+      }
+      generator.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
   @PostMapping(value = "/accounts/bulk")
   public ResponseEntity<?> createAccountsForUsers(
-      @Valid @RequestBody List<AccountWrapper> accounts, @LoggedUser User user) {
+      @Valid @RequestBody List<AccountWrapper> accounts, @LoggedUser AuthenticatedUser user) {
     int created =
         adminService.bulkCreateAccounts(
             user.getId(), modelMapper.mapAll(accounts, AccountCreateServiceModel.class));
@@ -115,15 +182,25 @@ public class AdminController extends BaseController {
 
   @PostMapping(value = "/provinces/bulk")
   public ResponseEntity<?> createProvinceLocations(
-      @Valid @RequestBody List<ProvinceLocationsCreateRequest> provinces) {
+      @Valid @RequestBody List<ProvinceLocationsCreateRequest> provinces,
+      @RequestParam(defaultValue = "false") boolean dryRun) {
+    if (dryRun) return ResponseEntity.ok(locationService.checkProvincesBulk(provinces));
     int created = locationService.createProvincesBulk(provinces);
     return ResponseEntity.ok(created);
   }
 
   @PostMapping(value = "/makers/bulk")
   public ResponseEntity<?> createMakersModels(
-          @Valid @RequestBody List<MakerModelsTrimsCreateRequest> makers) {
+      @Valid @RequestBody List<MakerModelsTrimsCreateRequest> makers,
+      @RequestParam(defaultValue = "false") boolean dryRun) {
+    if (dryRun) return ResponseEntity.ok(makerService.checkMakerModelsTrimsBulk(makers));
     int created = makerService.createMakerModelsTrimsBulk(makers);
     return ResponseEntity.ok(created);
   }
+
+  @ExceptionHandler(InvalidCatalogImportException.class)
+  public ResponseEntity<?> invalidCatalogImport(InvalidCatalogImportException e) {
+    log.error("Catalog import rejected with {} errors", e.getReport().getErrorCount());
+    return RestUtil.errResponse(RestMessage.INVALID_CATALOG_IMPORT, e.getReport());
+  }
 }
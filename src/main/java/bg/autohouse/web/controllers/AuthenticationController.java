@@ -4,7 +4,7 @@ import static bg.autohouse.config.WebConfiguration.APP_V1_MEDIA_TYPE_JSON;
 
 import bg.autohouse.audit.models.UserLogoutEvent;
 import bg.autohouse.config.WebConfiguration;
-import bg.autohouse.data.models.User;
+import bg.autohouse.security.authentication.AuthenticatedUser;
 import bg.autohouse.security.authentication.LoggedUser;
 import bg.autohouse.security.jwt.AuthorizationHeader;
 import bg.autohouse.security.jwt.JwtTokenService;
@@ -80,7 +80,7 @@ public class AuthenticationController extends BaseController {
   @GetMapping(
       value = WebConfiguration.URL_USER_LOGOUT,
       produces = {APP_V1_MEDIA_TYPE_JSON})
-  public ResponseEntity<?> logout(HttpServletRequest request, @LoggedUser User user) {
+  public ResponseEntity<?> logout(HttpServletRequest request, @LoggedUser AuthenticatedUser user) {
     AuthorizationHeader authHeader = new AuthorizationHeader(request);
     String token = authHeader.hasBearerToken() ? authHeader.getBearerToken() : null;
     jwtService.blackListJwt(token);
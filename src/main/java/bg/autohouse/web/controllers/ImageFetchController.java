@@ -1,19 +1,37 @@
 package bg.autohouse.web.controllers;
 
 import bg.autohouse.config.WebConfiguration;
+import bg.autohouse.data.models.media.ImageVariant;
 import bg.autohouse.data.models.media.MediaFile;
 import bg.autohouse.data.models.media.MediaFunction;
+import bg.autohouse.errors.MediaNotFoundException;
 import bg.autohouse.service.services.MediaFileService;
+import bg.autohouse.util.Assert;
+import bg.autohouse.util.EnumUtils;
 import bg.autohouse.util.ImageResizer;
+import bg.autohouse.web.util.Sendfile;
+import com.google.common.hash.Hashing;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 @Slf4j
 @RestController
@@ -21,28 +39,64 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor(onConstructor_ = {@Autowired})
 public class ImageFetchController extends BaseController {
 
+  // file keys embed the upload date and a timestamp, the content behind a key never changes
+  private static final String IMMUTABLE =
+      CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().getHeaderValue() + ", immutable";
+
+  // below this size writing the file directly is cheaper than setting up a sendfile transfer
+  @Value("${app.images.sendfile-min-size:48KB}")
+  private DataSize sendfileMinSize;
+
   private final MediaFileService mediaFileService;
   private final ImageResizer imageResizer;
 
   @GetMapping(value = "/{folder}/{year}/{month}/{day}/{offerId}/{fileName:.+}")
-  public ResponseEntity<byte[]> fetchOfferImage(
+  public ResponseEntity<Resource> fetchOfferImage(
       @PathVariable String folder,
       @PathVariable String year,
       @PathVariable String month,
       @PathVariable String day,
       @PathVariable String offerId,
       @PathVariable String fileName,
-      @RequestParam(required = false) boolean thumbnail)
+      @RequestParam(required = false) boolean thumbnail,
+      @RequestParam(required = false) String size,
+      HttpServletRequest request)
       throws IOException {
     String imageKey = generateFileKey(folder, year, month, day, offerId, fileName);
+    ImageVariant variant =
+        EnumUtils.fromString(size, ImageVariant.class)
+            .orElse(thumbnail ? ImageVariant.THUMBNAIL : ImageVariant.FULL);
+    if (variant != ImageVariant.FULL) {
+      Optional<MediaFile> stored =
+          mediaFileService.find(variant.function(), variant.fileKey(imageKey));
+      if (stored.isPresent() && stored.get().isStored()) {
+        return convertRecordToResponse(stored.get(), null, request);
+      }
+    }
     MediaFile record = mediaFileService.load(MediaFunction.OFFER_IMAGE, imageKey);
-    return convertRecordToResponse(record, thumbnail);
+    // the upload is still being processed or its processing failed
+    if (!record.isStored()) throw new MediaNotFoundException();
+    // offers uploaded before variants were stored only have the full image
+    return convertRecordToResponse(
+        record, variant == ImageVariant.FULL ? null : variant, request);
   }
 
-  private ResponseEntity<byte[]> convertRecordToResponse(MediaFile record, boolean thumbnail)
-      throws IOException {
-    byte[] data = mediaFileService.getBytes(record);
-    if (thumbnail) data = imageResizer.createThumbnail(data, 320, 240);
+  // The body is only read when it is written, so a matching validator is answered with 304
+  // without touching the storage and Range requests are served from the streamed resource.
+  private ResponseEntity<Resource> convertRecordToResponse(
+      MediaFile record, ImageVariant resizeTo, HttpServletRequest request) throws IOException {
+    Resource body;
+    String etag;
+    if (resizeTo != null) {
+      byte[] data =
+          imageResizer.createThumbnail(
+              mediaFileService.getBytes(record), resizeTo.width(), resizeTo.height());
+      body = new ByteArrayResource(data);
+      etag = etag(record, resizeTo.dimensions());
+    } else {
+      body = mediaFileService.loadAsResource(record);
+      etag = etag(record, null);
+    }
     HttpHeaders headers = new HttpHeaders();
     try {
       headers.setContentType(MediaType.parseMediaType(record.getContentType()));
@@ -53,8 +107,33 @@ public class ImageFetchController extends BaseController {
     String filename = record.getFileKey().substring(record.getFileKey().lastIndexOf("/") + 1);
     log.debug("file name : {}", filename);
     headers.setContentDispositionFormData(filename, filename);
-    headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
-    headers.setContentLength(data.length);
-    return ResponseEntity.ok().headers(headers).body(data);
+    headers.setETag(etag);
+    Date modified =
+        Assert.has(record.getUpdatedAt()) ? record.getUpdatedAt() : record.getCreatedAt();
+    if (Assert.has(modified)) headers.setLastModified(modified.getTime());
+    headers.setCacheControl(IMMUTABLE);
+    // local folder files and remote files already in the local disk cache
+    if (body.isFile()
+        && body.contentLength() >= sendfileMinSize.toBytes()
+        && Sendfile.isSupported(request)) {
+      // the container sends the file after the handler returns, even for a 304, so the
+      // validators have to be checked before the transfer is scheduled
+      long lastModified = headers.getLastModified();
+      if (new ServletWebRequest(request).checkNotModified(etag, lastModified)) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+      }
+      headers.setContentLength(Sendfile.send(request, body.getFile()));
+      return ResponseEntity.ok().headers(headers).build();
+    }
+    return ResponseEntity.ok().headers(headers).body(body);
+  }
+
+  private static String etag(MediaFile record, String variant) {
+    String version =
+        Assert.has(record.getContentHash())
+            ? record.getContentHash()
+            : Hashing.sha256().hashString(record.getFileKey(), StandardCharsets.UTF_8).toString();
+    String tag = version + "-" + record.getSize() + (variant == null ? "" : "-" + variant);
+    return "\"" + tag + "\"";
   }
 }
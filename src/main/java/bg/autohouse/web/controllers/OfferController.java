@@ -3,11 +3,12 @@ package bg.autohouse.web.controllers;
 import static bg.autohouse.config.WebConfiguration.APP_V1_MEDIA_TYPE_JSON;
 
 import bg.autohouse.config.WebConfiguration;
-import bg.autohouse.data.models.User;
 import bg.autohouse.data.repositories.OfferRepository;
+import bg.autohouse.security.authentication.AuthenticatedUser;
 import bg.autohouse.security.authentication.LoggedUser;
 import bg.autohouse.service.models.offer.OfferServiceModel;
 import bg.autohouse.service.services.OfferService;
+import bg.autohouse.service.services.OfferStatisticsService;
 import bg.autohouse.util.ModelMapperWrapper;
 import bg.autohouse.web.enums.RestMessage;
 import bg.autohouse.web.models.request.offer.OfferCreateRequest;
@@ -38,6 +39,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class OfferController extends BaseController {
 
   private final OfferService offerService;
+  private final OfferStatisticsService offerStatisticsService;
   private final ModelMapperWrapper modelMapper;
   private final OfferRepository offerRepository;
 
@@ -45,7 +47,8 @@ public class OfferController extends BaseController {
       produces = {APP_V1_MEDIA_TYPE_JSON},
       consumes = {MediaType.MULTIPART_FORM_DATA_VALUE})
   public ResponseEntity<?> createOffer(
-      @Valid @ModelAttribute OfferCreateRequest createRequest, @LoggedUser User creator)
+      @Valid @ModelAttribute OfferCreateRequest createRequest,
+      @LoggedUser AuthenticatedUser creator)
       throws IOException {
     OfferServiceModel offerServiceModel = offerService.createOffer(createRequest, creator.getId());
     return RestUtil.createSuccessResponse(
@@ -59,14 +62,15 @@ public class OfferController extends BaseController {
   public ResponseEntity<?> updateOffer(
       @PathVariable UUID offerId,
       @Valid @ModelAttribute OfferCreateRequest createRequest,
-      @LoggedUser User creator) {
+      @LoggedUser AuthenticatedUser creator) {
     return ResponseEntity.ok(offerService.updateOffer(createRequest, offerId, creator.getId()));
   }
 
   @GetMapping(
       value = "/load-for-edit/{offerId}",
       produces = {APP_V1_MEDIA_TYPE_JSON})
-  public ResponseEntity<?> getOfferForEdit(@PathVariable UUID offerId, @LoggedUser User creator) {
+  public ResponseEntity<?> getOfferForEdit(
+      @PathVariable UUID offerId, @LoggedUser AuthenticatedUser creator) {
     return ResponseEntity.ok(offerService.loadOfferForEdit(creator.getId(), offerId));
   }
 
@@ -76,7 +80,7 @@ public class OfferController extends BaseController {
   public ResponseEntity<?> viewOffer(
       @PathVariable UUID offerId,
       @RequestParam(value = "pr", required = false, defaultValue = "false") boolean pr,
-      @LoggedUser User user) {
+      @LoggedUser AuthenticatedUser user) {
     OfferDetailsResponseModel offer;
     if (pr) {
       offer =
@@ -87,6 +91,7 @@ public class OfferController extends BaseController {
       offer =
           modelMapper.map(
               offerService.loadOfferByIdPublicView(offerId), OfferDetailsResponseModel.class);
+      offerService.recordOfferView(offerId);
     }
     List<String> imagesKeys = offerService.fetchOfferImages(offerId);
     return RestUtil.okResponse(
@@ -96,7 +101,8 @@ public class OfferController extends BaseController {
   @DeleteMapping(
       value = "/{offerId}",
       produces = {APP_V1_MEDIA_TYPE_JSON})
-  public ResponseEntity<?> deleteOffer(@PathVariable UUID offerId, @LoggedUser User user) {
+  public ResponseEntity<?> deleteOffer(
+      @PathVariable UUID offerId, @LoggedUser AuthenticatedUser user) {
     offerService.deleteOffer(user.getId(), offerId);
     return ResponseEntity.ok(offerId);
   }
@@ -114,7 +120,21 @@ public class OfferController extends BaseController {
       value = "/statistics",
       produces = {APP_V1_MEDIA_TYPE_JSON})
   public ResponseEntity<?> getOfferStatistics() {
-    return ResponseEntity.ok(offerRepository.getStatistics());
+    return ResponseEntity.ok(offerStatisticsService.getStatistics());
+  }
+
+  @GetMapping(
+      value = "/statistics/makers/{makerName}",
+      produces = {APP_V1_MEDIA_TYPE_JSON})
+  public ResponseEntity<?> getMakerStatistics(@PathVariable String makerName) {
+    return ResponseEntity.ok(offerStatisticsService.getMakerStatistics(makerName));
+  }
+
+  @GetMapping(
+      value = "/statistics/body-styles/{bodyStyle}",
+      produces = {APP_V1_MEDIA_TYPE_JSON})
+  public ResponseEntity<?> getBodyStyleStatistics(@PathVariable String bodyStyle) {
+    return ResponseEntity.ok(offerStatisticsService.getBodyStyleStatistics(bodyStyle));
   }
 
   @GetMapping(
@@ -3,7 +3,7 @@ package bg.autohouse.web.controllers;
 import static bg.autohouse.config.WebConfiguration.APP_V1_MEDIA_TYPE_JSON;
 
 import bg.autohouse.config.WebConfiguration;
-import bg.autohouse.data.models.User;
+import bg.autohouse.security.authentication.AuthenticatedUser;
 import bg.autohouse.security.authentication.LoggedUser;
 import bg.autohouse.service.services.FilterService;
 import bg.autohouse.service.services.OfferService;
@@ -50,10 +50,9 @@ public class SearchController extends BaseController {
       @Valid @RequestBody FilterRequest filterRequest,
       @PageableDefault(size = DEFAULT_PAGE_SIZE, sort = SORT, direction = Sort.Direction.DESC)
           Pageable pageable) {
-    UUID filterRequestId = filterService.createFilter(filterRequest);
     Page<OfferResponseModel> page =
         offerService
-            .searchOffers(filterRequestId, pageable)
+            .searchOffers(filterRequest.toCriteria(), pageable)
             .map(o -> modelMapper.map(o, OfferResponseModel.class));
     ResponseWrapper response =
         ResponseWrapper.builder()
@@ -88,7 +87,7 @@ public class SearchController extends BaseController {
       produces = {APP_V1_MEDIA_TYPE_JSON},
       consumes = {APP_V1_MEDIA_TYPE_JSON})
   public ResponseEntity<?> saveSearch(
-      @Valid @RequestBody FilterRequest filterRequest, @LoggedUser User creator) {
+      @Valid @RequestBody FilterRequest filterRequest, @LoggedUser AuthenticatedUser creator) {
     filterService.saveSearch(filterRequest, creator.getId());
     return ResponseEntity.ok().build();
   }
@@ -96,7 +95,7 @@ public class SearchController extends BaseController {
   @GetMapping(
       value = "/search/list",
       produces = {APP_V1_MEDIA_TYPE_JSON})
-  public ResponseEntity<?> listSavedSearches(@LoggedUser User user) {
+  public ResponseEntity<?> listSavedSearches(@LoggedUser AuthenticatedUser user) {
     List<FilterResponseModel> savedSearches =
         modelMapper.mapAll(
             filterService.listSavedSearches(user.getId()), FilterResponseModel.class);
@@ -105,7 +104,7 @@ public class SearchController extends BaseController {
 
   @DeleteMapping(value = "/search/saved-search/{filterId}")
   public ResponseEntity<?> deleteSavedSearch(
-      @PathVariable UUID filterId, @LoggedUser User creator) {
+      @PathVariable UUID filterId, @LoggedUser AuthenticatedUser creator) {
     boolean isRemoved = filterService.deleteSavedSearch(filterId, creator.getId());
     if (!isRemoved) return ResponseEntity.notFound().build();
     return ResponseEntity.ok(filterId);
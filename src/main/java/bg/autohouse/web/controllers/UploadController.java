@@ -0,0 +1,82 @@
+package bg.autohouse.web.controllers;
+
+import static bg.autohouse.config.WebConfiguration.APP_V1_MEDIA_TYPE_JSON;
+
+import bg.autohouse.config.WebConfiguration;
+import bg.autohouse.security.authentication.AuthenticatedUser;
+import bg.autohouse.security.authentication.LoggedUser;
+import bg.autohouse.service.models.media.UploadSessionServiceModel;
+import bg.autohouse.service.services.UploadSessionService;
+import bg.autohouse.web.enums.RestMessage;
+import bg.autohouse.web.models.request.offer.ImageUploadCreateRequest;
+import bg.autohouse.web.util.RestUtil;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+import javax.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Resumable image uploads. A client opens an upload, PUTs the bytes in chunks at increasing
+ * offsets, resuming from the received bytes after a failure, and commits it. Committed uploads are
+ * referenced by id when the offer is created.
+ */
+@RestController
+@RequestMapping(WebConfiguration.URL_UPLOADS)
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class UploadController extends BaseController {
+
+  private final UploadSessionService uploadSessionService;
+
+  @PostMapping(
+      produces = {APP_V1_MEDIA_TYPE_JSON},
+      consumes = {APP_V1_MEDIA_TYPE_JSON})
+  public ResponseEntity<?> openUpload(
+      @Valid @RequestBody ImageUploadCreateRequest request, @LoggedUser AuthenticatedUser user) {
+    UploadSessionServiceModel upload = uploadSessionService.open(request, user.getId());
+    return RestUtil.createSuccessResponse(
+        upload, RestMessage.UPLOAD_CREATED, "/api/uploads/" + upload.getId());
+  }
+
+  @GetMapping(
+      value = "/{uploadId}",
+      produces = {APP_V1_MEDIA_TYPE_JSON})
+  public ResponseEntity<?> getUpload(
+      @PathVariable UUID uploadId, @LoggedUser AuthenticatedUser user) {
+    return ResponseEntity.ok(uploadSessionService.load(uploadId, user.getId()));
+  }
+
+  @PutMapping(
+      value = "/{uploadId}",
+      produces = {APP_V1_MEDIA_TYPE_JSON},
+      consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE})
+  public ResponseEntity<?> writeChunk(
+      @PathVariable UUID uploadId,
+      @RequestParam long offset,
+      InputStream chunk,
+      @LoggedUser AuthenticatedUser user)
+      throws IOException {
+    return ResponseEntity.ok(
+        uploadSessionService.writeChunk(uploadId, user.getId(), offset, chunk));
+  }
+
+  @PostMapping(
+      value = "/{uploadId}/commit",
+      produces = {APP_V1_MEDIA_TYPE_JSON})
+  public ResponseEntity<?> commitUpload(
+      @PathVariable UUID uploadId, @LoggedUser AuthenticatedUser user)
+      throws IOException {
+    return ResponseEntity.ok(uploadSessionService.complete(uploadId, user.getId()));
+  }
+}
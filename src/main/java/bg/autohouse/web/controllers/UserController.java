@@ -3,7 +3,7 @@ package bg.autohouse.web.controllers;
 import static bg.autohouse.config.WebConfiguration.APP_V1_MEDIA_TYPE_JSON;
 
 import bg.autohouse.config.WebConfiguration;
-import bg.autohouse.data.models.User;
+import bg.autohouse.security.authentication.AuthenticatedUser;
 import bg.autohouse.security.authentication.LoggedUser;
 import bg.autohouse.service.models.offer.OfferServiceModel;
 import bg.autohouse.service.services.OfferService;
@@ -47,7 +47,7 @@ public class UserController extends BaseController {
       produces = {APP_V1_MEDIA_TYPE_JSON},
       consumes = {APP_V1_MEDIA_TYPE_JSON})
   public ResponseEntity<?> changeUserPassword(
-      @Valid @RequestBody UserChangePasswordRequest request, @LoggedUser User user) {
+      @Valid @RequestBody UserChangePasswordRequest request, @LoggedUser AuthenticatedUser user) {
     boolean isChanged =
         passwordService.changeUserPassword(
             user.getId(), request.getOldPassword(), request.getNewPassword());
@@ -58,7 +58,8 @@ public class UserController extends BaseController {
   @GetMapping(
       value = "/offer/add-to-favorites/{offerId}",
       produces = {APP_V1_MEDIA_TYPE_JSON})
-  public ResponseEntity<?> addToFavorites(@PathVariable UUID offerId, @LoggedUser User creator) {
+  public ResponseEntity<?> addToFavorites(
+      @PathVariable UUID offerId, @LoggedUser AuthenticatedUser creator) {
     return ResponseEntity.ok(userService.addToFavorites(creator.getId(), offerId));
   }
 
@@ -66,7 +67,7 @@ public class UserController extends BaseController {
       value = "/offer/list",
       produces = {APP_V1_MEDIA_TYPE_JSON})
   public ResponseEntity<?> getUserOffers(
-      @LoggedUser User creator,
+      @LoggedUser AuthenticatedUser creator,
       @PageableDefault(size = 15, sort = SORT, direction = Sort.Direction.DESC) Pageable pageable) {
     Page<OfferServiceModel> userOffers = offerService.findUserOffers(creator.getId(), pageable);
     return ResponseEntity.ok(
@@ -76,7 +77,8 @@ public class UserController extends BaseController {
   @GetMapping(
       value = "/offer/toggle-active/{offerId}",
       produces = {APP_V1_MEDIA_TYPE_JSON})
-  public ResponseEntity<?> toggleOfferActive(@PathVariable UUID offerId, @LoggedUser User creator) {
+  public ResponseEntity<?> toggleOfferActive(
+      @PathVariable UUID offerId, @LoggedUser AuthenticatedUser creator) {
     return ResponseEntity.ok(offerService.toggleActive(creator.getId(), offerId));
   }
 }
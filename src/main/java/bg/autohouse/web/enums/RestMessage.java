@@ -46,6 +46,8 @@ public enum RestMessage {
   INTERNAL_SERVER_ERROR,
   PARAMETER_VALIDATION_FAILURE,
   SOMETHING_WENT_WRONG,
+  SERVICE_BUSY,
+  INVALID_CATALOG_IMPORT,
   BAD_CREDENTIALS,
   USER_ACCOUNT_LOCKED,
   USER_ACCOUNT_EXPIRED,
@@ -92,5 +94,13 @@ public enum RestMessage {
   INVALID_VEHICLE_DOORS,
   MAX_OFFER_COUNT_REACHED,
   ACCOUNT_MISSING_FIST_NAME,
-  ACCOUNT_MISSING_LAST_NAME;
+  ACCOUNT_MISSING_LAST_NAME,
+  UPLOAD_CREATED,
+  UPLOAD_NOT_FOUND,
+  UPLOAD_TOO_LARGE,
+  UPLOAD_INCOMPLETE,
+  UPLOAD_NOT_COMPLETED,
+  UPLOAD_ALREADY_COMPLETED,
+  INVALID_UPLOAD_OFFSET,
+  UNSUPPORTED_IMAGE;
 }
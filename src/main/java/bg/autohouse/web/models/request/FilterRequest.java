@@ -1,7 +1,24 @@
 package bg.autohouse.web.models.request;
 
+import static bg.autohouse.data.models.EntityConstants.*;
+
+import bg.autohouse.data.models.enums.AccountType;
+import bg.autohouse.data.models.enums.BodyStyle;
+import bg.autohouse.data.models.enums.Color;
+import bg.autohouse.data.models.enums.Drive;
+import bg.autohouse.data.models.enums.Feature;
+import bg.autohouse.data.models.enums.FuelType;
+import bg.autohouse.data.models.enums.State;
+import bg.autohouse.data.models.enums.Transmission;
+import bg.autohouse.service.models.FilterCriteria;
+import bg.autohouse.util.Assert;
+import bg.autohouse.util.EnumUtils;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -17,6 +34,7 @@ import lombok.Setter;
 public class FilterRequest {
   private String makerName;
   private String modelName;
+  private String trim;
   private String fuelType;
   private String transmission;
   private String bodyStyle;
@@ -34,4 +52,54 @@ public class FilterRequest {
   @Builder.Default private List<String> seller = new ArrayList<>();
   @Builder.Default private List<String> state = new ArrayList<>();
   private Boolean hasAccident;
+
+  /** Blank text, unknown enum names and missing bounds mean the criterion is not set. */
+  public FilterCriteria toCriteria() {
+    return FilterCriteria.builder()
+        .makerName(textOrNull(makerName))
+        .modelName(textOrNull(modelName))
+        .trim(textOrNull(trim))
+        .fuelType(toEnum(fuelType, FuelType.class))
+        .transmission(toEnum(transmission, Transmission.class))
+        .bodyStyle(toEnum(bodyStyle, BodyStyle.class))
+        .color(toEnum(color, Color.class))
+        .drive(toEnum(drive, Drive.class))
+        .priceFrom(valueOrDefault(priceFrom, MIN_VALUE))
+        .priceTo(valueOrDefault(priceTo, PRICE_TO))
+        .mileageFrom(valueOrDefault(mileageFrom, MIN_VALUE))
+        .mileageTo(valueOrDefault(mileageTo, MILEAGE_TO))
+        .doorsFrom(valueOrDefault(doorsFrom, MIN_VALUE))
+        .doorsTo(valueOrDefault(doorsTo, DOORS_TO))
+        .yearFrom(valueOrDefault(yearFrom, YEAR_FROM))
+        .yearTo(valueOrDefault(yearTo, YEAR_TO))
+        .features(toEnumSet(features, Feature.class))
+        .seller(toEnumSet(seller, AccountType.class))
+        .state(toEnumSet(state, State.class))
+        .hasAccident(hasAccident)
+        .build();
+  }
+
+  private static String textOrNull(String value) {
+    return Assert.has(value) ? value : null;
+  }
+
+  private static int valueOrDefault(Integer value, int defaultValue) {
+    return value == null ? defaultValue : value;
+  }
+
+  private static <T extends Enum<T>> T toEnum(String value, Class<T> enumClass) {
+    if (Assert.isEmpty(value)) return null;
+    return EnumUtils.fromString(value, enumClass).orElse(null);
+  }
+
+  private static <T extends Enum<T>> Set<T> toEnumSet(
+      Collection<String> values, Class<T> enumClass) {
+    if (Assert.isEmpty(values)) return Collections.emptySet();
+    EnumSet<T> set = EnumSet.noneOf(enumClass);
+    for (String value : values) {
+      T constant = toEnum(value, enumClass);
+      if (constant != null) set.add(constant);
+    }
+    return Collections.unmodifiableSet(set);
+  }
 }
@@ -0,0 +1,17 @@
+package bg.autohouse.web.models.request.offer;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImageUploadCreateRequest {
+  @NotBlank private String fileName;
+  @NotBlank private String contentType;
+  @NotNull @Positive private Long size;
+}
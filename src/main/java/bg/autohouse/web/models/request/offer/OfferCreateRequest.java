@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
@@ -43,4 +44,6 @@ public class OfferCreateRequest implements Serializable {
 
   @NotNull private Integer addressLocationPostalCode;
   @JsonIgnore @Builder.Default private List<MultipartFile> images = new ArrayList<>();
+  // completed chunked uploads, an alternative to sending the images with the request
+  @Builder.Default private List<UUID> uploadIds = new ArrayList<>();
 }
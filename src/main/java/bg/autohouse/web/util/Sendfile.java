@@ -0,0 +1,38 @@
+package bg.autohouse.web.util;
+
+import java.io.File;
+import java.io.IOException;
+import javax.servlet.http.HttpServletRequest;
+import lombok.experimental.UtilityClass;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+/**
+ * Hands local files over to the servlet container, which writes them to the socket with sendfile
+ * once the handler returns. Only Tomcat advertises support, on other containers the file is
+ * streamed by the message converters as usual.
+ */
+@UtilityClass
+public class Sendfile {
+
+  static final String SUPPORTED = "org.apache.tomcat.sendfile.support";
+  static final String FILENAME = "org.apache.tomcat.sendfile.filename";
+  static final String START = "org.apache.tomcat.sendfile.start";
+  static final String END = "org.apache.tomcat.sendfile.end";
+
+  /** Full GET responses only, ranges and HEAD requests are left to the message converters. */
+  public static boolean isSupported(HttpServletRequest request) {
+    return Boolean.TRUE.equals(request.getAttribute(SUPPORTED))
+        && HttpMethod.GET.matches(request.getMethod())
+        && request.getHeader(HttpHeaders.RANGE) == null;
+  }
+
+  /** Schedules the whole file to be sent and returns its length, the response must have no body. */
+  public static long send(HttpServletRequest request, File file) throws IOException {
+    long length = file.length();
+    request.setAttribute(FILENAME, file.getCanonicalPath());
+    request.setAttribute(START, 0L);
+    request.setAttribute(END, length);
+    return length;
+  }
+}
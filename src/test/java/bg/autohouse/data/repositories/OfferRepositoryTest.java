@@ -3,7 +3,6 @@ package bg.autohouse.data.repositories;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.data.jpa.domain.Specification.where;
 
-import bg.autohouse.data.models.Filter;
 import bg.autohouse.data.models.enums.AccountType;
 import bg.autohouse.data.models.enums.BodyStyle;
 import bg.autohouse.data.models.enums.Feature;
@@ -11,9 +10,12 @@ import bg.autohouse.data.models.enums.FuelType;
 import bg.autohouse.data.models.enums.State;
 import bg.autohouse.data.models.offer.Offer;
 import bg.autohouse.data.specifications.OfferSpecifications;
+import bg.autohouse.service.models.FilterCriteria;
+import bg.autohouse.web.models.request.FilterRequest;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,8 +33,7 @@ public class OfferRepositoryTest {
 
   @Test
   void whenOfferFilter_byFuelType_shouldReturnCollection() {
-    Filter filter = new Filter();
-    filter.setFuelType(FuelType.GASOLINE);
+    FilterCriteria filter = FilterCriteria.builder().fuelType(FuelType.GASOLINE).build();
     Specification<Offer> offerSpecification = where(OfferSpecifications.getOffersByFilter(filter));
     List<Offer> offers = offerRepository.findAll(offerSpecification);
     assertThat(offers)
@@ -41,8 +42,7 @@ public class OfferRepositoryTest {
 
   @Test
   void whenOfferFilter_byBodyStyle_shouldReturnCollection() {
-    Filter filter = new Filter();
-    filter.setBodyStyle(BodyStyle.SUV);
+    FilterCriteria filter = FilterCriteria.builder().bodyStyle(BodyStyle.SUV).build();
     Specification<Offer> offerSpecification = where(OfferSpecifications.getOffersByFilter(filter));
     List<Offer> offers = offerRepository.findAll(offerSpecification);
     assertThat(offers).allMatch(offer -> offer.getVehicle().getBodyStyle().equals(BodyStyle.SUV));
@@ -50,9 +50,8 @@ public class OfferRepositoryTest {
 
   @Test
   void whenOfferFilter_byState_shouldReturnCollection() {
-    Filter filter = new Filter();
-    List<State> state = Arrays.asList(State.NEW, State.USED);
-    filter.setState(state);
+    Set<State> state = EnumSet.of(State.NEW, State.USED);
+    FilterCriteria filter = FilterCriteria.builder().state(state).build();
     Specification<Offer> offerSpecification = where(OfferSpecifications.getOffersByFilter(filter));
     List<Offer> offers = offerRepository.findAll(offerSpecification);
     assertThat(offers).allMatch(offer -> state.contains(offer.getVehicle().getState()));
@@ -60,9 +59,8 @@ public class OfferRepositoryTest {
 
   @Test
   void whenOfferFilter_bySeller_shouldReturnCollection() {
-    List<AccountType> accountTypes = Collections.singletonList(AccountType.DEALER);
-    Filter filter = new Filter();
-    filter.setSeller(accountTypes);
+    Set<AccountType> accountTypes = EnumSet.of(AccountType.DEALER);
+    FilterCriteria filter = FilterCriteria.builder().seller(accountTypes).build();
     Specification<Offer> offerSpecification = where(OfferSpecifications.getOffersByFilter(filter));
     List<Offer> offers = offerRepository.findAll(offerSpecification);
     assertThat(offers)
@@ -71,18 +69,21 @@ public class OfferRepositoryTest {
 
   @Test
   void whenOfferFilter_byFeatureWithNullValues_shouldReturnSameCollectionWithoutNulls() {
-    List<Feature> features = Collections.singletonList(Feature.CD_PLAYER);
-    List<Feature> featuresWithNulls = Arrays.asList(Feature.CD_PLAYER, null, null);
-    Filter filter = new Filter();
-    filter.setFeatures(features);
-    Filter filterFeaturesWithNulls = new Filter();
-    filterFeaturesWithNulls.setFeatures(featuresWithNulls);
+    FilterRequest request =
+        FilterRequest.builder().features(List.of(Feature.CD_PLAYER.name())).build();
+    FilterRequest requestWithNulls =
+        FilterRequest.builder()
+            .features(Arrays.asList(Feature.CD_PLAYER.name(), null, "UNKNOWN"))
+            .build();
+    FilterCriteria filter = request.toCriteria();
+    FilterCriteria filterFeaturesWithNulls = requestWithNulls.toCriteria();
     Specification<Offer> offerSpecification = where(OfferSpecifications.getOffersByFilter(filter));
     Specification<Offer> offerSpecificationFeaturesWithNulls =
         where(OfferSpecifications.getOffersByFilter(filterFeaturesWithNulls));
     List<Offer> offers = offerRepository.findAll(offerSpecification);
     List<Offer> offersFeaturesWithNulls =
         offerRepository.findAll(offerSpecificationFeaturesWithNulls);
+    assertThat(filterFeaturesWithNulls).isEqualTo(filter);
     assertThat(offers).size().isEqualTo(offersFeaturesWithNulls.size());
   }
 }
@@ -0,0 +1,132 @@
+package bg.autohouse.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import bg.autohouse.errors.PasswordHashingBusyException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class PasswordHasherTest {
+
+  private PasswordHasher passwordHasher;
+
+  @AfterEach
+  void tearDown() {
+    passwordHasher.stop();
+  }
+
+  @Test
+  void when_encodeAllGenerated_shouldKeepOrderWithFullCost() {
+    passwordHasher = start(new BCryptPasswordEncoder(5), 2, 1);
+    List<String> encoded = passwordHasher.encodeAllGenerated(List.of("a", "b", "c", "d", "e"));
+    assertThat(encoded).hasSize(5);
+    assertThat(passwordHasher.needsUpgrade(encoded.get(0))).isFalse();
+    assertThat(passwordHasher.matches("a", encoded.get(0))).isTrue();
+    assertThat(passwordHasher.matches("e", encoded.get(4))).isTrue();
+    assertThat(passwordHasher.matches("a", encoded.get(4))).isFalse();
+  }
+
+  @Test
+  void when_needsUpgrade_withLowerCost_shouldBeTrue() {
+    passwordHasher = start(new BCryptPasswordEncoder(5), 1, 1);
+    assertThat(passwordHasher.needsUpgrade(new BCryptPasswordEncoder(4).encode("a"))).isTrue();
+    assertThat(passwordHasher.needsUpgrade(passwordHasher.encode("a"))).isFalse();
+  }
+
+  @Test
+  void when_noSlotIsFree_shouldFailFast() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    PasswordEncoder blocking =
+        new BCryptPasswordEncoder(4) {
+          @Override
+          public String encode(CharSequence rawPassword) {
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return super.encode(rawPassword);
+          }
+        };
+    passwordHasher = start(blocking, 1, 1);
+    CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encodeNow("a"));
+    CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encodeNow("b"));
+    Semaphore slots = (Semaphore) ReflectionTestUtils.getField(passwordHasher, "slots");
+    while (slots.availablePermits() > 0) {
+      Thread.sleep(5);
+    }
+    Throwable thrown = catchThrowable(() -> passwordHasher.encode("c"));
+    assertThat(thrown).isInstanceOf(PasswordHashingBusyException.class);
+    release.countDown();
+    assertThat(passwordHasher.matches("a", running.get())).isTrue();
+    assertThat(passwordHasher.matches("b", queued.get())).isTrue();
+  }
+
+  @Test
+  void when_bulkHashing_shouldLeaveSlotsToLogins() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    PasswordEncoder blockingBulk =
+        new BCryptPasswordEncoder(4) {
+          @Override
+          public String encode(CharSequence rawPassword) {
+            if (rawPassword.toString().startsWith("bulk")) {
+              try {
+                release.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            }
+            return super.encode(rawPassword);
+          }
+        };
+    passwordHasher = start(blockingBulk, 1, 1);
+    CompletableFuture<List<String>> bulk =
+        CompletableFuture.supplyAsync(
+            () -> passwordHasher.encodeAllGenerated(List.of("bulk1", "bulk2", "bulk3")));
+    Semaphore bulkSlots = (Semaphore) ReflectionTestUtils.getField(passwordHasher, "bulkSlots");
+    while (bulkSlots.availablePermits() > 0) {
+      Thread.sleep(5);
+    }
+    assertThat(passwordHasher.matches("c", passwordHasher.encode("c"))).isTrue();
+    release.countDown();
+    assertThat(bulk.get()).hasSize(3);
+  }
+
+  @Test
+  void when_bulkThreadsNotSet_shouldUseCoresLeftByLogins() {
+    passwordHasher = start(new BCryptPasswordEncoder(4), 1, 1, 0);
+    ThreadPoolExecutor bulkExecutor =
+        (ThreadPoolExecutor) ReflectionTestUtils.getField(passwordHasher, "bulkExecutor");
+    assertThat(bulkExecutor.getMaximumPoolSize())
+        .isEqualTo(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+  }
+
+  private String encodeNow(String rawPassword) {
+    return passwordHasher.encode(rawPassword);
+  }
+
+  private static PasswordHasher start(PasswordEncoder encoder, int threads, int queueCapacity) {
+    return start(encoder, threads, queueCapacity, 1);
+  }
+
+  private static PasswordHasher start(
+      PasswordEncoder encoder, int threads, int queueCapacity, int bulkThreads) {
+    PasswordHasher hasher = new PasswordHasher(encoder);
+    ReflectionTestUtils.setField(hasher, "threads", threads);
+    ReflectionTestUtils.setField(hasher, "queueCapacity", queueCapacity);
+    ReflectionTestUtils.setField(hasher, "acquireTimeout", Duration.ofMillis(50));
+    ReflectionTestUtils.setField(hasher, "bulkThreads", bulkThreads);
+    hasher.start();
+    return hasher;
+  }
+}
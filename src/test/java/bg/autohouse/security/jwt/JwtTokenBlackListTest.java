@@ -0,0 +1,84 @@
+package bg.autohouse.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class JwtTokenBlackListTest {
+
+  @Mock JwtTokenRepository jwtTokenRepository;
+  JwtTokenBlackList blackList;
+
+  @BeforeEach
+  void setUp() {
+    blackList = new JwtTokenBlackList(jwtTokenRepository);
+    ReflectionTestUtils.setField(blackList, "expectedTokens", 4);
+    ReflectionTestUtils.setField(blackList, "purgeBatchSize", 2);
+    lenient().when(jwtTokenRepository.findAllByExpirationTimeAfter(any())).thenReturn(List.of());
+  }
+
+  @Test
+  void when_replay_shouldRestoreLiveTokens() {
+    BlackListedToken live = mock(BlackListedToken.class);
+    when(live.getTokenUid()).thenReturn("live");
+    when(live.getExpirationTime()).thenReturn(in(60_000));
+    when(jwtTokenRepository.findAllByExpirationTimeAfter(any())).thenReturn(List.of(live));
+    blackList.replay();
+    assertThat(blackList.contains("live")).isTrue();
+    assertThat(blackList.contains("other")).isFalse();
+  }
+
+  @Test
+  void when_add_beyondExpectedTokens_shouldContainAll() {
+    blackList.replay();
+    for (int i = 0; i < 10; i++) {
+      blackList.add(token("uid-" + i, in(60_000)));
+    }
+    for (int i = 0; i < 10; i++) {
+      assertThat(blackList.contains("uid-" + i)).isTrue();
+    }
+    verify(jwtTokenRepository, times(10)).save(any(JwtToken.class));
+  }
+
+  @Test
+  void when_purgeExpired_shouldDropExpiredTokensAndDeleteRowsInBatches() {
+    blackList.replay();
+    blackList.add(token("expired", in(-1_000)));
+    blackList.add(token("live", in(60_000)));
+    when(jwtTokenRepository.findExpiredIds(any(Date.class), any(Pageable.class)))
+        .thenReturn(List.of(1L, 2L), List.of(3L));
+    when(jwtTokenRepository.deleteAllByIdIn(anyList())).thenReturn(2, 1);
+    assertThat(blackList.purgeExpired()).isEqualTo(3);
+    assertThat(blackList.contains("expired")).isFalse();
+    assertThat(blackList.contains("live")).isTrue();
+  }
+
+  private static JwtToken token(String tokenUid, Date expirationTime) {
+    return JwtToken.builder()
+        .tokenUid(tokenUid)
+        .type(JwtTokenType.API_CLIENT)
+        .username("user@mail.com")
+        .expirationTime(expirationTime)
+        .build();
+  }
+
+  private static Date in(long millis) {
+    return new Date(System.currentTimeMillis() + millis);
+  }
+}
@@ -0,0 +1,103 @@
+package bg.autohouse.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+import bg.autohouse.config.properties.SecurityConfigurationProperties;
+import bg.autohouse.data.projections.user.UserTokensRevocation;
+import bg.autohouse.data.repositories.UserRepository;
+import bg.autohouse.service.events.UserAccessChangedEvent;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class UserRevocationsTest {
+
+  @Mock SecurityConfigurationProperties securityProperties;
+  @Mock UserRepository userRepository;
+  @InjectMocks UserRevocations userRevocations;
+
+  private final UUID userId = UUID.randomUUID();
+
+  @Test
+  void when_loadRevocations_shouldRevokeUntilEnabled() {
+    when(userRepository.findDisabledUserIds()).thenReturn(List.of(userId));
+    userRevocations.loadRevocations();
+    assertThat(userRevocations.isRevoked(userId, new Date())).isTrue();
+    userRevocations.onUserAccessChanged(UserAccessChangedEvent.of(userId, true, null));
+    assertThat(userRevocations.isRevoked(userId, new Date())).isFalse();
+  }
+
+  @Test
+  void when_loadRevocations_userEnabledOnAnotherNode_shouldAcceptTokens() {
+    when(userRepository.findDisabledUserIds()).thenReturn(List.of(userId), List.of());
+    userRevocations.loadRevocations();
+    userRevocations.loadRevocations();
+    assertThat(userRevocations.isRevoked(userId, new Date())).isFalse();
+  }
+
+  @Test
+  void when_loadRevocations_userDisabledWhileLoading_shouldKeepItDisabled() {
+    when(userRepository.findDisabledUserIds())
+        .thenAnswer(
+            invocation -> {
+              userRevocations.onUserAccessChanged(UserAccessChangedEvent.of(userId, false, null));
+              return List.of();
+            });
+    userRevocations.loadRevocations();
+    assertThat(userRevocations.isRevoked(userId, new Date())).isTrue();
+  }
+
+  @Test
+  void when_loadRevocations_shouldRestoreStoredRevocations() {
+    long revokedUntil = System.currentTimeMillis() / 1000;
+    UserTokensRevocation revocation =
+        new UserTokensRevocation() {
+          @Override
+          public UUID getId() {
+            return userId;
+          }
+
+          @Override
+          public Long getTokensRevokedUntil() {
+            return revokedUntil;
+          }
+        };
+    when(userRepository.findTokensRevokedSince(anyLong())).thenReturn(List.of(revocation));
+    userRevocations.loadRevocations();
+    assertThat(userRevocations.isRevoked(userId, new Date(System.currentTimeMillis() - 60_000)))
+        .isTrue();
+  }
+
+  @Test
+  void when_revoke_shouldRejectOnlyEarlierTokens() {
+    Date issuedBefore = new Date(System.currentTimeMillis() - 60_000);
+    revoke();
+    assertThat(userRevocations.isRevoked(userId, issuedBefore)).isTrue();
+    assertThat(userRevocations.isRevoked(userId, new Date(System.currentTimeMillis() + 2_000)))
+        .isFalse();
+    assertThat(userRevocations.isRevoked(UUID.randomUUID(), issuedBefore)).isFalse();
+  }
+
+  @Test
+  void when_purgeExpired_shouldKeepRevocationsOfLiveTokens() {
+    when(securityProperties.getExpirationTime()).thenReturn(0L);
+    Date issuedBefore = new Date(System.currentTimeMillis() - 60_000);
+    revoke();
+    userRevocations.purgeExpired();
+    // a token lives at least five minutes, so the revocation is still needed
+    assertThat(userRevocations.isRevoked(userId, issuedBefore)).isTrue();
+  }
+
+  private void revoke() {
+    userRevocations.onUserAccessChanged(
+        UserAccessChangedEvent.of(userId, true, System.currentTimeMillis() / 1000));
+  }
+}
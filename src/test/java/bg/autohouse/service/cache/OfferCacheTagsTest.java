@@ -0,0 +1,105 @@
+package bg.autohouse.service.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import bg.autohouse.service.events.OfferChangeType;
+import bg.autohouse.service.events.OfferChangedEvent;
+import bg.autohouse.service.events.OfferSearchScope;
+import bg.autohouse.service.models.FilterCriteria;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class OfferCacheTagsTest {
+
+  private final OfferCacheTags offerCacheTags = new OfferCacheTags(new ConcurrentMapCacheManager());
+
+  private final FilterCriteria audiA4 =
+      FilterCriteria.builder().makerName("Audi").modelName("A4").build();
+  private final FilterCriteria bmw = FilterCriteria.builder().makerName("BMW").build();
+  private final FilterCriteria cheap = FilterCriteria.builder().priceTo(1000).build();
+  private final FilterCriteria all = FilterCriteria.builder().build();
+
+  @BeforeEach
+  void init() {
+    ReflectionTestUtils.setField(offerCacheTags, "expireAfterWrite", Duration.ofMinutes(10));
+    ReflectionTestUtils.setField(offerCacheTags, "maximumSize", 100L);
+    offerCacheTags.init();
+  }
+
+  @Test
+  void whenOfferChanged_shouldInvalidateOnlyMatchingSearchScopes() {
+    long[] audiBefore = offerCacheTags.searchVersions(audiA4);
+    long[] bmwBefore = offerCacheTags.searchVersions(bmw);
+    long[] cheapBefore = offerCacheTags.searchVersions(cheap);
+    long[] allBefore = offerCacheTags.searchVersions(all);
+
+    offerCacheTags.onOfferChanged(event(OfferSearchScope.of("audi", "a4", 20000)));
+
+    assertThat(offerCacheTags.searchVersions(audiA4)).isNotEqualTo(audiBefore);
+    assertThat(offerCacheTags.searchVersions(all)).isNotEqualTo(allBefore);
+    assertThat(offerCacheTags.searchVersions(bmw)).isEqualTo(bmwBefore);
+    assertThat(offerCacheTags.searchVersions(cheap)).isEqualTo(cheapBefore);
+  }
+
+  @Test
+  void whenOfferChanged_shouldInvalidateOwnerAndOffer() {
+    UUID ownerId = UUID.randomUUID();
+    UUID offerId = UUID.randomUUID();
+    UUID otherOfferId = UUID.randomUUID();
+    long ownerBefore = offerCacheTags.ownerVersion(ownerId);
+    long offerBefore = offerCacheTags.offerVersion(offerId);
+    long otherOfferBefore = offerCacheTags.offerVersion(otherOfferId);
+
+    offerCacheTags.onOfferChanged(
+        OfferChangedEvent.of(OfferChangeType.UPDATED, offerId, ownerId, List.of()));
+
+    assertThat(offerCacheTags.ownerVersion(ownerId)).isGreaterThan(ownerBefore);
+    assertThat(offerCacheTags.offerVersion(offerId)).isGreaterThan(offerBefore);
+    assertThat(offerCacheTags.offerVersion(otherOfferId)).isEqualTo(otherOfferBefore);
+  }
+
+  @Test
+  void whenTagEvicted_shouldNotReturnToAnEarlierVersion() {
+    UUID offerId = UUID.randomUUID();
+    long before = offerCacheTags.offerVersion(offerId);
+    for (int i = 0; i < 1000; i++) {
+      offerCacheTags.offerVersion(UUID.randomUUID());
+    }
+
+    offerCacheTags.onOfferChanged(
+        OfferChangedEvent.of(OfferChangeType.UPDATED, offerId, null, List.of()));
+    long bumped = offerCacheTags.offerVersion(offerId);
+    for (int i = 0; i < 1000; i++) {
+      offerCacheTags.offerVersion(UUID.randomUUID());
+    }
+
+    assertThat(bumped).isGreaterThan(before);
+    assertThat(offerCacheTags.offerVersion(offerId)).isGreaterThanOrEqualTo(bumped);
+  }
+
+  @Test
+  void whenBulkChange_shouldMoveEpoch() {
+    long epoch = offerCacheTags.epoch();
+
+    offerCacheTags.onOfferChanged(OfferChangedEvent.bulk());
+
+    assertThat(offerCacheTags.epoch()).isEqualTo(epoch + 1);
+  }
+
+  @Test
+  void whenBucket_shouldGrowLogarithmically() {
+    assertThat(OfferCacheTags.bucket(0)).isEqualTo(OfferCacheTags.bucket(1));
+    assertThat(OfferCacheTags.bucket(1024)).isEqualTo(OfferCacheTags.bucket(2047));
+    assertThat(OfferCacheTags.bucket(2048)).isEqualTo(OfferCacheTags.bucket(1024) + 1);
+  }
+
+  private static OfferChangedEvent event(OfferSearchScope scope) {
+    return OfferChangedEvent.of(
+        OfferChangeType.UPDATED, UUID.randomUUID(), UUID.randomUUID(), List.of(scope));
+  }
+}
@@ -0,0 +1,131 @@
+package bg.autohouse.service.counters;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bg.autohouse.util.UIDUtil;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class OfferHitCounterTest {
+
+  @InjectMocks OfferHitCounter offerHitCounter;
+
+  @Mock JdbcTemplate jdbcTemplate;
+
+  @Captor ArgumentCaptor<List<Object[]>> batchCaptor;
+
+  @Test
+  void whenFlush_shouldAddAccumulatedHitsInOneBatch() {
+    UUID offerId = UUID.randomUUID();
+    offerHitCounter.increment(offerId);
+    offerHitCounter.increment(offerId);
+    offerHitCounter.increment(UUID.randomUUID());
+
+    offerHitCounter.flush();
+
+    verify(jdbcTemplate).batchUpdate(anyString(), batchCaptor.capture());
+    List<Object[]> batch = batchCaptor.getValue();
+    assertThat(batch).hasSize(2);
+    assertThat(batch)
+        .anySatisfy(
+            args -> {
+              assertThat(args[0]).isEqualTo(2L);
+              assertThat(args[1]).isEqualTo(UIDUtil.getBytesFromUUID(offerId));
+            });
+    assertThat(offerHitCounter.pendingHits(offerId)).isZero();
+  }
+
+  @Test
+  void whenFlush_nothingCounted_shouldNotUpdate() {
+    offerHitCounter.flush();
+
+    verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+  }
+
+  @Test
+  void whenFlush_offerNotViewed_shouldPruneItsCounterAfterTwoFlushes() {
+    UUID offerId = UUID.randomUUID();
+    offerHitCounter.increment(offerId);
+    offerHitCounter.flush();
+    offerHitCounter.flush();
+    assertThat(pending()).containsKey(offerId);
+
+    offerHitCounter.flush();
+
+    assertThat(pending()).isEmpty();
+    offerHitCounter.increment(offerId);
+    offerHitCounter.flush();
+    verify(jdbcTemplate, times(2)).batchUpdate(anyString(), batchCaptor.capture());
+    assertThat(batchCaptor.getAllValues()).allSatisfy(batch -> assertThat(batch).hasSize(1));
+  }
+
+  @Test
+  void whenFlush_fails_shouldKeepHitsForNextFlush() {
+    UUID offerId = UUID.randomUUID();
+    offerHitCounter.increment(offerId);
+    when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+        .thenThrow(new QueryTimeoutException("timeout"));
+
+    offerHitCounter.flush();
+
+    assertThat(offerHitCounter.pendingHits(offerId)).isEqualTo(1);
+  }
+
+  @Test
+  void whenFlush_concurrentWithIncrements_shouldNotLoseHits() throws Exception {
+    UUID offerId = UUID.randomUUID();
+    AtomicLong flushed = new AtomicLong();
+    lenient()
+        .when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<Object[]> batch = invocation.getArgument(1);
+              batch.forEach(args -> flushed.addAndGet((Long) args[0]));
+              return new int[batch.size()];
+            });
+    int threads = 4;
+    int hitsPerThread = 20_000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    for (int i = 0; i < threads; i++) {
+      executor.execute(
+          () -> {
+            for (int j = 0; j < hitsPerThread; j++) offerHitCounter.increment(offerId);
+          });
+    }
+    executor.shutdown();
+    while (!executor.awaitTermination(1, TimeUnit.MILLISECONDS)) {
+      offerHitCounter.flush();
+    }
+    offerHitCounter.flush();
+
+    assertThat(flushed.get()).isEqualTo((long) threads * hitsPerThread);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<UUID, ?> pending() {
+    return (Map<UUID, ?>) ReflectionTestUtils.getField(offerHitCounter, "pending");
+  }
+}
@@ -0,0 +1,140 @@
+package bg.autohouse.service.media;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bg.autohouse.data.models.media.MediaDeadLetter;
+import bg.autohouse.data.models.media.MediaFile;
+import bg.autohouse.data.models.media.MediaTombstone;
+import bg.autohouse.data.models.media.StorageType;
+import bg.autohouse.data.repositories.MediaDeadLetterRepository;
+import bg.autohouse.data.repositories.MediaTombstoneRepository;
+import bg.autohouse.service.services.StorageService;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class MediaReaperTest {
+
+  @Mock MediaTombstoneRepository mediaTombstoneRepository;
+  @Mock MediaDeadLetterRepository mediaDeadLetterRepository;
+  @Mock StorageService storage;
+
+  MediaReaper reaper;
+
+  @BeforeEach
+  void setUp() {
+    reaper = new MediaReaper(mediaTombstoneRepository, mediaDeadLetterRepository, List.of(storage));
+    ReflectionTestUtils.setField(reaper, "batchSize", 10);
+    ReflectionTestUtils.setField(reaper, "maxAttempts", 3);
+    ReflectionTestUtils.setField(reaper, "retryBackoff", Duration.ofMinutes(1));
+    lenient().when(storage.getType()).thenReturn(StorageType.DROPBOX_BUCKET);
+    lenient().when(storage.isConfigured()).thenReturn(true);
+  }
+
+  @Test
+  void when_reap_removed_shouldDeleteTombstonesInOneBatch() {
+    List<MediaTombstone> tombstones = List.of(tombstone(0), tombstone(0));
+    due(tombstones);
+    when(storage.removeAllFromStorage(anyList())).thenReturn(Collections.emptyMap());
+
+    assertThat(reaper.reap()).isEqualTo(2);
+
+    verify(mediaTombstoneRepository).deleteInBatch(tombstones);
+    verify(mediaDeadLetterRepository, never()).saveAll(any());
+  }
+
+  @Test
+  void when_reap_failed_shouldRetryLater() {
+    MediaTombstone tombstone = tombstone(0);
+    due(List.of(tombstone));
+    failAll("rate limited");
+
+    assertThat(reaper.reap()).isZero();
+
+    assertThat(tombstone.getAttempts()).isEqualTo(1);
+    assertThat(tombstone.getLastError()).isEqualTo("rate limited");
+    assertThat(tombstone.getNextAttemptAt()).isAfter(new Date());
+    verify(mediaTombstoneRepository).saveAll(List.of(tombstone));
+    verify(mediaTombstoneRepository, never()).deleteInBatch(any());
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void when_reap_failedTooOften_shouldMoveToDeadLetters() {
+    MediaTombstone tombstone = tombstone(2);
+    due(List.of(tombstone));
+    failAll("forbidden");
+
+    reaper.reap();
+
+    ArgumentCaptor<List<MediaDeadLetter>> deadLetters = ArgumentCaptor.forClass(List.class);
+    verify(mediaDeadLetterRepository).saveAll(deadLetters.capture());
+    assertThat(deadLetters.getValue()).hasSize(1);
+    MediaDeadLetter letter = deadLetters.getValue().get(0);
+    assertThat(letter.getMediaFileId()).isEqualTo(tombstone.getMediaFileId());
+    assertThat(letter.getAttempts()).isEqualTo(3);
+    assertThat(letter.getLastError()).isEqualTo("forbidden");
+    verify(mediaTombstoneRepository).deleteInBatch(List.of(tombstone));
+  }
+
+  @Test
+  void when_reap_storageNotConfigured_shouldRetryLater() {
+    when(storage.isConfigured()).thenReturn(false);
+    MediaTombstone tombstone = tombstone(0);
+    due(List.of(tombstone));
+
+    reaper.reap();
+
+    assertThat(tombstone.getLastError()).contains("not configured");
+    verify(mediaTombstoneRepository).saveAll(List.of(tombstone));
+  }
+
+  private void due(List<MediaTombstone> tombstones) {
+    when(mediaTombstoneRepository.findAllByNextAttemptAtLessThanEqualOrderByNextAttemptAt(
+            any(Date.class), any(Pageable.class)))
+        .thenReturn(tombstones);
+  }
+
+  private void failAll(String error) {
+    when(storage.removeAllFromStorage(anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<MediaFile> records = invocation.getArgument(0);
+              Map<MediaFile, String> failures = new IdentityHashMap<>();
+              records.forEach(record -> failures.put(record, error));
+              return failures;
+            });
+  }
+
+  private static MediaTombstone tombstone(int attempts) {
+    MediaTombstone tombstone =
+        MediaTombstone.of(
+            MediaFile.builder()
+                .storageType(StorageType.DROPBOX_BUCKET)
+                .bucket("autohouse-offer-images")
+                .fileKey("offer-images/" + UUID.randomUUID() + "/image.jpg")
+                .build());
+    tombstone.setMediaFileId(UUID.randomUUID());
+    tombstone.setAttempts(attempts);
+    return tombstone;
+  }
+}
@@ -0,0 +1,183 @@
+package bg.autohouse.service.media;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bg.autohouse.data.models.media.MediaFile;
+import bg.autohouse.data.models.media.MediaFunction;
+import bg.autohouse.data.models.media.MediaStatus;
+import bg.autohouse.data.models.media.MediaTombstone;
+import bg.autohouse.data.models.media.MediaUpload;
+import bg.autohouse.data.models.media.StorageType;
+import bg.autohouse.data.repositories.MediaTombstoneRepository;
+import bg.autohouse.data.repositories.MediaUploadRepository;
+import bg.autohouse.data.repositories.MedialFileRepository;
+import bg.autohouse.service.events.MediaStoredEvent;
+import bg.autohouse.service.services.StorageService;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class MediaUploadDispatcherTest {
+
+  @Mock MediaUploadRepository mediaUploadRepository;
+  @Mock MedialFileRepository medialFileRepository;
+  @Mock MediaTombstoneRepository mediaTombstoneRepository;
+  @Mock MediaUploadStaging mediaUploadStaging;
+  @Mock ApplicationEventPublisher eventPublisher;
+  @Mock StorageService storage;
+
+  MediaUploadDispatcher dispatcher;
+  MediaFile record;
+  MediaUpload upload;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    dispatcher =
+        new MediaUploadDispatcher(
+            mediaUploadRepository,
+            medialFileRepository,
+            mediaTombstoneRepository,
+            mediaUploadStaging,
+            eventPublisher,
+            List.of(storage));
+    ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+    ReflectionTestUtils.setField(dispatcher, "retryBackoff", Duration.ofSeconds(30));
+    ReflectionTestUtils.setField(dispatcher, "claimTimeout", Duration.ofMinutes(10));
+    lenient().when(storage.getType()).thenReturn(StorageType.LOCAL_FOLDER);
+    lenient().when(storage.isConfigured()).thenReturn(true);
+    record =
+        MediaFile.builder()
+            .storageType(StorageType.LOCAL_FOLDER)
+            .bucket("autohouse-offer-images")
+            .fileKey("offer-images/image.jpg")
+            .contentHash("abc123")
+            .size(3)
+            .status(MediaStatus.PENDING)
+            .build();
+    record.setId(UUID.randomUUID());
+    upload = MediaUpload.of(record, MediaFunction.OFFER_IMAGE, "media-1.upload");
+    upload.setId(UUID.randomUUID());
+    lenient()
+        .when(mediaUploadRepository.claim(eq(upload.getId()), any(Date.class), any(Date.class)))
+        .thenReturn(1);
+    lenient().when(mediaUploadRepository.findById(upload.getId())).thenReturn(Optional.of(upload));
+    lenient()
+        .when(mediaUploadStaging.open("media-1.upload"))
+        .thenAnswer(invocation -> new ByteArrayInputStream(new byte[] {1, 2, 3}));
+  }
+
+  @Test
+  void when_dispatch_stored_shouldMarkRecordStoredAndDropUpload() throws IOException {
+    when(medialFileRepository.findById(record.getId())).thenReturn(Optional.of(record));
+    when(medialFileRepository.updateStored(
+            eq(record.getId()), eq(MediaStatus.STORED), eq("abc123"), eq(3L), any()))
+        .thenReturn(1);
+
+    assertThat(dispatcher.dispatch(upload.getId())).isTrue();
+
+    verify(storage).storeFile(eq(MediaFunction.OFFER_IMAGE), eq(record), any(InputStream.class));
+    verify(mediaUploadRepository).deleteById(upload.getId());
+    verify(mediaUploadStaging).discard("media-1.upload");
+    verify(mediaTombstoneRepository, never()).save(any());
+    verify(eventPublisher).publishEvent(any(MediaStoredEvent.class));
+  }
+
+  @Test
+  void when_dispatch_claimedElsewhere_shouldNotWrite() throws IOException {
+    when(mediaUploadRepository.claim(eq(upload.getId()), any(Date.class), any(Date.class)))
+        .thenReturn(0);
+
+    assertThat(dispatcher.dispatch(upload.getId())).isFalse();
+
+    verify(mediaUploadRepository, never()).findById(any());
+    verify(storage, never()).storeFile(any(), any(), any());
+    verify(mediaUploadRepository, never()).deleteById(any());
+  }
+
+  @Test
+  void when_dispatch_failed_shouldReschedule() throws IOException {
+    when(medialFileRepository.findById(record.getId())).thenReturn(Optional.of(record));
+    doThrow(new IOException("timeout")).when(storage).storeFile(any(), any(), any());
+
+    assertThat(dispatcher.dispatch(upload.getId())).isFalse();
+
+    verify(mediaUploadRepository)
+        .reschedule(eq(upload.getId()), eq(1), any(Date.class), eq("timeout"));
+    verify(mediaUploadRepository, never()).deleteById(any());
+    verify(mediaUploadStaging, never()).discard(any());
+    verify(medialFileRepository, never()).updateStatus(any(), any());
+  }
+
+  @Test
+  void when_dispatch_failedTooOften_shouldMarkRecordFailed() throws IOException {
+    upload.setAttempts(2);
+    when(medialFileRepository.findById(record.getId())).thenReturn(Optional.of(record));
+    doThrow(new IOException("forbidden")).when(storage).storeFile(any(), any(), any());
+
+    dispatcher.dispatch(upload.getId());
+
+    verify(medialFileRepository).updateStatus(record.getId(), MediaStatus.FAILED);
+    verify(mediaUploadRepository).deleteById(upload.getId());
+    verify(mediaUploadStaging).discard("media-1.upload");
+    verify(mediaUploadRepository, never()).reschedule(any(), anyInt(), any(), anyString());
+  }
+
+  @Test
+  void when_dispatch_recordDeleted_shouldDropUploadWithoutWriting() throws IOException {
+    when(medialFileRepository.findById(record.getId())).thenReturn(Optional.empty());
+
+    assertThat(dispatcher.dispatch(upload.getId())).isFalse();
+
+    verify(storage, never()).storeFile(any(), any(), any());
+    verify(mediaUploadRepository).deleteById(upload.getId());
+  }
+
+  @Test
+  void when_dispatch_recordDeletedWhileWriting_shouldBuryWrittenObject() {
+    when(medialFileRepository.findById(record.getId())).thenReturn(Optional.of(record));
+    when(medialFileRepository.updateStored(any(), any(), any(), anyLong(), any())).thenReturn(0);
+
+    assertThat(dispatcher.dispatch(upload.getId())).isFalse();
+
+    verify(mediaTombstoneRepository).save(any(MediaTombstone.class));
+    verify(mediaUploadRepository).deleteById(upload.getId());
+    verify(eventPublisher, never()).publishEvent(any());
+  }
+
+  @Test
+  void when_dispatch_recordFailedBeforeWriting_shouldDropUploadWithoutWriting()
+      throws IOException {
+    record.setStatus(MediaStatus.FAILED);
+    when(medialFileRepository.findById(record.getId())).thenReturn(Optional.of(record));
+
+    assertThat(dispatcher.dispatch(upload.getId())).isFalse();
+
+    verify(storage, never()).storeFile(any(), any(), any());
+    verify(medialFileRepository, never()).updateStored(any(), any(), any(), anyLong(), any());
+    verify(mediaUploadRepository).deleteById(upload.getId());
+    verify(mediaUploadStaging).discard("media-1.upload");
+  }
+}
@@ -0,0 +1,197 @@
+package bg.autohouse.service.media;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bg.autohouse.data.models.media.ImageVariant;
+import bg.autohouse.data.models.media.MediaFile;
+import bg.autohouse.data.models.media.MediaFunction;
+import bg.autohouse.data.models.media.MediaStatus;
+import bg.autohouse.service.events.OfferImagesUploadedEvent;
+import bg.autohouse.service.events.OfferSearchScope;
+import bg.autohouse.service.services.MediaFileService;
+import bg.autohouse.util.ImageResizer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class OfferImageProcessorTest {
+
+  @InjectMocks OfferImageProcessor processor;
+
+  @Mock ImageResizer imageResizer;
+  @Mock MediaFileService mediaFileService;
+  @Mock OfferPrimaryPhotoSelector offerPrimaryPhotoSelector;
+
+  @TempDir Path deferredFolder;
+
+  UUID offerId = UUID.randomUUID();
+
+  @BeforeEach
+  void start() throws IOException {
+    ReflectionTestUtils.setField(processor, "threads", 2);
+    ReflectionTestUtils.setField(processor, "queueCapacity", 10);
+    ReflectionTestUtils.setField(processor, "deferredFolder", deferredFolder.toString());
+    processor.start();
+  }
+
+  @AfterEach
+  void stop() throws InterruptedException {
+    processor.stop();
+  }
+
+  @Test
+  void whenProcessed_shouldStoreVariantsAndSetMainPhoto() throws Exception {
+    StagedImage first = stage("first.jpg", "key/first.jpg");
+    StagedImage main = stage("main.jpg", "key/main.jpg");
+    when(imageResizer.createVariants(any(InputStream.class)))
+        .thenReturn(
+            Map.of(ImageVariant.FULL, new byte[] {1}, ImageVariant.THUMBNAIL, new byte[] {2}));
+    when(mediaFileService.storeFile(
+            any(byte[].class),
+            anyString(),
+            any(MediaFunction.class),
+            anyString(),
+            anyString(),
+            eq(offerId)))
+        .thenReturn(record(MediaStatus.PENDING));
+
+    processor.process(event("main.jpg", first, main)).get();
+
+    verify(mediaFileService)
+        .storeFile(
+            any(byte[].class),
+            eq("key/main_thumb.jpg"),
+            eq(MediaFunction.OFFER_THUMBNAIL_IMAGE),
+            anyString(),
+            anyString(),
+            eq(offerId));
+    verify(offerPrimaryPhotoSelector).request(offerId, "key/main.jpg");
+    assertThat(Files.exists(first.getFile())).isFalse();
+    assertThat(Files.exists(main.getFile())).isFalse();
+  }
+
+  @Test
+  void whenMainPhotoFails_shouldMarkItFailedAndFallBackToProcessedImage() throws Exception {
+    StagedImage first = stage("first.jpg", "key/first.jpg");
+    StagedImage main = stage("main.jpg", "key/main.jpg");
+    when(imageResizer.createVariants(any(InputStream.class)))
+        .thenAnswer(
+            invocation -> {
+              InputStream in = invocation.getArgument(0);
+              if (new String(in.readAllBytes()).equals("main.jpg")) {
+                throw new IOException("broken");
+              }
+              return Map.of(ImageVariant.FULL, new byte[] {1});
+            });
+    when(mediaFileService.storeFile(
+            any(byte[].class), eq("key/first.jpg"), any(), anyString(), anyString(), eq(offerId)))
+        .thenReturn(record(MediaStatus.PENDING));
+
+    processor.process(event("main.jpg", first, main)).get();
+
+    verify(mediaFileService).markFailed(MediaFunction.OFFER_IMAGE, "key/main.jpg");
+    verify(offerPrimaryPhotoSelector).request(offerId, "key/first.jpg");
+  }
+
+  @Test
+  void whenNothingProcessed_shouldKeepPrimaryPhoto() throws Exception {
+    StagedImage image = stage("main.jpg", "key/main.jpg");
+    when(imageResizer.createVariants(any(InputStream.class))).thenThrow(new IOException("broken"));
+
+    processor.process(event("main.jpg", image)).get();
+
+    verify(mediaFileService).markFailed(MediaFunction.OFFER_IMAGE, "key/main.jpg");
+    verify(mediaFileService).markFailed(MediaFunction.OFFER_MEDIUM_IMAGE, "key/main_medium.jpg");
+    verify(mediaFileService).markFailed(MediaFunction.OFFER_THUMBNAIL_IMAGE, "key/main_thumb.jpg");
+    verify(offerPrimaryPhotoSelector, never()).request(any(), any());
+  }
+
+  @Test
+  void whenPoolIsBusy_shouldDeferImagesAndResumeThemLater() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    when(imageResizer.createVariants(any(InputStream.class)))
+        .thenAnswer(
+            invocation -> {
+              release.await(5, TimeUnit.SECONDS);
+              return Map.of(ImageVariant.FULL, new byte[] {1});
+            });
+    when(mediaFileService.storeFile(
+            any(byte[].class), anyString(), any(), anyString(), anyString(), any()))
+        .thenReturn(record(MediaStatus.PENDING));
+    List<CompletableFuture<Void>> busy = new ArrayList<>();
+    for (int i = 0; i < 12; i++) {
+      busy.add(processor.process(event(UUID.randomUUID(), null, stage("busy.jpg", "key/busy"))));
+    }
+    StagedImage main = stage("main.jpg", "key/main.jpg");
+
+    processor.process(event("main.jpg", main)).get();
+
+    assertThat(Files.exists(main.getFile())).isFalse();
+    assertThat(deferredFolder.resolve(offerId.toString()).resolve("manifest.properties"))
+        .exists();
+    verify(offerPrimaryPhotoSelector, never()).request(eq(offerId), any());
+
+    release.countDown();
+    CompletableFuture.allOf(busy.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+    processor.resumeDeferred();
+
+    verify(offerPrimaryPhotoSelector, timeout(5000)).request(offerId, "key/main.jpg");
+    verify(mediaFileService, timeout(5000))
+        .storeFile(
+            any(byte[].class),
+            eq("key/main.jpg"),
+            eq(MediaFunction.OFFER_IMAGE),
+            eq("image/jpeg"),
+            eq("main.jpg"),
+            eq(offerId));
+  }
+
+  private OfferImagesUploadedEvent event(String mainPhoto, StagedImage... images) {
+    return event(offerId, mainPhoto, images);
+  }
+
+  private static OfferImagesUploadedEvent event(
+      UUID offerId, String mainPhoto, StagedImage... images) {
+    return OfferImagesUploadedEvent.of(
+        offerId,
+        UUID.randomUUID(),
+        OfferSearchScope.of("bmw", "m3", 1000),
+        mainPhoto,
+        List.of(images));
+  }
+
+  private static MediaFile record(MediaStatus status) {
+    return MediaFile.builder().status(status).build();
+  }
+
+  private static StagedImage stage(String name, String fileKey) throws IOException {
+    return StagedImage.stage(
+        new MockMultipartFile("images", name, "image/jpeg", name.getBytes()), fileKey);
+  }
+}
@@ -0,0 +1,106 @@
+package bg.autohouse.service.media;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bg.autohouse.data.models.media.ImageVariant;
+import bg.autohouse.data.models.media.MediaFile;
+import bg.autohouse.data.models.media.MediaFunction;
+import bg.autohouse.data.models.media.MediaStatus;
+import bg.autohouse.data.projections.offer.OfferPhotos;
+import bg.autohouse.data.repositories.MedialFileRepository;
+import bg.autohouse.data.repositories.OfferRepository;
+import bg.autohouse.service.events.MediaStoredEvent;
+import bg.autohouse.service.events.OfferChangedEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+@ExtendWith(MockitoExtension.class)
+public class OfferPrimaryPhotoSelectorTest {
+
+  @InjectMocks OfferPrimaryPhotoSelector selector;
+
+  @Mock OfferRepository offerRepository;
+  @Mock MedialFileRepository medialFileRepository;
+  @Mock ApplicationEventPublisher eventPublisher;
+  @Mock OfferPhotos offer;
+
+  UUID offerId = UUID.randomUUID();
+  List<MediaFile> records = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    when(offerRepository.findPhotosById(offerId)).thenReturn(Optional.of(offer));
+    when(medialFileRepository.findAllByReferenceId(offerId)).thenReturn(records);
+  }
+
+  @Test
+  void whenRequestedPhotoIsQueued_shouldShowStoredImageUntilItIsStored() {
+    image("key/a.jpg", MediaStatus.STORED);
+    List<MediaFile> main = image("key/main.jpg", MediaStatus.PENDING);
+    when(offer.getRequestedPhotoKey()).thenReturn("key/main.jpg");
+
+    selector.request(offerId, "key/main.jpg");
+
+    verify(offerRepository).updateRequestedPhotoKey(offerId, "key/main.jpg");
+    verify(offerRepository).updatePrimaryPhotoKey(offerId, "key/a.jpg");
+    verify(eventPublisher).publishEvent(any(OfferChangedEvent.class));
+
+    main.forEach(record -> record.setStatus(MediaStatus.STORED));
+    when(offer.getPrimaryPhotoKey()).thenReturn("key/a.jpg");
+    selector.onMediaStored(
+        MediaStoredEvent.of(UUID.randomUUID(), offerId, MediaFunction.OFFER_IMAGE));
+
+    verify(offerRepository).updatePrimaryPhotoKey(offerId, "key/main.jpg");
+  }
+
+  @Test
+  void whenRequestedPhotoFailed_shouldKeepStoredImage() {
+    image("key/a.jpg", MediaStatus.STORED);
+    image("key/main.jpg", MediaStatus.FAILED);
+    when(offer.getRequestedPhotoKey()).thenReturn("key/main.jpg");
+    when(offer.getPrimaryPhotoKey()).thenReturn("key/a.jpg");
+
+    selector.select(offerId);
+
+    verify(offerRepository, never()).updatePrimaryPhotoKey(any(), any());
+    verify(eventPublisher, never()).publishEvent(any());
+  }
+
+  @Test
+  void whenOneVariantIsQueued_shouldNotShowTheImage() {
+    List<MediaFile> main = image("key/main.jpg", MediaStatus.STORED);
+    main.get(ImageVariant.THUMBNAIL.ordinal()).setStatus(MediaStatus.PENDING);
+    when(offer.getRequestedPhotoKey()).thenReturn("key/main.jpg");
+
+    selector.select(offerId);
+
+    verify(offerRepository, never()).updatePrimaryPhotoKey(any(), any());
+  }
+
+  private List<MediaFile> image(String fileKey, MediaStatus status) {
+    List<MediaFile> variants = new ArrayList<>();
+    for (ImageVariant variant : ImageVariant.values()) {
+      variants.add(
+          MediaFile.builder()
+              .bucket(variant.function().resolveBucketName())
+              .fileKey(variant.fileKey(fileKey))
+              .referenceId(offerId)
+              .status(status)
+              .build());
+    }
+    records.addAll(variants);
+    return variants;
+  }
+}
@@ -0,0 +1,214 @@
+package bg.autohouse.service.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bg.autohouse.data.models.enums.AccountType;
+import bg.autohouse.data.models.enums.BodyStyle;
+import bg.autohouse.data.models.enums.Color;
+import bg.autohouse.data.models.enums.Drive;
+import bg.autohouse.data.models.enums.Feature;
+import bg.autohouse.data.models.enums.FuelType;
+import bg.autohouse.data.models.enums.State;
+import bg.autohouse.data.models.enums.Transmission;
+import bg.autohouse.data.projections.offer.OfferIndexRow;
+import bg.autohouse.data.repositories.OfferRepository;
+import bg.autohouse.service.events.OfferChangeType;
+import bg.autohouse.service.events.OfferChangedEvent;
+import bg.autohouse.service.models.FilterCriteria;
+import bg.autohouse.util.FeatureMask;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import lombok.Builder;
+import lombok.Value;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+public class OfferSearchIndexTest {
+
+  @InjectMocks OfferSearchIndex offerSearchIndex;
+
+  @Mock OfferRepository offerRepository;
+  @Mock PlatformTransactionManager transactionManager;
+
+  private final UUID cheapAudi = UUID.randomUUID();
+  private final UUID expensiveAudi = UUID.randomUUID();
+  private final UUID bmw = UUID.randomUUID();
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(offerSearchIndex, "enabled", true);
+    // the changes are applied on the calling thread
+    offerSearchIndex.init(Runnable::run);
+    when(offerRepository.findAllActiveIndexRows())
+        .thenReturn(
+            List.of(
+                row(cheapAudi, "Audi", "A4", 10000, EnumSet.of(Feature.SPORT_PACKAGE)),
+                row(expensiveAudi, "Audi", "A6", 30000, EnumSet.noneOf(Feature.class)),
+                row(bmw, "BMW", "X5", 20000, EnumSet.of(Feature.SPORT_PACKAGE))));
+    offerSearchIndex.rebuild();
+  }
+
+  @Test
+  void whenSearch_byMaker_shouldReturnMatchingIdsInSortOrder() {
+    FilterCriteria filter = FilterCriteria.builder().makerName("audi").build();
+
+    Optional<Page<UUID>> page =
+        offerSearchIndex.search(filter, PageRequest.of(0, 10, Sort.by("price").descending()));
+
+    assertThat(page).isPresent();
+    assertThat(page.get().getContent()).containsExactly(expensiveAudi, cheapAudi);
+    assertThat(page.get().getTotalElements()).isEqualTo(2);
+  }
+
+  @Test
+  void whenSearch_byFeaturesAndPrice_shouldReturnMatchingIds() {
+    FilterCriteria filter =
+        FilterCriteria.builder()
+            .features(EnumSet.of(Feature.SPORT_PACKAGE))
+            .priceFrom(15000)
+            .build();
+
+    Optional<Page<UUID>> page = offerSearchIndex.search(filter, PageRequest.of(0, 10));
+
+    assertThat(page).isPresent();
+    assertThat(page.get().getContent()).containsExactly(bmw);
+  }
+
+  @Test
+  void whenSearch_secondPage_shouldKeepTotal() {
+    Optional<Page<UUID>> page =
+        offerSearchIndex.search(
+            FilterCriteria.builder().build(), PageRequest.of(1, 2, Sort.by("price")));
+
+    assertThat(page).isPresent();
+    assertThat(page.get().getContent()).containsExactly(expensiveAudi);
+    assertThat(page.get().getTotalElements()).isEqualTo(3);
+  }
+
+  @Test
+  void whenSearch_withTrim_shouldFallBackToDatabase() {
+    FilterCriteria filter = FilterCriteria.builder().trim("Sport").build();
+
+    assertThat(offerSearchIndex.search(filter, PageRequest.of(0, 10))).isEmpty();
+  }
+
+  @Test
+  void whenOfferDeleted_shouldRemoveFromIndex() {
+    offerSearchIndex.onOfferChanged(OfferChangedEvent.of(OfferChangeType.DELETED, bmw));
+
+    Page<UUID> page =
+        offerSearchIndex.search(FilterCriteria.builder().build(), PageRequest.of(0, 10)).get();
+
+    assertThat(page.getContent()).doesNotContain(bmw);
+    assertThat(page.getTotalElements()).isEqualTo(2);
+  }
+
+  @Test
+  void whenOfferUpdated_shouldReindexRow() {
+    UUID created = UUID.randomUUID();
+    when(offerRepository.findIndexRowsByIdIn(List.of(created)))
+        .thenReturn(List.of(row(created, "BMW", "X3", 25000, EnumSet.noneOf(Feature.class))));
+
+    offerSearchIndex.onOfferChanged(OfferChangedEvent.of(OfferChangeType.CREATED, created));
+
+    Page<UUID> page =
+        offerSearchIndex
+            .search(FilterCriteria.builder().makerName("BMW").build(), PageRequest.of(0, 10))
+            .get();
+    assertThat(page.getContent()).containsExactlyInAnyOrder(bmw, created);
+  }
+
+  @Test
+  void whenOwnerDisabled_shouldRemoveOnlyOffersOfOwner() {
+    UUID ownerId = UUID.randomUUID();
+    OfferIndexRow disabledBmw =
+        ((IndexRow) row(bmw, "BMW", "X5", 20000, EnumSet.of(Feature.SPORT_PACKAGE)))
+            .toBuilder()
+            .userEnabled(false)
+            .build();
+    when(offerRepository.findIndexRowsByOwnerIdIn(List.of(ownerId)))
+        .thenReturn(List.of(disabledBmw));
+
+    offerSearchIndex.onOfferChanged(OfferChangedEvent.bulk(ownerId));
+
+    Page<UUID> page =
+        offerSearchIndex.search(FilterCriteria.builder().build(), PageRequest.of(0, 10)).get();
+    assertThat(page.getContent()).containsExactlyInAnyOrder(cheapAudi, expensiveAudi);
+    verify(offerRepository, times(1)).findAllActiveIndexRows();
+  }
+
+  @Test
+  void whenDisabled_shouldNotAnswerSearches() {
+    ReflectionTestUtils.setField(offerSearchIndex, "enabled", false);
+
+    assertThat(offerSearchIndex.search(FilterCriteria.builder().build(), PageRequest.of(0, 10)))
+        .isEmpty();
+  }
+
+  private static OfferIndexRow row(
+      UUID id, String maker, String model, int price, Set<Feature> features) {
+    return IndexRow.builder()
+        .id(id)
+        .active(true)
+        .userEnabled(true)
+        .price(price)
+        .createdAt(new Date())
+        .makerName(maker)
+        .modelName(model)
+        .year(2015)
+        .mileage(100000)
+        .doors(4)
+        .fuelType(FuelType.GASOLINE)
+        .transmission(Transmission.MANUAL)
+        .bodyStyle(BodyStyle.SEDAN)
+        .color(Color.BLACK)
+        .drive(Drive.FRONT_WHEEL_DRIVE)
+        .state(State.USED)
+        .accountType(AccountType.PRIVATE)
+        .featuresMaskLow(FeatureMask.low(features))
+        .featuresMaskHigh(FeatureMask.high(features))
+        .build();
+  }
+
+  @Value
+  @Builder(toBuilder = true)
+  static class IndexRow implements OfferIndexRow {
+    UUID id;
+    boolean active;
+    boolean userEnabled;
+    Integer price;
+    Date createdAt;
+    String makerName;
+    String modelName;
+    Integer year;
+    Integer mileage;
+    Integer doors;
+    FuelType fuelType;
+    Transmission transmission;
+    BodyStyle bodyStyle;
+    Color color;
+    Drive drive;
+    State state;
+    AccountType accountType;
+    boolean hasAccident;
+    long featuresMaskLow;
+    long featuresMaskHigh;
+  }
+}
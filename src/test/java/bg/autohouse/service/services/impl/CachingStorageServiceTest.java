@@ -0,0 +1,191 @@
+package bg.autohouse.service.services.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import bg.autohouse.data.models.media.MediaFile;
+import bg.autohouse.data.models.media.MediaFunction;
+import bg.autohouse.data.models.media.StorageType;
+import bg.autohouse.service.media.DiskContentCache;
+import bg.autohouse.service.services.StorageService;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CachingStorageServiceTest {
+
+  @TempDir Path folder;
+
+  InMemoryStorageService remote;
+  CachingStorageService storage;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    remote = new InMemoryStorageService();
+    storage = new CachingStorageService(remote, new DiskContentCache(folder, 1024));
+  }
+
+  @Test
+  void when_openStream_repeated_shouldDownloadOnce() throws IOException {
+    MediaFile record = store("a", "first image");
+
+    assertThat(read(record)).isEqualTo("first image");
+    assertThat(read(record)).isEqualTo("first image");
+
+    assertThat(remote.downloads.get()).isEqualTo(1);
+    assertThat(storage.loadAsFileResource(record)).isPresent();
+  }
+
+  @Test
+  void when_openStream_concurrentMisses_shouldDownloadOnce() throws Exception {
+    MediaFile record = store("a", "shared image");
+    remote.release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<String>> reads = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        reads.add(executor.submit(() -> read(record)));
+      }
+      Thread.sleep(100);
+      remote.release.countDown();
+      for (Future<String> read : reads) {
+        assertThat(read.get(5, TimeUnit.SECONDS)).isEqualTo("shared image");
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(remote.downloads.get()).isEqualTo(1);
+  }
+
+  @Test
+  void when_cacheIsFull_shouldDeleteEvictedFiles() throws IOException {
+    DiskContentCache cache = new DiskContentCache(folder.resolve("small"), 100);
+    storage = new CachingStorageService(remote, cache);
+    for (int i = 0; i < 5; i++) {
+      read(store("key" + i, "x".repeat(60)));
+    }
+
+    assertThat(cache.size()).isEqualTo(1);
+    try (Stream<Path> files = Files.list(folder.resolve("small"))) {
+      assertThat(files.count()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void when_cacheIsRecreated_shouldReuseFiles() throws IOException {
+    MediaFile record = store("a", "kept image");
+    read(record);
+
+    storage = new CachingStorageService(remote, new DiskContentCache(folder, 1024));
+
+    assertThat(read(record)).isEqualTo("kept image");
+    assertThat(remote.downloads.get()).isEqualTo(1);
+  }
+
+  @Test
+  void when_recordHasNoContentHash_shouldBypassCache() throws IOException {
+    MediaFile record = store(null, "unhashed image");
+
+    read(record);
+    read(record);
+
+    assertThat(remote.downloads.get()).isEqualTo(2);
+    assertThat(storage.loadAsFileResource(record)).isEmpty();
+  }
+
+  @Test
+  void when_removeFromStorage_shouldEvictCachedFile() throws IOException {
+    MediaFile record = store("a", "removed image");
+    read(record);
+
+    storage.removeFromStorage(record);
+
+    assertThat(storage.loadAsFileResource(record)).isEmpty();
+    assertThat(remote.files).isEmpty();
+  }
+
+  private MediaFile store(String contentHash, String content) throws IOException {
+    MediaFile record = new MediaFile();
+    record.setFileKey("images/" + content);
+    record.setContentHash(contentHash);
+    storage.storeFile(
+        MediaFunction.OFFER_IMAGE,
+        record,
+        new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    return record;
+  }
+
+  private String read(MediaFile record) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    storage.retrieveFile(record, out);
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
+  /** Stand-in for a remote storage that counts downloads and can hold them back. */
+  static class InMemoryStorageService implements StorageService {
+    final Map<String, byte[]> files = new ConcurrentHashMap<>();
+    final AtomicInteger downloads = new AtomicInteger();
+    volatile CountDownLatch release;
+
+    @Override
+    public StorageType getType() {
+      return StorageType.DROPBOX_BUCKET;
+    }
+
+    @Override
+    public boolean isConfigured() {
+      return true;
+    }
+
+    @Override
+    public void storeFile(MediaFunction mediaFunction, MediaFile record, InputStream inputStream)
+        throws IOException {
+      files.put(record.getFileKey(), inputStream.readAllBytes());
+    }
+
+    @Override
+    public void retrieveFile(MediaFile record, OutputStream outputStream) throws IOException {
+      try (InputStream in = openStream(record)) {
+        in.transferTo(outputStream);
+      }
+    }
+
+    @Override
+    public InputStream openStream(MediaFile record) throws IOException {
+      downloads.incrementAndGet();
+      if (release != null) {
+        try {
+          release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException(e);
+        }
+      }
+      return new ByteArrayInputStream(files.get(record.getFileKey()));
+    }
+
+    @Override
+    public void removeFromStorage(MediaFile record) {
+      files.remove(record.getFileKey());
+    }
+  }
+}
@@ -2,6 +2,11 @@ package bg.autohouse.service.services.impl;
 
 import bg.autohouse.data.models.media.MediaFile;
 import bg.autohouse.data.models.media.MediaFunction;
+import bg.autohouse.data.models.media.MediaStatus;
+import bg.autohouse.data.models.media.StorageType;
+import bg.autohouse.data.repositories.MediaTombstoneRepository;
+import bg.autohouse.service.media.MediaReaper;
+import bg.autohouse.service.media.MediaUploadDispatcher;
 import bg.autohouse.service.services.MediaFileService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,13 +16,24 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @Transactional
 @ActiveProfiles("test")
@@ -29,33 +45,142 @@ public class MediaFileServiceImplTest {
   final String FILE_KEY = "test-files";
 
   @Autowired MediaFileService mediaFileService;
+  @Autowired MediaTombstoneRepository mediaTombstoneRepository;
+  @Autowired MediaReaper mediaReaper;
+  @Autowired MediaUploadDispatcher mediaUploadDispatcher;
+  @Autowired DatabaseFileStorageService databaseFileStorageService;
 
   @Test
   public void testDatabase() {
     testBackend(MediaFunction.USER_PROFILE_IMAGE);
   }
 
+  @Test
+  public void when_storeFile_database_shouldStreamContentInChunks() throws IOException {
+    final byte[] data = new byte[DatabaseFileStorageService.CHUNK_SIZE * 2 + 100];
+    new Random(42).nextBytes(data);
+    final byte[] replaced = Arrays.copyOf(data, DatabaseFileStorageService.CHUNK_SIZE);
+    final UUID referenceId = UUID.randomUUID();
+    final String fileKey = FILE_KEY + "/" + referenceId.toString() + "/large.bin";
+    mediaFileService.storeFile(
+        replaced,
+        fileKey,
+        MediaFunction.USER_PROFILE_IMAGE,
+        MediaType.APPLICATION_OCTET_STREAM_VALUE,
+        "large.bin",
+        referenceId);
+    MediaFile mediaFile =
+        mediaFileService.storeFile(
+            data,
+            fileKey,
+            MediaFunction.USER_PROFILE_IMAGE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE,
+            "large.bin",
+            referenceId);
+
+    assertThat(mediaFileService.getBytes(mediaFile.getId())).isEqualTo(data);
+    try (InputStream stream = mediaFileService.loadAsResource(mediaFile).getInputStream()) {
+      assertThat(stream.readAllBytes()).isEqualTo(data);
+    }
+
+    mediaFileService.remove(mediaFile.getId());
+    assertThatThrownBy(() -> mediaFileService.loadAsResource(mediaFile).getInputStream())
+        .isInstanceOf(NoSuchFileException.class);
+  }
+
+  @Test
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public void when_openStream_contentStoredWhileReading_shouldFailTheRead() throws IOException {
+    final byte[] data = new byte[DatabaseFileStorageService.CHUNK_SIZE * 2 + 100];
+    new Random(7).nextBytes(data);
+    final UUID referenceId = UUID.randomUUID();
+    MediaFile mediaFile =
+        mediaFileService.storeFile(
+            data,
+            FILE_KEY + "/" + referenceId.toString() + "/committed.bin",
+            MediaFunction.USER_PROFILE_IMAGE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE,
+            "committed.bin",
+            referenceId);
+    try {
+      try (InputStream stream = mediaFileService.loadAsResource(mediaFile).getInputStream()) {
+        assertThat(stream.readAllBytes()).isEqualTo(data);
+      }
+      try (InputStream stream = mediaFileService.loadAsResource(mediaFile).getInputStream()) {
+        assertThat(stream.readNBytes(DatabaseFileStorageService.CHUNK_SIZE))
+            .hasSize(DatabaseFileStorageService.CHUNK_SIZE);
+        // no connection is held by the open stream, the store commits in between
+        databaseFileStorageService.storeFile(
+            MediaFunction.USER_PROFILE_IMAGE,
+            mediaFile,
+            new ByteArrayInputStream(Arrays.copyOf(data, data.length - 1)));
+        assertThatThrownBy(stream::readAllBytes)
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("changed while read");
+      }
+    } finally {
+      mediaFileService.removeAllForReference(referenceId);
+    }
+  }
+
   @Test
   public void testLocalFolder() {
     testBackend(MediaFunction.OFFER_IMAGE);
   }
 
+  @Test
+  public void when_removeAllForReference_shouldLeaveStoredObjectToReaper()
+      throws URISyntaxException {
+    final UUID referenceId = UUID.randomUUID();
+    final String fileKey = FILE_KEY + "/" + referenceId.toString() + "/removed.txt";
+    mediaFileService.storeFile(
+        "Hello world".getBytes(StandardCharsets.UTF_8),
+        fileKey,
+        MediaFunction.OFFER_IMAGE,
+        MediaType.TEXT_PLAIN_VALUE,
+        "removed.txt",
+        referenceId);
+    mediaUploadDispatcher.dispatchDue();
+    MediaFile mediaFile = mediaFileService.load(MediaFunction.OFFER_IMAGE, fileKey);
+    Path storedFile = Paths.get(mediaFile.getResourceUrl().toURI());
+
+    mediaFileService.removeAllForReference(referenceId);
+
+    assertThat(Files.exists(storedFile)).isTrue();
+    assertThat(mediaTombstoneRepository.findAll())
+        .anyMatch(tombstone -> tombstone.getMediaFileId().equals(mediaFile.getId()));
+
+    mediaReaper.reap();
+
+    assertThat(Files.exists(storedFile)).isFalse();
+    assertThat(mediaTombstoneRepository.findAll())
+        .noneMatch(tombstone -> tombstone.getMediaFileId().equals(mediaFile.getId()));
+  }
+
   private void testBackend(final MediaFunction function) {
     final byte[] data = "Hello world".getBytes(StandardCharsets.UTF_8);
     final UUID referenceId = UUID.randomUUID();
     final String originalFileName = "test.txt";
     final String fileKey = FILE_KEY + "/" + referenceId.toString() + "/" + originalFileName;
-    mediaFileService.storeFile(
-        data, fileKey, function, MediaType.TEXT_PLAIN_VALUE, originalFileName, referenceId);
+    MediaFile pending =
+        mediaFileService.storeFile(
+            data, fileKey, function, MediaType.TEXT_PLAIN_VALUE, originalFileName, referenceId);
+    assertThat(pending.isStored()).isEqualTo(function.storageType() == StorageType.LOCAL_DATABASE);
+    mediaUploadDispatcher.dispatchDue();
     MediaFile mediaFile = mediaFileService.load(function, fileKey);
+    assertThat(mediaFile.getStatus()).isEqualTo(MediaStatus.STORED);
     checkMetadata(function, mediaFile);
     try {
       final byte[] dbData = mediaFileService.getBytes(mediaFile.getId());
       assertThat(dbData).isEqualTo(data);
+      try (InputStream stream = mediaFileService.loadAsResource(mediaFile).getInputStream()) {
+        assertThat(stream.readAllBytes()).isEqualTo(data);
+      }
     } catch (final IOException ioe) {
       throw new RuntimeException(ioe);
     } finally {
       mediaFileService.remove(mediaFile.getId());
+      mediaReaper.reap();
     }
   }
 
@@ -64,5 +189,6 @@ public class MediaFileServiceImplTest {
     assertThat(mediaFile.getOriginalFilename()).isEqualTo("test.txt");
     assertThat(mediaFile.getContentType()).isEqualTo("text/plain");
     assertThat(mediaFile.getSize()).isEqualTo(11L);
+    assertThat(mediaFile.getContentHash()).isNotBlank();
   }
 }
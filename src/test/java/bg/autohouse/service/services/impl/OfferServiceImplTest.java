@@ -7,20 +7,23 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 import bg.autohouse.SingletonModelMapper;
-import bg.autohouse.data.models.Filter;
 import bg.autohouse.data.models.account.Account;
 import bg.autohouse.data.models.enums.Feature;
 import bg.autohouse.data.models.media.MediaFile;
+import bg.autohouse.data.models.media.MediaFunction;
 import bg.autohouse.data.models.offer.Offer;
 import bg.autohouse.data.repositories.AccountRepository;
-import bg.autohouse.data.repositories.FilterRepository;
 import bg.autohouse.data.repositories.LocationRepository;
 import bg.autohouse.data.repositories.ModelRepository;
 import bg.autohouse.data.repositories.OfferRepository;
 import bg.autohouse.data.repositories.VehicleRepository;
+import bg.autohouse.service.cache.LatestOffersLoader;
+import bg.autohouse.service.counters.OfferHitCounter;
+import bg.autohouse.service.models.FilterCriteria;
 import bg.autohouse.service.models.offer.OfferServiceModel;
+import bg.autohouse.service.search.OfferSearchIndex;
 import bg.autohouse.service.services.MediaFileService;
-import bg.autohouse.util.ImageResizer;
+import bg.autohouse.service.services.UploadSessionService;
 import bg.autohouse.util.ModelMapperWrapper;
 import bg.autohouse.web.enums.RestMessage;
 import bg.autohouse.web.models.request.offer.OfferCreateRequest;
@@ -32,6 +35,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -45,46 +49,45 @@ public class OfferServiceImplTest {
   @InjectMocks OfferServiceImpl offerService;
 
   @Mock OfferRepository offerRepository;
-  @Mock FilterRepository filterRepository;
   @Mock VehicleRepository vehicleRepository;
   @Mock ModelRepository modelRepository;
   @Mock ModelMapperWrapper modelMapper;
   @Mock LocationRepository locationRepository;
   @Mock AccountRepository accountRepository;
   @Mock MediaFileService mediaFileService;
-  @Mock ImageResizer imageResizer;
+  @Mock UploadSessionService uploadSessionService;
+  @Mock OfferSearchIndex offerSearchIndex;
+  @Mock ApplicationEventPublisher eventPublisher;
+  @Mock LatestOffersLoader latestOffersLoader;
+  @Mock OfferHitCounter offerHitCounter;
 
   Sort sort = Sort.by("createdAt").descending();
   Pageable pageable = PageRequest.of(0, 20, sort);
 
   @Test
   void whenSearchOffers_noMatchForFeature_shouldReturnEmptyPage() {
-    Filter filter = new Filter();
-    filter.getFeatures().add(Feature.ABS);
-    when(filterRepository.findFilterById(any(UUID.class))).thenReturn(Optional.of(filter));
-    when(offerRepository.searchOffersIdsWithFeatures(any(UUID.class)))
-        .thenReturn(Collections.emptyList());
-    Page<OfferServiceModel> offersPage = offerService.searchOffers(UUID.randomUUID(), pageable);
+    FilterCriteria filter = FilterCriteria.builder().features(Set.of(Feature.ABS)).build();
+    Specification<Offer> offerSpecification = any();
+    when(offerRepository.findPage(offerSpecification, any(Pageable.class)))
+        .thenReturn(Page.empty());
+    Page<OfferServiceModel> offersPage = offerService.searchOffers(filter, pageable);
     assertThat(offersPage.isEmpty()).isTrue();
   }
 
   @Test
   void whenSearchOffers_withMatchForFeature_shouldReturnNonEmptyPage() {
-    Filter filter = new Filter();
-    filter.getFeatures().add(Feature.ABS);
-    when(filterRepository.findFilterById(any(UUID.class))).thenReturn(Optional.of(filter));
+    FilterCriteria filter = FilterCriteria.builder().features(Set.of(Feature.ABS)).build();
     Offer offer = new Offer();
     offer.setId(UUID.randomUUID());
-    when(offerRepository.searchOffersIdsWithFeatures(any(UUID.class))).thenReturn(List.of(offer));
     Specification<Offer> offerSpecification = any();
-    when(offerRepository.findAll(offerSpecification, any(Pageable.class)))
+    when(offerRepository.findPage(offerSpecification, any(Pageable.class)))
         .thenReturn(new PageImpl<>(List.of(offer)));
     when(modelMapper.map(any(Offer.class), eq(OfferServiceModel.class)))
         .thenAnswer(
             invocationOnMock ->
                 SingletonModelMapper.mapper()
                     .map(invocationOnMock.getArguments()[0], OfferServiceModel.class));
-    Page<OfferServiceModel> offersPage = offerService.searchOffers(UUID.randomUUID(), pageable);
+    Page<OfferServiceModel> offersPage = offerService.searchOffers(filter, pageable);
     assertThat(offersPage.isEmpty()).isFalse();
   }
 
@@ -111,11 +114,16 @@ public class OfferServiceImplTest {
     when(offerRepository.existsById(offer.getId())).thenReturn(true);
     MediaFile mediaFile1 = new MediaFile();
     mediaFile1.setFileKey("key1");
+    mediaFile1.setBucket(MediaFunction.OFFER_IMAGE.resolveBucketName());
     MediaFile mediaFile2 = new MediaFile();
     mediaFile2.setFileKey("key2");
-    List<MediaFile> mediaFiles = Arrays.asList(mediaFile1, mediaFile2);
+    mediaFile2.setBucket(MediaFunction.OFFER_IMAGE.resolveBucketName());
+    MediaFile thumbnail = new MediaFile();
+    thumbnail.setFileKey("key1_thumb");
+    thumbnail.setBucket(MediaFunction.OFFER_THUMBNAIL_IMAGE.resolveBucketName());
+    List<MediaFile> mediaFiles = Arrays.asList(mediaFile1, mediaFile2, thumbnail);
     when(mediaFileService.loadForReference(offer.getId())).thenReturn(mediaFiles);
     List<String> imagesKeys = offerService.fetchOfferImages(offer.getId());
-    assertThat(imagesKeys).hasSize(2);
+    assertThat(imagesKeys).containsExactly("key1", "key2");
   }
 }
@@ -16,11 +16,13 @@ import bg.autohouse.service.models.UserServiceModel;
 import bg.autohouse.service.services.PasswordService;
 import bg.autohouse.service.services.UserService;
 import bg.autohouse.web.enums.RestMessage;
+import javax.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
@@ -45,6 +47,7 @@ public class UserServiceImplTest {
   @Autowired private PasswordService passwordService;
   @Autowired private UserRepository userRepository;
   @Autowired private PasswordEncoder encoder;
+  @Autowired private EntityManager entityManager;
 
   @Test
   void when_generateUserRegistrationVerifier_shouldReturnToken() {
@@ -140,6 +143,21 @@ public class UserServiceImplTest {
     assertThat(passwordsMatch).isTrue();
   }
 
+  @Test
+  void when_tryLogin_withWeakerHash_shouldUpgradeHash() {
+    User user = userRepository.findByUsernameIgnoreCase(DatabaseSeeder.USERNAME).get();
+    user.setPassword(new BCryptPasswordEncoder(4).encode("123"));
+    userRepository.saveAndFlush(user);
+
+    userService.tryLogin(DatabaseSeeder.USERNAME, "123");
+    entityManager.clear();
+
+    String upgraded =
+        userRepository.findByUsernameIgnoreCase(DatabaseSeeder.USERNAME).get().getPassword();
+    assertThat(upgraded).startsWith("$2a$10$");
+    assertThat(encoder.matches("123", upgraded)).isTrue();
+  }
+
   @Test
   void when_completeRegistration_nonExistentRequest_shouldThrow() {
     Throwable thrown =
@@ -0,0 +1,77 @@
+package bg.autohouse.service.snapshots;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bg.autohouse.data.repositories.OfferRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class ActiveOfferSnapshotTest {
+
+  private final OfferRepository offerRepository = mock(OfferRepository.class);
+  private final ExecutorService readers = Executors.newFixedThreadPool(4);
+
+  private final ActiveOfferSnapshot<List<String>> snapshot =
+      new ActiveOfferSnapshot<>(
+          "Test snapshot",
+          offerRepository,
+          mock(PlatformTransactionManager.class),
+          Runnable::run,
+          size -> new ArrayList<>(),
+          (copy, row) -> copy.add(row.getId().toString()),
+          (copy, offerId) -> copy.remove(offerId.toString()));
+
+  @AfterEach
+  void tearDown() {
+    readers.shutdownNow();
+  }
+
+  @Test
+  void when_ensureReady_calledConcurrently_shouldBuildOnce() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(offerRepository.findAllActiveIndexRows())
+        .thenAnswer(
+            invocation -> {
+              loading.countDown();
+              release.await(5, TimeUnit.SECONDS);
+              return List.of();
+            });
+
+    List<Future<?>> calls = new ArrayList<>();
+    calls.add(readers.submit(snapshot::ensureReady));
+    assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+    for (int i = 0; i < 3; i++) {
+      calls.add(readers.submit(snapshot::ensureReady));
+    }
+    release.countDown();
+    for (Future<?> call : calls) {
+      call.get(5, TimeUnit.SECONDS);
+    }
+
+    assertThat(snapshot.isReady()).isTrue();
+    verify(offerRepository, times(1)).findAllActiveIndexRows();
+  }
+
+  @Test
+  void when_ensureReady_snapshotBuilt_shouldNotRebuild() {
+    when(offerRepository.findAllActiveIndexRows()).thenReturn(List.of());
+    snapshot.rebuild();
+
+    snapshot.ensureReady();
+
+    verify(offerRepository, times(1)).findAllActiveIndexRows();
+  }
+}
@@ -0,0 +1,90 @@
+package bg.autohouse.service.statistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import bg.autohouse.data.models.enums.BodyStyle;
+import bg.autohouse.data.projections.offer.OfferIndexRow;
+import bg.autohouse.service.models.offer.OfferRangeStatisticsServiceModel;
+import bg.autohouse.service.models.offer.OfferStatisticsServiceModel;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+public class OfferStatisticsAccumulatorTest {
+
+  private final OfferStatisticsAccumulator statistics = new OfferStatisticsAccumulator();
+
+  @Test
+  void whenUpsert_shouldTrackMinMaxAndCount() {
+    statistics.upsert(row(UUID.randomUUID(), "Audi", BodyStyle.SEDAN, 10000, 2010, 150000));
+    statistics.upsert(row(UUID.randomUUID(), "BMW", BodyStyle.COUPE, 30000, 2018, 20000));
+
+    OfferStatisticsServiceModel summary = statistics.summary();
+
+    assertThat(summary.getTotalOffers()).isEqualTo(2);
+    assertThat(summary.getMinPrice()).isEqualTo(10000);
+    assertThat(summary.getMaxPrice()).isEqualTo(30000);
+    assertThat(summary.getMinYear()).isEqualTo(2010);
+    assertThat(summary.getMaxMileage()).isEqualTo(150000);
+  }
+
+  @Test
+  void whenUpdateAndRemove_shouldDropOldValues() {
+    UUID cheap = UUID.randomUUID();
+    UUID expensive = UUID.randomUUID();
+    statistics.upsert(row(cheap, "Audi", BodyStyle.SEDAN, 10000, 2010, 150000));
+    statistics.upsert(row(expensive, "Audi", BodyStyle.SEDAN, 30000, 2018, 20000));
+
+    statistics.upsert(row(cheap, "Audi", BodyStyle.SEDAN, 15000, 2010, 150000));
+    statistics.remove(expensive);
+
+    OfferStatisticsServiceModel summary = statistics.summary();
+    assertThat(summary.getTotalOffers()).isEqualTo(1);
+    assertThat(summary.getMinPrice()).isEqualTo(15000);
+    assertThat(summary.getMaxPrice()).isEqualTo(15000);
+  }
+
+  @Test
+  void whenNoOffers_shouldReturnEmptyStatistics() {
+    OfferStatisticsServiceModel summary = statistics.summary();
+
+    assertThat(summary.getTotalOffers()).isZero();
+    assertThat(summary.getMaxPrice()).isNull();
+    assertThat(statistics.forMaker("Audi", 10).getPrice().getCounts()).isEmpty();
+  }
+
+  @Test
+  void whenHistogram_shouldGroupByMakerAndBodyStyle() {
+    statistics.upsert(row(UUID.randomUUID(), "Audi", BodyStyle.SEDAN, 1000, 2010, 1));
+    statistics.upsert(row(UUID.randomUUID(), "Audi", BodyStyle.COUPE, 1500, 2011, 1));
+    statistics.upsert(row(UUID.randomUUID(), "AUDI", BodyStyle.SEDAN, 10999, 2012, 1));
+    statistics.upsert(row(UUID.randomUUID(), "BMW", BodyStyle.SEDAN, 50000, 2013, 1));
+
+    OfferRangeStatisticsServiceModel audi = statistics.forMaker("audi", 10);
+    OfferRangeStatisticsServiceModel sedans = statistics.forBodyStyle(BodyStyle.SEDAN, 10);
+
+    assertThat(audi.getTotalOffers()).isEqualTo(3);
+    assertThat(audi.getPrice().getMin()).isEqualTo(1000);
+    assertThat(audi.getPrice().getMax()).isEqualTo(10999);
+    assertThat(audi.getPrice().getBucketWidth()).isEqualTo(1000);
+    assertThat(audi.getPrice().getCounts()).hasSize(10);
+    assertThat(audi.getPrice().getCounts().get(0)).isEqualTo(2);
+    assertThat(audi.getPrice().getCounts().get(9)).isEqualTo(1);
+    assertThat(sedans.getTotalOffers()).isEqualTo(3);
+    assertThat(sedans.getYear().getCounts().stream().mapToLong(Long::longValue).sum())
+        .isEqualTo(3);
+  }
+
+  private static OfferIndexRow row(
+      UUID id, String maker, BodyStyle bodyStyle, int price, int year, int mileage) {
+    OfferIndexRow row = mock(OfferIndexRow.class);
+    when(row.getId()).thenReturn(id);
+    when(row.getMakerName()).thenReturn(maker);
+    when(row.getBodyStyle()).thenReturn(bodyStyle);
+    when(row.getPrice()).thenReturn(price);
+    when(row.getYear()).thenReturn(year);
+    when(row.getMileage()).thenReturn(mileage);
+    return row;
+  }
+}
@@ -0,0 +1,38 @@
+package bg.autohouse.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import bg.autohouse.service.models.offer.OfferServiceModel;
+import bg.autohouse.util.CacheWeigher;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+
+public class CacheWeigherTest {
+
+  private final CacheWeigher weigher = new CacheWeigher();
+
+  @Test
+  void when_weighPage_shouldGrowWithContent() {
+    OfferServiceModel offer = new OfferServiceModel();
+    offer.setId("4b8f5a1e-3f4c-4d47-9c53-9a9a3f6f0f10");
+    offer.setVehicleMakerName("Audi");
+
+    int empty = weigher.weigh("key", new PageImpl<>(Collections.emptyList()));
+    int one = weigher.weigh("key", new PageImpl<>(List.of(offer)));
+    int two = weigher.weigh("key", new PageImpl<>(List.of(offer, offer)));
+
+    assertThat(empty).isPositive();
+    assertThat(one).isGreaterThan(empty);
+    assertThat(two - one).isEqualTo(one - empty);
+  }
+
+  @Test
+  void when_weighList_shouldMatchPageContent() {
+    OfferServiceModel offer = new OfferServiceModel();
+
+    assertThat(CacheWeigher.estimate(new PageImpl<>(List.of(offer))))
+        .isGreaterThan(CacheWeigher.estimate(List.of(offer)));
+  }
+}
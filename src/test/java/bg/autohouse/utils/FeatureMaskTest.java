@@ -0,0 +1,58 @@
+package bg.autohouse.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import bg.autohouse.data.models.enums.Feature;
+import bg.autohouse.util.FeatureMask;
+import java.util.EnumSet;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class FeatureMaskTest {
+
+  @Test
+  void when_encodeAndDecode_allFeatures_shouldReturnSameSet() {
+    EnumSet<Feature> features = EnumSet.allOf(Feature.class);
+    long low = FeatureMask.low(features);
+    long high = FeatureMask.high(features);
+    assertThat(low).isPositive();
+    assertThat(high).isPositive();
+    assertThat(FeatureMask.decode(low, high)).isEqualTo(features);
+  }
+
+  @Test
+  void when_encode_shouldUseExplicitBits() {
+    assertThat(FeatureMask.low(List.of(Feature.SUNROOF))).isEqualTo(1L << Feature.SUNROOF.getBit());
+    assertThat(FeatureMask.high(List.of(Feature.VELOUR)))
+        .isEqualTo(1L << (Feature.VELOUR.getBit() - FeatureMask.BITS_PER_MASK));
+    assertThat(EnumSet.allOf(Feature.class))
+        .extracting(Feature::getBit)
+        .doesNotHaveDuplicates();
+  }
+
+  @Test
+  void when_containsAll_withSubsetOfFeatures_shouldReturnTrue() {
+    List<Feature> vehicleFeatures = List.of(Feature.ABS, Feature.SUNROOF, Feature.VELOUR);
+    List<Feature> required = List.of(Feature.ABS, Feature.VELOUR);
+    boolean containsAll =
+        FeatureMask.containsAll(
+            FeatureMask.low(vehicleFeatures),
+            FeatureMask.high(vehicleFeatures),
+            FeatureMask.low(required),
+            FeatureMask.high(required));
+    assertThat(containsAll).isTrue();
+  }
+
+  @Test
+  void when_containsAll_withMissingFeature_shouldReturnFalse() {
+    List<Feature> vehicleFeatures = List.of(Feature.ABS, Feature.SUNROOF);
+    List<Feature> required = List.of(Feature.ABS, Feature.VELOUR);
+    boolean containsAll =
+        FeatureMask.containsAll(
+            FeatureMask.low(vehicleFeatures),
+            FeatureMask.high(vehicleFeatures),
+            FeatureMask.low(required),
+            FeatureMask.high(required));
+    assertThat(containsAll).isFalse();
+  }
+}
@@ -1,5 +1,6 @@
 package bg.autohouse.utils;
 
+import bg.autohouse.data.models.media.ImageVariant;
 import bg.autohouse.util.ImageResizer;
 import bg.autohouse.util.ImageUtil;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,6 +12,7 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Map;
 
 import static bg.autohouse.web.controllers.ImageFetchControllerTest.extractBytes;
 
@@ -56,6 +58,85 @@ public class ImageResizerTest {
     assertThat(inputImage.getWidth()).isEqualTo(50);
   }
 
+  @Test
+  void when_createVariants_shouldFitEachVariant() throws IOException {
+    byte[] imageBytes = extractBytes("00002.jpg");
+    Map<ImageVariant, byte[]> variants =
+        imageResizer.createVariants(byteToByteArrayInputStream(imageBytes));
+    assertThat(variants).containsOnlyKeys(ImageVariant.values());
+    for (ImageVariant variant : ImageVariant.values()) {
+      BufferedImage image = toBufferImage(variants.get(variant));
+      assertThat(image.getWidth()).isLessThanOrEqualTo(variant.width());
+      assertThat(image.getHeight()).isLessThanOrEqualTo(variant.height());
+    }
+  }
+
+  @Test
+  void when_toJpgDownscaleToSize_plainSmallJpeg_shouldPassThrough() throws IOException {
+    byte[] jpeg = ImageResizer.toJPG(gradient(600, 400, BufferedImage.TYPE_INT_RGB));
+
+    byte[] image = imageResizer.toJpgDownscaleToSize(byteToByteArrayInputStream(jpeg));
+
+    assertThat(image).isEqualTo(jpeg);
+    assertThat(imageResizer.createVariants(byteToByteArrayInputStream(jpeg)))
+        .containsEntry(ImageVariant.FULL, jpeg);
+  }
+
+  @Test
+  void when_toJpgDownscaleToSize_jpegWithExif_shouldEncodeAgain() throws IOException {
+    byte[] jpeg = ImageResizer.toJPG(gradient(600, 400, BufferedImage.TYPE_INT_RGB));
+    byte[] exif = {(byte) 0xff, (byte) 0xe1, 0, 8, 'E', 'x', 'i', 'f', 0, 0};
+    byte[] withExif = new byte[jpeg.length + exif.length];
+    System.arraycopy(jpeg, 0, withExif, 0, 2);
+    System.arraycopy(exif, 0, withExif, 2, exif.length);
+    System.arraycopy(jpeg, 2, withExif, 2 + exif.length, jpeg.length - 2);
+
+    byte[] image = imageResizer.toJpgDownscaleToSize(byteToByteArrayInputStream(withExif));
+
+    assertThat(image).isNotEqualTo(withExif);
+    assertThat(toBufferImage(image).getWidth()).isEqualTo(600);
+  }
+
+  @Test
+  void when_toJpgDownscaleToSize_largeImage_shouldFitWithinMaxSize() throws IOException {
+    byte[] jpeg = ImageResizer.toJPG(gradient(4000, 3000, BufferedImage.TYPE_INT_RGB));
+
+    BufferedImage image =
+        toBufferImage(imageResizer.toJpgDownscaleToSize(byteToByteArrayInputStream(jpeg)));
+
+    assertThat(image.getWidth()).isEqualTo(1024);
+    assertThat(image.getHeight()).isEqualTo(768);
+  }
+
+  @Test
+  void when_toJPG_transparentImage_shouldFillWhite() throws IOException {
+    BufferedImage transparent = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+
+    BufferedImage image = toBufferImage(ImageResizer.toJPG(transparent));
+
+    assertThat(image.getRGB(32, 32) & 0xffffff).isGreaterThan(0xf0f0f0);
+  }
+
+  @Test
+  void when_variantFileKey_shouldKeepFullKeyAndSuffixOthers() {
+    String key = "offer-images/2020/05/02/id/pic_1.png";
+    assertThat(ImageVariant.FULL.fileKey(key)).isEqualTo(key);
+    assertThat(ImageVariant.THUMBNAIL.fileKey(key))
+        .isEqualTo("offer-images/2020/05/02/id/pic_1_thumb.jpg");
+    assertThat(ImageVariant.MEDIUM.fileKey("offer-images/image"))
+        .isEqualTo("offer-images/image_medium.jpg");
+  }
+
+  private static BufferedImage gradient(int width, int height, int type) {
+    BufferedImage image = new BufferedImage(width, height, type);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        image.setRGB(x, y, ((x * 255 / width) << 16) | ((y * 255 / height) << 8) | 0x80);
+      }
+    }
+    return image;
+  }
+
   public static ByteArrayInputStream byteToByteArrayInputStream(byte[] bytes) throws IOException {
     try (ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes)) {
       return inputStream;
@@ -3,6 +3,7 @@ package bg.autohouse.utils;
 import bg.autohouse.data.models.User;
 import bg.autohouse.data.repositories.UserRepository;
 import bg.autohouse.errors.ExceptionsMessages;
+import bg.autohouse.security.authentication.AuthenticatedUser;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,8 +31,10 @@ public class WithAutohouseUserSecurityContextFactory
         userRepository
             .findByUsernameIgnoreCase(customUser.value())
             .orElseThrow(() -> new UsernameNotFoundException(ExceptionsMessages.NO_SUCH_USERNAME));
+    AuthenticatedUser principal =
+        new AuthenticatedUser(user.getId(), user.getUsername(), user.getRoles());
     Authentication auth =
-        new UsernamePasswordAuthenticationToken(user, user.getPassword(), user.getAuthorities());
+        new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
     context.setAuthentication(auth);
     return context;
   }
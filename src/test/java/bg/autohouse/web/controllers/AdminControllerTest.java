@@ -2,8 +2,13 @@ package bg.autohouse.web.controllers;
 
 import bg.autohouse.MvcPerformer;
 import bg.autohouse.config.DatabaseSeeder;
+import bg.autohouse.data.models.Maker;
+import bg.autohouse.data.models.Model;
 import bg.autohouse.data.models.User;
+import bg.autohouse.data.models.account.Account;
 import bg.autohouse.data.models.enums.Role;
+import bg.autohouse.data.repositories.AccountRepository;
+import bg.autohouse.data.repositories.MakerRepository;
 import bg.autohouse.service.models.UserServiceModel;
 import bg.autohouse.service.models.user.UserRowServiceModel;
 import bg.autohouse.service.services.UserService;
@@ -13,6 +18,7 @@ import bg.autohouse.web.models.request.account.AccountCreateRequest;
 import bg.autohouse.web.models.request.account.AccountWrapper;
 import bg.autohouse.web.models.wrappers.ListWrapper;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
@@ -31,12 +37,16 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import static bg.autohouse.config.WebConfiguration.MEDIA_TYPE_CSV;
+import static bg.autohouse.config.WebConfiguration.MEDIA_TYPE_NDJSON;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.CoreMatchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -62,6 +72,8 @@ public class AdminControllerTest extends MvcPerformer {
 
   @Autowired protected MockMvc mockMvc;
   @Autowired private UserService userService;
+  @Autowired private AccountRepository accountRepository;
+  @Autowired private MakerRepository makerRepository;
   @Autowired ObjectMapper mapper;
   private HttpHeaders headers;
 
@@ -202,7 +214,66 @@ public class AdminControllerTest extends MvcPerformer {
             .collect(Collectors.toList());
     performPost(API_BASE + "/accounts/bulk", accounts, headers)
         .andExpect(status().isOk())
-        .andExpect(jsonPath("$", Matchers.greaterThan(0)));
+        .andExpect(jsonPath("$", is(accounts.size())));
+    User dealer = userService.fetchUserByUsername(registeredUsers.get(0).getUsername());
+    assertThat(dealer.isHasAccount()).isTrue();
+    Account account = accountRepository.findByUserId(dealer.getId()).orElseThrow();
+    assertThat(account.getAddress().getLocation().getPostalCode()).isEqualTo(1000);
+    performPost(API_BASE + "/accounts/bulk", accounts, headers)
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", is(0)));
+  }
+
+  @Test
+  void when_importUsers_ndjson_shouldStreamResultPerRow() throws Exception {
+    String body =
+        "{\"username\":\"import_one@mail.com\",\"name\":{\"first\":\"One\"}}\n"
+            + "\"IMPORT_ONE@mail.com\"\n"
+            + "{\"username\":\"not-an-email\"}\n"
+            + "{\"username\":\""
+            + DatabaseSeeder.USERNAME
+            + "\"}\n"
+            + "{\"username\":";
+    List<JsonNode> results = importUsers(body, MEDIA_TYPE_NDJSON);
+    assertThat(results)
+        .extracting(result -> result.get("status").asText())
+        .containsExactly("CREATED", "DUPLICATE", "INVALID", "EXISTS", "FAILED");
+    assertThat(results)
+        .extracting(result -> result.get("line").asLong())
+        .containsExactly(1L, 2L, 3L, 4L, 5L);
+    User imported = userService.fetchUserByUsername("import_one@mail.com");
+    assertThat(imported.getId().toString()).isEqualTo(results.get(0).get("id").asText());
+    assertThat(imported.getRoles()).containsExactly(Role.USER);
+  }
+
+  @Test
+  void when_importUsers_csv_shouldSkipHeaderAndImportFirstColumn() throws Exception {
+    String body = "username,name\nimport_csv@mail.com,Csv\n\n\"import_csv2@mail.com\",Other\n";
+    List<JsonNode> results = importUsers(body, MEDIA_TYPE_CSV);
+    assertThat(results)
+        .extracting(result -> result.get("line").asLong() + ":" + result.get("status").asText())
+        .containsExactly("2:CREATED", "4:CREATED");
+    assertThat(userService.fetchUserByUsername("import_csv2@mail.com")).isNotNull();
+  }
+
+  private List<JsonNode> importUsers(String body, String contentType) throws Exception {
+    String content =
+        mockMvc
+            .perform(
+                post(API_BASE + "/users/import")
+                    .headers(headers)
+                    .contentType(contentType)
+                    .accept(MEDIA_TYPE_NDJSON)
+                    .content(body))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    List<JsonNode> results = new ArrayList<>();
+    for (String line : content.split("\n")) {
+      results.add(mapper.readTree(line));
+    }
+    return results;
   }
 
   @Test
@@ -220,6 +291,61 @@ public class AdminControllerTest extends MvcPerformer {
         .andExpect(jsonPath("$", Matchers.greaterThan(0)));
   }
 
+  @Test
+  void when_bulkInsertMakers_dryRun_shouldReportRowsAndWriteNothing() throws Exception {
+    TrimCreateRequest trim = TrimCreateRequest.of(2000, "Trim1");
+    ModelTrimsCreateRequest model = ModelTrimsCreateRequest.of("Model1", List.of(trim));
+    MakerModelsTrimsCreateRequest maker =
+        MakerModelsTrimsCreateRequest.of("DryRunMaker", List.of(model));
+    performPost(API_BASE + "/makers/bulk?dryRun=true", List.of(maker), headers)
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.valid", is(true)))
+        .andExpect(jsonPath("$.rows.auto_makers", is(1)))
+        .andExpect(jsonPath("$.rows.auto_models", is(1)))
+        .andExpect(jsonPath("$.rows.auto_trims", is(1)));
+    assertThat(makerRepository.existsByName("DryRunMaker")).isFalse();
+  }
+
+  @Test
+  void when_bulkInsertMakers_invalidMakers_shouldReturn400() throws Exception {
+    ModelTrimsCreateRequest model = ModelTrimsCreateRequest.of("Model1", List.of());
+    MakerModelsTrimsCreateRequest maker1 =
+        MakerModelsTrimsCreateRequest.of("Maker1", List.of(model, model));
+    MakerModelsTrimsCreateRequest maker2 =
+        MakerModelsTrimsCreateRequest.of("maker1", List.of(model));
+    performPost(API_BASE + "/makers/bulk", List.of(maker1, maker2), headers)
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message", is("INVALID_CATALOG_IMPORT")))
+        .andExpect(jsonPath("$.data.errorCount", is(2)));
+    assertThat(makerRepository.existsByName("Maker1")).isFalse();
+  }
+
+  @Test
+  void when_bulkInsertMakers_shouldLinkModelsAndKeepIdentityUsable() throws Exception {
+    TrimCreateRequest trim = TrimCreateRequest.of(2000, "Trim1");
+    ModelTrimsCreateRequest model1 = ModelTrimsCreateRequest.of("Model1", List.of(trim));
+    ModelTrimsCreateRequest model2 = ModelTrimsCreateRequest.of("Model2", List.of(trim));
+    ModelTrimsCreateRequest model3 = ModelTrimsCreateRequest.of("Model3", List.of(trim));
+    MakerModelsTrimsCreateRequest maker =
+        MakerModelsTrimsCreateRequest.of("LinkedMaker", List.of(model1, model2));
+    MakerModelsTrimsCreateRequest other =
+        MakerModelsTrimsCreateRequest.of("OtherLinkedMaker", List.of(model3));
+    long makersBefore = makerRepository.count();
+    performPost(API_BASE + "/makers/bulk", List.of(maker, other), headers)
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", is((int) makersBefore + 2)));
+
+    Maker created = makerRepository.findByName("LinkedMaker").orElseThrow();
+    assertThat(created.getModels())
+        .extracting(Model::getName)
+        .containsExactlyInAnyOrder("Model1", "Model2");
+    assertThat(makerRepository.findByName("OtherLinkedMaker").orElseThrow().getModels())
+        .extracting(Model::getName)
+        .containsExactly("Model3");
+    Maker after = makerRepository.saveAndFlush(Maker.builder().name("AfterImport").build());
+    assertThat(after.getId()).isGreaterThan(created.getId());
+  }
+
   @Test
   void when_bulkInsertProvinces_shouldReturn200() throws Exception {
     LocationCreateRequest location1 =
@@ -0,0 +1,60 @@
+package bg.autohouse.web.controllers;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import bg.autohouse.MvcPerformer;
+import bg.autohouse.config.DatabaseSeeder;
+import bg.autohouse.data.models.User;
+import bg.autohouse.service.services.UserService;
+import bg.autohouse.web.models.request.UserLoginRequest;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Runs without a test transaction, the revocations are applied only once the admin change is
+ * committed. Every test leaves the users as it found them.
+ */
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource("classpath:test.properties")
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class AdminRevocationControllerTest extends MvcPerformer {
+  private static final String API_BASE = "/api/admin";
+  private static final String USER_ACCOUNT = "/api/accounts/user-account";
+
+  @Autowired protected MockMvc mockMvc;
+  @Autowired private UserService userService;
+
+  @Override
+  public MockMvc getMockMvc() {
+    return mockMvc;
+  }
+
+  @Test
+  void when_toggleActive_disabledUser_thenRejectToken() throws Exception {
+    HttpHeaders headers =
+        getAuthHeadersFor(UserLoginRequest.of(DatabaseSeeder.ROOT_USERNAME, "123"));
+    User user = userService.fetchUserByUsername(DatabaseSeeder.USERNAME);
+    HttpHeaders userHeaders =
+        getAuthHeadersFor(UserLoginRequest.of(DatabaseSeeder.USERNAME, "123"));
+    performGet(USER_ACCOUNT, userHeaders).andExpect(status().is(Matchers.not(401)));
+    performGet(API_BASE + "/user/toggle-active/" + user.getId(), headers)
+        .andExpect(jsonPath("$", is(false)));
+    performGet(USER_ACCOUNT, userHeaders).andExpect(status().isUnauthorized());
+    performGet(API_BASE + "/user/toggle-active/" + user.getId(), headers)
+        .andExpect(jsonPath("$", is(true)));
+    performGet(USER_ACCOUNT, userHeaders).andExpect(status().is(Matchers.not(401)));
+  }
+}
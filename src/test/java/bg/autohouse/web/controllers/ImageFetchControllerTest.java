@@ -1,8 +1,10 @@
 package bg.autohouse.web.controllers;
 
 import bg.autohouse.MvcPerformer;
+import bg.autohouse.data.models.media.ImageVariant;
 import bg.autohouse.data.models.media.MediaFile;
 import bg.autohouse.data.models.media.MediaFunction;
+import bg.autohouse.data.models.media.StorageType;
 import bg.autohouse.service.services.MediaFileService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,6 +14,9 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
@@ -23,14 +28,22 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Optional;
 
 import static bg.autohouse.config.WebConfiguration.APP_V1_MEDIA_TYPE_JSON;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @Transactional
@@ -45,6 +58,8 @@ public class ImageFetchControllerTest extends MvcPerformer {
   static final String FILE_KEY =
       "offer-images/2020/05/02/44a8da7d-e55c-467b-ba91-201db3747c2b/image";
 
+  byte[] imageBytes;
+
   @Autowired MockMvc mockMvc;
 
   @MockBean MediaFileService mediaFileService;
@@ -56,12 +71,17 @@ public class ImageFetchControllerTest extends MvcPerformer {
 
   @BeforeEach
   void initHeaders() throws Exception {
-    byte[] imageBytes = extractBytes("00002.jpg");
+    imageBytes = extractBytes("00002.jpg");
     when(mediaFileService.getBytes(any(MediaFile.class))).thenReturn(imageBytes);
+    when(mediaFileService.loadAsResource(any(MediaFile.class)))
+        .thenReturn(new ByteArrayResource(imageBytes));
     MediaFile mediaFile = new MediaFile();
     mediaFile.setOriginalFilename("image");
     mediaFile.setContentType(MediaType.IMAGE_JPEG_VALUE);
     mediaFile.setFileKey(FILE_KEY);
+    mediaFile.setContentHash("abc123");
+    mediaFile.setSize(imageBytes.length);
+    mediaFile.setCreatedAt(new Date(1588377600000L));
     when(mediaFileService.load(any(MediaFunction.class), any(String.class))).thenReturn(mediaFile);
   }
 
@@ -73,7 +93,38 @@ public class ImageFetchControllerTest extends MvcPerformer {
                 .contentType(APP_V1_MEDIA_TYPE_JSON)
                 .accept(APP_V1_MEDIA_TYPE_JSON))
         .andExpect(status().isOk())
-        .andExpect(content().contentType(MediaType.IMAGE_JPEG_VALUE));
+        .andExpect(content().contentType(MediaType.IMAGE_JPEG_VALUE))
+        .andExpect(header().string(HttpHeaders.ETAG, "\"abc123-" + imageBytes.length + "\""))
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")))
+        .andExpect(content().bytes(imageBytes));
+  }
+
+  @Test
+  void when_fetchOfferImage_matchingETag_shouldReturn304() throws Exception {
+    mockMvc
+        .perform(
+            get(API_BASE + "/" + FILE_KEY)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"abc123-" + imageBytes.length + "\""))
+        .andExpect(status().isNotModified());
+  }
+
+  @Test
+  void when_fetchOfferImage_notModifiedSince_shouldReturn304() throws Exception {
+    mockMvc
+        .perform(
+            get(API_BASE + "/" + FILE_KEY)
+                .header(HttpHeaders.IF_MODIFIED_SINCE, "Sat, 02 May 2020 00:00:00 GMT"))
+        .andExpect(status().isNotModified());
+  }
+
+  @Test
+  void when_fetchOfferImage_range_shouldReturn206() throws Exception {
+    mockMvc
+        .perform(get(API_BASE + "/" + FILE_KEY).header(HttpHeaders.RANGE, "bytes=0-99"))
+        .andExpect(status().isPartialContent())
+        .andExpect(
+            header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-99/" + imageBytes.length))
+        .andExpect(content().bytes(Arrays.copyOfRange(imageBytes, 0, 100)));
   }
 
   @Test
@@ -88,6 +139,79 @@ public class ImageFetchControllerTest extends MvcPerformer {
         .andExpect(content().contentType(MediaType.IMAGE_JPEG_VALUE));
   }
 
+  @Test
+  void when_fetchOfferImageThumbnail_storedVariant_shouldServeIt() throws Exception {
+    byte[] thumbnail = "stored thumbnail".getBytes();
+    MediaFile variant = new MediaFile();
+    variant.setContentType(MediaType.IMAGE_JPEG_VALUE);
+    variant.setFileKey(ImageVariant.THUMBNAIL.fileKey(FILE_KEY));
+    variant.setContentHash("thumb123");
+    variant.setSize(thumbnail.length);
+    when(mediaFileService.find(
+            MediaFunction.OFFER_THUMBNAIL_IMAGE, ImageVariant.THUMBNAIL.fileKey(FILE_KEY)))
+        .thenReturn(Optional.of(variant));
+    when(mediaFileService.loadAsResource(variant)).thenReturn(new ByteArrayResource(thumbnail));
+    mockMvc
+        .perform(get(API_BASE + "/" + FILE_KEY).param("size", "thumbnail"))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"thumb123-" + thumbnail.length + "\""))
+        .andExpect(content().bytes(thumbnail));
+  }
+
+  @Test
+  void when_fetchOfferImage_localFileWithSendfile_shouldLeaveTransferToContainer()
+      throws Exception {
+    File file = localImage();
+    mockMvc
+        .perform(
+            get(API_BASE + "/" + FILE_KEY)
+                .requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE))
+        .andExpect(status().isOk())
+        .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, file.length()))
+        .andExpect(
+            request().attribute("org.apache.tomcat.sendfile.filename", file.getCanonicalPath()))
+        .andExpect(request().attribute("org.apache.tomcat.sendfile.end", file.length()))
+        .andExpect(content().bytes(new byte[0]));
+  }
+
+  @Test
+  void when_fetchOfferImage_localFileWithSendfile_matchingETag_shouldReturn304()
+      throws Exception {
+    localImage();
+    mockMvc
+        .perform(
+            get(API_BASE + "/" + FILE_KEY)
+                .requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"local123-42\""))
+        .andExpect(status().isNotModified())
+        .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", nullValue()));
+  }
+
+  @Test
+  void when_fetchOfferImage_localFileWithoutSendfile_shouldStreamIt() throws Exception {
+    File file = localImage();
+    mockMvc
+        .perform(get(API_BASE + "/" + FILE_KEY))
+        .andExpect(status().isOk())
+        .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", nullValue()))
+        .andExpect(content().bytes(Files.readAllBytes(file.toPath())));
+  }
+
+  private File localImage() {
+    File file =
+        Paths.get("src", "test", "resources", "bg", "autohouse", "web", "controllers", "00002.jpg")
+            .toFile();
+    MediaFile local = new MediaFile();
+    local.setContentType(MediaType.IMAGE_JPEG_VALUE);
+    local.setFileKey(FILE_KEY);
+    local.setContentHash("local123");
+    local.setSize(42);
+    local.setStorageType(StorageType.LOCAL_FOLDER);
+    when(mediaFileService.load(any(MediaFunction.class), any(String.class))).thenReturn(local);
+    when(mediaFileService.loadAsResource(local)).thenReturn(new FileSystemResource(file));
+    return file;
+  }
+
   public static byte[] extractBytes(String imageName) throws IOException {
     Path sourcePath =
         Paths.get("src", "test", "resources", "bg", "autohouse", "web", "controllers", imageName);
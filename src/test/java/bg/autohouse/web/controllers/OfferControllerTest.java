@@ -3,7 +3,6 @@ package bg.autohouse.web.controllers;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.Matchers.equalTo;
-import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
@@ -13,16 +12,22 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import bg.autohouse.MvcPerformer;
 import bg.autohouse.config.DatabaseSeeder;
 import bg.autohouse.data.models.User;
+import bg.autohouse.data.models.media.ImageVariant;
 import bg.autohouse.data.models.media.MediaFile;
 import bg.autohouse.data.models.media.MediaFunction;
+import bg.autohouse.data.models.media.UploadStatus;
+import bg.autohouse.service.counters.OfferHitCounter;
 import bg.autohouse.service.models.account.AccountServiceModel;
 import bg.autohouse.service.models.offer.OfferServiceModel;
 import bg.autohouse.service.services.AccountService;
 import bg.autohouse.service.services.MediaFileService;
+import bg.autohouse.service.services.OfferStatisticsService;
+import bg.autohouse.service.services.UploadSessionService;
 import bg.autohouse.service.services.UserService;
 import bg.autohouse.util.ImageResizer;
 import bg.autohouse.utils.OfferCreateRequestWrapper;
 import bg.autohouse.web.models.request.UserLoginRequest;
+import bg.autohouse.web.models.request.offer.ImageUploadCreateRequest;
 import bg.autohouse.web.models.request.offer.OfferCreateRequest;
 import bg.autohouse.web.models.request.offer.VehicleCreateRequest;
 import bg.autohouse.web.models.response.offer.OfferDetailsResponseWrapper;
@@ -30,10 +35,13 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -74,6 +82,9 @@ public class OfferControllerTest extends MvcPerformer {
   @Autowired UserService userService;
   @Autowired AccountService accountService;
   @Autowired ObjectMapper mapper;
+  @Autowired OfferHitCounter offerHitCounter;
+  @Autowired OfferStatisticsService offerStatisticsService;
+  @Autowired UploadSessionService uploadSessionService;
 
   @MockBean ImageResizer imageResizer;
   @MockBean MediaFileService mediaFileService;
@@ -104,8 +115,11 @@ public class OfferControllerTest extends MvcPerformer {
           mapper.readValue(content, OfferCreateRequestWrapper[].class);
       offersRequests.addAll(Arrays.asList(offersRequestString));
     }
-    when(imageResizer.toJpgDownscaleToSize(any(InputStream.class)))
-        .thenReturn("test image".getBytes());
+    when(imageResizer.createVariants(any(InputStream.class)))
+        .thenReturn(
+            Map.of(
+                ImageVariant.FULL, "test image".getBytes(),
+                ImageVariant.THUMBNAIL, "test thumbnail".getBytes()));
     MediaFile mediaFile = new MediaFile();
     mediaFile.setOriginalFilename("image");
     when(mediaFileService.storeFile(
@@ -190,9 +204,10 @@ public class OfferControllerTest extends MvcPerformer {
         performGet(API_BASE + "/details/" + offerServiceModel.getId(), headers)
             .andExpect(ok)
             .andExpect(jsonPath("$.data.offer.id", is(offerServiceModel.getId())))
-            .andExpect(
-                jsonPath("$.data.offer.hitCount", greaterThan(offerServiceModel.getHitCount())))
+            .andExpect(jsonPath("$.data.offer.hitCount", is(offerServiceModel.getHitCount())))
             .andReturn();
+    assertThat(offerHitCounter.pendingHits(UUID.fromString(offerServiceModel.getId())))
+        .isEqualTo(1);
     String jsonDetails = getStringContentDataNode(resultDetails);
     OfferDetailsResponseWrapper wrapper =
         convertJSONStringToObject(jsonDetails, OfferDetailsResponseWrapper.class);
@@ -236,9 +251,14 @@ public class OfferControllerTest extends MvcPerformer {
         mapper.readValue(getStringContentDataNode(result), OfferServiceModel.class);
     assertThat(offerServiceModel).isNotNull();
     assertThat(offerServiceModel.getId()).isNotNull();
+    offerStatisticsService.reconcile();
     performGet(API_BASE + "/statistics")
         .andExpect(ok)
         .andExpect(jsonPath("$.maxPrice", is(offerServiceModel.getPrice())));
+    performGet(API_BASE + "/statistics/makers/" + offerServiceModel.getVehicleMakerName())
+        .andExpect(ok)
+        .andExpect(jsonPath("$.totalOffers", is(1)))
+        .andExpect(jsonPath("$.price.max", is(offerServiceModel.getPrice())));
     performDelete(API_BASE + "/" + offerServiceModel.getId(), headers)
         .andExpect(ok)
         .andExpect(jsonPath("$", is(offerServiceModel.getId())));
@@ -263,6 +283,32 @@ public class OfferControllerTest extends MvcPerformer {
         .andExpect(jsonPath("$", is(offerServiceModel.getId())));
   }
 
+  @Test
+  void when_createOffer_withCompletedUpload_shouldReturn201() throws Exception {
+    byte[] image = ImageFetchControllerTest.extractBytes("00002.jpg");
+    ImageUploadCreateRequest uploadRequest =
+        ImageUploadCreateRequest.builder()
+            .fileName("upload.jpg")
+            .contentType(MediaType.IMAGE_JPEG_VALUE)
+            .size((long) image.length)
+            .build();
+    UUID uploadId = uploadSessionService.open(uploadRequest, user.getId()).getId();
+    uploadSessionService.writeChunk(uploadId, user.getId(), 0, new ByteArrayInputStream(image));
+    uploadSessionService.complete(uploadId, user.getId());
+    OfferCreateRequestWrapper createRequestWrapper = new OfferCreateRequestWrapper();
+    createRequestWrapper.setOffer(offersRequests.get(0).getOffer());
+    createRequestWrapper.setImages(List.of());
+    MockMultipartHttpServletRequestBuilder performBuilder =
+        offerToFormData(createRequestWrapper, API_BASE);
+    performBuilder.param("uploadIds", uploadId.toString());
+    getMockMvc()
+        .perform(performBuilder.headers(headers).contentType(MediaType.MULTIPART_FORM_DATA_VALUE))
+        .andExpect(MockMvcResultMatchers.status().isCreated());
+    assertThat(uploadSessionService.load(uploadId, user.getId()).getStatus())
+        .isEqualTo(UploadStatus.CONSUMED);
+    Files.deleteIfExists(uploadSessionService.stagingFile(uploadId));
+  }
+
   String getStringContentDataNode(MvcResult result) throws Exception {
     String contentAsString = result.getResponse().getContentAsString();
     JsonNode node = mapper.readTree(contentAsString);
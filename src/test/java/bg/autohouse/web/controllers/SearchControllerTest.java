@@ -11,7 +11,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import bg.autohouse.MvcPerformer;
 import bg.autohouse.config.DatabaseSeeder;
 import bg.autohouse.data.models.User;
+import bg.autohouse.data.models.enums.Feature;
 import bg.autohouse.data.models.enums.FuelType;
+import bg.autohouse.data.models.media.ImageVariant;
 import bg.autohouse.data.models.media.MediaFile;
 import bg.autohouse.data.models.media.MediaFunction;
 import bg.autohouse.service.models.account.AccountServiceModel;
@@ -30,10 +32,12 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -107,8 +111,11 @@ public class SearchControllerTest extends MvcPerformer {
     }
     assertThat(user).isNotNull();
     assertThat(offersRequests).isNotEmpty();
-    when(imageResizer.toJpgDownscaleToSize(any(InputStream.class)))
-        .thenReturn("test image".getBytes());
+    when(imageResizer.createVariants(any(InputStream.class)))
+        .thenReturn(
+            Map.of(
+                ImageVariant.FULL, "test image".getBytes(),
+                ImageVariant.THUMBNAIL, "test thumbnail".getBytes()));
     MediaFile mediaFile = new MediaFile();
     mediaFile.setOriginalFilename("image");
     when(mediaFileService.storeFile(
@@ -149,6 +156,43 @@ public class SearchControllerTest extends MvcPerformer {
         .andExpect(jsonPath("$.data.page.empty", is(Boolean.FALSE)));
   }
 
+  @Test
+  void whenSearchOffers_sortedByPrice_shouldKeepOrder() throws Exception {
+    FilterRequest filterRequest = FilterRequest.builder().build();
+    MvcResult result =
+        performPost(SEARCH_URL + "?size=5&sort=price,asc", filterRequest)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data.page.empty", is(Boolean.FALSE)))
+            .andReturn();
+    String content = result.getResponse().getContentAsString();
+    List<Integer> prices = JsonPath.read(content, "$.data.page.content[*].price");
+    Integer totalElements = JsonPath.read(content, "$.data.page.totalElements");
+    assertThat(prices).hasSizeLessThanOrEqualTo(5).isSorted();
+    assertThat(totalElements).isGreaterThanOrEqualTo(prices.size());
+  }
+
+  @Test
+  void whenSearchOffers_features_shouldMatchOffersHavingAllFeatures() throws Exception {
+    FilterRequest matching =
+        FilterRequest.builder()
+            .features(
+                Arrays.asList(
+                    Feature.DRIVER_SIDE_AIRBAG.name(),
+                    Feature.SPORT_PACKAGE.name(),
+                    Feature.CLOTH.name()))
+            .build();
+    FilterRequest notMatching =
+        FilterRequest.builder()
+            .features(Arrays.asList(Feature.SKI_BAG.name(), Feature.TELEVISION.name()))
+            .build();
+    performPost(SEARCH_URL, matching)
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.data.page.totalElements", is(2)));
+    performPost(SEARCH_URL, notMatching)
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.data.page.empty", is(Boolean.TRUE)));
+  }
+
   @Test
   void when_save_list_deleteFilter_shouldReturn200() throws Exception {
     FilterRequest filterRequest =
@@ -0,0 +1,143 @@
+package bg.autohouse.web.controllers;
+
+import static bg.autohouse.config.WebConfiguration.APP_V1_MEDIA_TYPE_JSON;
+import static bg.autohouse.web.controllers.ImageFetchControllerTest.extractBytes;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.CoreMatchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import bg.autohouse.MvcPerformer;
+import bg.autohouse.config.DatabaseSeeder;
+import bg.autohouse.data.models.media.UploadStatus;
+import bg.autohouse.service.services.UploadSessionService;
+import bg.autohouse.web.enums.RestMessage;
+import bg.autohouse.web.models.request.UserLoginRequest;
+import bg.autohouse.web.models.request.offer.ImageUploadCreateRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.annotation.Transactional;
+
+@Transactional
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource("classpath:test.properties")
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class UploadControllerTest extends MvcPerformer {
+  private static final String API_BASE = "/api/uploads";
+  private static final UserLoginRequest LOGIN_REQUEST_ROOT =
+      UserLoginRequest.of(DatabaseSeeder.ROOT_USERNAME, "123");
+
+  @Autowired MockMvc mockMvc;
+  @Autowired ObjectMapper mapper;
+  @Autowired UploadSessionService uploadSessionService;
+
+  HttpHeaders headers;
+  byte[] image;
+
+  @Override
+  public MockMvc getMockMvc() {
+    return mockMvc;
+  }
+
+  @BeforeEach
+  void initHeaders() throws Exception {
+    if (headers == null) headers = getAuthHeadersFor(LOGIN_REQUEST_ROOT);
+    image = extractBytes("00002.jpg");
+  }
+
+  @Test
+  void when_uploadInChunks_shouldResumeAndCommit() throws Exception {
+    UUID uploadId = openUpload(image.length);
+    int half = image.length / 2;
+
+    writeChunk(uploadId, 0, Arrays.copyOfRange(image, 0, half))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.receivedBytes", is(half)));
+    writeChunk(uploadId, half + 1, Arrays.copyOfRange(image, half + 1, image.length))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message", is(RestMessage.INVALID_UPLOAD_OFFSET.name())));
+    performPost(API_BASE + "/" + uploadId + "/commit", null, headers)
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message", is(RestMessage.UPLOAD_INCOMPLETE.name())));
+
+    performGet(API_BASE + "/" + uploadId, headers)
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.receivedBytes", is(half)));
+    writeChunk(uploadId, half, Arrays.copyOfRange(image, half, image.length))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.receivedBytes", is(image.length)));
+    performPost(API_BASE + "/" + uploadId + "/commit", null, headers)
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.status", is(UploadStatus.COMPLETED.name())));
+
+    assertThat(Files.readAllBytes(uploadSessionService.stagingFile(uploadId))).isEqualTo(image);
+    Files.deleteIfExists(uploadSessionService.stagingFile(uploadId));
+  }
+
+  @Test
+  void when_chunkExceedsDeclaredSize_shouldReturn400() throws Exception {
+    UUID uploadId = openUpload(10);
+    writeChunk(uploadId, 0, Arrays.copyOfRange(image, 0, 11))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message", is(RestMessage.UPLOAD_TOO_LARGE.name())));
+    Files.deleteIfExists(uploadSessionService.stagingFile(uploadId));
+  }
+
+  @Test
+  void when_commitNotAnImage_shouldReturn400() throws Exception {
+    byte[] text = "not an image".getBytes();
+    UUID uploadId = openUpload(text.length);
+    writeChunk(uploadId, 0, text).andExpect(status().isOk());
+    performPost(API_BASE + "/" + uploadId + "/commit", null, headers)
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message", is(RestMessage.UNSUPPORTED_IMAGE.name())));
+    Files.deleteIfExists(uploadSessionService.stagingFile(uploadId));
+  }
+
+  @Test
+  void when_getUnknownUpload_shouldReturn404() throws Exception {
+    performGet(API_BASE + "/" + UUID.randomUUID(), headers).andExpect(status().isNotFound());
+  }
+
+  UUID openUpload(long size) throws Exception {
+    ImageUploadCreateRequest request =
+        ImageUploadCreateRequest.builder()
+            .fileName("image.jpg")
+            .contentType(MediaType.IMAGE_JPEG_VALUE)
+            .size(size)
+            .build();
+    MvcResult result =
+        performPost(API_BASE, request, headers).andExpect(status().isCreated()).andReturn();
+    String content = result.getResponse().getContentAsString();
+    return UUID.fromString(mapper.readTree(content).path("data").path("id").asText());
+  }
+
+  ResultActions writeChunk(UUID uploadId, long offset, byte[] chunk) throws Exception {
+    return mockMvc.perform(
+        put(API_BASE + "/" + uploadId)
+            .headers(headers)
+            .param("offset", String.valueOf(offset))
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .accept(APP_V1_MEDIA_TYPE_JSON)
+            .content(chunk));
+  }
+}
@@ -13,6 +13,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import bg.autohouse.MvcPerformer;
 import bg.autohouse.config.DatabaseSeeder;
 import bg.autohouse.data.models.User;
+import bg.autohouse.data.models.media.ImageVariant;
 import bg.autohouse.data.models.media.MediaFile;
 import bg.autohouse.data.models.media.MediaFunction;
 import bg.autohouse.service.models.account.AccountServiceModel;
@@ -32,6 +33,7 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -104,8 +106,11 @@ public class UserControllerTest extends MvcPerformer {
     }
     assertThat(user).isNotNull();
     assertThat(offersRequests).isNotEmpty();
-    when(imageResizer.toJpgDownscaleToSize(any(InputStream.class)))
-        .thenReturn("test image".getBytes());
+    when(imageResizer.createVariants(any(InputStream.class)))
+        .thenReturn(
+            Map.of(
+                ImageVariant.FULL, "test image".getBytes(),
+                ImageVariant.THUMBNAIL, "test thumbnail".getBytes()));
     MediaFile mediaFile = new MediaFile();
     mediaFile.setOriginalFilename("image");
     when(mediaFileService.storeFile(
@@ -3,9 +3,11 @@ package bg.autohouse.web.models;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import bg.autohouse.SingletonModelMapper;
+import bg.autohouse.data.models.EntityConstants;
 import bg.autohouse.data.models.Filter;
 import bg.autohouse.data.models.enums.Feature;
 import bg.autohouse.data.models.enums.FuelType;
+import bg.autohouse.service.models.FilterCriteria;
 import bg.autohouse.util.ModelMapperWrapper;
 import bg.autohouse.util.ModelMapperWrapperImpl;
 import bg.autohouse.web.models.request.FilterRequest;
@@ -54,4 +56,38 @@ public class FilterRequestTest {
 
     assertThat(filter.getFeatures()).allMatch(f -> f != null);
   }
+
+  @Test
+  void whenToCriteria_sameRequestValues_shouldBeEqual() {
+    FilterRequest first =
+        FilterRequest.builder()
+            .makerName("Volkswagen")
+            .fuelType(FuelType.DIESEL.name())
+            .priceTo(20_000)
+            .features(Arrays.asList(Feature.METALLIC.name(), Feature.AIR_CONDITIONING.name()))
+            .build();
+    FilterRequest second =
+        FilterRequest.builder()
+            .makerName("Volkswagen")
+            .fuelType(FuelType.DIESEL.name().toLowerCase())
+            .priceTo(20_000)
+            .features(Arrays.asList(Feature.AIR_CONDITIONING.name(), Feature.METALLIC.name()))
+            .build();
+
+    FilterCriteria criteria = first.toCriteria();
+
+    assertThat(criteria).isEqualTo(second.toCriteria());
+    assertThat(criteria.hashCode()).isEqualTo(second.toCriteria().hashCode());
+    assertThat(criteria.getPriceFrom()).isEqualTo(EntityConstants.MIN_VALUE);
+  }
+
+  @Test
+  void whenToCriteria_withTrim_shouldKeepTrimAndDropBlankText() {
+    FilterRequest request = FilterRequest.builder().makerName(" ").trim("xDrive30d").build();
+
+    FilterCriteria criteria = request.toCriteria();
+
+    assertThat(criteria.getTrim()).isEqualTo("xDrive30d");
+    assertThat(criteria.getMakerName()).isNull();
+  }
 }